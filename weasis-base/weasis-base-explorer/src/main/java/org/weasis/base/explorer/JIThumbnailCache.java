@@ -24,9 +24,10 @@
 import org.slf4j.LoggerFactory;
 import org.weasis.base.explorer.list.ThumbnailList;
 import org.weasis.core.api.gui.util.GuiExecutor;
-import org.weasis.core.api.image.cv.ImageCVIO;
 import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.api.media.data.MediaElement;
+import org.weasis.core.api.media.data.Thumbnail;
+import org.weasis.core.api.media.data.ThumbnailStore;
 import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.opencv.data.PlanarImage;
 import org.weasis.opencv.op.ImageConversion;
@@ -155,17 +156,20 @@ public int getIndex() {
     public void run() {
       PlanarImage img = null;
 
-      // Get the final that contain the thumbnail when the uncompress mode is activated
-      File file = diskObject.getFile();
-      if (file != null && file.getName().endsWith(".wcv")) {
-        File thumbFile = new File(ImageCVIO.changeExtension(file.getPath(), ".jpg"));
-        if (thumbFile.canRead()) {
-          img = ImageProcessor.readImage(thumbFile, null);
-        }
+      ThumbnailStore store = ThumbnailStore.getInstance();
+      String key = diskObject.getThumbnailKey();
+      File stored = key == null ? null : store.get(key);
+      if (stored != null) {
+        img = ImageProcessor.readImage(stored, null);
       }
 
       if (img == null) {
-        img = diskObject.getRenderedImage(diskObject.getImage(null));
+        // Decoded at a lower resolution when possible, the full image is not kept in the cache
+        PlanarImage source = diskObject.getThumbnailImage(Thumbnail.MAX_SIZE, null);
+        img = Thumbnail.createThumbnail(source);
+        if (img != null && key != null) {
+          store.put(key, img);
+        }
       }
 
       if (img == null) {
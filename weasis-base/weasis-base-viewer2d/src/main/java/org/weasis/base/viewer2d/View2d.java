@@ -38,6 +38,7 @@
 import org.weasis.core.api.image.FilterOp;
 import org.weasis.core.api.image.PseudoColorOp;
 import org.weasis.core.api.image.SimpleOpManager;
+import org.weasis.core.api.image.ViewportOp;
 import org.weasis.core.api.image.WindowOp;
 import org.weasis.core.api.image.util.ImageLayer;
 import org.weasis.core.api.media.data.ImageElement;
@@ -72,6 +73,8 @@ public class View2d extends DefaultView2d<ImageElement> {
   public View2d(ImageViewerEventManager<ImageElement> eventManager) {
     super(eventManager);
     SimpleOpManager manager = imageLayer.getDisplayOpManager();
+    // Crop and downsample large images before applying the next operations
+    manager.addImageOperationAction(new ViewportOp());
     manager.addImageOperationAction(new WindowOp());
     manager.addImageOperationAction(new FilterOp());
     manager.addImageOperationAction(new PseudoColorOp());
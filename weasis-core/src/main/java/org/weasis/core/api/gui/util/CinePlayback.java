@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.gui.util;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import org.weasis.core.api.gui.util.SliderCineListener.FrameRequest;
+
+/**
+ * Frame scheduling of a cine loop.
+ *
+ * <p>The frame n is due at {@code start + n * period}, so the delays of the ticks do not
+ * accumulate. The next frames are requested ahead into a bounded ring buffer. At each tick, the
+ * frames whose time has passed are dropped, as well as the due frame when it is not decoded yet or
+ * when the previous frame is still being presented. The playback never waits for a frame.
+ */
+final class CinePlayback {
+
+  private static final long RATE_WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+  private record Frame(int value, boolean backward, FrameRequest request) {}
+
+  private final long period;
+  private final int capacity;
+  private final IntFunction<FrameRequest> requester;
+  private final IntPredicate presenter;
+  private final ArrayDeque<Frame> ring;
+
+  private long start;
+  private long lastTick;
+  private int value;
+  private boolean backward;
+  private int min;
+  private int max;
+  private boolean sweeping;
+
+  private long presentedFrames;
+  private long droppedFrames;
+  private long windowStart;
+  private long windowFrames;
+  private double rate;
+
+  /**
+   * @param period the time between two frames in nanoseconds
+   * @param capacity the maximum number of frames requested ahead
+   * @param requester requests the decoding of the frame of a slider value, returns null when the
+   *     frame is ready
+   * @param presenter presents the frame of a slider value, returns false when it cannot be done
+   *     without waiting
+   */
+  CinePlayback(
+      long period, int capacity, IntFunction<FrameRequest> requester, IntPredicate presenter) {
+    this.period = Math.max(1L, period);
+    this.capacity = Math.max(1, capacity);
+    this.requester = requester;
+    this.presenter = presenter;
+    this.ring = new ArrayDeque<>(this.capacity);
+  }
+
+  /**
+   * Starts or restarts the sequence from a slider value.
+   *
+   * @param now the current time from {@link System#nanoTime()}
+   */
+  synchronized void reset(long now, int value, int min, int max, boolean sweeping, boolean back) {
+    flush();
+    this.start = now;
+    this.lastTick = 0;
+    this.windowStart = now;
+    this.windowFrames = 0;
+    this.value = value;
+    this.min = min;
+    this.max = max;
+    this.sweeping = sweeping;
+    this.backward = back;
+    fillRing();
+  }
+
+  /**
+   * Presents the frame due at this time.
+   *
+   * @param now the current time from {@link System#nanoTime()}
+   */
+  synchronized void tick(long now) {
+    long tick = (now - start) / period;
+    long late = tick - lastTick;
+    if (late > 0) {
+      lastTick = tick;
+      Frame frame = pollDueFrame(late);
+      if (frame != null) {
+        value = frame.value();
+        backward = frame.backward();
+        if ((frame.request() == null || frame.request().isReady()) && presenter.test(value)) {
+          presentedFrames++;
+          windowFrames++;
+        } else {
+          drop(frame);
+        }
+      }
+      fillRing();
+    }
+
+    long elapsed = now - windowStart;
+    if (elapsed >= RATE_WINDOW) {
+      rate = windowFrames * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+      windowStart = now;
+      windowFrames = 0;
+    }
+  }
+
+  synchronized void flush() {
+    Frame frame;
+    while ((frame = ring.pollFirst()) != null) {
+      if (frame.request() != null) {
+        frame.request().cancel();
+      }
+    }
+  }
+
+  synchronized boolean isBackward() {
+    return backward;
+  }
+
+  synchronized long getPresentedFrames() {
+    return presentedFrames;
+  }
+
+  synchronized long getDroppedFrames() {
+    return droppedFrames;
+  }
+
+  /**
+   * @return the number of frames presented by second during the last second, 0 before the first
+   *     second
+   */
+  synchronized double getRate() {
+    return rate;
+  }
+
+  private void drop(Frame frame) {
+    droppedFrames++;
+    if (frame.request() != null) {
+      frame.request().cancel();
+    }
+  }
+
+  /**
+   * Returns the frame due {@code late} periods after the current frame. The frames in between are
+   * dropped. When they are beyond the ring, the due frame is computed directly and the frames
+   * requested ahead are cancelled, so the skipped frames are never requested.
+   */
+  private Frame pollDueFrame(long late) {
+    if (late <= ring.size()) {
+      for (long i = 1; i < late; i++) {
+        drop(ring.pollFirst());
+      }
+      return ring.pollFirst();
+    }
+    if (max <= min) {
+      return null;
+    }
+    flush();
+    droppedFrames += late - 1;
+    // The sequence is periodic after at most one cycle (a backward loop turns forward once)
+    long cycle = sweeping ? 2L * (max - min) : max - min + 1L;
+    long steps = late > cycle ? cycle + (late - cycle) % cycle : late;
+    Frame due = new Frame(value, backward, null);
+    for (long i = 0; i < steps; i++) {
+      due = nextFrame(due);
+    }
+    return new Frame(due.value(), due.backward(), requester.apply(due.value()));
+  }
+
+  private void fillRing() {
+    if (max <= min) {
+      return;
+    }
+    Frame last = ring.peekLast();
+    Frame frame = last == null ? new Frame(value, backward, null) : last;
+    while (ring.size() < capacity) {
+      frame = nextFrame(frame);
+      frame = new Frame(frame.value(), frame.backward(), requester.apply(frame.value()));
+      ring.addLast(frame);
+    }
+  }
+
+  /** Returns the frame following a frame of the sequence, without requesting it. */
+  private Frame nextFrame(Frame frame) {
+    boolean back = frame.backward();
+    int next = frame.value() + (back ? -1 : 1);
+    if (next > max) {
+      if (sweeping) {
+        back = true;
+        next = max - 1;
+      } else {
+        next = min;
+      }
+    } else if (next < min) {
+      back = false;
+      next = min + 1;
+    }
+    return new Frame(next, back, null);
+  }
+}
@@ -9,13 +9,17 @@
  */
 package org.weasis.core.api.gui.util;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
 import javax.swing.SpinnerNumberModel;
-import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.border.TitledBorder;
 import org.weasis.core.Messages;
 import org.weasis.core.api.gui.util.GuiUtils.IconColor;
+import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.util.MathUtil;
 import org.weasis.core.util.StringUtil;
 
@@ -30,49 +34,44 @@ public enum TIME {
   private static final double DEFAULT_MIN = 0.01;
   private static final double DEFAULT_MAX = 90.0;
 
-  protected volatile boolean sweeping = false;
-  private volatile boolean backward = false;
+  /** Maximum number of frames requested ahead of the displayed frame */
+  public static final int MAX_FRAMES_AHEAD = 16;
 
-  private volatile long startTime;
-  private volatile long spentTime;
+  /**
+   * The decoding of a frame requested ahead of its display.
+   *
+   * @see #getFrameRequester()
+   */
+  public interface FrameRequest {
 
-  private final AtomicInteger iteration = new AtomicInteger(0);
+    /**
+     * @return true when the frame can be displayed without waiting
+     */
+    boolean isReady();
+
+    /** Cancels the request when the frame is not displayed anymore. */
+    void cancel();
+  }
+
+  /**
+   * @param presentedFrames the number of displayed frames since the start
+   * @param droppedFrames the number of frames skipped to stay on time since the start
+   * @param rate the number of frames displayed during the last second
+   */
+  public record CineStatistics(long presentedFrames, long droppedFrames, double rate) {}
+
+  protected volatile boolean sweeping = false;
+  private volatile boolean backward = false;
 
   private final TIME time;
   private final SpinnerNumberModel speedModel;
 
-  private final Timer timer =
-      new Timer(
-          1000 / 20,
-          _ -> {
-            int step = (int) (getSpeed() / 5);
-            if (step <= 0) {
-              step = 1;
-            }
-            if (iteration.getAndIncrement() % step == 0) {
-              long prevStartTime = startTime;
-              startTime = System.currentTimeMillis();
-              if (iteration.get() > step) {
-                spentTime = (System.currentTimeMillis() - prevStartTime) / 1000;
-              } else {
-                spentTime = 0;
-              }
-            }
-            int offset = backward ? -1 : 1;
-            int frameIndex = getSliderValue() + offset;
-            if (frameIndex > getSliderMax()) {
-              if (sweeping) {
-                backward = true;
-                frameIndex = frameIndex - 2;
-              } else {
-                frameIndex = getSliderMin();
-              }
-            } else if (frameIndex < getSliderMin()) {
-              backward = false;
-              frameIndex = getSliderMin();
-            }
-            setSliderValue(frameIndex);
-          });
+  private final AtomicBoolean presenting = new AtomicBoolean(false);
+  private volatile ScheduledExecutorService scheduler;
+  private volatile CinePlayback playback;
+  private volatile int lastValue;
+  private volatile int lastMin;
+  private volatile int lastMax;
 
   protected SliderCineListener(
       Feature<? extends ActionState> action,
@@ -94,22 +93,99 @@ protected SliderCineListener(
     speedModel.addChangeListener(_ -> updateSpeed());
   }
 
-  public void start() {
-    if (!timer.isRunning() && getSliderMax() - getSliderMin() > 0) {
-      timer.setDelay((int) (1000 / getSpeed()));
-      iteration.set(0);
-      timer.start();
+  public synchronized void start() {
+    if (scheduler == null && getSliderMax() - getSliderMin() > 0) {
+      long period = Math.round(TimeUnit.SECONDS.toNanos(1) / getSpeed());
+      int ahead = Math.clamp((long) Math.ceil(getSpeed() / 2.0), 2, MAX_FRAMES_AHEAD);
+      CinePlayback p =
+          new CinePlayback(period, ahead, getFrameRequester(), this::presentFrame);
+      lastValue = getSliderValue();
+      lastMin = getSliderMin();
+      lastMax = getSliderMax();
+      p.reset(System.nanoTime(), lastValue, lastMin, lastMax, sweeping, backward);
+      ScheduledThreadPoolExecutor executor =
+          new ScheduledThreadPoolExecutor(
+              1, ThreadUtil.getThreadFactory("Cine Scheduler")); // NON-NLS
+      executor.setRemoveOnCancelPolicy(true);
+      // The delay of a tick is not added to the next ones, the frames are due at a fixed rate
+      executor.scheduleAtFixedRate(
+          () -> p.tick(System.nanoTime()), period, period, TimeUnit.NANOSECONDS);
+      playback = p;
+      scheduler = executor;
     }
   }
 
-  public void stop() {
-    if (timer.isRunning()) {
-      timer.stop();
+  public synchronized void stop() {
+    ScheduledExecutorService executor = scheduler;
+    CinePlayback p = playback;
+    if (executor != null) {
+      scheduler = null;
+      backward = p.isBackward();
+      executor.shutdownNow();
+      p.flush();
     }
   }
 
   public boolean isCining() {
-    return timer.isRunning();
+    return scheduler != null;
+  }
+
+  /**
+   * Gets the function requesting the decoding of the frame of a slider value before it is
+   * displayed. When the frame is not ready at its display time, it is skipped instead of delaying
+   * the next frames.
+   *
+   * <p>This method is called at the start of the cine loop, but the function is called by the cine
+   * scheduler: it must not read the state of the components.
+   *
+   * @return the function returning the request or null when the frame can be displayed without
+   *     waiting
+   */
+  protected IntFunction<FrameRequest> getFrameRequester() {
+    return _ -> null;
+  }
+
+  /**
+   * @return the statistics of the current or last cine loop
+   */
+  public CineStatistics getCineStatistics() {
+    CinePlayback p = playback;
+    if (p == null) {
+      return new CineStatistics(0, 0, 0.0);
+    }
+    return new CineStatistics(p.getPresentedFrames(), p.getDroppedFrames(), p.getRate());
+  }
+
+  private boolean presentFrame(int value) {
+    // Never queue more than one frame on the EDT, a late frame is dropped
+    if (!presenting.compareAndSet(false, true)) {
+      return false;
+    }
+    CinePlayback p = playback;
+    GuiExecutor.execute(
+        () -> {
+          try {
+            if (p != playback || scheduler == null) {
+              return;
+            }
+            int current = getSliderValue();
+            if (current != lastValue || lastMin != getSliderMin() || lastMax != getSliderMax()) {
+              // The slider has been moved or the series has changed: restart from the new position
+              lastValue = current;
+              lastMin = getSliderMin();
+              lastMax = getSliderMax();
+              if (lastMax - lastMin > 0) {
+                p.reset(System.nanoTime(), current, lastMin, lastMax, sweeping, p.isBackward());
+              }
+            } else {
+              lastValue = value;
+              setSliderValue(value);
+            }
+          } finally {
+            presenting.set(false);
+          }
+        });
+    return true;
   }
 
   public double getSpeed() {
@@ -148,12 +224,11 @@ public void updateSliderProperties(JSliderW slider) {
   }
 
   public double getCurrentCineRate() {
-    if (isCining()) {
-      double time = spentTime;
-      if (time == 0) {
-        return 1000.0 / timer.getDelay();
-      }
-      return spentTime;
+    CinePlayback p = playback;
+    if (isCining() && p != null) {
+      double rate = p.getRate();
+      // Before the first second of the cine loop
+      return rate == 0.0 ? getSpeed() : rate;
     }
     return 0.0;
   }
@@ -162,10 +237,10 @@ public void setSpeed(double speed) {
     speedModel.setValue(Math.max(DEFAULT_MIN, Math.min(speed, DEFAULT_MAX)));
   }
 
-  protected void updateSpeed() {
-    if (timer.isRunning()) {
-      iteration.set(0);
-      timer.setDelay((int) (1000 / getSpeed()));
+  protected synchronized void updateSpeed() {
+    if (isCining()) {
+      stop();
+      start();
     }
   }
 
@@ -173,7 +248,11 @@ public SpinnerNumberModel getSpeedModel() {
     return speedModel;
   }
 
-  public void setSweeping(boolean sweep) {
-    this.sweeping = sweep;
+  public synchronized void setSweeping(boolean sweep) {
+    if (sweeping != sweep) {
+      this.sweeping = sweep;
+      // The frames requested ahead depend on the direction
+      updateSpeed();
+    }
   }
 }
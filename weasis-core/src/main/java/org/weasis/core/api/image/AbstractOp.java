@@ -11,11 +11,13 @@
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import org.weasis.core.util.LangUtil;
 
 public abstract class AbstractOp implements ImageOpNode {
 
   protected HashMap<String, Object> params;
+  private boolean dirty = true;
 
   protected AbstractOp() {
     params = new HashMap<>();
@@ -29,6 +31,7 @@ protected AbstractOp(AbstractOp op) {
   @Override
   public void clearParams() {
     params.clear();
+    dirty = true;
   }
 
   @Override
@@ -38,6 +41,7 @@ public void clearIOCache() {
         params.put(key, null);
       }
     }
+    dirty = true;
   }
 
   @Override
@@ -51,21 +55,27 @@ public Object getParam(String key) {
   @Override
   public void setParam(String key, Object value) {
     if (key != null) {
-      params.put(key, value);
+      Object old = params.put(key, value);
+      if (!dirty && isProcessingParam(key) && isChanged(key, old, value)) {
+        dirty = true;
+      }
     }
   }
 
   @Override
   public void setAllParameters(Map<String, Object> map) {
     if (map != null) {
-      params.putAll(map);
+      map.forEach(this::setParam);
     }
   }
 
   @Override
   public void removeParam(String key) {
-    if (key != null) {
-      params.remove(key);
+    if (key != null && params.containsKey(key)) {
+      Object old = params.remove(key);
+      if (isProcessingParam(key) && old != null) {
+        dirty = true;
+      }
     }
   }
 
@@ -76,7 +86,7 @@ public boolean isEnabled() {
 
   @Override
   public void setEnabled(boolean enabled) {
-    params.put(Param.ENABLE, enabled);
+    setParam(Param.ENABLE, enabled);
   }
 
   @Override
@@ -91,6 +101,44 @@ public void setName(String name) {
     }
   }
 
+  @Override
+  public boolean isDirty() {
+    return dirty;
+  }
+
+  @Override
+  public void setDirty(boolean dirty) {
+    this.dirty = dirty;
+  }
+
+  /**
+   * Indicates whether the output of the node depends on a parameter. By default, all the parameters
+   * except the name and the output image are used by the processing.
+   *
+   * @param key the parameter key
+   * @return true if a change of the parameter requires processing the node again
+   */
+  protected boolean isProcessingParam(String key) {
+    return !Param.NAME.equals(key) && !Param.OUTPUT_IMG.equals(key);
+  }
+
+  private static boolean isChanged(String key, Object oldValue, Object newValue) {
+    if (oldValue == newValue) {
+      // The input image is compared by identity, a mutable object may have been modified
+      return !Param.INPUT_IMG.equals(key) && !isImmutable(newValue);
+    }
+    return Param.INPUT_IMG.equals(key) || !Objects.equals(oldValue, newValue);
+  }
+
+  private static boolean isImmutable(Object value) {
+    return value == null
+        || value instanceof Double
+        || value instanceof Integer
+        || value instanceof Boolean
+        || value instanceof String
+        || value instanceof Enum<?>;
+  }
+
   @Override
   public void handleImageOpEvent(ImageOpEvent event) {}
 }
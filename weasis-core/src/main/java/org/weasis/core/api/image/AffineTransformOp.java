@@ -41,6 +41,17 @@ public class AffineTransformOp extends AbstractOp {
 
   public static final String P_DST_BOUNDS = "dest.bounds";
 
+  /**
+   * Set the area of the source image covered by the input image, when the input image has been
+   * cropped and downsampled by a previous operation (Optional parameter).
+   *
+   * <p>Rectangle2D value in the coordinates of the source image. The affine transformation is
+   * always defined for the source image.
+   *
+   * @see ViewportOp
+   */
+  public static final String P_INPUT_AREA = "input.area";
+
   public AffineTransformOp() {
     setName(OP_NAME);
   }
@@ -60,11 +71,16 @@ public void process() throws Exception {
     PlanarImage result = source;
     List<Double> matrix = (List<Double>) params.get(P_AFFINE_MATRIX);
     Rectangle2D bound = (Rectangle2D) params.get(P_DST_BOUNDS);
+    Rectangle2D inputArea = (Rectangle2D) params.get(P_INPUT_AREA);
+    if (inputArea != null && source != null && matrix != null) {
+      matrix = getInputMatrix(matrix, inputArea, source.width(), source.height());
+    }
 
     if (bound != null
         && source != null
         && matrix != null
-        && (!identityMatrix.equals(matrix)
+        && (inputArea != null
+            || !identityMatrix.equals(matrix)
             || MathUtil.isDifferent(source.width(), bound.getWidth())
             || MathUtil.isDifferent(source.height(), bound.getHeight()))) {
       if (bound.getWidth() > 0 && bound.getHeight() > 0) {
@@ -85,4 +101,23 @@ public void process() throws Exception {
 
     params.put(Param.OUTPUT_IMG, result);
   }
+
+  /**
+   * Composes the affine transformation of the source image with the mapping of the input image to
+   * the area of the source image it covers (the pixel centers are mapped to the pixel centers).
+   */
+  static List<Double> getInputMatrix(
+      List<Double> matrix, Rectangle2D inputArea, int width, int height) {
+    double sx = inputArea.getWidth() / width;
+    double sy = inputArea.getHeight() / height;
+    double tx = inputArea.getX() + 0.5 * sx - 0.5;
+    double ty = inputArea.getY() + 0.5 * sy - 0.5;
+    return List.of(
+        matrix.get(0) * sx,
+        matrix.get(1) * sy,
+        matrix.get(0) * tx + matrix.get(1) * ty + matrix.get(2),
+        matrix.get(3) * sx,
+        matrix.get(4) * sy,
+        matrix.get(3) * tx + matrix.get(4) * ty + matrix.get(5));
+  }
 }
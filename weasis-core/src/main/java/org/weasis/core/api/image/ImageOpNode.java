@@ -49,4 +49,32 @@ private Param() {}
   void clearIOCache();
 
   void handleImageOpEvent(ImageOpEvent event);
+
+  /**
+   * Indicates whether the current processing only depends on the value of each pixel, so it can be
+   * applied to a cropped or resampled image before the final geometric transformation.
+   *
+   * @return true if the processing is a point operation with the current parameters
+   */
+  default boolean isPointOperation() {
+    return false;
+  }
+
+  /**
+   * Indicates whether the output image must be computed again, because a parameter used by the
+   * processing or the input image has changed since the last call of {@link #process()}.
+   *
+   * @return true if the node must be processed again
+   */
+  default boolean isDirty() {
+    return true;
+  }
+
+  /**
+   * Sets the dirty state. The operation manager clears it after processing the node, and it can
+   * be set when the processing depends on a state that has changed outside the parameters.
+   *
+   * @param dirty true to force the processing of the node
+   */
+  default void setDirty(boolean dirty) {}
 }
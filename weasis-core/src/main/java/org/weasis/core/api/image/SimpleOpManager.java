@@ -30,9 +30,21 @@ public enum Position {
     AFTER
   }
 
+  /**
+   * Counters of the node processing.
+   *
+   * @param processCount the number of calls of {@link #process()} with a valid source image
+   * @param computedNodeCount the number of nodes processed again
+   * @param skippedNodeCount the number of nodes whose cached output has been reused
+   */
+  public record Statistics(long processCount, long computedNodeCount, long skippedNodeCount) {}
+
   private final HashMap<String, ImageOpNode> nodes;
   private final List<ImageOpNode> operations;
   private String name;
+  private long processCount;
+  private long computedNodeCount;
+  private long skippedNodeCount;
 
   public SimpleOpManager() {
     this(IMAGE_OP_NAME);
@@ -205,22 +217,36 @@ public void resetLastNodeOutputImage() {
     }
   }
 
+  /**
+   * Processes the nodes from the first one whose parameters or input image have changed. The
+   * output images of the previous nodes are reused. When a node produces a new output image, the
+   * next node gets dirty because its input image has changed.
+   *
+   * @return the output image of the last node
+   */
   @Override
   public PlanarImage process() {
     PlanarImage source = getFirstNodeInputImage();
     if (source != null && source.width() > 0) {
+      processCount++;
       for (int i = 0; i < operations.size(); i++) {
         ImageOpNode op = operations.get(i);
         try {
           if (i > 0) {
             op.setParam(Param.INPUT_IMG, operations.get(i - 1).getParam(Param.OUTPUT_IMG));
           }
+          if (!op.isDirty() && op.getParam(Param.OUTPUT_IMG) != null) {
+            skippedNodeCount++;
+            continue;
+          }
+          computedNodeCount++;
           if (op.isEnabled()) {
             op.process();
           } else {
             // Skip this operation
             op.setParam(Param.OUTPUT_IMG, op.getParam(Param.INPUT_IMG));
           }
+          op.setDirty(false);
         } catch (Exception e) {
           LOGGER.error("Image {} failed", op.getParam(Param.NAME), e);
           op.setParam(Param.OUTPUT_IMG, op.getParam(Param.INPUT_IMG));
@@ -232,6 +258,16 @@ public PlanarImage process() {
     return getLastNodeOutputImage();
   }
 
+  public Statistics getStatistics() {
+    return new Statistics(processCount, computedNodeCount, skippedNodeCount);
+  }
+
+  public void resetStatistics() {
+    processCount = 0;
+    computedNodeCount = 0;
+    skippedNodeCount = 0;
+  }
+
   @Override
   public Object getParamValue(String opName, String param) {
     if (opName != null && param != null) {
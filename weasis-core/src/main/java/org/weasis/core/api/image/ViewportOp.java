@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.image;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.weasis.core.Messages;
+import org.weasis.core.api.gui.util.ActionW;
+import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.core.api.media.data.TagW;
+import org.weasis.core.util.LangUtil;
+import org.weasis.opencv.data.ImageCV;
+import org.weasis.opencv.data.PlanarImage;
+import org.weasis.opencv.op.ImageProcessor;
+
+/**
+ * Crops the source image to the visible area and downsamples it from a cached multi-resolution
+ * pyramid, so the next operations (window/level, LUT...) are applied close to the display size.
+ *
+ * <p>This operation must be the first of the display operations and is only applied when the view
+ * is zoomed out by a factor of two or more and all the operations until the {@link
+ * AffineTransformOp} are point operations. Otherwise, the source image is passed through and the
+ * rendering is identical to the rendering without this operation.
+ *
+ * <p>The pixel padding values are excluded from the averages of the pyramid, so the window/level
+ * applied after the downsampling does not show a halo at the border of the padding. The memory of
+ * the pyramid is counted in the budget of the image cache.
+ *
+ * @see #updateViewport(OpManager)
+ */
+public class ViewportOp extends AbstractOp {
+
+  public static final String OP_NAME = Messages.getString("ViewportOperation.title");
+
+  /**
+   * Set the level of the pyramid (Required parameter).
+   *
+   * <p>Integer value. The level 0 is the source image, the size is divided by two at each level.
+   */
+  public static final String P_LEVEL = "viewport.level";
+
+  /**
+   * Set the area of the pyramid level to render (Required parameter).
+   *
+   * <p>Rectangle value in the coordinates of the pyramid level.
+   */
+  public static final String P_AREA = "viewport.area";
+
+  /**
+   * Set the pixel padding excluded from the downsampling (Optional parameter).
+   *
+   * <p>int[] value: the pixel padding value and the pixel padding range limit, in the values of the
+   * source image.
+   */
+  public static final String P_PADDING = "viewport.padding";
+
+  /** Maximum level of the pyramid */
+  public static final int MAX_LEVEL = 6;
+
+  /** Minimum size of the images of the pyramid */
+  private static final int MIN_SIZE = 32;
+
+  /** Margin in pixels around the visible area for the interpolation of the affine transformation */
+  private static final int MARGIN = 2;
+
+  private PlanarImage pyramidSource;
+  private int[] pyramidPadding;
+  private final List<PlanarImage> levels = new ArrayList<>();
+  private long reservedMemory;
+
+  public ViewportOp() {
+    setName(OP_NAME);
+  }
+
+  public ViewportOp(ViewportOp op) {
+    super(op);
+  }
+
+  @Override
+  public ViewportOp copy() {
+    return new ViewportOp(this);
+  }
+
+  @Override
+  public void clearIOCache() {
+    super.clearIOCache();
+    clearPyramid();
+  }
+
+  @Override
+  public void process() throws Exception {
+    PlanarImage source = (PlanarImage) params.get(Param.INPUT_IMG);
+    PlanarImage result = source;
+    Integer level = (Integer) params.get(P_LEVEL);
+    Rectangle area = (Rectangle) params.get(P_AREA);
+
+    if (source != null && level != null && level > 0 && area != null) {
+      int[] padding = (int[]) params.get(P_PADDING);
+      PlanarImage img = getLevelImage(source, Math.min(level, MAX_LEVEL), padding);
+      Rectangle bounds = new Rectangle(img.width(), img.height());
+      if (area.equals(bounds)) {
+        result = img;
+      } else if (bounds.contains(area)) {
+        result = ImageProcessor.crop(img.toMat(), area);
+      }
+    } else {
+      clearPyramid();
+    }
+
+    params.put(Param.OUTPUT_IMG, result);
+  }
+
+  private synchronized PlanarImage getLevelImage(PlanarImage source, int level, int[] padding) {
+    if (pyramidSource != source || !Arrays.equals(pyramidPadding, padding)) {
+      clearPyramid();
+      pyramidSource = source;
+      pyramidPadding = padding;
+    }
+    while (levels.size() < level) {
+      PlanarImage img = levels.isEmpty() ? source : levels.getLast();
+      int next = levels.size() + 1;
+      Dimension dim =
+          new Dimension(getLevelSize(source.width(), next), getLevelSize(source.height(), next));
+      PlanarImage levelImage = downsample(img, dim, padding);
+      levels.add(levelImage);
+      long bytes = levelImage.physicalBytes();
+      reservedMemory += bytes;
+      ImageElement.reserveCacheMemory(bytes);
+    }
+    return levels.get(level - 1);
+  }
+
+  private synchronized void clearPyramid() {
+    levels.clear();
+    pyramidSource = null;
+    pyramidPadding = null;
+    ImageElement.releaseCacheMemory(reservedMemory);
+    reservedMemory = 0;
+  }
+
+  /**
+   * Downsamples an image by averaging the pixels. The pixels of the padding are not averaged with
+   * the other pixels, a pixel of the result is padding when most of its source pixels are padding.
+   */
+  private static PlanarImage downsample(PlanarImage img, Dimension dim, int[] padding) {
+    Mat src = img.toMat();
+    if (padding == null || src.channels() != 1) {
+      return ImageProcessor.scale(src, dim, Imgproc.INTER_AREA);
+    }
+    Mat mask = new Mat();
+    Mat values = new Mat();
+    Mat weights = new Mat();
+    Mat paddedMask = new Mat();
+    try {
+      Core.inRange(
+          src,
+          new Scalar(Math.min(padding[0], padding[1])),
+          new Scalar(Math.max(padding[0], padding[1])),
+          mask);
+      if (Core.countNonZero(mask) == 0) {
+        return ImageProcessor.scale(src, dim, Imgproc.INTER_AREA);
+      }
+      Size size = new Size(dim.width, dim.height);
+      src.convertTo(values, CvType.CV_32F);
+      values.setTo(new Scalar(0), mask);
+      Imgproc.resize(values, values, size, 0, 0, Imgproc.INTER_AREA);
+      // Fraction of the pixels that are not padding
+      Core.bitwise_not(mask, weights);
+      weights.convertTo(weights, CvType.CV_32F, 1.0 / 255.0);
+      Imgproc.resize(weights, weights, size, 0, 0, Imgproc.INTER_AREA);
+
+      Core.compare(weights, new Scalar(0.5), paddedMask, Core.CMP_LT);
+      Core.max(weights, new Scalar(1.0e-6), weights);
+      Core.divide(values, weights, values);
+      ImageCV dst = new ImageCV();
+      values.convertTo(dst, src.type());
+      dst.setTo(new Scalar(padding[0]), paddedMask);
+      return dst;
+    } finally {
+      mask.release();
+      values.release();
+      weights.release();
+      paddedMask.release();
+    }
+  }
+
+  /**
+   * @return the size of the image at the pyramid level
+   */
+  public static int getLevelSize(int size, int level) {
+    int s = size;
+    for (int i = 0; i < level; i++) {
+      s = (s + 1) / 2;
+    }
+    return s;
+  }
+
+  /**
+   * Returns the highest pyramid level that is not smaller than the display, so the affine
+   * transformation applied after this operation still downsamples (by a factor between 1 and 2).
+   *
+   * @param matrix the affine transformation of the source image (OpenCV order)
+   * @param width the width of the source image
+   * @param height the height of the source image
+   * @return the pyramid level, 0 when the zoom factor is higher than 0.5
+   */
+  public static int getLevel(List<Double> matrix, int width, int height) {
+    double sx = Math.hypot(matrix.get(0), matrix.get(3));
+    double sy = Math.hypot(matrix.get(1), matrix.get(4));
+    double scale = Math.min(sx, sy);
+    int level = 0;
+    while (level < MAX_LEVEL
+        && scale * (1 << (level + 1)) <= 1.0
+        && getLevelSize(Math.min(width, height), level + 1) >= MIN_SIZE) {
+      level++;
+    }
+    return level;
+  }
+
+  /**
+   * Returns the area of the pyramid level that is visible in the destination bounds.
+   *
+   * @param matrix the affine transformation of the source image (OpenCV order)
+   * @param bounds the destination bounds
+   * @param width the width of the source image
+   * @param height the height of the source image
+   * @param level the pyramid level
+   * @return the area in the coordinates of the pyramid level or null if nothing is visible
+   */
+  public static Rectangle getLevelArea(
+      List<Double> matrix, Rectangle2D bounds, int width, int height, int level) {
+    double[] m = matrix.stream().mapToDouble(Double::doubleValue).toArray();
+    AffineTransform transform = new AffineTransform(m[0], m[3], m[1], m[4], m[2], m[5]);
+    AffineTransform inverse;
+    try {
+      inverse = transform.createInverse();
+    } catch (NoninvertibleTransformException e) {
+      return null;
+    }
+    Rectangle2D dst = new Rectangle2D.Double(0, 0, bounds.getWidth(), bounds.getHeight());
+    Rectangle2D src = inverse.createTransformedShape(dst).getBounds2D();
+    int levelWidth = getLevelSize(width, level);
+    int levelHeight = getLevelSize(height, level);
+    double fx = width / (double) levelWidth;
+    double fy = height / (double) levelHeight;
+    int x1 = Math.max(0, (int) Math.floor(src.getMinX() / fx) - MARGIN);
+    int y1 = Math.max(0, (int) Math.floor(src.getMinY() / fy) - MARGIN);
+    int x2 = Math.min(levelWidth, (int) Math.ceil(src.getMaxX() / fx) + MARGIN);
+    int y2 = Math.min(levelHeight, (int) Math.ceil(src.getMaxY() / fy) + MARGIN);
+    if (x2 <= x1 || y2 <= y1) {
+      return null;
+    }
+    return new Rectangle(x1, y1, x2 - x1, y2 - y1);
+  }
+
+  /**
+   * @return the area of the source image covered by an area of the pyramid level
+   */
+  public static Rectangle2D getSourceArea(Rectangle area, int width, int height, int level) {
+    double fx = width / (double) getLevelSize(width, level);
+    double fy = height / (double) getLevelSize(height, level);
+    return new Rectangle2D.Double(area.x * fx, area.y * fy, area.width * fx, area.height * fy);
+  }
+
+  /**
+   * Updates the parameters of the viewport operation and the input area of the affine
+   * transformation from the current affine transformation. Must be called before processing the
+   * display operations.
+   *
+   * @param manager the display operations
+   */
+  public static void updateViewport(OpManager manager) {
+    ImageOpNode viewport = manager.getNode(OP_NAME);
+    ImageOpNode affine = manager.getNode(AffineTransformOp.OP_NAME);
+    if (viewport == null || affine == null) {
+      return;
+    }
+    int level = 0;
+    Rectangle area = null;
+    Rectangle2D inputArea = null;
+    int[] padding = null;
+    PlanarImage source = manager.getFirstNodeInputImage();
+    List<Double> matrix = (List<Double>) affine.getParam(AffineTransformOp.P_AFFINE_MATRIX);
+    Rectangle2D bounds = (Rectangle2D) affine.getParam(AffineTransformOp.P_DST_BOUNDS);
+    if (viewport.isEnabled()
+        && affine.isEnabled()
+        && source != null
+        && matrix != null
+        && bounds != null
+        && hasOnlyPointOperations(manager.getOperations(), viewport, affine)) {
+      level = getLevel(matrix, source.width(), source.height());
+      if (level > 0) {
+        area = getLevelArea(matrix, bounds, source.width(), source.height(), level);
+      }
+      if (area == null) {
+        level = 0;
+      } else {
+        inputArea = getSourceArea(area, source.width(), source.height(), level);
+        padding = getPadding(manager);
+      }
+    }
+    viewport.setParam(P_LEVEL, level);
+    viewport.setParam(P_AREA, area);
+    viewport.setParam(P_PADDING, padding);
+    affine.setParam(AffineTransformOp.P_INPUT_AREA, inputArea);
+  }
+
+  /**
+   * @return the pixel padding of the image when it is applied by the window/level operation
+   */
+  private static int[] getPadding(OpManager manager) {
+    ImageOpNode window = manager.getNode(WindowOp.OP_NAME);
+    if (window == null
+        || !window.isEnabled()
+        || !LangUtil.getNULLtoTrue((Boolean) window.getParam(ActionW.IMAGE_PIX_PADDING.cmd()))
+        || !(window.getParam(WindowOp.P_IMAGE_ELEMENT) instanceof ImageElement img)) {
+      return null;
+    }
+    Integer paddingValue = (Integer) img.getTagValue(TagW.get("PixelPaddingValue"));
+    if (paddingValue == null) {
+      return null;
+    }
+    Integer paddingLimit = (Integer) img.getTagValue(TagW.get("PixelPaddingRangeLimit"));
+    return new int[] {paddingValue, paddingLimit == null ? paddingValue : paddingLimit};
+  }
+
+  private static boolean hasOnlyPointOperations(
+      List<ImageOpNode> operations, ImageOpNode viewport, ImageOpNode affine) {
+    int start = operations.indexOf(viewport);
+    int end = operations.indexOf(affine);
+    if (start != 0 || end < start) {
+      return false;
+    }
+    for (int i = start + 1; i < end; i++) {
+      ImageOpNode op = operations.get(i);
+      if (op.isEnabled() && !op.isPointOperation()) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
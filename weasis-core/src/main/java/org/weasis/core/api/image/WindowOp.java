@@ -78,6 +78,11 @@ public void process() throws Exception {
     params.put(Param.OUTPUT_IMG, result);
   }
 
+  @Override
+  public boolean isPointOperation() {
+    return true;
+  }
+
   public WlPresentation getWlPresentation() {
     boolean pixelPadding =
         LangUtil.getNULLtoTrue((Boolean) getParam(ActionW.IMAGE_PIX_PADDING.cmd()));
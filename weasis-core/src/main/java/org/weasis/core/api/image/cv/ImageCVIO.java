@@ -31,11 +31,13 @@
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
 import javax.imageio.stream.FileImageInputStream;
 import javax.imageio.stream.ImageInputStream;
 import org.opencv.core.Core;
 import org.opencv.core.Core.MinMaxLocResult;
 import org.opencv.core.CvType;
+import org.opencv.core.Mat;
 import org.opencv.imgcodecs.Imgcodecs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,6 +62,7 @@
 import org.weasis.core.util.MathUtil;
 import org.weasis.core.util.StringUtil;
 import org.weasis.opencv.data.FileRawImage;
+import org.weasis.opencv.data.ImageCV;
 import org.weasis.opencv.data.PlanarImage;
 import org.weasis.opencv.op.ImageConversion;
 import org.weasis.opencv.op.ImageProcessor;
@@ -126,6 +129,66 @@ public PlanarImage getImageFragment(MediaElement media) throws Exception {
     return null;
   }
 
+  @Override
+  public PlanarImage getReducedImageFragment(MediaElement media, int maxSize) throws Exception {
+    Objects.requireNonNull(media);
+    FileCache cache = media.getFileCache();
+    File transformed = cache.getTransformedFile();
+    if (transformed != null && transformed.getName().endsWith(".wcv")) {
+      // Use the thumbnail written when uncompressing the image
+      File thumbFile = new File(changeExtension(transformed.getPath(), ".jpg"));
+      if (maxSize <= Thumbnail.MAX_SIZE && thumbFile.canRead()) {
+        return ImageProcessor.readImageWithCvException(thumbFile, null);
+      }
+      return null;
+    }
+
+    // Only JPEG can be decoded at a lower resolution (DCT scaling), the other formats would be
+    // fully decoded and resized by OpenCV
+    File file = cache.getOriginalFile().orElse(null);
+    if (file == null || !(codec instanceof NativeOpenCVCodec) || !"image/jpeg".equals(mimeType)) {
+      return null;
+    }
+    ImageReader reader = getDefaultReader(mimeType);
+    if (reader == null) {
+      return null;
+    }
+    int width;
+    int height;
+    boolean gray;
+    try (ImageInputStream stream = new FileImageInputStream(file)) {
+      reader.setInput(stream, true, true);
+      // Read only the header
+      width = reader.getWidth(0);
+      height = reader.getHeight(0);
+      ImageTypeSpecifier type = reader.getRawImageType(0);
+      gray = type != null && type.getNumBands() == 1;
+    } finally {
+      reader.dispose();
+    }
+
+    int scale = 1;
+    while (scale < 8 && Math.max(width, height) / (scale * 2) >= maxSize) {
+      scale *= 2;
+    }
+    int flag =
+        switch (scale) {
+          case 2 -> gray ? Imgcodecs.IMREAD_REDUCED_GRAYSCALE_2 : Imgcodecs.IMREAD_REDUCED_COLOR_2;
+          case 4 -> gray ? Imgcodecs.IMREAD_REDUCED_GRAYSCALE_4 : Imgcodecs.IMREAD_REDUCED_COLOR_4;
+          case 8 -> gray ? Imgcodecs.IMREAD_REDUCED_GRAYSCALE_8 : Imgcodecs.IMREAD_REDUCED_COLOR_8;
+          default -> -1;
+        };
+    if (flag < 0) {
+      return null;
+    }
+    Mat mat = Imgcodecs.imread(file.getPath(), flag);
+    if (mat.empty()) {
+      mat.release();
+      return null;
+    }
+    return ImageCV.toImageCV(mat);
+  }
+
   private static void applyExifTags(ImageElement img, List<String> exifTags) {
     if (exifTags.size() >= Imgcodecs.POS_COPYRIGHT) {
       applyExifTag(img, TagW.ExifImageDescription, exifTags.get(Imgcodecs.POS_IMAGE_DESCRIPTION));
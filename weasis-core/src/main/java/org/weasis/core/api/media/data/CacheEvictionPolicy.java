@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+/**
+ * Defines the order in which the entries of a {@link NativeCache} are evicted. Whatever the
+ * policy, the entries pinned around the current slice of a series are never evicted.
+ */
+public enum CacheEvictionPolicy {
+  /** Evicts the least recently used entries first. */
+  LRU,
+
+  /**
+   * Window TinyLFU: the most recently inserted entries (about 1% of the memory budget) are kept in
+   * an admission window. An entry inserted under memory pressure is admitted after the window only
+   * if its access frequency is higher than the one of the next victim, otherwise it is evicted
+   * first. The admitted entries read again are kept in a protected segment (up to 80% of the memory
+   * budget), the other admitted entries are evicted first.
+   */
+  TINY_LFU,
+
+  /**
+   * Evicts first the entries which do not belong to a pinned series (least recently used first),
+   * and then the entries of the pinned series which are the farthest from the current slice.
+   */
+  SERIES;
+
+  /**
+   * @param name the name of the policy (case-insensitive)
+   * @param defaultPolicy the policy returned when the name does not match
+   * @return the matching policy
+   */
+  public static CacheEvictionPolicy fromName(String name, CacheEvictionPolicy defaultPolicy) {
+    if (name != null) {
+      for (CacheEvictionPolicy p : values()) {
+        if (p.name().equalsIgnoreCase(name.trim())) {
+          return p;
+        }
+      }
+    }
+    return defaultPolicy;
+  }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.weasis.core.api.util.ThreadUtil;
+
+/**
+ * Bounded pool of decoding threads with priorities. Pending requests are ordered by {@link
+ * Priority} and then by submission order. Requests sharing the same key are coalesced into a single
+ * task, and a pending task is cancelled when all its requesters have released it.
+ *
+ * <p>A task which is already running is never interrupted because most image decoders do not
+ * support being stopped in the middle of a stream.
+ */
+public final class DecodeScheduler {
+
+  public enum Priority {
+    /** Image currently displayed in a view */
+    VISIBLE,
+    /** Image which will be displayed soon (cine or scrolling look-ahead) */
+    LOOK_AHEAD,
+    /** Preloading, thumbnails or any other task without user waiting */
+    BACKGROUND
+  }
+
+  private final ThreadPoolExecutor executor;
+  private final ConcurrentHashMap<Object, DecodeTask<?>> pendingTasks = new ConcurrentHashMap<>();
+  private final AtomicLong sequence = new AtomicLong();
+
+  public DecodeScheduler(String name, int nThreads) {
+    if (nThreads <= 0) {
+      throw new IllegalArgumentException("The number of threads must be positive");
+    }
+    this.executor =
+        new ThreadPoolExecutor(
+            nThreads,
+            nThreads,
+            30L,
+            TimeUnit.SECONDS,
+            new PriorityBlockingQueue<>(),
+            ThreadUtil.getThreadFactory(name));
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * @return the default number of decoding threads, keeping one processor for the UI
+   */
+  public static int getDefaultThreadNumber() {
+    return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 16));
+  }
+
+  /**
+   * Submits a task or joins the task already pending for the same key. When joining a pending
+   * task, its priority is raised if the new request has a higher priority.
+   *
+   * <p>Each call must be balanced by {@link #release(Object, Future)} when the result is no longer
+   * required before completion (for instance when the waiting thread is interrupted).
+   *
+   * @param key the key to coalesce duplicate requests (e.g. the image element)
+   * @param callable the decoding task
+   * @param priority the priority of the request
+   * @return the future of the shared task
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Future<T> submit(Object key, Callable<T> callable, Priority priority) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(callable);
+    Objects.requireNonNull(priority);
+    while (true) {
+      DecodeTask<?> task = pendingTasks.get(key);
+      if (task == null) {
+        DecodeTask<T> newTask = new DecodeTask<>(key, callable, priority);
+        if (pendingTasks.putIfAbsent(key, newTask) == null) {
+          executor.execute(newTask);
+          return newTask;
+        }
+      } else if (task.acquire()) {
+        if (priority.ordinal() < task.priority.ordinal() && executor.getQueue().remove(task)) {
+          // Reorder the pending task with the higher priority
+          task.priority = priority;
+          executor.getQueue().add(task);
+        }
+        return (Future<T>) task;
+      } else {
+        // The task has been released and cancelled in the meantime
+        pendingTasks.remove(key, task);
+      }
+    }
+  }
+
+  /**
+   * Releases a request obtained by {@link #submit(Object, Callable, Priority)}. When the task has
+   * no more requesters and is still in the queue, it is cancelled.
+   *
+   * @param key the key of the request
+   * @param future the future returned by submit
+   */
+  public void release(Object key, Future<?> future) {
+    if (future instanceof DecodeTask<?> task && task.release()) {
+      pendingTasks.remove(key, task);
+      executor.getQueue().remove(task);
+    }
+  }
+
+  /**
+   * Cancels all the pending tasks with the given priority or a lower priority. The tasks already
+   * running are not stopped.
+   *
+   * @param priority the highest priority to cancel
+   */
+  public void cancelPending(Priority priority) {
+    for (DecodeTask<?> task : pendingTasks.values()) {
+      if (task.priority.ordinal() >= priority.ordinal() && task.forceRelease()) {
+        pendingTasks.remove(task.key, task);
+        executor.getQueue().remove(task);
+      }
+    }
+  }
+
+  public boolean isPending(Object key) {
+    return pendingTasks.containsKey(key);
+  }
+
+  public int getQueueSize() {
+    return executor.getQueue().size();
+  }
+
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private final class DecodeTask<T> extends FutureTask<T> implements Comparable<DecodeTask<?>> {
+    private final Object key;
+    private final long order;
+    private final AtomicInteger requesters = new AtomicInteger(1);
+    private volatile boolean started = false;
+    private volatile Priority priority;
+
+    DecodeTask(Object key, Callable<T> callable, Priority priority) {
+      super(callable);
+      this.key = key;
+      this.priority = priority;
+      this.order = sequence.getAndIncrement();
+    }
+
+    boolean acquire() {
+      int count;
+      do {
+        count = requesters.get();
+        if (count <= 0) {
+          return false;
+        }
+      } while (!requesters.compareAndSet(count, count + 1));
+      return true;
+    }
+
+    boolean release() {
+      return requesters.decrementAndGet() == 0 && !started && cancel(false);
+    }
+
+    boolean forceRelease() {
+      if (!started) {
+        requesters.set(0);
+        return cancel(false);
+      }
+      return false;
+    }
+
+    @Override
+    public void run() {
+      started = true;
+      try {
+        super.run();
+      } finally {
+        pendingTasks.remove(key, this);
+      }
+    }
+
+    @Override
+    public int compareTo(DecodeTask<?> o) {
+      int c = Integer.compare(priority.ordinal(), o.priority.ordinal());
+      return c != 0 ? c : Long.compare(order, o.order);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Count-Min sketch estimating the access frequency of the keys. All the counters are halved
+ * periodically so that the old accesses are progressively forgotten.
+ */
+final class FrequencySketch {
+  private static final int DEPTH = 4;
+  private static final int MAX_COUNT = 15;
+  private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+  private final AtomicIntegerArray table;
+  private final int mask;
+  private final long resetSize;
+  private final AtomicLong additions = new AtomicLong();
+
+  FrequencySketch(int width) {
+    int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+    this.table = new AtomicIntegerArray(size * DEPTH);
+    this.mask = size - 1;
+    this.resetSize = 10L * size;
+  }
+
+  void increment(Object key) {
+    int hash = spread(key.hashCode());
+    boolean added = false;
+    for (int i = 0; i < DEPTH; i++) {
+      int index = indexOf(hash, i);
+      int count;
+      do {
+        count = table.get(index);
+      } while (count < MAX_COUNT && !table.compareAndSet(index, count, count + 1));
+      added |= count < MAX_COUNT;
+    }
+    if (added && additions.incrementAndGet() >= resetSize) {
+      reset();
+    }
+  }
+
+  int frequency(Object key) {
+    int hash = spread(key.hashCode());
+    int frequency = MAX_COUNT;
+    for (int i = 0; i < DEPTH; i++) {
+      frequency = Math.min(frequency, table.get(indexOf(hash, i)));
+    }
+    return frequency;
+  }
+
+  private void reset() {
+    additions.set(0);
+    for (int i = 0; i < table.length(); i++) {
+      int count;
+      do {
+        count = table.get(i);
+      } while (!table.compareAndSet(i, count, count >>> 1));
+    }
+  }
+
+  private int indexOf(int hash, int row) {
+    int h = (hash ^ SEEDS[row]) * SEEDS[row];
+    h ^= h >>> 16;
+    return row * (mask + 1) + (h & mask);
+  }
+
+  private static int spread(int h) {
+    h ^= h >>> 17;
+    h *= 0xED5AD4BB;
+    h ^= h >>> 11;
+    return h;
+  }
+}
@@ -13,11 +13,13 @@
 import java.awt.image.DataBuffer;
 import java.awt.image.IndexColorModel;
 import java.awt.image.RenderedImage;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.function.Function;
 import org.opencv.core.Core.MinMaxLocResult;
 import org.opencv.core.CvType;
 import org.slf4j.Logger;
@@ -30,7 +32,7 @@
 import org.weasis.core.api.image.cv.CvUtil;
 import org.weasis.core.api.image.measure.MeasurementsAdapter;
 import org.weasis.core.api.image.util.Unit;
-import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
 import org.weasis.core.util.MathUtil;
 import org.weasis.opencv.data.ImageCV;
 import org.weasis.opencv.data.LookupTableCV;
@@ -45,11 +47,16 @@
 public class ImageElement extends MediaElement {
   private static final Logger LOGGER = LoggerFactory.getLogger(ImageElement.class);
 
-  public static final ExecutorService IMAGE_LOADER =
-      ThreadUtil.buildNewSingleThreadExecutor("Image Loader"); // NON-NLS
+  public static final DecodeScheduler IMAGE_LOADER =
+      new DecodeScheduler(
+          "Image Loader", DecodeScheduler.getDefaultThreadNumber()); // NON-NLS
 
   private static final NativeCache<ImageElement, PlanarImage> mCache =
-      new NativeCache<>(Runtime.getRuntime().maxMemory() / 2) {
+      new NativeCache<>(
+          Runtime.getRuntime().maxMemory() / 2,
+          CacheEvictionPolicy.fromName(
+              System.getProperty("weasis.cache.eviction"), // NON-NLS
+              CacheEvictionPolicy.SERIES)) {
 
         @Override
         protected void afterEntryRemove(ImageElement key, PlanarImage img) {
@@ -67,7 +74,7 @@ protected void afterEntryRemove(ImageElement key, PlanarImage img) {
         }
       };
 
-  protected boolean readable = true;
+  protected volatile boolean readable = true;
 
   protected double pixelSizeX = 1.0;
   protected double pixelSizeY = 1.0;
@@ -86,6 +93,42 @@ public static int getNumberOfImagesInCache() {
     return mCache.size();
   }
 
+  public static NativeCache.Statistics getCacheStatistics() {
+    return mCache.getStatistics();
+  }
+
+  /**
+   * Protects the images around the current image of a series from being evicted from the cache.
+   *
+   * @param owner the owner of the pin, usually the view displaying the series
+   * @param orderedImages the images of the series in the display order
+   * @param current the current image
+   * @param radius the number of images to protect on each side of the current image
+   */
+  public static void pinSeriesImages(
+      Object owner, List<? extends ImageElement> orderedImages, ImageElement current, int radius) {
+    mCache.pinSeries(owner, orderedImages, current, radius);
+  }
+
+  public static void unpinSeriesImages(Object owner) {
+    mCache.unpin(owner);
+  }
+
+  /**
+   * Counts native memory allocated outside the image cache in its memory budget, so the cache
+   * evicts images to make room.
+   *
+   * @param bytes the number of bytes allocated
+   * @see #releaseCacheMemory(long)
+   */
+  public static void reserveCacheMemory(long bytes) {
+    mCache.reserveMemory(bytes);
+  }
+
+  public static void releaseCacheMemory(long bytes) {
+    mCache.releaseMemory(bytes);
+  }
+
   protected void findMinMaxValues(PlanarImage img, boolean exclude8bitImage)
       throws OutOfMemoryError {
     // This function can be called several times from the inner class Load.
@@ -243,7 +286,7 @@ public MeasurementsAdapter getMeasurementAdapter(Unit displayUnit, Point offset)
   }
 
   public boolean isImageInCache() {
-    return mCache.get(this) != null;
+    return mCache.containsKey(this);
   }
 
   public void removeImageFromCache() {
@@ -267,10 +310,76 @@ protected PlanarImage loadImage() throws Exception {
     return mediaIO.getImageFragment(this);
   }
 
+  /**
+   * Reads the original image once without adding it to the cache, e.g. for copying the pixels
+   * into a volume. The image of the cache is used when available, otherwise the image is decoded
+   * by the calling thread and released after the reading.
+   *
+   * @param findMinMax true to compute the min and max pixel values
+   * @param reader the function reading the image, the image must not be used after returning
+   * @return the result of the reader or null if the image cannot be read
+   */
+  public <R> R readImage(boolean findMinMax, Function<PlanarImage, R> reader) {
+    PlanarImage img = mCache.get(this);
+    if (img != null) {
+      img = getCacheImage(img, null, findMinMax);
+      return img == null ? null : reader.apply(img);
+    }
+    if (!readable) {
+      return null;
+    }
+    try {
+      img = loadImage();
+    } catch (Exception e) {
+      readable = false;
+      LOGGER.error("Cannot read pixel data!: {}", this, e);
+      return null;
+    }
+    if (img == null) {
+      return null;
+    }
+    try {
+      readable = img.width() > 0;
+      if (!readable) {
+        return null;
+      }
+      if (findMinMax) {
+        findMinMaxValues(img, true);
+      }
+      return reader.apply(img);
+    } finally {
+      img.release();
+    }
+  }
+
   public PlanarImage getRenderedImage(final PlanarImage imageSource) {
     return getRenderedImage(imageSource, null);
   }
 
+  /**
+   * Returns the rendered image for building a thumbnail. When the full image is not in the cache,
+   * the reader decodes it at a lower resolution if it can, otherwise the full image is decoded with
+   * a background priority.
+   *
+   * @param maxSize the size of the thumbnail
+   * @param manager the operations to apply to the original image, can be null
+   * @return the image or null if the image cannot be read
+   */
+  public PlanarImage getThumbnailImage(int maxSize, OpManager manager) {
+    if (manager == null && readable && !mCache.containsKey(this)) {
+      try {
+        PlanarImage img = mediaIO.getReducedImageFragment(this, maxSize);
+        if (img != null && img.width() > 0) {
+          return img;
+        }
+      } catch (Exception e) {
+        LOGGER.warn("Cannot read the image at a lower resolution: {}", this, e);
+      }
+    }
+    PlanarImage img = getImage(manager, true, Priority.BACKGROUND);
+    return img == null ? null : getRenderedImage(img);
+  }
+
   /**
    * @param imageSource is the RenderedImage upon which transformation is done
    * @param params rendering parameters
@@ -374,16 +483,55 @@ public String toString() {
     return getMediaURI().toString();
   }
 
-  public synchronized PlanarImage getImage(OpManager manager, boolean findMinMax) {
+  public PlanarImage getImage(OpManager manager, boolean findMinMax) {
+    return getImage(manager, findMinMax, Priority.VISIBLE);
+  }
+
+  /**
+   * Returns the full size, original image. The calling thread waits until the image is decoded.
+   *
+   * @param manager the operations to apply to the original image, can be null
+   * @param findMinMax true to compute the min and max pixel values
+   * @param priority the decoding priority when the image is not in the cache
+   * @return the image or null if the image cannot be read
+   */
+  public PlanarImage getImage(OpManager manager, boolean findMinMax, Priority priority) {
     try {
-      return getCacheImage(startImageLoading(), manager, findMinMax);
+      return getCacheImage(startImageLoading(priority), manager, findMinMax);
     } catch (OutOfMemoryError e1) {
       LOGGER.warn("Out of MemoryError: {}", this, e1);
 
       mCache.expungeStaleEntries();
       CvUtil.runGarbageCollectorAndWait(100);
 
-      return getCacheImage(startImageLoading(), manager, findMinMax);
+      return getCacheImage(startImageLoading(priority), manager, findMinMax);
+    }
+  }
+
+  /**
+   * Requests the image decoding without waiting. The decoded image is put into the cache. Several
+   * requests for the same image are coalesced into a single decoding task.
+   *
+   * @param priority the decoding priority
+   * @return the future of the decoding task, or null if the image is already in the cache or is
+   *     not readable
+   */
+  public Future<PlanarImage> requestImage(Priority priority) {
+    if (readable && mCache.get(this) == null) {
+      return IMAGE_LOADER.submit(this, new Load(), priority);
+    }
+    return null;
+  }
+
+  /**
+   * Releases a request obtained by {@link #requestImage(Priority)}. The decoding is cancelled if
+   * it has not started and no other request is waiting for it.
+   *
+   * @param future the future returned by requestImage
+   */
+  public void cancelImageRequest(Future<PlanarImage> future) {
+    if (future != null) {
+      IMAGE_LOADER.release(this, future);
     }
   }
 
@@ -418,38 +566,26 @@ public PlanarImage getImage() {
     return getImage(null);
   }
 
-  private PlanarImage startImageLoading() throws OutOfMemoryError {
-    PlanarImage cacheImage;
-    if ((cacheImage = mCache.get(this)) == null && readable && setAsLoading()) {
+  private PlanarImage startImageLoading(Priority priority) throws OutOfMemoryError {
+    PlanarImage cacheImage = mCache.get(this);
+    if (cacheImage == null && readable) {
       LOGGER.debug("Asking for reading image: {}", this);
-      Load ref = new Load();
-      Future<PlanarImage> future = IMAGE_LOADER.submit(ref);
-      PlanarImage img = null;
+      Future<PlanarImage> future = IMAGE_LOADER.submit(this, new Load(), priority);
       try {
-        img = future.get();
+        cacheImage = future.get();
       } catch (InterruptedException e) {
         // Re-assert the thread's interrupted status
         Thread.currentThread().interrupt();
-        // We don't need the result, so cancel the task too
-        future.cancel(true);
+        // We don't need the result, so cancel the task if nobody else is waiting for it
+        IMAGE_LOADER.release(this, future);
+      } catch (CancellationException e) {
+        LOGGER.debug("Reading image has been cancelled: {}", this);
       } catch (ExecutionException e) {
         if (e.getCause() instanceof OutOfMemoryError memoryError) {
-          setAsLoaded();
           throw memoryError;
-        } else {
-          readable = false;
-          LOGGER.error("Cannot read pixel data!: {}", this, e);
-        }
-      }
-      if (img != null) {
-        readable = img.width() > 0;
-        if (readable) {
-          mCache.put(this, img);
-          cacheImage = img;
-          this.setTag(TagW.ImageCache, true);
         }
+        LOGGER.error("Cannot read pixel data!: {}", this, e);
       }
-      setAsLoaded();
     }
     return cacheImage;
   }
@@ -462,7 +598,32 @@ class Load implements Callable<PlanarImage> {
 
     @Override
     public PlanarImage call() throws Exception {
-      return loadImage();
+      // The image may have been loaded by a previous task. The access has already been recorded
+      // by the request creating this task.
+      PlanarImage cacheImage = mCache.peek(ImageElement.this);
+      if (cacheImage != null || !readable) {
+        return cacheImage;
+      }
+      setAsLoading();
+      try {
+        PlanarImage img = loadImage();
+        if (img != null) {
+          readable = img.width() > 0;
+          if (readable) {
+            mCache.put(ImageElement.this, img);
+            setTag(TagW.ImageCache, true);
+            return img;
+          }
+        }
+        return null;
+      } catch (OutOfMemoryError e) {
+        throw e;
+      } catch (Exception e) {
+        readable = false;
+        throw e;
+      } finally {
+        setAsLoaded();
+      }
     }
   }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Map of tags reading through a shared parent map and storing only its own values. It allows the
+ * frames of a multi-frame image to share the same tags, while each frame keeps its specific values
+ * (e.g. position, orientation).
+ *
+ * <p>The parent map is never modified through this map and must not be modified after the
+ * creation of the layers.
+ */
+public final class LayeredTagMap extends AbstractMap<TagW, Object> {
+
+  private final Map<TagW, Object> parent;
+  private final Map<TagW, Object> overrides = new HashMap<>(8);
+  // Keys of the parent removed from this layer
+  private Set<TagW> removed = null;
+  private boolean parentHidden = false;
+
+  public LayeredTagMap(Map<TagW, Object> parent) {
+    this.parent = Objects.requireNonNull(parent);
+  }
+
+  private boolean isInParent(Object key) {
+    return !parentHidden && (removed == null || !removed.contains(key)) && parent.containsKey(key);
+  }
+
+  @Override
+  public Object get(Object key) {
+    if (overrides.containsKey(key)) {
+      return overrides.get(key);
+    }
+    return isInParent(key) ? parent.get(key) : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return overrides.containsKey(key) || isInParent(key);
+  }
+
+  @Override
+  public Object put(TagW key, Object value) {
+    Object old = get(key);
+    overrides.put(key, value);
+    return old;
+  }
+
+  @Override
+  public Object remove(Object key) {
+    Object old = get(key);
+    overrides.remove(key);
+    if (isInParent(key)) {
+      if (removed == null) {
+        removed = new HashSet<>();
+      }
+      removed.add((TagW) key);
+    }
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    overrides.clear();
+    removed = null;
+    parentHidden = true;
+  }
+
+  @Override
+  public int size() {
+    int size = overrides.size();
+    if (!parentHidden) {
+      for (TagW key : parent.keySet()) {
+        if (!overrides.containsKey(key) && (removed == null || !removed.contains(key))) {
+          size++;
+        }
+      }
+    }
+    return size;
+  }
+
+  /**
+   * @return the number of values stored in this layer
+   */
+  public int getOverrideCount() {
+    return overrides.size();
+  }
+
+  @Override
+  public Set<Entry<TagW, Object>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<TagW, Object>> iterator() {
+        return new LayerIterator();
+      }
+
+      @Override
+      public int size() {
+        return LayeredTagMap.this.size();
+      }
+    };
+  }
+
+  private final class LayerIterator implements Iterator<Entry<TagW, Object>> {
+    private final Iterator<TagW> keys;
+    private TagW current;
+
+    LayerIterator() {
+      List<TagW> list = new ArrayList<>(overrides.keySet());
+      if (!parentHidden) {
+        for (TagW key : parent.keySet()) {
+          if (!overrides.containsKey(key) && (removed == null || !removed.contains(key))) {
+            list.add(key);
+          }
+        }
+      }
+      this.keys = list.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return keys.hasNext();
+    }
+
+    @Override
+    public Entry<TagW, Object> next() {
+      current = keys.next();
+      return new LayerEntry(current, get(current));
+    }
+
+    @Override
+    public void remove() {
+      if (current == null) {
+        throw new IllegalStateException();
+      }
+      LayeredTagMap.this.remove(current);
+      current = null;
+    }
+  }
+
+  private final class LayerEntry extends SimpleEntry<TagW, Object> {
+
+    LayerEntry(TagW key, Object value) {
+      super(key, value);
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      LayeredTagMap.this.put(getKey(), value);
+      return super.setValue(value);
+    }
+  }
+}
@@ -135,6 +135,20 @@ public long getLastModified() {
     return mediaIO.getFileCache().getLastModified();
   }
 
+  /**
+   * @return the key identifying the content of the media in the {@link ThumbnailStore}, or null
+   *     when the thumbnail cannot be stored
+   */
+  public String getThumbnailKey() {
+    long length = getLength();
+    long lastModified = getLastModified();
+    URI uri = getMediaURI();
+    if (uri == null || length <= 0 || lastModified <= 0) {
+      return null;
+    }
+    return uri + "|" + key + "|" + length + "|" + lastModified;
+  }
+
   public String getMimeType() {
     return mediaIO.getMediaFragmentMimeType();
   }
@@ -31,6 +31,16 @@
 
   PlanarImage getImageFragment(MediaElement media) throws Exception;
 
+  /**
+   * Reads an 8-bit image ready to display, decoded at a lower resolution but with a largest side
+   * not smaller than maxSize.
+   *
+   * @return the reduced image or null when the reader cannot decode at a lower resolution
+   */
+  default PlanarImage getReducedImageFragment(MediaElement media, int maxSize) throws Exception {
+    return null;
+  }
+
   int getMediaElementNumber();
 
   String getMediaFragmentMimeType();
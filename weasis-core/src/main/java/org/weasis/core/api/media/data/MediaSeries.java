@@ -24,6 +24,14 @@ enum MEDIA_POSITION {
     RANDOM
   }
 
+  /**
+   * The media with the lowest and the highest slice location of a series.
+   *
+   * @param first the media with the lowest location, null when no media has a location
+   * @param last the media with the highest location, null when no media has a location
+   */
+  record SliceExtent<E>(E first, E last) {}
+
   List<E> getSortedMedias(Comparator<E> comparator);
 
   void addMedia(E media);
@@ -38,6 +46,8 @@ enum MEDIA_POSITION {
 
   E getMedia(MEDIA_POSITION position, Filter<E> filter, Comparator<E> sort);
 
+  SliceExtent<E> getSliceExtent(Filter<E> filter, Comparator<E> sort);
+
   Iterable<E> getMedias(Filter<E> filter, Comparator<E> sort);
 
   List<E> copyOfMedias(Filter<E> filter, Comparator<E> sort);
@@ -12,28 +12,228 @@
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import org.weasis.opencv.data.PlanarImage;
 
+/**
+ * Cache of images stored in native memory, bounded by the number of bytes of the images.
+ *
+ * <p>Reading does not require any lock: it only marks the entry as referenced. The entries are
+ * kept in segments ordered from the next victim to the most recently inserted or used entry. The
+ * changes of the segments (adding, removing and evicting entries) are serialized. The eviction,
+ * triggered when adding a new entry exceeds the memory budget, takes the entries from the head of
+ * the segments and gives a second chance to the entries referenced since their last visit (moved
+ * to the tail), so it does not depend on the number of entries in the cache. The order of eviction
+ * is defined by a {@link CacheEvictionPolicy}.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of images
+ */
 public abstract class NativeCache<K, V extends PlanarImage> extends AbstractMap<K, V> {
 
-  protected final Map<K, V> hash;
+  public record Statistics(
+      long hitCount, long missCount, long evictionCount, long usedMemory, long maxMemory) {
+
+    public double hitRate() {
+      long total = hitCount + missCount;
+      return total == 0 ? 1.0 : (double) hitCount / total;
+    }
+  }
+
+  private static final class Node<K, V> {
+    final V value;
+    final long weight;
+    // TINY_LFU: false when inserted under memory pressure, until it wins the admission
+    boolean admitted;
+    // Read since the last visit of the eviction
+    volatile boolean referenced;
+    Segment<K, V> segment;
+
+    Node(V value, long weight, boolean admitted) {
+      this.value = value;
+      this.weight = weight;
+      this.admitted = admitted;
+    }
+  }
+
+  /** Entries in eviction order, the next victim first. Guarded by the lock of the cache. */
+  private static final class Segment<K, V> {
+    private final LinkedHashMap<K, Node<K, V>> entries = new LinkedHashMap<>();
+    private long weight;
+
+    void addLast(K key, Node<K, V> node) {
+      entries.put(key, node);
+      node.segment = this;
+      weight += node.weight;
+    }
+
+    void remove(K key, Node<K, V> node) {
+      if (entries.remove(key, node)) {
+        node.segment = null;
+        weight -= node.weight;
+      }
+    }
+
+    void moveToLast(K key, Node<K, V> node) {
+      entries.remove(key);
+      entries.put(key, node);
+    }
+
+    Entry<K, Node<K, V>> first() {
+      Iterator<Entry<K, Node<K, V>>> it = entries.entrySet().iterator();
+      return it.hasNext() ? it.next() : null;
+    }
+
+    int size() {
+      return entries.size();
+    }
+
+    void clear() {
+      entries.values().forEach(n -> n.segment = null);
+      entries.clear();
+      weight = 0;
+    }
+  }
+
+  private record Position<K>(K key, int index) {}
+
+  private static final class PinnedSeries<K> {
+    final List<? extends K> orderedKeys;
+    final int radius;
+    volatile Position<K> current;
+
+    PinnedSeries(List<? extends K> orderedKeys, K current, int radius) {
+      this.orderedKeys = orderedKeys;
+      this.radius = radius;
+      this.current = new Position<>(current, indexOf(current, 0));
+    }
+
+    void moveTo(K key) {
+      this.current = new Position<>(key, indexOf(key, current.index()));
+    }
+
+    /** Searches around the previous index, as the current image usually moves by one slice. */
+    int indexOf(K key, int hint) {
+      synchronized (orderedKeys) {
+        int size = orderedKeys.size();
+        for (int d = 0; d < size; d++) {
+          int next = hint + d;
+          if (next < size && Objects.equals(orderedKeys.get(next), key)) {
+            return next;
+          }
+          int previous = hint - d;
+          if (d > 0
+              && previous >= 0
+              && previous < size
+              && Objects.equals(orderedKeys.get(previous), key)) {
+            return previous;
+          }
+          if (next >= size && previous < 0) {
+            break;
+          }
+        }
+        return -1;
+      }
+    }
+
+    /** @return the position of the current key, searched again if the list has changed */
+    int getIndex() {
+      Position<K> pos = current;
+      synchronized (orderedKeys) {
+        int index = pos.index();
+        if (index >= 0
+            && index < orderedKeys.size()
+            && Objects.equals(orderedKeys.get(index), pos.key())) {
+          return index;
+        }
+      }
+      Position<K> updated = new Position<>(pos.key(), indexOf(pos.key(), Math.max(0, pos.index())));
+      current = updated;
+      return updated.index();
+    }
+  }
+
+  private final Map<K, Node<K, V>> hash;
   private final long maxNativeMemory;
   private final AtomicLong useNativeMemory;
+  private final AtomicLong reservedMemory = new AtomicLong();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<Object, PinnedSeries<K>> pinnedSeries =
+      Collections.synchronizedMap(new WeakHashMap<>());
+  private final CacheEvictionPolicy policy;
+  private final FrequencySketch sketch;
+
+  // The admitted entries, the least recently used first
+  private final Segment<K, V> main = new Segment<>();
+  // TINY_LFU: the most recent insertions (1% of the memory budget), not evicted
+  private final Segment<K, V> window = new Segment<>();
+  // TINY_LFU: the entries inserted under memory pressure and waiting for the admission
+  private final Segment<K, V> candidates = new Segment<>();
+  // TINY_LFU: the admitted entries read again after their admission (80% of the memory budget)
+  private final Segment<K, V> frequent = new Segment<>();
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
 
   protected NativeCache(long maxNativeMemory) {
+    this(maxNativeMemory, CacheEvictionPolicy.LRU);
+  }
+
+  protected NativeCache(long maxNativeMemory, CacheEvictionPolicy policy) {
     this.maxNativeMemory = maxNativeMemory;
     this.useNativeMemory = new AtomicLong(0);
-    this.hash = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true));
+    this.hash = new ConcurrentHashMap<>(64);
+    this.policy = Objects.requireNonNull(policy);
+    this.sketch = policy == CacheEvictionPolicy.TINY_LFU ? new FrequencySketch(1024) : null;
+  }
+
+  public CacheEvictionPolicy getPolicy() {
+    return policy;
   }
 
   @Override
   public V get(Object key) {
-    return hash.get(key);
+    if (key == null) {
+      return null;
+    }
+    if (sketch != null) {
+      sketch.increment(key);
+    }
+    Node<K, V> node = hash.get(key);
+    if (node == null) {
+      missCount.increment();
+      return null;
+    }
+    hitCount.increment();
+    if (!node.referenced) {
+      node.referenced = true;
+    }
+    return node.value;
+  }
+
+  /**
+   * Returns the image without recording an access: the statistics, the frequency and the eviction
+   * order are not updated.
+   *
+   * @param key the key of the image
+   * @return the image or null if the image is not in the cache
+   */
+  public V peek(Object key) {
+    Node<K, V> node = key == null ? null : hash.get(key);
+    return node == null ? null : node.value;
   }
 
   public boolean isMemoryAvailable() {
@@ -42,27 +242,212 @@ public boolean isMemoryAvailable() {
 
   public void expungeStaleEntries() {
     if (!isMemoryAvailable()) {
-      synchronized (hash) {
-        List<K> remKeys = new ArrayList<>();
-        // 5% of max memory + diff
-        long maxfreeSize = maxNativeMemory / 20 + (useNativeMemory.get() - maxNativeMemory);
-        long freeSize = 0;
-
-        for (Map.Entry<K, V> e : hash.entrySet()) {
-          freeSize += physicalBytes(e.getValue());
-          if (freeSize > maxfreeSize) {
+      // 5% of max memory + diff
+      evict(maxNativeMemory / 20 + (useNativeMemory.get() - maxNativeMemory));
+    }
+  }
+
+  private void evict(long bytesToFree) {
+    lock.lock();
+    try {
+      // Check again, another thread may have already released the memory
+      long maxFreeSize = Math.min(bytesToFree, useNativeMemory.get());
+      if (maxFreeSize <= 0) {
+        return;
+      }
+      Map<K, Integer> distances = getPinnedDistances();
+      long freeSize = 0;
+      while (freeSize < maxFreeSize) {
+        Entry<K, Node<K, V>> removed;
+        if (policy == CacheEvictionPolicy.TINY_LFU) {
+          Entry<K, Node<K, V>> c = nextVictim(candidates, null, distances);
+          Entry<K, Node<K, V>> victim = nextVictim(main, frequent, distances);
+          if (victim == null) {
+            victim = nextVictim(frequent, null, distances);
+          }
+          if (c == null) {
+            removed = victim;
+          } else if (victim == null) {
+            // Nothing to compare with
+            admit(c);
+            continue;
+          } else if (sketch.frequency(c.getKey()) > sketch.frequency(victim.getKey())) {
+            // Admission filter: the candidate is used more often than the victim
+            admit(c);
+            removed = victim;
+          } else {
+            removed = c;
+          }
+        } else {
+          removed = nextVictim(main, null, distances);
+        }
+        if (removed == null) {
+          break;
+        }
+        freeSize += evictEntry(removed.getKey(), removed.getValue());
+      }
+      if (freeSize < maxFreeSize && policy == CacheEvictionPolicy.SERIES) {
+        evictFarthest(distances, maxFreeSize - freeSize);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the entry at the head of the segment, without removing it. The entries read since the
+   * last visit get a second chance: they are moved to the tail or promoted to another segment.
+   *
+   * @param promotion the segment receiving the entries read again, or null to keep them
+   * @param pinned the keys which cannot be evicted
+   * @return the next victim, or null if there is no entry to evict in the segment
+   */
+  private Entry<K, Node<K, V>> nextVictim(
+      Segment<K, V> segment, Segment<K, V> promotion, Map<K, Integer> pinned) {
+    // Each entry is visited twice at most
+    for (int n = 2 * segment.size(); n > 0; n--) {
+      Entry<K, Node<K, V>> e = segment.first();
+      if (e == null) {
+        return null;
+      }
+      K key = e.getKey();
+      Node<K, V> node = e.getValue();
+      if (pinned.containsKey(key)) {
+        segment.moveToLast(key, node);
+      } else if (node.referenced) {
+        node.referenced = false;
+        if (promotion == null) {
+          segment.moveToLast(key, node);
+        } else {
+          segment.remove(key, node);
+          promotion.addLast(key, node);
+          demoteFrequent();
+        }
+      } else {
+        return e;
+      }
+    }
+    return null;
+  }
+
+  private void demoteFrequent() {
+    long maxWeight = maxNativeMemory / 5 * 4;
+    Entry<K, Node<K, V>> e;
+    while (frequent.weight > maxWeight && (e = frequent.first()) != null) {
+      frequent.remove(e.getKey(), e.getValue());
+      main.addLast(e.getKey(), e.getValue());
+    }
+  }
+
+  private void admit(Entry<K, Node<K, V>> c) {
+    Node<K, V> node = c.getValue();
+    candidates.remove(c.getKey(), node);
+    node.admitted = true;
+    // Used more often than the victim, it gets the second chance of a recently read entry
+    node.referenced = true;
+    main.addLast(c.getKey(), node);
+  }
+
+  private long evictEntry(K key, Node<K, V> node) {
+    unlink(key, node);
+    if (hash.remove(key, node)) {
+      useNativeMemory.addAndGet(-node.weight);
+      evictionCount.increment();
+      afterEntryRemove(key, node.value);
+      return node.weight;
+    }
+    return 0;
+  }
+
+  /**
+   * SERIES: evicts the images of the pinned series, the farthest from the current image first.
+   */
+  private void evictFarthest(Map<K, Integer> distances, long maxFreeSize) {
+    List<List<K>> byDistance = new ArrayList<>();
+    for (Entry<K, Integer> e : distances.entrySet()) {
+      int d = e.getValue();
+      if (d > 0) {
+        while (byDistance.size() <= d) {
+          byDistance.add(new ArrayList<>());
+        }
+        byDistance.get(d).add(e.getKey());
+      }
+    }
+    long freeSize = 0;
+    for (int d = byDistance.size() - 1; d > 0 && freeSize < maxFreeSize; d--) {
+      for (K key : byDistance.get(d)) {
+        Node<K, V> node = hash.get(key);
+        if (node != null) {
+          freeSize += evictEntry(key, node);
+          if (freeSize >= maxFreeSize) {
             break;
           }
-          remKeys.add(e.getKey());
         }
+      }
+    }
+  }
 
-        for (K key : remKeys) {
-          V val = hash.remove(key);
-          useNativeMemory.addAndGet(-physicalBytes(val));
-          afterEntryRemove(key, val);
+  /**
+   * @return the distance to the current slice of the keys belonging to a pinned series. A
+   *     negative value means the key must not be evicted. Except with the {@link
+   *     CacheEvictionPolicy#SERIES} policy, only the pinned keys are returned.
+   */
+  private Map<K, Integer> getPinnedDistances() {
+    List<PinnedSeries<K>> pins;
+    synchronized (pinnedSeries) {
+      if (pinnedSeries.isEmpty()) {
+        return Collections.emptyMap();
+      }
+      pins = new ArrayList<>(pinnedSeries.values());
+    }
+    Map<K, Integer> distances = new HashMap<>();
+    for (PinnedSeries<K> pin : pins) {
+      int index = pin.getIndex();
+      if (index < 0) {
+        continue;
+      }
+      synchronized (pin.orderedKeys) {
+        int size = pin.orderedKeys.size();
+        int first = 0;
+        int last = size - 1;
+        if (policy != CacheEvictionPolicy.SERIES) {
+          first = Math.max(0, index - pin.radius);
+          last = Math.min(last, index + pin.radius);
+        }
+        for (int i = first; i <= last; i++) {
+          int d = Math.abs(i - index);
+          int value = d <= pin.radius ? -1 : d;
+          distances.merge(pin.orderedKeys.get(i), value, Math::min);
         }
       }
     }
+    return distances;
+  }
+
+  /**
+   * Counts the memory allocated outside the cache (e.g. the voxels of a volume) in the memory
+   * budget. The images of the cache are evicted to make room.
+   *
+   * @param bytes the number of bytes allocated
+   */
+  public void reserveMemory(long bytes) {
+    if (bytes > 0) {
+      reservedMemory.addAndGet(bytes);
+      long overflow = useNativeMemory.addAndGet(bytes) - maxNativeMemory;
+      if (overflow > 0) {
+        evict(maxNativeMemory / 20 + overflow);
+      }
+    }
+  }
+
+  /**
+   * @param bytes the number of bytes reserved with {@link #reserveMemory(long)} and now freed
+   */
+  public void releaseMemory(long bytes) {
+    if (bytes > 0) {
+      reservedMemory.addAndGet(-bytes);
+      useNativeMemory.addAndGet(-bytes);
+    }
   }
 
   private long physicalBytes(V val) {
@@ -74,28 +459,136 @@ private long physicalBytes(V val) {
 
   protected abstract void afterEntryRemove(K key, V val);
 
+  /**
+   * Protects the images around the current one from being evicted. With the {@link
+   * CacheEvictionPolicy#SERIES} policy, the other images of the series are evicted after the
+   * images of the non-pinned series, the farthest from the current image first.
+   *
+   * @param owner the owner of the pin (e.g. a view). The pin is released when the owner is garbage
+   *     collected or when {@link #unpin(Object)} is called.
+   * @param orderedKeys the ordered keys of the series
+   * @param current the key of the current image
+   * @param radius the number of images to protect on each side of the current image
+   */
+  public void pinSeries(Object owner, List<? extends K> orderedKeys, K current, int radius) {
+    if (owner != null && orderedKeys != null && current != null) {
+      int r = Math.max(0, radius);
+      synchronized (pinnedSeries) {
+        PinnedSeries<K> pin = pinnedSeries.get(owner);
+        if (pin != null && pin.orderedKeys == orderedKeys && pin.radius == r) {
+          // Same series, only the current image has changed
+          pin.moveTo(current);
+        } else {
+          pinnedSeries.put(owner, new PinnedSeries<>(orderedKeys, current, r));
+        }
+      }
+    }
+  }
+
+  public void unpin(Object owner) {
+    if (owner != null) {
+      pinnedSeries.remove(owner);
+    }
+  }
+
+  public Statistics getStatistics() {
+    return new Statistics(
+        hitCount.sum(),
+        missCount.sum(),
+        evictionCount.sum(),
+        useNativeMemory.get(),
+        maxNativeMemory);
+  }
+
+  public void resetStatistics() {
+    hitCount.reset();
+    missCount.reset();
+    evictionCount.reset();
+  }
+
   @Override
   public V put(K key, V value) {
-    expungeStaleEntries();
-    V result = hash.put(key, value);
-    useNativeMemory.addAndGet(physicalBytes(value));
-    useNativeMemory.addAndGet(-physicalBytes(result));
-    return result;
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+    long weight = physicalBytes(value);
+    lock.lock();
+    try {
+      long overflow = useNativeMemory.get() + weight - maxNativeMemory;
+      if (overflow > 0) {
+        evict(maxNativeMemory / 20 + overflow);
+      }
+      // Inserted under memory pressure, it has to win the admission (TINY_LFU) at the next
+      // eviction
+      Node<K, V> node = new Node<>(value, weight, overflow <= 0);
+      Node<K, V> old = hash.put(key, node);
+      useNativeMemory.addAndGet(weight);
+      if (old != null) {
+        unlink(key, old);
+        useNativeMemory.addAndGet(-old.weight);
+      }
+      link(key, node);
+      return old == null ? null : old.value;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void link(K key, Node<K, V> node) {
+    if (policy != CacheEvictionPolicy.TINY_LFU) {
+      main.addLast(key, node);
+      return;
+    }
+    window.addLast(key, node);
+    long windowSize = maxNativeMemory / 100;
+    Entry<K, Node<K, V>> e;
+    while (window.weight > windowSize && (e = window.first()) != null) {
+      Node<K, V> n = e.getValue();
+      window.remove(e.getKey(), n);
+      (n.admitted ? main : candidates).addLast(e.getKey(), n);
+    }
+  }
+
+  private static <K, V> void unlink(K key, Node<K, V> node) {
+    if (node.segment != null) {
+      node.segment.remove(key, node);
+    }
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public V remove(Object key) {
-    V val = hash.remove(key);
-    useNativeMemory.addAndGet(-physicalBytes(val));
+    if (key == null) {
+      return null;
+    }
+    V val = null;
+    lock.lock();
+    try {
+      Node<K, V> node = hash.remove(key);
+      if (node != null) {
+        unlink((K) key, node);
+        useNativeMemory.addAndGet(-node.weight);
+        val = node.value;
+      }
+    } finally {
+      lock.unlock();
+    }
     afterEntryRemove((K) key, val);
     return val;
   }
 
   @Override
   public void clear() {
-    hash.clear();
-    useNativeMemory.set(0);
+    lock.lock();
+    try {
+      hash.clear();
+      main.clear();
+      window.clear();
+      candidates.clear();
+      frequent.clear();
+      useNativeMemory.set(reservedMemory.get());
+    } finally {
+      lock.unlock();
+    }
   }
 
   @Override
@@ -105,17 +598,26 @@ public int size() {
 
   @Override
   public Set<Entry<K, V>> entrySet() {
-    return hash.entrySet();
+    Set<Entry<K, V>> set = new HashSet<>();
+    for (Entry<K, Node<K, V>> e : hash.entrySet()) {
+      set.add(new SimpleImmutableEntry<>(e.getKey(), e.getValue().value));
+    }
+    return Collections.unmodifiableSet(set);
   }
 
   @Override
   public boolean containsKey(Object key) {
-    return hash.containsKey(key);
+    return key != null && hash.containsKey(key);
   }
 
   @Override
   public boolean containsValue(Object value) {
-    return hash.containsValue(value);
+    for (Node<K, V> node : hash.values()) {
+      if (node.value.equals(value)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   @Override
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Predicts the scrolling direction and speed in a stack of images from the successive positions,
+ * in order to load the images in the order they will probably be displayed.
+ *
+ * <p>The velocity is smoothed with an exponential moving average and is reset when the direction
+ * changes or after a pause.
+ */
+public final class ScrollPredictor {
+
+  private static final double SMOOTHING = 0.3;
+  private static final long PAUSE = TimeUnit.SECONDS.toNanos(1);
+  /** Speed (images by second) from which the images ahead take the maximum share */
+  private static final double FAST_SCROLLING = 10.0;
+
+  private static final double MAX_AHEAD_RATIO = 0.9;
+
+  private int index = -1;
+  private long time;
+  private double velocity;
+
+  /**
+   * @param newIndex the index of the displayed image
+   * @param nanoTime the time of the change, from {@link System#nanoTime()}
+   */
+  public synchronized void update(int newIndex, long nanoTime) {
+    if (index >= 0 && newIndex != index) {
+      long elapsed = Math.max(1L, nanoTime - time);
+      double v = (newIndex - index) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+      if (elapsed > PAUSE || Math.signum(v) != Math.signum(velocity)) {
+        velocity = v;
+      } else {
+        velocity += SMOOTHING * (v - velocity);
+      }
+    }
+    index = newIndex;
+    time = nanoTime;
+  }
+
+  public synchronized int getIndex() {
+    return index;
+  }
+
+  /**
+   * @return the velocity in images by second, negative when scrolling backward
+   */
+  public synchronized double getVelocity() {
+    return velocity;
+  }
+
+  /**
+   * @return the share of the images to load after the current one in the scrolling direction, from
+   *     0.5 (no direction) to 0.9 (fast scrolling)
+   */
+  public synchronized double getAheadRatio() {
+    double speed = Math.min(Math.abs(velocity), FAST_SCROLLING);
+    return 0.5 + (MAX_AHEAD_RATIO - 0.5) * speed / FAST_SCROLLING;
+  }
+
+  /**
+   * Returns the indexes of the images to load, starting with the current index and moving outward.
+   * The images in the scrolling direction come first according to {@link #getAheadRatio()}.
+   *
+   * @param current the current index
+   * @param size the number of images
+   * @param count the maximum number of indexes to return
+   * @return the indexes in the loading order
+   */
+  public int[] getLoadingOrder(int current, int size, int count) {
+    if (current < 0 || current >= size || count <= 0) {
+      return new int[0];
+    }
+    double ratio;
+    int step;
+    synchronized (this) {
+      ratio = getAheadRatio();
+      step = velocity < 0 ? -1 : 1;
+    }
+    int[] order = new int[Math.min(count, size)];
+    order[0] = current;
+    int ahead = 0;
+    int behind = 0;
+    for (int i = 1; i < order.length; i++) {
+      int nextAhead = current + step * (ahead + 1);
+      int nextBehind = current - step * (behind + 1);
+      boolean aheadAvailable = nextAhead >= 0 && nextAhead < size;
+      boolean behindAvailable = nextBehind >= 0 && nextBehind < size;
+      if (aheadAvailable && (!behindAvailable || ahead < ratio * i)) {
+        order[i] = nextAhead;
+        ahead++;
+      } else {
+        order[i] = nextBehind;
+        behind++;
+      }
+    }
+    return order;
+  }
+}
@@ -23,6 +23,7 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Random;
 import javax.swing.SwingUtilities;
@@ -51,6 +52,8 @@
   private PropertyChangeSupport propertyChange = null;
   protected final List<E> medias;
   protected final Map<Comparator<E>, List<E>> sortedMedias = new HashMap<>(6);
+  // Slice location indexes by sort order (the null key is the default order)
+  private final Map<Comparator<E>, SliceLocationIndex> locationIndexes = new HashMap<>(4);
   protected final Comparator<E> mediaOrder;
   protected SeriesImporter seriesLoader;
   private long fileSize;
@@ -91,48 +94,222 @@ private static DataFlavor createConstant(String mt, String prn) {
   }
 
   protected void resetSortedMediasMap() {
-    if (!sortedMedias.isEmpty()) {
+    synchronized (this) {
       sortedMedias.clear();
+      locationIndexes.clear();
     }
   }
 
+  private static boolean isDefaultOrder(Comparator<?> comparator, Comparator<?> mediaOrder) {
+    return comparator == null || comparator.equals(mediaOrder);
+  }
+
+  /**
+   * Returns the media in the order of the comparator. A sorted list is never modified: when adding
+   * a media, it is replaced by a copy including the new media at its sorted position.
+   */
   @Override
   public List<E> getSortedMedias(Comparator<E> comparator) {
     // Do not sort when it is the default order.
-    if (comparator != null && !comparator.equals(mediaOrder)) {
-      return sortedMedias.computeIfAbsent(
-          comparator,
-          k -> {
-            List<E> sorted = new ArrayList<>(medias);
-            sorted.sort(comparator);
-            return sorted;
-          });
+    if (!isDefaultOrder(comparator, mediaOrder)) {
+      synchronized (this) {
+        return sortedMedias.computeIfAbsent(
+            comparator,
+            k -> {
+              List<E> sorted = new ArrayList<>(medias);
+              sorted.sort(comparator);
+              return sorted;
+            });
+      }
     }
     return medias;
   }
 
   @Override
   public void add(E media) {
-    medias.add(media);
-    resetSortedMediasMap();
+    synchronized (this) {
+      medias.add(media);
+      updateSortedMedias(medias.size() - 1, media);
+    }
   }
 
   @Override
   public void add(int index, E media) {
-    medias.add(index, media);
-    resetSortedMediasMap();
+    synchronized (this) {
+      medias.add(index, media);
+      updateSortedMedias(index, media);
+    }
   }
 
   @Override
   public void addAll(Collection<? extends E> c) {
-    medias.addAll(c);
-    resetSortedMediasMap();
+    synchronized (this) {
+      addAll(medias.size(), c);
+    }
   }
 
   @Override
   public void addAll(int index, Collection<? extends E> c) {
-    medias.addAll(index, c);
-    resetSortedMediasMap();
+    synchronized (this) {
+      medias.addAll(index, c);
+      if (c.size() > Math.max(16, medias.size() / 8)) {
+        // Sorting again is faster than inserting each media
+        resetSortedMediasMap();
+      } else {
+        int i = index;
+        for (E media : c) {
+          updateSortedMedias(i++, media);
+        }
+      }
+    }
+  }
+
+  /**
+   * Inserts a new media in the sorted lists (by binary search) and in the slice location indexes.
+   * Must be called while holding the lock of the series.
+   *
+   * @param index the index of the new media in the default order
+   * @param media the new media
+   */
+  private void updateSortedMedias(int index, E media) {
+    double location = SliceLocationIndex.getLocation(media);
+    SliceLocationIndex defaultIndex = locationIndexes.get(null);
+    if (defaultIndex != null) {
+      defaultIndex.insert(index, location);
+    }
+    for (Entry<Comparator<E>, List<E>> entry : sortedMedias.entrySet()) {
+      Comparator<E> comparator = entry.getKey();
+      List<E> list = entry.getValue();
+      int pos = upperBound(list, media, comparator);
+      List<E> sorted = new ArrayList<>(list.size() + 1);
+      sorted.addAll(list.subList(0, pos));
+      sorted.add(media);
+      sorted.addAll(list.subList(pos, list.size()));
+      entry.setValue(sorted);
+      SliceLocationIndex sortedIndex = locationIndexes.get(comparator);
+      if (sortedIndex != null) {
+        sortedIndex.insert(pos, location);
+      }
+    }
+  }
+
+  private static <E> int upperBound(List<E> list, E media, Comparator<E> comparator) {
+    int low = 0;
+    int high = list.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (comparator.compare(list.get(mid), media) <= 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the index of the media with the nearest slice location (sum of the components of
+   * {@link TagW#SlicePosition}) in the given order, by binary search in an index maintained with
+   * the sorted lists. When several media are at the same distance, the lowest index is returned.
+   *
+   * @param location the slice location
+   * @param sort the order of the media, null for the default order
+   * @return the index or -1 if no media has a slice location
+   */
+  protected int getNearestLocationIndex(double location, Comparator<E> sort) {
+    Comparator<E> key = isDefaultOrder(sort, mediaOrder) ? null : sort;
+    List<E> list = getSortedMedias(sort);
+    synchronized (this) {
+      SliceLocationIndex index = locationIndexes.get(key);
+      for (int attempt = 0; attempt < 2; attempt++) {
+        if (index == null) {
+          index = buildLocationIndex(key, list);
+        }
+        int entry = index.nearest(location);
+        if (entry < 0) {
+          return -1;
+        }
+        if (isUpToDate(index, entry, list)) {
+          return index.getPosition(entry);
+        }
+        index = null;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the media with the lowest and the highest slice location (sum of the components of
+   * {@link TagW#SlicePosition}). When several media have the same location, the first one in the
+   * given order is returned. The extremes are read from the location index of the order, so only
+   * the media at both ends are tested with the filter.
+   *
+   * @param filter the filter of the media, can be null
+   * @param sort the order of the media, null for the default order
+   */
+  @Override
+  public SliceExtent<E> getSliceExtent(Filter<E> filter, Comparator<E> sort) {
+    Comparator<E> key = isDefaultOrder(sort, mediaOrder) ? null : sort;
+    List<E> list = getSortedMedias(sort);
+    synchronized (this) {
+      SliceLocationIndex index = locationIndexes.get(key);
+      if (index == null
+          || !isUpToDate(index, 0, list)
+          || !isUpToDate(index, index.size() - 1, list)) {
+        index = buildLocationIndex(key, list);
+      }
+
+      E first = null;
+      for (int i = 0; i < index.size() && first == null; i++) {
+        first = getIndexedMedia(index, i, list, filter);
+      }
+      E last = null;
+      double lastLocation = Double.NaN;
+      for (int i = index.size() - 1; i >= 0; i--) {
+        // Go back to the first media at the highest location
+        if (last != null && Double.compare(index.getLocation(i), lastLocation) != 0) {
+          break;
+        }
+        E media = getIndexedMedia(index, i, list, filter);
+        if (media != null) {
+          last = media;
+          lastLocation = index.getLocation(i);
+        }
+      }
+      return new SliceExtent<>(first, last);
+    }
+  }
+
+  private SliceLocationIndex buildLocationIndex(Comparator<E> key, List<E> list) {
+    SliceLocationIndex index = SliceLocationIndex.build(list);
+    locationIndexes.put(key, index);
+    return index;
+  }
+
+  /**
+   * Checks that an entry of the index matches the list (e.g. the default list may have been sorted
+   * again). An empty index is up to date.
+   */
+  private static <E extends MediaElement> boolean isUpToDate(
+      SliceLocationIndex index, int entry, List<E> list) {
+    if (entry < 0 || entry >= index.size()) {
+      return true;
+    }
+    int position = index.getPosition(entry);
+    return position < list.size()
+        && Double.compare(
+                SliceLocationIndex.getLocation(list.get(position)), index.getLocation(entry))
+            == 0;
+  }
+
+  private static <E extends MediaElement> E getIndexedMedia(
+      SliceLocationIndex index, int entry, List<E> list, Filter<E> filter) {
+    int position = index.getPosition(entry);
+    if (position >= list.size()) {
+      return null;
+    }
+    E media = list.get(position);
+    return media != null && (filter == null || filter.passes(media)) ? media : null;
   }
 
   @Override
@@ -0,0 +1,418 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.opencv.data.PlanarImage;
+
+/**
+ * Preloads the images of several series at the same time (e.g. the series of a layout) into the
+ * image cache.
+ *
+ * <p>Each series shares equally the native memory budget of the cache. The images are requested
+ * with the {@link Priority#BACKGROUND} priority from the current image outward, first in the
+ * scrolling direction predicted by a {@link ScrollPredictor}. When the window of a series is
+ * loaded, its preloading waits for the next position change.
+ *
+ * <p>The preloading of a series started by viewers (e.g. views) is stopped when none of them
+ * displays the series anymore.
+ */
+public final class SeriesPreloader {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SeriesPreloader.class);
+
+  public record Statistics(long hitCount, long missCount, long loadCount) {
+
+    public double hitRate() {
+      long total = hitCount + missCount;
+      return total == 0 ? 1.0 : (double) hitCount / total;
+    }
+  }
+
+  /** Maximum number of series preloaded at the same time, the oldest is stopped first */
+  public static final int MAX_SERIES = 8;
+
+  /** Share of the cache memory that can be filled by preloading */
+  private static final double MEMORY_RATIO = 0.8;
+
+  /** Number of decoding requests of a series submitted at the same time */
+  private static final int PARALLEL_REQUESTS = 2;
+
+  private static final ThreadFactory THREAD_FACTORY =
+      ThreadUtil.getThreadFactory("Series Preloader"); // NON-NLS
+
+  // Access order: the eldest entry is the series least recently started or scrolled
+  private static final Map<Object, Session> SESSIONS = new LinkedHashMap<>(16, 0.75f, true);
+
+  private static final LongAdder hitCount = new LongAdder();
+  private static final LongAdder missCount = new LongAdder();
+  private static final LongAdder loadCount = new LongAdder();
+
+  private SeriesPreloader() {}
+
+  /**
+   * Starts or updates the preloading of a series.
+   *
+   * @param series the series
+   * @param images the images of the series in the display order
+   * @param currentIndex the index of the displayed image
+   * @param onLoaded called in the preloading thread after loading each image, can be null
+   */
+  public static void start(
+      Object series,
+      List<? extends ImageElement> images,
+      int currentIndex,
+      Consumer<ImageElement> onLoaded) {
+    start(null, series, images, currentIndex, onLoaded);
+  }
+
+  /**
+   * Starts or updates the preloading of a series displayed by a viewer. The viewer no longer
+   * displays the series it was registered with before, see {@link #release(Object)}.
+   *
+   * @param viewer the viewer displaying the series (e.g. a view), can be null
+   * @param series the series
+   * @param images the images of the series in the display order
+   * @param currentIndex the index of the displayed image
+   * @param onLoaded called in the preloading thread after loading each image, can be null
+   */
+  public static void start(
+      Object viewer,
+      Object series,
+      List<? extends ImageElement> images,
+      int currentIndex,
+      Consumer<ImageElement> onLoaded) {
+    if (series == null || images == null || images.isEmpty()) {
+      return;
+    }
+    List<Session> stopped = new ArrayList<>();
+    synchronized (SESSIONS) {
+      Session session = SESSIONS.get(series);
+      if (viewer != null) {
+        detachViewer(viewer, session, stopped);
+      }
+      if (session != null) {
+        session.setImages(images, currentIndex);
+      } else {
+        session = new Session(images, currentIndex, onLoaded);
+        SESSIONS.put(series, session);
+        Iterator<Session> iter = SESSIONS.values().iterator();
+        while (SESSIONS.size() > MAX_SERIES && iter.hasNext()) {
+          stopped.add(iter.next());
+          iter.remove();
+        }
+        session.thread.start();
+      }
+      if (viewer != null) {
+        session.viewers.add(viewer);
+      }
+    }
+    stopped.forEach(Session::stop);
+  }
+
+  /**
+   * Notifies that a viewer no longer displays its series (closed or displaying another series).
+   * The preloading of the series is stopped when no other viewer displays it.
+   *
+   * @param viewer the viewer given to {@link #start(Object, Object, List, int, Consumer)}
+   */
+  public static void release(Object viewer) {
+    if (viewer == null) {
+      return;
+    }
+    List<Session> stopped = new ArrayList<>();
+    synchronized (SESSIONS) {
+      detachViewer(viewer, null, stopped);
+    }
+    stopped.forEach(Session::stop);
+  }
+
+  // Holds the SESSIONS lock
+  private static void detachViewer(Object viewer, Session keep, List<Session> stopped) {
+    Iterator<Session> iter = SESSIONS.values().iterator();
+    while (iter.hasNext()) {
+      Session session = iter.next();
+      if (session != keep && session.viewers.remove(viewer) && session.viewers.isEmpty()) {
+        stopped.add(session);
+        iter.remove();
+      }
+    }
+  }
+
+  /**
+   * Stops the preloading of a series.
+   *
+   * @param series the series
+   */
+  public static void stop(Object series) {
+    Session session;
+    synchronized (SESSIONS) {
+      session = SESSIONS.remove(series);
+    }
+    if (session != null) {
+      session.stop();
+    }
+  }
+
+  /**
+   * Notifies that the displayed image of a series has changed (scrolling or cine). The statistics
+   * record whether the image was already loaded.
+   *
+   * @param series the series
+   * @param index the index of the displayed image
+   * @param image the displayed image
+   */
+  public static void updatePosition(Object series, int index, ImageElement image) {
+    Session session;
+    synchronized (SESSIONS) {
+      session = SESSIONS.get(series);
+    }
+    if (session == null) {
+      return;
+    }
+    if (image != null) {
+      if (isLoaded(image)) {
+        hitCount.increment();
+      } else {
+        missCount.increment();
+      }
+    }
+    session.setPosition(index);
+  }
+
+  /**
+   * Same as {@link #updatePosition(Object, int, ImageElement)} with the index of the image searched
+   * in the images being preloaded, from the previous position.
+   *
+   * @return false if the series is not preloaded or if the image is not in the preloaded images
+   */
+  public static boolean updatePosition(Object series, ImageElement image) {
+    Session session;
+    synchronized (SESSIONS) {
+      session = SESSIONS.get(series);
+    }
+    int index = session == null ? -1 : session.indexOf(image);
+    if (index < 0) {
+      return false;
+    }
+    updatePosition(series, index, image);
+    return true;
+  }
+
+  public static boolean isPreloading(Object series) {
+    synchronized (SESSIONS) {
+      return SESSIONS.containsKey(series);
+    }
+  }
+
+  public static Statistics getStatistics() {
+    return new Statistics(hitCount.sum(), missCount.sum(), loadCount.sum());
+  }
+
+  public static void resetStatistics() {
+    hitCount.reset();
+    missCount.reset();
+    loadCount.reset();
+  }
+
+  private static int getSessionNumber() {
+    synchronized (SESSIONS) {
+      return Math.max(1, SESSIONS.size());
+    }
+  }
+
+  private static boolean isLoaded(ImageElement image) {
+    // Do not call isImageInCache(), which would be counted as an access to the cache
+    return Boolean.TRUE.equals(image.getTagValue(TagW.ImageCache));
+  }
+
+  private static final class Session implements Runnable {
+    private final ScrollPredictor predictor = new ScrollPredictor();
+    // Guarded by the SESSIONS lock
+    private final Set<Object> viewers = Collections.newSetFromMap(new WeakHashMap<>());
+    private final Consumer<ImageElement> onLoaded;
+    private final Thread thread;
+    private List<? extends ImageElement> images;
+    private int version;
+    private volatile boolean running = true;
+    private long imageSize;
+
+    Session(
+        List<? extends ImageElement> images, int currentIndex, Consumer<ImageElement> onLoaded) {
+      this.images = images;
+      this.onLoaded = onLoaded;
+      this.predictor.update(currentIndex, System.nanoTime());
+      this.thread = THREAD_FACTORY.newThread(this);
+      this.thread.setPriority(Thread.MIN_PRIORITY);
+    }
+
+    synchronized void setImages(List<? extends ImageElement> images, int currentIndex) {
+      this.images = images;
+      setPosition(currentIndex);
+    }
+
+    /** Searches around the current index, as the displayed image usually moves by one slice. */
+    synchronized int indexOf(ImageElement image) {
+      int current = Math.max(0, predictor.getIndex());
+      int size = images.size();
+      for (int d = 0; d < size; d++) {
+        int next = current + d;
+        int previous = current - d;
+        if (next >= size && previous < 0) {
+          break;
+        }
+        if (next < size && images.get(next) == image) {
+          return next;
+        }
+        if (d > 0 && previous >= 0 && previous < size && images.get(previous) == image) {
+          return previous;
+        }
+      }
+      return -1;
+    }
+
+    synchronized void setPosition(int index) {
+      predictor.update(index, System.nanoTime());
+      version++;
+      notifyAll();
+    }
+
+    void stop() {
+      running = false;
+      thread.interrupt();
+    }
+
+    /**
+     * @return the number of images of the series fitting in the memory budget of the series
+     */
+    private int getWindowSize(int size) {
+      if (imageSize <= 0) {
+        return 1;
+      }
+      NativeCache.Statistics stats = ImageElement.getCacheStatistics();
+      long budget = (long) (stats.maxMemory() * MEMORY_RATIO) / getSessionNumber();
+      return (int) Math.max(1, Math.min(size, budget / imageSize));
+    }
+
+    private List<ImageElement> getImagesToLoad(ArrayDeque<Request> requests, int max) {
+      List<? extends ImageElement> list;
+      int current;
+      synchronized (this) {
+        list = images;
+        current = predictor.getIndex();
+      }
+      List<ImageElement> toLoad = new ArrayList<>(max);
+      int window = getWindowSize(list.size());
+      for (int index : predictor.getLoadingOrder(current, list.size(), window)) {
+        ImageElement image = list.get(index);
+        if (image != null
+            && image.isReadable()
+            && !image.isLoading()
+            && !isLoaded(image)
+            && requests.stream().noneMatch(r -> r.image() == image)) {
+          toLoad.add(image);
+          if (toLoad.size() >= max) {
+            break;
+          }
+        }
+      }
+      return toLoad;
+    }
+
+    @Override
+    public void run() {
+      ArrayDeque<Request> requests = new ArrayDeque<>(PARALLEL_REQUESTS);
+      try {
+        initImageSize();
+        while (running) {
+          int currentVersion;
+          synchronized (this) {
+            currentVersion = version;
+          }
+          for (ImageElement image : getImagesToLoad(requests, PARALLEL_REQUESTS - requests.size())) {
+            Future<PlanarImage> future = image.requestImage(Priority.BACKGROUND);
+            if (future != null) {
+              requests.addLast(new Request(image, future));
+            }
+          }
+          Request request = requests.pollFirst();
+          if (request != null) {
+            waitFor(request);
+          } else {
+            synchronized (this) {
+              // Everything is loaded in the window, wait for a new position
+              while (running && currentVersion == version) {
+                wait();
+              }
+            }
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        requests.forEach(r -> r.image().cancelImageRequest(r.future()));
+      }
+    }
+
+    private void initImageSize() {
+      ImageElement image;
+      synchronized (this) {
+        int index = predictor.getIndex();
+        image = index >= 0 && index < images.size() ? images.get(index) : null;
+      }
+      if (image != null) {
+        // Load the current image first (if not already done by the view) to get the image size
+        PlanarImage img = image.getImage(null, false, Priority.BACKGROUND);
+        if (img != null) {
+          imageSize = img.physicalBytes();
+        }
+      }
+    }
+
+    private void waitFor(Request request) throws InterruptedException {
+      try {
+        PlanarImage img = request.future().get();
+        if (img != null) {
+          imageSize = Math.max(imageSize, img.physicalBytes());
+          loadCount.increment();
+          if (onLoaded != null) {
+            onLoaded.accept(request.image());
+          }
+        }
+      } catch (InterruptedException e) {
+        request.image().cancelImageRequest(request.future());
+        throw e;
+      } catch (CancellationException e) {
+        LOGGER.debug("Preloading has been cancelled: {}", request.image());
+      } catch (ExecutionException e) {
+        LOGGER.error("Preloading image: {}", request.image(), e.getCause());
+      }
+    }
+  }
+
+  private record Request(ImageElement image, Future<PlanarImage> future) {}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Positions of the media of an ordered list sorted by slice location (the sum of the components
+ * of {@link TagW#SlicePosition}), for finding the nearest slice by binary search. The entries are
+ * sorted by location and then by position, the media without location are not indexed.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class SliceLocationIndex {
+
+  private double[] locations;
+  private int[] positions;
+  private int size;
+
+  SliceLocationIndex(int capacity) {
+    this.locations = new double[Math.max(8, capacity)];
+    this.positions = new int[locations.length];
+  }
+
+  static SliceLocationIndex build(List<? extends MediaElement> list) {
+    int n = list.size();
+    double[] locs = new double[n];
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      locs[i] = getLocation(list.get(i));
+      order[i] = i;
+    }
+    // Stable sort: the media at the same location remain ordered by position
+    Arrays.sort(order, (a, b) -> Double.compare(locs[a], locs[b]));
+    SliceLocationIndex index = new SliceLocationIndex(n);
+    for (Integer position : order) {
+      if (!Double.isNaN(locs[position])) {
+        index.locations[index.size] = locs[position];
+        index.positions[index.size] = position;
+        index.size++;
+      }
+    }
+    return index;
+  }
+
+  /**
+   * @return the slice location or NaN if the media has no location
+   */
+  static double getLocation(MediaElement media) {
+    double[] val = media == null ? null : (double[]) media.getTagValue(TagW.SlicePosition);
+    if (val == null || val.length < 3) {
+      return Double.NaN;
+    }
+    return val[0] + val[1] + val[2];
+  }
+
+  int size() {
+    return size;
+  }
+
+  int getPosition(int entry) {
+    return positions[entry];
+  }
+
+  double getLocation(int entry) {
+    return locations[entry];
+  }
+
+  /**
+   * Updates the index after inserting a media in the ordered list: the positions from the
+   * insertion position are shifted by one.
+   *
+   * @param position the position of the new media in the list
+   * @param location the location of the new media, or NaN when it has no location
+   */
+  void insert(int position, double location) {
+    for (int i = 0; i < size; i++) {
+      if (positions[i] >= position) {
+        positions[i]++;
+      }
+    }
+    if (Double.isNaN(location)) {
+      return;
+    }
+    if (size == locations.length) {
+      locations = Arrays.copyOf(locations, size * 2);
+      positions = Arrays.copyOf(positions, size * 2);
+    }
+    int entry = lowerBound(location, position);
+    System.arraycopy(locations, entry, locations, entry + 1, size - entry);
+    System.arraycopy(positions, entry, positions, entry + 1, size - entry);
+    locations[entry] = location;
+    positions[entry] = position;
+    size++;
+  }
+
+  /**
+   * Returns the entry of the nearest location. When several media are at the same distance, the
+   * entry with the lowest position is returned.
+   *
+   * @param location the location
+   * @return the entry or -1 if the index is empty
+   */
+  int nearest(double location) {
+    if (size == 0 || Double.isNaN(location)) {
+      return -1;
+    }
+    // First entry with a location greater than or equal to the location
+    int above = lowerBound(location, Integer.MIN_VALUE);
+    int best = -1;
+    if (above < size) {
+      best = above;
+    }
+    if (above > 0) {
+      // First entry of the greatest location lower than the location
+      int below = lowerBound(locations[above - 1], Integer.MIN_VALUE);
+      if (best < 0) {
+        best = below;
+      } else {
+        int c = Double.compare(location - locations[below], locations[above] - location);
+        if (c < 0 || (c == 0 && positions[below] < positions[above])) {
+          best = below;
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * @return the first entry greater than or equal to (location, position)
+   */
+  private int lowerBound(double location, int position) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      int c = Double.compare(locations[mid], location);
+      if (c < 0 || (c == 0 && positions[mid] < position)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
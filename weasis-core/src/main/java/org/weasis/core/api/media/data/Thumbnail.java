@@ -24,6 +24,7 @@
 import java.io.File;
 import java.io.IOException;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -278,21 +279,43 @@ private void loadThumbnail(
           }
         }
       }
+      // The persistent store is keyed by the content of the media, not by the processing
+      String storeKey =
+          noPath && opManager == null && media instanceof ImageElement
+              ? media.getThumbnailKey()
+              : null;
+      if (storeKey != null) {
+        File stored = ThumbnailStore.getInstance().get(storeKey);
+        if (stored != null) {
+          media.setTag(TagW.ThumbnailPath, stored.getPath());
+          thumbnailPath = stored;
+          file = stored;
+          noPath = false;
+        }
+      }
       if (noPath) {
         if (media instanceof final ImageElement image) {
-          PlanarImage imgPl = image.getImage(opManager);
-          if (imgPl != null) {
-            PlanarImage img = image.getRenderedImage(imgPl);
+          PlanarImage img = image.getThumbnailImage(MAX_SIZE, opManager);
+          if (img != null) {
             final PlanarImage thumb = createThumbnail(img);
-            if (thumb != null) {
-              try {
-                file =
-                    File.createTempFile("tumb_", ".jpg", Thumbnail.THUMBNAIL_CACHE_DIR); // NON-NLS
-              } catch (IOException e) {
-                LOGGER.error("Cannot create file for thumbnail!", e);
-              }
-            }
             try {
+              if (thumb != null && storeKey != null) {
+                File stored = ThumbnailStore.getInstance().put(storeKey, thumb);
+                if (stored != null) {
+                  image.setTag(TagW.ThumbnailPath, stored.getPath());
+                  thumbnailPath = stored;
+                  return;
+                }
+              }
+              if (thumb != null) {
+                try {
+                  file =
+                      File.createTempFile(
+                          "tumb_", ".jpg", Thumbnail.THUMBNAIL_CACHE_DIR); // NON-NLS
+                } catch (IOException e) {
+                  LOGGER.error("Cannot create file for thumbnail!", e);
+                }
+              }
               if (thumb != null && file != null && thumb.width() > 0) {
                 MatOfInt map = new MatOfInt(Imgcodecs.IMWRITE_JPEG_QUALITY, 80);
                 if (ImageProcessor.writeImage(thumb.toMat(), file, map)) {
@@ -325,8 +348,8 @@ private void loadThumbnail(
         }
       } else {
         Load ref = new Load(file);
-        // loading images sequentially, only one thread pool
-        Future<PlanarImage> future = ImageElement.IMAGE_LOADER.submit(ref);
+        Future<PlanarImage> future =
+            ImageElement.IMAGE_LOADER.submit(file, ref, DecodeScheduler.Priority.BACKGROUND);
         PlanarImage thumb = null;
         try {
           PlanarImage img = future.get();
@@ -345,8 +368,10 @@ private void loadThumbnail(
         } catch (InterruptedException e) {
           // Re-assert the thread's interrupted status
           Thread.currentThread().interrupt();
-          // We don't need the result, so cancel the task too
-          future.cancel(true);
+          // We don't need the result, so cancel the task if nobody else is waiting for it
+          ImageElement.IMAGE_LOADER.release(file, future);
+        } catch (CancellationException e) {
+          LOGGER.debug("Reading thumbnail has been cancelled: {}", file);
         } catch (ExecutionException e) {
           LOGGER.error("Cannot read thumbnail pixel data!: {}", file, e);
         }
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.function.Predicate;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfInt;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.AppProperties;
+import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.StringUtil;
+import org.weasis.opencv.data.PlanarImage;
+
+/**
+ * Keeps the thumbnails on disk between sessions. A thumbnail file is named by the hash of a key
+ * identifying the content of the media (see {@link MediaElement#getThumbnailKey()}), so the same
+ * image gets its thumbnail back whatever its location. When the store exceeds its maximum size, the
+ * least recently used thumbnails are deleted.
+ */
+public final class ThumbnailStore {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ThumbnailStore.class);
+
+  public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+  static final String EXTENSION = ".jpg"; // NON-NLS
+  // Not listed as a thumbnail while it is written
+  static final String TMP_EXTENSION = ".tmp"; // NON-NLS
+  // Proportion of the maximum size kept after an eviction, avoids evicting at each new thumbnail
+  static final double LOW_WATER_MARK = 0.8;
+
+  private static final ThumbnailStore INSTANCE =
+      new ThumbnailStore(
+          new File(AppProperties.WEASIS_PATH, "cache" + File.separator + "thumbnails"), // NON-NLS
+          DEFAULT_MAX_BYTES);
+
+  private final File directory;
+  private final long maxBytes;
+  // Size of the files in the directory, computed on the first write
+  private long size = -1;
+
+  ThumbnailStore(File directory, long maxBytes) {
+    this.directory = Objects.requireNonNull(directory);
+    this.maxBytes = maxBytes;
+  }
+
+  public static ThumbnailStore getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Gets the thumbnail of a media and marks it as recently used.
+   *
+   * @param key the content key of the media
+   * @return the thumbnail file or null if it is not in the store
+   */
+  public File get(String key) {
+    if (!StringUtil.hasText(key)) {
+      return null;
+    }
+    File file = getFile(key);
+    if (file.canRead()) {
+      if (!file.setLastModified(System.currentTimeMillis())) {
+        LOGGER.debug("Cannot update the last use of the thumbnail: {}", file);
+      }
+      return file;
+    }
+    return null;
+  }
+
+  /**
+   * Writes the thumbnail of a media in JPEG.
+   *
+   * @param key the content key of the media
+   * @param thumbnail the image to write, its size should not exceed {@link Thumbnail#MAX_SIZE}
+   * @return the thumbnail file or null if it cannot be written
+   */
+  public File put(String key, PlanarImage thumbnail) {
+    if (thumbnail == null || thumbnail.width() <= 0) {
+      return null;
+    }
+    // Encoded in memory, the encoder cannot be found from the extension of the temporary file
+    return put(
+        key,
+        f -> {
+          MatOfByte buf = new MatOfByte();
+          try {
+            if (!Imgcodecs.imencode(
+                EXTENSION,
+                thumbnail.toMat(),
+                buf,
+                new MatOfInt(Imgcodecs.IMWRITE_JPEG_QUALITY, 80))) {
+              return false;
+            }
+            Files.write(f.toPath(), buf.toArray());
+            return true;
+          } catch (IOException e) {
+            LOGGER.error("Cannot encode the thumbnail: {}", f, e);
+            return false;
+          } finally {
+            buf.release();
+          }
+        });
+  }
+
+  /**
+   * @param writer writes the thumbnail into the given file and returns false when it fails
+   */
+  File put(String key, Predicate<File> writer) {
+    if (!StringUtil.hasText(key)) {
+      return null;
+    }
+    File file = getFile(key);
+    File tmp = null;
+    try {
+      Files.createDirectories(directory.toPath());
+      // Write beside the final file and move it, so another reader never gets a partial file
+      tmp = File.createTempFile("tmp_", TMP_EXTENSION, directory); // NON-NLS
+      if (!writer.test(tmp)) {
+        FileUtil.delete(tmp);
+        return null;
+      }
+      long length = tmp.length();
+      long previous = file.length();
+      Files.move(
+          tmp.toPath(),
+          file.toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      addSize(length - previous);
+      return file;
+    } catch (IOException e) {
+      LOGGER.error("Cannot write the thumbnail: {}", file, e);
+      if (tmp != null) {
+        FileUtil.delete(tmp);
+      }
+      return null;
+    }
+  }
+
+  File getFile(String key) {
+    return new File(
+        directory, StringUtil.bytesToMD5(key.getBytes(StandardCharsets.UTF_8)) + EXTENSION);
+  }
+
+  synchronized long getSize() {
+    if (size < 0) {
+      size = 0;
+      for (File f : listThumbnails()) {
+        size += f.length();
+      }
+    }
+    return size;
+  }
+
+  private synchronized void addSize(long delta) {
+    size = getSize() + delta;
+    if (size > maxBytes) {
+      evict();
+    }
+  }
+
+  /** Deletes the least recently used thumbnails until the store is under the low water mark. */
+  private void evict() {
+    File[] files = listThumbnails();
+    // Read the dates once, they can change while sorting
+    long[][] entries = new long[files.length][];
+    for (int i = 0; i < files.length; i++) {
+      entries[i] = new long[] {files[i].lastModified(), i};
+    }
+    Arrays.sort(entries, Comparator.comparingLong(e -> e[0]));
+
+    long total = 0;
+    for (File f : files) {
+      total += f.length();
+    }
+    long target = (long) (maxBytes * LOW_WATER_MARK);
+    for (long[] entry : entries) {
+      if (total <= target) {
+        break;
+      }
+      File f = files[(int) entry[1]];
+      long length = f.length();
+      if (f.delete()) {
+        total -= length;
+      }
+    }
+    size = total;
+    LOGGER.debug("Thumbnail store size after eviction: {} bytes", total);
+  }
+
+  private File[] listThumbnails() {
+    File[] files = directory.listFiles((_, name) -> name.endsWith(EXTENSION));
+    return files == null ? new File[0] : files;
+  }
+}
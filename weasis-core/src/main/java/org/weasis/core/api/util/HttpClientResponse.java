@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.StringUtil;
+
+/**
+ * Response of the shared {@link java.net.http.HttpClient}. Closing the response releases the
+ * stream, so the connection can be reused by the next requests to the same server.
+ */
+public class HttpClientResponse implements HttpResponse {
+
+  // Closes the body streams waiting for data longer than their read timeout
+  private static final ScheduledThreadPoolExecutor WATCHDOG =
+      new ScheduledThreadPoolExecutor(
+          1, ThreadUtil.getThreadFactory("Http Read Timeout")); // NON-NLS
+
+  static {
+    WATCHDOG.setRemoveOnCancelPolicy(true);
+    WATCHDOG.setKeepAliveTime(30L, TimeUnit.SECONDS);
+    WATCHDOG.allowCoreThreadTimeOut(true);
+  }
+
+  private final java.net.http.HttpResponse<InputStream> response;
+  private final InputStream body;
+
+  public HttpClientResponse(java.net.http.HttpResponse<InputStream> response) {
+    this(response, 0);
+  }
+
+  /**
+   * @param response the response with the body as a stream
+   * @param readTimeout the maximum time in milliseconds to wait for the data of the body in a read,
+   *     0 for no limit. The timeout of the request only applies to the headers of the response.
+   */
+  public HttpClientResponse(java.net.http.HttpResponse<InputStream> response, int readTimeout) {
+    this.response = Objects.requireNonNull(response);
+    this.body =
+        readTimeout > 0 ? new ReadTimeoutInputStream(response.body(), readTimeout) : response.body();
+  }
+
+  @Override
+  public void close() {
+    FileUtil.safeClose(body);
+  }
+
+  @Override
+  public InputStream getInputStream() {
+    return body;
+  }
+
+  public java.net.http.HttpResponse<InputStream> getResponse() {
+    return response;
+  }
+
+  @Override
+  public int getResponseCode() {
+    return response.statusCode();
+  }
+
+  @Override
+  public String getResponseMessage() {
+    // No reason phrase in HTTP/2
+    return StringUtil.EMPTY_STRING;
+  }
+
+  @Override
+  public String getHeaderField(String key) {
+    return response.headers().firstValue(key).orElse(null);
+  }
+
+  /**
+   * Closes the stream when a read is blocked for longer than the timeout, so the read fails with
+   * a {@link SocketTimeoutException} (an interruption does not stop a read of the HTTP client).
+   */
+  private static final class ReadTimeoutInputStream extends FilterInputStream {
+    private final long timeout;
+    private final ScheduledFuture<?> watchdog;
+    // Start of the current read, 0 when not reading
+    private volatile long readStart;
+    private volatile boolean timedOut;
+
+    ReadTimeoutInputStream(InputStream in, int timeout) {
+      super(in);
+      this.timeout = TimeUnit.MILLISECONDS.toNanos(timeout);
+      long period = Math.max(10, timeout / 4);
+      this.watchdog =
+          WATCHDOG.scheduleWithFixedDelay(this::check, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void check() {
+      long start = readStart;
+      if (start != 0 && System.nanoTime() - start > timeout) {
+        timedOut = true;
+        FileUtil.safeClose(in);
+        ScheduledFuture<?> task = watchdog;
+        if (task != null) {
+          task.cancel(false);
+        }
+      }
+    }
+
+    private IOException readError(IOException e) {
+      if (timedOut) {
+        SocketTimeoutException timeoutException = new SocketTimeoutException("Read timed out");
+        timeoutException.initCause(e);
+        return timeoutException;
+      }
+      return e;
+    }
+
+    @Override
+    public int read() throws IOException {
+      readStart = System.nanoTime();
+      try {
+        int b = in.read();
+        if (b < 0) {
+          watchdog.cancel(false);
+        }
+        return b;
+      } catch (IOException e) {
+        throw readError(e);
+      } finally {
+        readStart = 0;
+      }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      readStart = System.nanoTime();
+      try {
+        int n = in.read(b, off, len);
+        if (n < 0) {
+          watchdog.cancel(false);
+        }
+        return n;
+      } catch (IOException e) {
+        throw readError(e);
+      } finally {
+        readStart = 0;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      watchdog.cancel(false);
+      super.close();
+    }
+  }
+}
@@ -23,7 +23,11 @@
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -40,6 +44,17 @@ public class NetworkUtil {
 
   private static final int MAX_REDIRECTS = 3;
 
+  /**
+   * Client shared by all the downloads. It keeps the connections alive and multiplexes the
+   * concurrent requests to the same server on a single HTTP/2 connection when it is supported.
+   */
+  private static final HttpClient HTTP_CLIENT =
+      HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_2)
+          .followRedirects(HttpClient.Redirect.NORMAL)
+          .connectTimeout(Duration.ofMillis(getUrlConnectionTimeout()))
+          .build();
+
   private NetworkUtil() {}
 
   public static int getUrlConnectionTimeout() {
@@ -87,6 +102,57 @@ public static HttpResponse getHttpResponse(
     return prepareAuthConnection(request, urlParameters, authMethod);
   }
 
+  /**
+   * Same as {@link #getHttpResponse(String, URLParameters, AuthMethod)} but a GET request without
+   * authentication to an HTTP server is sent with the shared client, which reuses the connections
+   * across all the downloads.
+   */
+  public static HttpResponse getPooledHttpResponse(
+      String url, URLParameters urlParameters, AuthMethod authMethod) throws IOException {
+    if ((authMethod != null && !OAuth2ServiceFactory.noAuth.equals(authMethod))
+        || urlParameters.isHttpPost()
+        || !url.startsWith("http")) { // NON-NLS
+      return getHttpResponse(url, urlParameters, authMethod);
+    }
+
+    HttpRequest.Builder builder;
+    try {
+      builder = HttpRequest.newBuilder(new URI(url)).GET();
+    } catch (URISyntaxException e) {
+      throw new StreamIOException(e);
+    }
+    // Limits the wait for the headers, the reads of the body have the same timeout
+    if (urlParameters.getReadTimeout() > 0) {
+      builder.timeout(Duration.ofMillis(urlParameters.getReadTimeout()));
+    }
+    for (Entry<String, String> element : urlParameters.getUnmodifiableHeaders().entrySet()) {
+      try {
+        builder.setHeader(element.getKey(), element.getValue());
+      } catch (IllegalArgumentException e) {
+        LOGGER.debug("Header {} not allowed with HTTP client", element.getKey());
+      }
+    }
+    builder.setHeader("User-Agent", AppProperties.WEASIS_USER_AGENT); // NON-NLS
+    builder.setHeader("Weasis-User", AppProperties.WEASIS_USER); // NON-NLS
+
+    try {
+      HttpClientResponse response =
+          new HttpClientResponse(
+              HTTP_CLIENT.send(builder.build(), BodyHandlers.ofInputStream()),
+              urlParameters.getReadTimeout());
+      int code = response.getResponseCode();
+      if (code < HttpURLConnection.HTTP_OK || code >= HttpURLConnection.HTTP_MULT_CHOICE) {
+        LOGGER.warn("http Status {} - {}", code, url);
+        response.close();
+        throw new StreamIOException("http Status " + code);
+      }
+      return response;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StreamIOException(e);
+    }
+  }
+
   public static ClosableURLConnection getUrlConnection(String url, URLParameters urlParameters)
       throws IOException {
     return prepareConnection(new URL(url).openConnection(), urlParameters);
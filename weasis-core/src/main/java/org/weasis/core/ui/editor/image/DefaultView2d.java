@@ -70,6 +70,7 @@
 import org.weasis.core.api.media.data.MediaSeries;
 import org.weasis.core.api.media.data.Series;
 import org.weasis.core.api.media.data.SeriesComparator;
+import org.weasis.core.api.media.data.SeriesPreloader;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.service.AuditLog;
 import org.weasis.core.api.util.FontItem;
@@ -118,6 +119,8 @@ public enum ZoomType {
   }
 
   public static final int MINIMAL_IMAGES_FOR_3D = 5;
+  /** Number of images kept in the cache on each side of the displayed image */
+  public static final int PINNED_CACHE_IMAGES = 5;
 
   public static final GraphicClipboard GRAPHIC_CLIPBOARD = new GraphicClipboard();
 
@@ -409,6 +412,7 @@ public void setSeries(MediaSeries<E> newSeries, E selectedMedia) {
     }
 
     GuiUtils.getUICore().closeSeries(oldSequence);
+    SeriesPreloader.release(this);
 
     initActionWState();
     try {
@@ -515,10 +519,16 @@ protected void setImage(E img) {
 
       setGraphicManager(new XmlGraphicModel());
       closeLens();
+      ImageElement.unpinSeriesImages(this);
     } else {
       E oldImage = imageLayer.getSourceImage();
       if (!img.equals(oldImage)) {
         updateGraphics = true;
+        if (series instanceof Series<E> s) {
+          // With the same sorted list, only the current image of the pin is moved
+          ImageElement.pinSeriesImages(
+              this, s.getSortedMedias(getCurrentSortComparator()), img, PINNED_CACHE_IMAGES);
+        }
         Object oldUnit = actionsInView.get(ActionW.SPATIAL_UNIT.cmd());
         if (oldUnit == null || Unit.PIXEL.equals(oldUnit)) {
           actionsInView.put(ActionW.SPATIAL_UNIT.cmd(), img.getPixelSpacingUnit());
@@ -911,7 +921,17 @@ public OpManager getDisplayOpManager() {
 
   public void propertyChange(SynchCineEvent synch) {
     E imgElement = getImage();
-    graphicManager.deleteByLayerType(LayerType.CROSSLINES);
+    Boolean cutlines = (Boolean) actionsInView.get(ActionW.SYNCH_CROSSLINE.cmd());
+    boolean updateCrosslines =
+        synch.getView() != this
+            && synch.getLocation() != null
+            && cutlines != null
+            && cutlines
+            && LangUtil.getNULLtoTrue((Boolean) actionsInView.get(LayerType.CROSSLINES.name()));
+    if (!updateCrosslines) {
+      // Otherwise the crosslines are updated in place by computeCrosslines()
+      graphicManager.deleteByLayerType(LayerType.CROSSLINES);
+    }
 
     if (synch.getView() == this) {
       if (tileOffset != 0) {
@@ -925,9 +945,8 @@ public void propertyChange(SynchCineEvent synch) {
         imgElement = (E) synch.getMedia();
       }
     } else if (synch.getLocation() != null) {
-      Boolean cutlines = (Boolean) actionsInView.get(ActionW.SYNCH_CROSSLINE.cmd());
       if (cutlines != null && cutlines) {
-        if (LangUtil.getNULLtoTrue((Boolean) actionsInView.get(LayerType.CROSSLINES.name()))) {
+        if (updateCrosslines) {
           // Compute cutlines from the location of selected image
           computeCrosslines(synch.getLocation().doubleValue());
         }
@@ -1101,7 +1120,13 @@ private void propertyChange(final SynchEvent synch) {
     }
   }
 
-  protected void computeCrosslines(double location) {}
+  /**
+   * Updates the graphics of the {@link LayerType#CROSSLINES} layer from the slice location of the
+   * selected view. The graphics are not removed before calling this method.
+   */
+  protected void computeCrosslines(double location) {
+    graphicManager.deleteByLayerType(LayerType.CROSSLINES);
+  }
 
   @Override
   public void disposeView() {
@@ -1113,6 +1138,8 @@ public void disposeView() {
     if (series != null) {
       setSeries(null);
     }
+    // Release the pyramid of the viewport, counted in the memory of the image cache
+    imageLayer.getDisplayOpManager().clearNodeIOCache();
     super.disposeView();
   }
 
@@ -17,10 +17,13 @@
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
 import javax.swing.BoundedRangeModel;
 import javax.swing.SwingUtilities;
 import javax.swing.event.SwingPropertyChangeSupport;
@@ -33,10 +36,12 @@
 import org.weasis.core.api.gui.util.Filter;
 import org.weasis.core.api.gui.util.SliderChangeListener;
 import org.weasis.core.api.gui.util.SliderCineListener;
+import org.weasis.core.api.gui.util.SliderCineListener.FrameRequest;
 import org.weasis.core.api.gui.util.SliderCineListener.TIME;
 import org.weasis.core.api.gui.util.ToggleButtonListener;
 import org.weasis.core.api.image.GridBagLayoutModel;
 import org.weasis.core.api.image.util.Unit;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
 import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.api.media.data.MediaSeries;
 import org.weasis.core.api.media.data.Series;
@@ -53,6 +58,7 @@
 import org.weasis.core.ui.pref.ZoomSetting;
 import org.weasis.core.ui.util.ColorLayerUI;
 import org.weasis.core.ui.util.PrintDialog;
+import org.weasis.opencv.data.PlanarImage;
 
 public abstract class ImageViewerEventManager<E extends ImageElement> implements KeyListener {
   public static final int WINDOW_SMALLEST = 0;
@@ -126,6 +132,11 @@ public void stateChanged(BoundedRangeModel model) {
         }
       }
 
+      @Override
+      protected IntFunction<FrameRequest> getFrameRequester() {
+        return getCineFrameRequester();
+      }
+
       @Override
       public void mouseWheelMoved(MouseWheelEvent e) {
         setSliderValue(getSliderValue() + e.getWheelRotation());
@@ -133,6 +144,45 @@ public void mouseWheelMoved(MouseWheelEvent e) {
     };
   }
 
+  /**
+   * Gets the function requesting the decoding of the images of the selected view during the cine
+   * loop. The series, the filter and the sort order are taken at the start of the loop on the EDT,
+   * the function is called by the cine scheduler.
+   *
+   * @return the function returning the request from a slider value (the index of the image + 1),
+   *     or null if the image is already in the cache or not available
+   */
+  protected IntFunction<FrameRequest> getCineFrameRequester() {
+    ViewCanvas<E> view2d =
+        selectedView2dContainer == null ? null : selectedView2dContainer.getSelectedImagePane();
+    if (view2d == null || !(view2d.getSeries() instanceof Series)) {
+      return _ -> null;
+    }
+    Series<E> series = (Series<E>) view2d.getSeries();
+    Filter<E> filter = (Filter<E>) view2d.getActionValue(ActionW.FILTERED_SERIES.cmd());
+    Comparator<E> comparator = view2d.getCurrentSortComparator();
+    return value -> {
+      E image = series.getMedia(value - 1, filter, comparator);
+      if (image != null) {
+        Future<PlanarImage> future = image.requestImage(Priority.LOOK_AHEAD);
+        if (future != null) {
+          return new FrameRequest() {
+            @Override
+            public boolean isReady() {
+              return future.isDone();
+            }
+
+            @Override
+            public void cancel() {
+              image.cancelImageRequest(future);
+            }
+          };
+        }
+      }
+      return null;
+    };
+  }
+
   protected ToggleButtonListener newLoopSweepAction() {
     return new ToggleButtonListener(ActionW.CINE_SWEEP, false) {
 
@@ -40,6 +40,7 @@
 import org.weasis.core.api.image.ImageOpNode.Param;
 import org.weasis.core.api.image.OpManager;
 import org.weasis.core.api.image.SimpleOpManager;
+import org.weasis.core.api.image.ViewportOp;
 import org.weasis.core.api.image.ZoomOp.Interpolation;
 import org.weasis.core.api.image.util.ImageLayer;
 import org.weasis.core.api.media.data.ImageElement;
@@ -341,6 +342,10 @@ void freezeParentParameters() {
       if (AffineTransformOp.OP_NAME.equals(op.getParam(Param.NAME))) {
         break;
       }
+      if (op instanceof ViewportOp) {
+        // The lens renders the source image at full resolution
+        continue;
+      }
       ImageOpNode operation = op.copy();
       freezeOperations.addImageOperationAction(operation);
     }
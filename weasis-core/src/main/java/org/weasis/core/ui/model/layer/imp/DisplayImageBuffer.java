@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.ui.model.layer.imp;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.util.Arrays;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.weasis.opencv.data.PlanarImage;
+import org.weasis.opencv.op.ImageConversion;
+
+/**
+ * Keeps the BufferedImage of the display image for painting. The conversion is done once for each
+ * new display image, and the repaints with the same display image do not allocate anything.
+ *
+ * <p>When a new display image has the same size and the same type (e.g. scrolling or changing the
+ * window/level), the pixels are copied into the raster of the previous BufferedImage instead of
+ * allocating a new one.
+ */
+final class DisplayImageBuffer {
+
+  private PlanarImage source;
+  private BufferedImage image;
+  private int type;
+  private long conversionCount;
+  private long copyCount;
+
+  /**
+   * @param displayImage the display image
+   * @return the BufferedImage of the display image or null
+   */
+  synchronized BufferedImage getImage(PlanarImage displayImage) {
+    if (displayImage == null) {
+      clear();
+      return null;
+    }
+    if (displayImage != source || image == null) {
+      if (image != null && type == displayImage.type() && copyPixels(displayImage, image)) {
+        copyCount++;
+      } else {
+        image = ImageConversion.toBufferedImage(displayImage);
+        type = displayImage.type();
+        conversionCount++;
+      }
+      source = displayImage;
+    }
+    return image;
+  }
+
+  synchronized void clear() {
+    source = null;
+    image = null;
+  }
+
+  synchronized long getConversionCount() {
+    return conversionCount;
+  }
+
+  synchronized long getCopyCount() {
+    return copyCount;
+  }
+
+  private static boolean copyPixels(PlanarImage img, BufferedImage dst) {
+    int channels = img.channels();
+    if (dst.getWidth() != img.width()
+        || dst.getHeight() != img.height()
+        || CvType.depth(img.type()) != CvType.CV_8U
+        || !(dst.getRaster().getDataBuffer() instanceof DataBufferByte buffer)
+        || buffer.getNumBanks() != 1
+        || buffer.getOffset() != 0
+        || !(dst.getSampleModel() instanceof PixelInterleavedSampleModel model)
+        || model.getPixelStride() != channels
+        || model.getScanlineStride() != img.width() * channels
+        || !hasMatLayout(model.getBandOffsets())) {
+      return false;
+    }
+    Mat mat = img.toMat();
+    byte[] data = buffer.getData();
+    if (mat == null || !mat.isContinuous() || data.length != mat.total() * channels) {
+      return false;
+    }
+    mat.get(0, 0, data);
+    return true;
+  }
+
+  /** Gray or BGR (the order of the OpenCV color images) */
+  private static boolean hasMatLayout(int[] bandOffsets) {
+    return bandOffsets.length == 1 || Arrays.equals(bandOffsets, new int[] {2, 1, 0});
+  }
+}
@@ -26,6 +26,7 @@
 import org.weasis.core.api.image.OpEventListener;
 import org.weasis.core.api.image.OpManager;
 import org.weasis.core.api.image.SimpleOpManager;
+import org.weasis.core.api.image.ViewportOp;
 import org.weasis.core.api.image.WindowOp;
 import org.weasis.core.api.image.ZoomOp;
 import org.weasis.core.api.image.cv.CvUtil;
@@ -40,7 +41,6 @@
 import org.weasis.core.ui.model.utils.ImageLayerChangeListener;
 import org.weasis.core.ui.model.utils.imp.DefaultUUID;
 import org.weasis.opencv.data.PlanarImage;
-import org.weasis.opencv.op.ImageConversion;
 import org.weasis.opencv.op.lut.WlPresentation;
 
 /**
@@ -60,6 +60,7 @@
   private OpManager preprocessing;
   private E sourceImage;
   private PlanarImage displayImage;
+  private final DisplayImageBuffer displayBuffer = new DisplayImageBuffer();
   private Boolean visible = true;
   private boolean enableDispOperations = true;
   private Point offset;
@@ -234,7 +235,7 @@ public void drawImage(Graphics2D g2d) {
         g2d.setRenderingHint(
             RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
       }
-      g2d.drawImage(ImageConversion.toBufferedImage(displayImage), 0, 0, null);
+      g2d.drawImage(displayBuffer.getImage(displayImage), 0, 0, null);
     } catch (Exception e) {
       LOGGER.error("Cannot draw the image", e);
       if ("java.io.IOException: closed".equals(e.getMessage())) { // NON-NLS
@@ -388,7 +389,7 @@ public void drawImageForPrinter(Graphics2D g2d, double viewScale, Canvas canvas)
           RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
     }
     g2d.drawImage(
-        ImageConversion.toBufferedImage(displayImage),
+        displayBuffer.getImage(displayImage),
         AffineTransform.getScaleInstance(rx, ry),
         null);
 
@@ -398,6 +399,7 @@ public void drawImageForPrinter(Graphics2D g2d, double viewScale, Canvas canvas)
   public void dispose() {
     sourceImage = null;
     displayImage = null;
+    displayBuffer.clear();
     listenerList.clear();
     opListeners.clear();
   }
@@ -455,6 +457,7 @@ public void updateDisplayOperations() {
       if (source != null && source.width() < 1) {
         disOpManager.setFirstNode(getSourceRenderedImage());
       }
+      ViewportOp.updateViewport(disOpManager);
       displayImage = disOpManager.process();
       fireImageChanged();
     }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.gui.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.weasis.core.api.gui.util.SliderCineListener.FrameRequest;
+
+class CinePlaybackTest {
+
+  private static final long PERIOD = TimeUnit.MILLISECONDS.toNanos(40); // 25 fps
+
+  @Test
+  void test_loop_and_sweep_sequence() {
+    List<Integer> values = new ArrayList<>();
+    CinePlayback playback = new CinePlayback(PERIOD, 2, _ -> null, values::add);
+    playback.reset(0, 3, 1, 4, false, false);
+    for (int i = 1; i <= 6; i++) {
+      playback.tick(i * PERIOD);
+    }
+    assertEquals(List.of(4, 1, 2, 3, 4, 1), values);
+
+    values.clear();
+    playback.reset(0, 3, 1, 4, true, false);
+    for (int i = 1; i <= 8; i++) {
+      playback.tick(i * PERIOD);
+    }
+    assertEquals(List.of(4, 3, 2, 1, 2, 3, 4, 3), values);
+    assertEquals(14, playback.getPresentedFrames());
+    assertEquals(0, playback.getDroppedFrames());
+  }
+
+  @Test
+  void test_drift_free_schedule() {
+    List<Integer> values = new ArrayList<>();
+    CinePlayback playback = new CinePlayback(PERIOD, 4, _ -> null, values::add);
+    playback.reset(0, 1, 1, 1000, false, false);
+    // Each tick is late by 3/4 of a period, the delays must not accumulate
+    long late = PERIOD * 3 / 4;
+    for (int i = 1; i <= 100; i++) {
+      playback.tick(i * PERIOD + late);
+    }
+    assertEquals(101, values.getLast());
+    assertEquals(0, playback.getDroppedFrames());
+
+    // A tick missed by the scheduler: the frames of the elapsed time are dropped
+    playback.tick(104 * PERIOD);
+    assertEquals(105, values.getLast());
+    assertEquals(3, playback.getDroppedFrames());
+    assertEquals(25.0, playback.getRate(), 1.0);
+  }
+
+  @Test
+  void test_far_behind() {
+    List<Integer> requested = new ArrayList<>();
+    List<Integer> values = new ArrayList<>();
+    CinePlayback playback =
+        new CinePlayback(
+            PERIOD,
+            4,
+            v -> {
+              requested.add(v);
+              return null;
+            },
+            values::add);
+    playback.reset(0, 1, 1, 1000, false, false);
+    assertEquals(List.of(2, 3, 4, 5), requested);
+
+    // Beyond the frames requested ahead: the skipped frames are not requested
+    requested.clear();
+    playback.tick(500 * PERIOD);
+    assertEquals(List.of(501), values);
+    assertEquals(499, playback.getDroppedFrames());
+    assertEquals(List.of(501, 502, 503, 504, 505), requested);
+
+    // Many cycles of a sweep, same frame as a tick by period
+    List<Integer> sweep = new ArrayList<>();
+    CinePlayback reference = new CinePlayback(PERIOD, 2, _ -> null, sweep::add);
+    reference.reset(0, 3, 1, 4, true, true);
+    for (int i = 1; i <= 1003; i++) {
+      reference.tick(i * PERIOD);
+    }
+    values.clear();
+    playback = new CinePlayback(PERIOD, 2, _ -> null, values::add);
+    playback.reset(0, 3, 1, 4, true, true);
+    playback.tick(1003 * PERIOD);
+    assertEquals(List.of(sweep.getLast()), values);
+    assertEquals(1002, playback.getDroppedFrames());
+    playback.tick(1004 * PERIOD);
+    reference.tick(1004 * PERIOD);
+    assertEquals(sweep.getLast(), values.getLast());
+  }
+
+  @Test
+  void test_drop_frames_not_ready() {
+    Set<Integer> cancelled = new HashSet<>();
+    List<Integer> values = new ArrayList<>();
+    CinePlayback playback =
+        new CinePlayback(
+            PERIOD,
+            3,
+            v ->
+                new FrameRequest() {
+                  @Override
+                  public boolean isReady() {
+                    return v % 2 == 0;
+                  }
+
+                  @Override
+                  public void cancel() {
+                    cancelled.add(v);
+                  }
+                },
+            values::add);
+    playback.reset(0, 1, 1, 10, false, false);
+    for (int i = 1; i <= 6; i++) {
+      playback.tick(i * PERIOD);
+    }
+    // The odd frames are not decoded in time and never delay the next frames
+    assertEquals(List.of(2, 4, 6), values);
+    assertEquals(3, playback.getDroppedFrames());
+    assertTrue(cancelled.containsAll(List.of(3, 5, 7)));
+
+    // Presentation not possible (the previous frame is still displayed)
+    CinePlayback busy = new CinePlayback(PERIOD, 3, _ -> null, _ -> false);
+    busy.reset(0, 1, 1, 10, false, false);
+    busy.tick(PERIOD);
+    assertEquals(0, busy.getPresentedFrames());
+    assertEquals(1, busy.getDroppedFrames());
+
+    playback.flush();
+    assertTrue(cancelled.containsAll(List.of(8, 9)));
+  }
+}
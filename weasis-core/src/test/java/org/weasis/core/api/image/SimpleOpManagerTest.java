@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.image;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.weasis.core.api.image.ImageOpNode.Param;
+import org.weasis.core.api.image.SimpleOpManager.Statistics;
+import org.weasis.opencv.data.PlanarImage;
+
+class SimpleOpManagerTest {
+
+  private static final String WINDOW = "window"; // NON-NLS
+  private static final String ZOOM = "zoom"; // NON-NLS
+  private static final String AFFINE = "affine"; // NON-NLS
+
+  /** Produces a new output image at each processing */
+  static class CountingOp extends AbstractOp {
+    int count;
+
+    CountingOp(String name) {
+      setName(name);
+    }
+
+    @Override
+    public void process() {
+      count++;
+      params.put(Param.OUTPUT_IMG, buildImage());
+    }
+
+    @Override
+    public CountingOp copy() {
+      return new CountingOp(getName());
+    }
+  }
+
+  private SimpleOpManager manager;
+  private CountingOp window;
+  private CountingOp zoom;
+  private CountingOp affine;
+
+  private static PlanarImage buildImage() {
+    PlanarImage img = mock(PlanarImage.class);
+    when(img.width()).thenReturn(512);
+    when(img.height()).thenReturn(512);
+    return img;
+  }
+
+  @BeforeEach
+  void setUp() {
+    manager = new SimpleOpManager();
+    window = new CountingOp(WINDOW);
+    zoom = new CountingOp(ZOOM);
+    affine = new CountingOp(AFFINE);
+    manager.addImageOperationAction(window);
+    manager.addImageOperationAction(zoom);
+    manager.addImageOperationAction(affine);
+    manager.setFirstNode(buildImage());
+    manager.setParamValue(WINDOW, "window.width", 400.0); // NON-NLS
+    manager.setParamValue(ZOOM, "ratio", 1.0); // NON-NLS
+    manager.setParamValue(AFFINE, "matrix", List.of(1.0, 0.0, 0.0)); // NON-NLS
+    manager.process();
+    manager.resetStatistics();
+  }
+
+  private void assertCounts(int w, int z, int a) {
+    assertEquals(w, window.count, WINDOW);
+    assertEquals(z, zoom.count, ZOOM);
+    assertEquals(a, affine.count, AFFINE);
+  }
+
+  @Test
+  void test_unchanged_parameters() {
+    PlanarImage output = manager.getLastNodeOutputImage();
+    manager.setParamValue(WINDOW, "window.width", 400.0); // NON-NLS
+    manager.setParamValue(AFFINE, "matrix", List.of(1.0, 0.0, 0.0)); // NON-NLS
+    manager.setParamValue(WINDOW, Param.NAME, WINDOW);
+    assertSame(output, manager.process());
+    assertCounts(1, 1, 1);
+    assertEquals(new Statistics(1, 0, 3), manager.getStatistics());
+  }
+
+  @Test
+  void test_pan_zoom_window_level() {
+    // Pan: only the last node
+    manager.setParamValue(AFFINE, "matrix", List.of(1.0, 0.0, 10.0)); // NON-NLS
+    manager.setParamValue(AFFINE, "bounds", new Rectangle2D.Double(0, 0, 256, 256)); // NON-NLS
+    manager.process();
+    assertCounts(1, 1, 2);
+
+    // Zoom: from the zoom node
+    manager.setParamValue(ZOOM, "ratio", 2.0); // NON-NLS
+    manager.process();
+    assertCounts(1, 2, 3);
+
+    // Window/level: all the nodes
+    manager.setParamValue(WINDOW, "window.width", 200.0); // NON-NLS
+    manager.process();
+    assertCounts(2, 3, 4);
+    assertEquals(new Statistics(3, 6, 3), manager.getStatistics());
+  }
+
+  @Test
+  void test_invalidation() {
+    // New source image
+    manager.setFirstNode(buildImage());
+    manager.process();
+    assertCounts(2, 2, 2);
+
+    // Disabling a node: the next nodes get a new input image
+    zoom.setEnabled(false);
+    manager.process();
+    assertCounts(2, 2, 3);
+    assertSame(window.getParam(Param.OUTPUT_IMG), zoom.getParam(Param.OUTPUT_IMG));
+
+    manager.removeParam(WINDOW, "window.width"); // NON-NLS
+    manager.process();
+    assertCounts(3, 2, 4);
+
+    // Mutable parameter set again with the same instance
+    Rectangle2D bounds = new Rectangle2D.Double(0, 0, 256, 256);
+    manager.setParamValue(AFFINE, "bounds", bounds); // NON-NLS
+    manager.process();
+    bounds.setRect(0, 0, 128, 128);
+    manager.setParamValue(AFFINE, "bounds", bounds); // NON-NLS
+    manager.process();
+    assertCounts(3, 2, 6);
+
+    manager.clearNodeIOCache();
+    manager.setFirstNode(buildImage());
+    manager.process();
+    assertCounts(4, 2, 7);
+
+    affine.setDirty(true);
+    manager.process();
+    assertCounts(4, 2, 8);
+  }
+}
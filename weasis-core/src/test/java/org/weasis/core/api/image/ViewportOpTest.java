@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.image;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ViewportOpTest {
+
+  private static List<Double> scale(double s, double tx, double ty) {
+    return List.of(s, 0.0, tx, 0.0, s, ty);
+  }
+
+  @Test
+  void test_level() {
+    assertEquals(1, ViewportOp.getLevelSize(1, 3));
+    assertEquals(1501, ViewportOp.getLevelSize(3001, 1));
+    assertEquals(751, ViewportOp.getLevelSize(3001, 2));
+
+    // No pyramid from a zoom factor higher than 0.5
+    assertEquals(0, ViewportOp.getLevel(scale(1.0, 0, 0), 4000, 3000));
+    assertEquals(0, ViewportOp.getLevel(scale(0.6, 0, 0), 4000, 3000));
+    assertEquals(1, ViewportOp.getLevel(scale(0.5, 0, 0), 4000, 3000));
+    assertEquals(2, ViewportOp.getLevel(scale(0.2, 0, 0), 4000, 3000));
+    assertEquals(ViewportOp.MAX_LEVEL, ViewportOp.getLevel(scale(0.001, 0, 0), 100000, 100000));
+    // Rotation of 90 degrees
+    assertEquals(3, ViewportOp.getLevel(List.of(0.0, -0.1, 300.0, 0.1, 0.0, 0.0), 4000, 3000));
+    // Too small
+    assertEquals(1, ViewportOp.getLevel(scale(0.1, 0, 0), 4000, 100));
+  }
+
+  @Test
+  void test_visible_area() {
+    // The whole image at 0.2
+    List<Double> matrix = scale(0.2, 0, 0);
+    Rectangle area = ViewportOp.getLevelArea(matrix, new Rectangle(800, 600), 4000, 3000, 2);
+    assertEquals(new Rectangle(0, 0, 1000, 750), area);
+    assertEquals(
+        new Rectangle2D.Double(0, 0, 4000, 3000),
+        ViewportOp.getSourceArea(area, 4000, 3000, 2));
+
+    // Pan: only the right part of the image is visible
+    matrix = scale(0.2, -400.0, 0);
+    area = ViewportOp.getLevelArea(matrix, new Rectangle(200, 600), 4000, 3000, 2);
+    assertEquals(new Rectangle(498, 0, 254, 750), area);
+
+    // Outside the image
+    matrix = scale(0.2, 2000.0, 0);
+    assertNull(ViewportOp.getLevelArea(matrix, new Rectangle(200, 600), 4000, 3000, 2));
+  }
+
+  @Test
+  void test_input_matrix() {
+    List<Double> matrix = List.of(0.2, 0.0, -40.0, 0.0, 0.2, 10.0);
+    Rectangle2D inputArea = new Rectangle2D.Double(400, 0, 3600, 3000);
+    List<Double> m = AffineTransformOp.getInputMatrix(matrix, inputArea, 900, 750);
+    // Center of the first pixel of the input image: (401.5, 1.5) in the source image
+    assertEquals(0.2 * 401.5 - 40.0, m.get(0) * 0 + m.get(1) * 0 + m.get(2), 1e-9);
+    assertEquals(0.2 * 1.5 + 10.0, m.get(3) * 0 + m.get(4) * 0 + m.get(5), 1e-9);
+    // Center of the last pixel: (3997.5, 2997.5)
+    assertEquals(0.2 * 3997.5 - 40.0, m.get(0) * 899 + m.get(2), 1e-9);
+    assertEquals(0.2 * 2997.5 + 10.0, m.get(4) * 749 + m.get(5), 1e-9);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
+
+class DecodeSchedulerTest {
+
+  private DecodeScheduler scheduler;
+  private CountDownLatch blocker;
+  private Future<String> blockingTask;
+
+  @BeforeEach
+  void setUp() throws InterruptedException {
+    scheduler = new DecodeScheduler("Test Loader", 1); // NON-NLS
+    blocker = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    // Keep the single worker busy so that the next requests stay in the queue
+    blockingTask =
+        scheduler.submit(
+            "blocker", // NON-NLS
+            () -> {
+              started.countDown();
+              blocker.await();
+              return "blocker"; // NON-NLS
+            },
+            Priority.VISIBLE);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+  }
+
+  @AfterEach
+  void tearDown() {
+    blocker.countDown();
+    scheduler.shutdown();
+  }
+
+  @Test
+  void test_priority_order() throws Exception {
+    List<String> order = new CopyOnWriteArrayList<>();
+    Future<String> f1 = scheduler.submit("bg", () -> add(order, "bg"), Priority.BACKGROUND);
+    Future<String> f2 = scheduler.submit("ahead", () -> add(order, "ahead"), Priority.LOOK_AHEAD);
+    Future<String> f3 = scheduler.submit("visible", () -> add(order, "visible"), Priority.VISIBLE);
+    blocker.countDown();
+
+    assertEquals("blocker", blockingTask.get(5, TimeUnit.SECONDS));
+    f1.get(5, TimeUnit.SECONDS);
+    f2.get(5, TimeUnit.SECONDS);
+    f3.get(5, TimeUnit.SECONDS);
+    assertEquals(List.of("visible", "ahead", "bg"), order);
+  }
+
+  @Test
+  void test_coalescing_and_priority_raise() throws Exception {
+    List<String> order = new CopyOnWriteArrayList<>();
+    AtomicInteger calls = new AtomicInteger();
+    Future<String> f1 =
+        scheduler.submit(
+            "key",
+            () -> {
+              calls.incrementAndGet();
+              return add(order, "key");
+            },
+            Priority.BACKGROUND);
+    Future<String> other = scheduler.submit("other", () -> add(order, "other"), Priority.LOOK_AHEAD);
+    Future<String> f2 = scheduler.submit("key", () -> add(order, "duplicate"), Priority.VISIBLE);
+    assertSame(f1, f2);
+    blocker.countDown();
+
+    assertEquals("key", f2.get(5, TimeUnit.SECONDS));
+    other.get(5, TimeUnit.SECONDS);
+    assertEquals(1, calls.get());
+    assertEquals(List.of("key", "other"), order);
+  }
+
+  @Test
+  void test_release_and_cancel() throws Exception {
+    Future<String> f1 = scheduler.submit("key", () -> "key", Priority.BACKGROUND);
+    Future<String> f2 = scheduler.submit("key", () -> "key", Priority.BACKGROUND);
+    scheduler.release("key", f1);
+    // Still one requester
+    assertFalse(f2.isCancelled());
+    scheduler.release("key", f2);
+    assertTrue(f2.isCancelled());
+    assertFalse(scheduler.isPending("key"));
+
+    Future<String> f3 = scheduler.submit("ahead", () -> "ahead", Priority.LOOK_AHEAD);
+    Future<String> f4 = scheduler.submit("bg", () -> "bg", Priority.BACKGROUND);
+    scheduler.cancelPending(Priority.BACKGROUND);
+    assertThrows(CancellationException.class, f4::get);
+    blocker.countDown();
+    assertEquals("ahead", f3.get(5, TimeUnit.SECONDS));
+  }
+
+  private static String add(List<String> list, String value) {
+    list.add(value);
+    return value;
+  }
+}
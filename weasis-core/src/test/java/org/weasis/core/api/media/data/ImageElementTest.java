@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
+import org.weasis.opencv.data.PlanarImage;
+
+class ImageElementTest {
+
+  private static long getMissCount() {
+    return ImageElement.getCacheStatistics().missCount();
+  }
+
+  @Test
+  void test_one_miss_by_request() throws Exception {
+    MediaReader<?> reader = Mockito.mock(MediaReader.class);
+    // Never decoded, so the image is not put into the cache
+    Mockito.when(reader.getImageFragment(Mockito.any())).thenReturn(null);
+    ImageElement img = new ImageElement(reader, 0);
+
+    long misses = getMissCount();
+    assertNull(img.getImage(null, false, Priority.VISIBLE));
+    assertEquals(misses + 1, getMissCount());
+
+    // Not available at a lower resolution, then decoded at full size
+    assertNull(img.getThumbnailImage(64, null));
+    assertEquals(misses + 2, getMissCount());
+
+    Future<PlanarImage> future = img.requestImage(Priority.BACKGROUND);
+    assertNotNull(future);
+    assertNull(future.get(10, TimeUnit.SECONDS));
+    assertEquals(misses + 3, getMissCount());
+
+    // Checking the cache is not an access
+    assertFalse(img.isImageInCache());
+    assertEquals(misses + 3, getMissCount());
+    Mockito.verify(reader, Mockito.times(3)).getImageFragment(img);
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.weasis.core.api.media.data.TagW.TagType;
+
+class LayeredTagMapTest {
+
+  private static final int NB_FRAMES = 3000;
+  private static final int NB_SHARED_TAGS = 300;
+
+  private static final TagW POSITION = new TagW("TestPosition", TagType.DOUBLE, 3, 3); // NON-NLS
+  private static final TagW ORIENTATION =
+      new TagW("TestOrientation", TagType.DOUBLE, 6, 6); // NON-NLS
+
+  private static Map<TagW, Object> buildSharedTags(List<TagW> tagList) {
+    Map<TagW, Object> shared = new HashMap<>();
+    for (int i = 0; i < NB_SHARED_TAGS; i++) {
+      TagW tag = new TagW("TestShared" + i, TagType.STRING); // NON-NLS
+      tagList.add(tag);
+      shared.put(tag, "value" + i); // NON-NLS
+    }
+    shared.put(POSITION, new double[] {0.0, 0.0, 0.0});
+    return shared;
+  }
+
+  @Test
+  void test_read_through_and_override() {
+    List<TagW> tagList = new ArrayList<>();
+    Map<TagW, Object> shared = buildSharedTags(tagList);
+    LayeredTagMap frame = new LayeredTagMap(shared);
+
+    assertEquals(shared.size(), frame.size());
+    assertEquals("value5", frame.get(tagList.get(5)));
+    assertTrue(frame.containsKey(POSITION));
+    assertFalse(frame.containsKey(ORIENTATION));
+
+    double[] position = {1.0, 2.0, 3.0};
+    Object old = frame.put(POSITION, position);
+    assertArrayEquals(new double[] {0.0, 0.0, 0.0}, (double[]) old);
+    assertSame(position, frame.get(POSITION));
+    frame.put(ORIENTATION, new double[] {1, 0, 0, 0, 1, 0});
+    assertEquals(shared.size() + 1, frame.size());
+    assertEquals(2, frame.getOverrideCount());
+
+    frame.remove(tagList.get(0));
+    assertNull(frame.get(tagList.get(0)));
+    assertFalse(frame.containsKey(tagList.get(0)));
+    assertEquals(shared.size(), frame.size());
+
+    // The shared tags are never modified
+    assertEquals(NB_SHARED_TAGS + 1, shared.size());
+    assertEquals("value0", shared.get(tagList.get(0)));
+    assertArrayEquals(new double[] {0.0, 0.0, 0.0}, (double[]) shared.get(POSITION));
+
+    Set<TagW> keys = new HashSet<>();
+    Iterator<Entry<TagW, Object>> iter = frame.entrySet().iterator();
+    while (iter.hasNext()) {
+      Entry<TagW, Object> e = iter.next();
+      assertTrue(keys.add(e.getKey()));
+      assertSame(frame.get(e.getKey()), e.getValue());
+    }
+    assertEquals(frame.size(), keys.size());
+    assertEquals(new HashSet<>(frame.keySet()), keys);
+
+    frame.clear();
+    assertTrue(frame.isEmpty());
+    assertEquals(NB_SHARED_TAGS + 1, shared.size());
+  }
+
+  @Test
+  void test_multiframe_footprint() {
+    List<TagW> tagList = new ArrayList<>();
+    Map<TagW, Object> shared = buildSharedTags(tagList);
+
+    List<LayeredTagMap> frames = new ArrayList<>(NB_FRAMES);
+    for (int i = 0; i < NB_FRAMES; i++) {
+      LayeredTagMap frame = new LayeredTagMap(shared);
+      frame.put(POSITION, new double[] {0.0, 0.0, i});
+      frame.put(ORIENTATION, new double[] {1, 0, 0, 0, 1, 0});
+      frames.add(frame);
+    }
+
+    // Only the per-frame values are stored in each frame: 2 entries instead of 301
+    long storedEntries = frames.stream().mapToLong(LayeredTagMap::getOverrideCount).sum();
+    assertEquals(2L * NB_FRAMES, storedEntries);
+    assertTrue(storedEntries * 100 < (long) NB_FRAMES * shared.size());
+
+    LayeredTagMap last = frames.get(NB_FRAMES - 1);
+    assertEquals(NB_FRAMES - 1.0, ((double[]) last.get(POSITION))[2]);
+    assertEquals("value299", last.get(tagList.get(NB_SHARED_TAGS - 1)));
+    assertEquals(shared.size() + 1, last.size());
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.weasis.opencv.data.PlanarImage;
+
+class NativeCacheTest {
+
+  private static final long IMAGE_SIZE = 100;
+
+  static class TestCache extends NativeCache<String, PlanarImage> {
+    final List<String> removed = new ArrayList<>();
+
+    TestCache(long maxNativeMemory, CacheEvictionPolicy policy) {
+      super(maxNativeMemory, policy);
+    }
+
+    @Override
+    protected void afterEntryRemove(String key, PlanarImage val) {
+      removed.add(key);
+    }
+  }
+
+  private static PlanarImage buildImage() {
+    PlanarImage img = Mockito.mock(PlanarImage.class);
+    Mockito.when(img.physicalBytes()).thenReturn(IMAGE_SIZE);
+    return img;
+  }
+
+  @Test
+  void test_lru_eviction_and_statistics() {
+    TestCache cache = new TestCache(3 * IMAGE_SIZE, CacheEvictionPolicy.LRU);
+    cache.put("a", buildImage());
+    cache.put("b", buildImage());
+    cache.put("c", buildImage());
+    assertNotNull(cache.get("a"));
+    assertNull(cache.get("unknown"));
+    // Not an access, neither in the statistics nor in the eviction order
+    assertNotNull(cache.peek("b"));
+    assertNull(cache.peek("unknown"));
+
+    // Evict the least recently used images until 5% of the memory budget is available
+    cache.put("d", buildImage());
+    assertEquals(List.of("b", "c"), cache.removed);
+    assertEquals(2, cache.size());
+    assertTrue(cache.containsKey("a"));
+    assertTrue(cache.containsKey("d"));
+
+    NativeCache.Statistics stats = cache.getStatistics();
+    assertEquals(1, stats.hitCount());
+    assertEquals(1, stats.missCount());
+    assertEquals(2, stats.evictionCount());
+    assertEquals(2 * IMAGE_SIZE, stats.usedMemory());
+    assertEquals(0.5, stats.hitRate());
+
+    cache.remove("a");
+    assertEquals(IMAGE_SIZE, cache.getStatistics().usedMemory());
+  }
+
+  @Test
+  void test_series_pinning() {
+    TestCache cache = new TestCache(5 * IMAGE_SIZE, CacheEvictionPolicy.SERIES);
+    List<String> series = List.of("s0", "s1", "s2", "s3", "s4");
+    for (String key : series) {
+      cache.put(key, buildImage());
+    }
+    Object view = new Object();
+    cache.pinSeries(view, series, "s1", 1);
+
+    // Most recently used, but the farthest from the current image
+    cache.get("s4");
+    cache.put("x", buildImage());
+    assertEquals(List.of("s4", "s3"), cache.removed);
+
+    // Images not belonging to the pinned series are evicted first
+    cache.put("y", buildImage());
+    cache.put("z", buildImage());
+    assertEquals(List.of("s4", "s3", "x", "y"), cache.removed);
+    assertTrue(cache.containsKey("s0"));
+    assertTrue(cache.containsKey("s1"));
+    assertTrue(cache.containsKey("s2"));
+
+    cache.unpin(view);
+    cache.put("w", buildImage());
+    cache.put("v", buildImage());
+    assertFalse(cache.containsKey("s0"));
+    assertTrue(cache.containsKey("v"));
+  }
+
+  @Test
+  void test_tiny_lfu_admission() {
+    TestCache cache = new TestCache(4 * IMAGE_SIZE, CacheEvictionPolicy.TINY_LFU);
+    for (String key : List.of("a", "b", "c", "d")) {
+      cache.put(key, buildImage());
+    }
+    for (int i = 0; i < 5; i++) {
+      cache.get("a");
+      cache.get("b");
+    }
+
+    // A scan of new images does not evict the images used frequently
+    for (int i = 0; i < 6; i++) {
+      cache.put("s" + i, buildImage());
+    }
+    assertTrue(cache.containsKey("a"));
+    assertTrue(cache.containsKey("b"));
+    assertFalse(cache.containsKey("c"));
+    assertFalse(cache.containsKey("s0"));
+
+    // A new image requested more often than the victims is admitted, not the others
+    for (int i = 0; i < 8; i++) {
+      assertNull(cache.get("f"));
+    }
+    cache.put("f", buildImage());
+    cache.put("g", buildImage());
+    cache.put("h", buildImage());
+    assertTrue(cache.containsKey("f"));
+    assertFalse(cache.containsKey("g"));
+    assertEquals(3 * IMAGE_SIZE, cache.getStatistics().usedMemory());
+  }
+
+  @Test
+  void test_move_pin() {
+    TestCache cache = new TestCache(5 * IMAGE_SIZE, CacheEvictionPolicy.LRU);
+    List<String> series = List.of("s0", "s1", "s2", "s3", "s4");
+    for (String key : series) {
+      cache.put(key, buildImage());
+    }
+    Object view = new Object();
+    cache.pinSeries(view, series, "s0", 1);
+    // Same series, the pin follows the current image
+    cache.pinSeries(view, series, "s4", 1);
+    cache.put("x", buildImage());
+    assertEquals(List.of("s0", "s1"), cache.removed);
+    assertTrue(cache.containsKey("s3"));
+    assertTrue(cache.containsKey("s4"));
+  }
+
+  @Test
+  void test_policy_from_name() {
+    assertEquals(
+        CacheEvictionPolicy.TINY_LFU,
+        CacheEvictionPolicy.fromName("tiny_lfu", CacheEvictionPolicy.LRU)); // NON-NLS
+    assertEquals(
+        CacheEvictionPolicy.LRU, CacheEvictionPolicy.fromName(null, CacheEvictionPolicy.LRU));
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ScrollPredictorTest {
+
+  private static final long STEP = TimeUnit.MILLISECONDS.toNanos(50);
+
+  @Test
+  void test_symmetric_order_without_scrolling() {
+    ScrollPredictor predictor = new ScrollPredictor();
+    predictor.update(5, 0);
+    assertEquals(0.5, predictor.getAheadRatio(), 1e-9);
+    assertArrayEquals(new int[] {5, 6, 4, 7, 3}, predictor.getLoadingOrder(5, 10, 5));
+    // Bounded by the stack
+    assertArrayEquals(new int[] {0, 1, 2}, predictor.getLoadingOrder(0, 3, 10));
+    assertEquals(0, predictor.getLoadingOrder(3, 3, 10).length);
+  }
+
+  @Test
+  void test_backward_scrolling() {
+    ScrollPredictor predictor = new ScrollPredictor();
+    for (int i = 0; i < 10; i++) {
+      predictor.update(50 - i, i * STEP);
+    }
+    assertEquals(-20.0, predictor.getVelocity(), 1e-6);
+    assertEquals(0.9, predictor.getAheadRatio(), 1e-9);
+    int[] order = predictor.getLoadingOrder(41, 100, 20);
+    assertEquals(41, order[0]);
+    assertEquals(40, order[1]);
+    assertEquals(1, Arrays.stream(order).filter(i -> i > 41).count());
+
+    // Reset after a pause
+    predictor.update(42, 10 * STEP + TimeUnit.SECONDS.toNanos(2));
+    assertTrue(predictor.getVelocity() > 0);
+  }
+
+  /**
+   * Replays a scroll trace made of flicks (12 moves of 3 images every 50 ms) separated by pauses,
+   * then a flick in the opposite direction. The loader decodes one image every 50 ms and the memory
+   * budget holds 30 images.
+   */
+  @Test
+  void test_scroll_trace_hit_rate() {
+    double predictive = replayTrace(true);
+    double symmetric = replayTrace(false);
+    assertTrue(predictive > 0.7, "Predictive hit rate: " + predictive); // NON-NLS
+    assertTrue(predictive > symmetric + 0.1, "Symmetric hit rate: " + symmetric); // NON-NLS
+  }
+
+  private static int[] buildTrace() {
+    List<Integer> trace = new ArrayList<>();
+    int index = 10;
+    for (int flick = 0; flick < 9; flick++) {
+      for (int i = 0; i < 20; i++) {
+        trace.add(index);
+      }
+      int step = flick < 8 ? 3 : -3;
+      for (int i = 0; i < 12; i++) {
+        index += step;
+        trace.add(index);
+      }
+    }
+    return trace.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private static double replayTrace(boolean predictive) {
+    int size = 300;
+    int window = 30;
+    int[] trace = buildTrace();
+    ScrollPredictor predictor = new ScrollPredictor();
+    Set<Integer> loaded = new HashSet<>();
+    int moves = 0;
+    int hits = 0;
+    for (int t = 0; t < trace.length; t++) {
+      int index = trace[t];
+      if (t > 0 && trace[t - 1] != index) {
+        moves++;
+        if (loaded.contains(index)) {
+          hits++;
+        }
+      }
+      // Loaded by the view when missing
+      loaded.add(index);
+      if (predictive) {
+        predictor.update(index, t * STEP);
+      }
+      int[] order = predictor.getLoadingOrder(index, size, window);
+      Set<Integer> inWindow = new HashSet<>();
+      for (int i : order) {
+        inWindow.add(i);
+      }
+      // Evicted when out of the memory budget
+      loaded.retainAll(inWindow);
+      for (int i : order) {
+        if (loaded.add(i)) {
+          break;
+        }
+      }
+    }
+    return (double) hits / moves;
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.weasis.core.api.gui.util.Filter;
+import org.weasis.core.api.media.data.MediaSeries.SliceExtent;
+
+class SliceLocationIndexTest {
+
+  private static MediaElement buildMedia(Double location) {
+    MediaElement media = new MediaElement(Mockito.mock(MediaReader.class), null);
+    if (location != null) {
+      media.setTag(TagW.SlicePosition, new double[] {0.0, 0.0, location});
+    }
+    return media;
+  }
+
+  /** Reference implementation: linear scan keeping the first media at the lowest distance */
+  private static int linearNearest(List<MediaElement> list, double location) {
+    int best = -1;
+    double bestDiff = Double.MAX_VALUE;
+    for (int i = 0; i < list.size(); i++) {
+      double loc = SliceLocationIndex.getLocation(list.get(i));
+      if (!Double.isNaN(loc) && Math.abs(location - loc) < bestDiff) {
+        bestDiff = Math.abs(location - loc);
+        best = i;
+      }
+    }
+    return best;
+  }
+
+  @Test
+  void test_nearest_with_ties_and_missing_locations() {
+    List<MediaElement> list = new ArrayList<>();
+    for (Double loc : new Double[] {5.0, null, 1.0, 3.0, 3.0, 7.0}) {
+      list.add(buildMedia(loc));
+    }
+    SliceLocationIndex index = SliceLocationIndex.build(list);
+    assertEquals(5, index.size());
+    assertEquals(3, index.getPosition(index.nearest(3.0)));
+    // Same distance to 1.0 and 3.0
+    assertEquals(2, index.getPosition(index.nearest(2.0)));
+    // Same distance to 3.0 and 5.0: 5.0 has the lowest position
+    assertEquals(0, index.getPosition(index.nearest(4.0)));
+    assertEquals(5, index.getPosition(index.nearest(100.0)));
+    assertEquals(2, index.getPosition(index.nearest(-100.0)));
+    assertEquals(-1, SliceLocationIndex.build(List.of(buildMedia(null))).nearest(1.0));
+  }
+
+  @Test
+  void test_insert_matches_linear_scan() {
+    Random random = new Random(42);
+    List<MediaElement> list = new ArrayList<>();
+    SliceLocationIndex index = SliceLocationIndex.build(list);
+    for (int i = 0; i < 500; i++) {
+      Double loc = random.nextInt(10) == 0 ? null : (double) random.nextInt(200);
+      MediaElement media = buildMedia(loc);
+      int position = random.nextInt(list.size() + 1);
+      list.add(position, media);
+      index.insert(position, SliceLocationIndex.getLocation(media));
+
+      double location = random.nextInt(220) - 10 + 0.5 * random.nextInt(2);
+      int entry = index.nearest(location);
+      assertEquals(linearNearest(list, location), entry < 0 ? -1 : index.getPosition(entry));
+    }
+  }
+
+  private static Series<MediaElement> buildSeries() {
+    return new Series<>(TagW.FilePath, "test", null) { // NON-NLS
+      @Override
+      public String getMimeType() {
+        return null;
+      }
+
+      @Override
+      public void addMedia(MediaElement media) {
+        add(media);
+      }
+
+      @Override
+      public MediaElement getFirstSpecialElement() {
+        return null;
+      }
+    };
+  }
+
+  /** Reference implementation: linear scan keeping the first media at the lowest/highest location */
+  private static MediaElement[] linearExtent(Iterable<MediaElement> list) {
+    MediaElement[] extent = new MediaElement[2];
+    double min = Double.MAX_VALUE;
+    double max = -Double.MAX_VALUE;
+    for (MediaElement media : list) {
+      double loc = SliceLocationIndex.getLocation(media);
+      if (!Double.isNaN(loc)) {
+        if (min > loc) {
+          min = loc;
+          extent[0] = media;
+        }
+        if (max < loc) {
+          max = loc;
+          extent[1] = media;
+        }
+      }
+    }
+    return extent;
+  }
+
+  @Test
+  void test_slice_extent_matches_linear_scan() {
+    Random random = new Random(7);
+    Series<MediaElement> series = buildSeries();
+    SliceExtent<MediaElement> empty = series.getSliceExtent(null, null);
+    assertNull(empty.first());
+    assertNull(empty.last());
+
+    Filter<MediaElement> even =
+        new Filter<>() {
+          @Override
+          public boolean passes(MediaElement item) {
+            double loc = SliceLocationIndex.getLocation(item);
+            return !Double.isNaN(loc) && ((int) loc) % 2 == 0;
+          }
+        };
+    for (int i = 0; i < 300; i++) {
+      Double loc = random.nextInt(10) == 0 ? null : (double) random.nextInt(100);
+      series.add(random.nextInt(series.size(null) + 1), buildMedia(loc));
+
+      MediaElement[] filtered = linearExtent(series.getMedias(even, null));
+      SliceExtent<MediaElement> filteredExtent = series.getSliceExtent(even, null);
+      assertSame(filtered[0], filteredExtent.first());
+      assertSame(filtered[1], filteredExtent.last());
+
+      MediaElement[] expected = linearExtent(series.getMedias(null, null));
+      SliceExtent<MediaElement> extent = series.getSliceExtent(null, null);
+      assertSame(expected[0], extent.first());
+      assertSame(expected[1], extent.last());
+    }
+  }
+}
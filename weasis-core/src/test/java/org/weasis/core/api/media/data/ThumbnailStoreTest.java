@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ThumbnailStoreTest {
+
+  private static final int FILE_SIZE = 100;
+
+  @TempDir Path dir;
+
+  private static Predicate<File> writer() {
+    return f -> {
+      try {
+        Files.write(f.toPath(), new byte[FILE_SIZE]);
+        return true;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    };
+  }
+
+  @Test
+  void test_persistent_content_key() {
+    ThumbnailStore store = new ThumbnailStore(dir.toFile(), 10L * FILE_SIZE);
+    assertNull(store.get("1.2.3|0"));
+    assertNull(store.get(null));
+    assertNull(store.put("1.2.3|1", _ -> false));
+
+    File file = store.put("1.2.3|0", writer());
+    assertNotNull(file);
+    assertEquals(file, store.get("1.2.3|0"));
+    assertNull(store.get("1.2.3|1"));
+    assertEquals(FILE_SIZE, store.getSize());
+    // No temporary file left
+    assertEquals(1, dir.toFile().list().length);
+
+    // A file being written by another store is not a thumbnail
+    Files.write(dir.resolve("tmp_1" + ThumbnailStore.TMP_EXTENSION), new byte[FILE_SIZE]);
+
+    // Found again by a new store, like in the next session
+    ThumbnailStore next = new ThumbnailStore(dir.toFile(), 10L * FILE_SIZE);
+    assertEquals(file, next.get("1.2.3|0"));
+    assertEquals(FILE_SIZE, next.getSize());
+  }
+
+  @Test
+  void test_evict_least_recently_used() {
+    ThumbnailStore store = new ThumbnailStore(dir.toFile(), 5L * FILE_SIZE);
+    long time = System.currentTimeMillis() - 100_000;
+    for (int i = 0; i < 5; i++) {
+      File f = store.put("uid|" + i, writer());
+      assertTrue(f.setLastModified(time + i * 1000L));
+    }
+    // Used recently, so kept
+    assertNotNull(store.get("uid|0"));
+
+    // Over the maximum size, the oldest are removed down to the low water mark
+    assertNotNull(store.put("uid|5", writer()));
+    assertEquals(4L * FILE_SIZE, store.getSize());
+    assertNotNull(store.get("uid|0"));
+    assertNull(store.get("uid|1"));
+    assertNull(store.get("uid|2"));
+    assertNotNull(store.get("uid|3"));
+    assertNotNull(store.get("uid|4"));
+    assertNotNull(store.get("uid|5"));
+  }
+}
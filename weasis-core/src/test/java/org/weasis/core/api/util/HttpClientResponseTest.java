@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class HttpClientResponseTest {
+
+  @Test
+  void test_body_read_timeout() throws Exception {
+    CountDownLatch stalled = new CountDownLatch(1);
+    HttpServer server =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext(
+        "/stall", // NON-NLS
+        exchange -> {
+          exchange.sendResponseHeaders(200, 0);
+          OutputStream out = exchange.getResponseBody();
+          out.write(new byte[] {1, 2, 3, 4});
+          out.flush();
+          // The server stops sending the body without closing the connection
+          try {
+            stalled.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          exchange.close();
+        });
+    server.createContext(
+        "/slow", // NON-NLS
+        exchange -> {
+          exchange.sendResponseHeaders(200, 0);
+          try (OutputStream out = exchange.getResponseBody()) {
+            for (int i = 0; i < 5; i++) {
+              Thread.sleep(100);
+              out.write(i);
+              out.flush();
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    server.start();
+    String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort(); // NON-NLS
+    try {
+      URLParameters params = new URLParameters(null, 1000, 300);
+      try (HttpResponse response =
+          NetworkUtil.getPooledHttpResponse(baseUrl + "/stall", params, null)) { // NON-NLS
+        InputStream in = response.getInputStream();
+        assertEquals(4, in.readNBytes(4).length);
+        long start = System.nanoTime();
+        assertThrows(SocketTimeoutException.class, in::read);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 300 && elapsed < 5000, "Timeout after " + elapsed + " ms");
+      }
+
+      // Data received more often than the timeout, the whole body is read
+      try (HttpResponse response =
+          NetworkUtil.getPooledHttpResponse(baseUrl + "/slow", params, null)) { // NON-NLS
+        assertArrayEquals(new byte[] {0, 1, 2, 3, 4}, response.getInputStream().readAllBytes());
+      }
+    } finally {
+      stalled.countDown();
+      server.stop(0);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.ui.model.layer.imp;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.opencv.core.CvType;
+import org.weasis.opencv.data.PlanarImage;
+import org.weasis.opencv.op.ImageConversion;
+
+class DisplayImageBufferTest {
+
+  private static PlanarImage buildImage(int type) {
+    PlanarImage img = mock(PlanarImage.class);
+    when(img.width()).thenReturn(64);
+    when(img.height()).thenReturn(64);
+    when(img.type()).thenReturn(type);
+    when(img.channels()).thenReturn(CvType.channels(type));
+    return img;
+  }
+
+  private static long getAllocatedBytes() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+        && bean.isThreadAllocatedMemorySupported()
+        && bean.isThreadAllocatedMemoryEnabled()) {
+      return bean.getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+    return -1;
+  }
+
+  @Test
+  void test_conversion_by_display_image() {
+    try (MockedStatic<ImageConversion> conversion = mockStatic(ImageConversion.class)) {
+      conversion
+          .when(() -> ImageConversion.toBufferedImage(any(PlanarImage.class)))
+          .thenAnswer(_ -> new BufferedImage(64, 64, BufferedImage.TYPE_BYTE_GRAY));
+      DisplayImageBuffer buffer = new DisplayImageBuffer();
+      assertNull(buffer.getImage(null));
+
+      PlanarImage img = buildImage(CvType.CV_8UC1);
+      BufferedImage first = buffer.getImage(img);
+      assertNotNull(first);
+      for (int i = 0; i < 100; i++) {
+        assertSame(first, buffer.getImage(img));
+      }
+      assertEquals(1, buffer.getConversionCount());
+
+      // Another type
+      BufferedImage second = buffer.getImage(buildImage(CvType.CV_8UC3));
+      assertNotSame(first, second);
+      assertEquals(2, buffer.getConversionCount());
+      assertEquals(0, buffer.getCopyCount());
+
+      buffer.clear();
+      buffer.getImage(img);
+      assertEquals(3, buffer.getConversionCount());
+    }
+  }
+
+  /** Repaint-only benchmark: drawing the same display image again must not allocate memory */
+  @Test
+  void test_repaint_without_allocation() {
+    try (MockedStatic<ImageConversion> conversion = mockStatic(ImageConversion.class)) {
+      conversion
+          .when(() -> ImageConversion.toBufferedImage(any(PlanarImage.class)))
+          .thenReturn(new BufferedImage(64, 64, BufferedImage.TYPE_BYTE_GRAY));
+      DisplayImageBuffer buffer = new DisplayImageBuffer();
+      PlanarImage img = buildImage(CvType.CV_8UC1);
+      buffer.getImage(img);
+      // Warm up
+      for (int i = 0; i < 10_000; i++) {
+        buffer.getImage(img);
+      }
+
+      long start = getAllocatedBytes();
+      assumeTrue(start >= 0, "Allocated memory is not measurable"); // NON-NLS
+      for (int i = 0; i < 100_000; i++) {
+        buffer.getImage(img);
+      }
+      long allocated = getAllocatedBytes() - start;
+      assertTrue(allocated < 1024, "Allocated bytes: " + allocated); // NON-NLS
+      assertEquals(1, buffer.getConversionCount());
+    }
+  }
+}
@@ -139,9 +139,18 @@ protected List<DicomImageElement> adjustSliceList(List<DicomImageElement> inputL
   }
 
   public PlanarImage getModalityLutImage(DicomImageElement image) {
+    return getModalityLutImage(image, null);
+  }
+
+  /**
+   * @param image the image element
+   * @param source the decoded image of the element, or null to get it from the element
+   * @return the image with the modality LUT applied and adapted to the size of the texture
+   */
+  public PlanarImage getModalityLutImage(DicomImageElement image, PlanarImage source) {
     PlanarImage output = null;
     if (image != null) {
-      output = image.getModalityLutImage(null, null);
+      output = image.applyModalityLut(source, null);
       if (manager != null) {
         manager.setFirstNode(output);
         output = manager.process();
@@ -207,16 +207,34 @@ public void run() {
         bar = null;
       }
 
+      List<DicomImageElement> list = volTexture.getVolumeImages();
+      // The voxels are shared with the other builders (MPR, MIP...) of the same series
+      SeriesVolume volume = SeriesVolume.acquire(volTexture.getSeries());
+      try {
+        loadSlices(volTexture, volume, list, segList, view, bar);
+      } finally {
+        if (volume != null) {
+          volume.release();
+        }
+      }
+    }
+
+    private void loadSlices(
+        DicomVolTexture volTexture,
+        SeriesVolume volume,
+        List<DicomImageElement> list,
+        List<SpecialElementRegion> segList,
+        ViewCanvas<DicomImageElement> view,
+        JProgressBar bar) {
       int sliceOffset = 0;
       long maxMemory = Runtime.getRuntime().maxMemory() / 3;
       long sumMemory = 0L;
 
-      ArrayList<Mat> slices = new ArrayList<>(size);
+      ArrayList<Mat> slices = new ArrayList<>(list.size());
 
       Instant timeStarted = Instant.now();
       double lastPos = 0;
 
-      List<DicomImageElement> list = volTexture.getVolumeImages();
       for (int i = 0; i < list.size(); i++) {
         if (isInterrupted()) {
           return;
@@ -224,8 +242,9 @@ public void run() {
         DicomImageElement imageElement = list.get(i);
         Instant start = Instant.now();
 
-        // Force to get min/max values.
-        if (!imageElement.isImageAvailable()) {
+        // Decoding the slice computes also the min/max values.
+        ImageCV source = volume == null ? null : volume.getSlice(imageElement);
+        if (source == null && !imageElement.isImageAvailable()) {
           imageElement.getImage();
         }
 
@@ -276,7 +295,8 @@ public void run() {
           Mat mask = volTexture.getEmptyImage();
           for (SpecialElementRegion seg : segList) {
             if (seg.isVisible() && seg.containsSopInstanceUIDReference(imageElement)) {
-              Collection<SegContour> contours = seg.getContours(imageElement);
+              // All the slices are read, keep the contours of the displayed slices in the cache
+              Collection<SegContour> contours = seg.getContoursWithoutCaching(imageElement);
               if (!contours.isEmpty()) {
                 for (SegContour c : contours) {
                   SegGraphic graphic = c.getSegGraphic();
@@ -298,7 +318,7 @@ public void run() {
           //          Core.bitwise_and(src.toImageCV(), mask, imageMLUT.toImageCV());
         } else {
           start = Instant.now();
-          imageMLUT = volTexture.getModalityLutImage(imageElement);
+          imageMLUT = volTexture.getModalityLutImage(imageElement, source);
           LOGGER.debug(
               "Time to get Modality LUT image  {}: {} ms",
               i,
@@ -329,6 +349,9 @@ public void run() {
           volTexture.notifyPartiallyLoaded();
         }
         slices.add(imageMLUT.toMat());
+        if (source != null && source != imageMLUT) {
+          source.release();
+        }
         if (bar != null) {
           GuiExecutor.execute(
               () -> {
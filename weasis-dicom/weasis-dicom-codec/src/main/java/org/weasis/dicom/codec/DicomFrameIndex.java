@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.BulkData;
+import org.dcm4che3.data.Fragments;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.VR;
+
+/**
+ * Position of each frame of the pixel data in a DICOM file. The table is built from the header
+ * (the pixel data are read as bulk data references), so that a frame can be read directly at its
+ * offset without parsing again the DICOM file.
+ */
+public final class DicomFrameIndex {
+
+  /**
+   * Location of a frame in the file.
+   *
+   * @param segmentPositions the position of each segment in the file (a compressed frame can be
+   *     split into several fragments)
+   * @param segmentLengths the length of each segment
+   */
+  public record Frame(long[] segmentPositions, int[] segmentLengths) {
+
+    public long offset() {
+      return segmentPositions[0];
+    }
+
+    public long length() {
+      long length = 0;
+      for (int l : segmentLengths) {
+        length += l;
+      }
+      return length;
+    }
+  }
+
+  private final Frame[] frames;
+  private final boolean encapsulated;
+  private final boolean bigEndian;
+  private final VR pixelDataVR;
+
+  private DicomFrameIndex(Frame[] frames, boolean encapsulated, boolean bigEndian, VR vr) {
+    this.frames = frames;
+    this.encapsulated = encapsulated;
+    this.bigEndian = bigEndian;
+    this.pixelDataVR = vr;
+  }
+
+  /**
+   * @param dcm the DICOM header where the pixel data are bulk data references
+   * @param numberOfFrames the number of frames
+   * @param fileLength the length of the file
+   * @return the frame index or null if the frames cannot be located
+   */
+  public static DicomFrameIndex build(Attributes dcm, int numberOfFrames, long fileLength) {
+    if (dcm == null || numberOfFrames <= 0) {
+      return null;
+    }
+    VR.Holder holder = new VR.Holder();
+    Object pixelData = dcm.getValue(Tag.PixelData, holder);
+    Frame[] frames = null;
+    if (pixelData instanceof BulkData bulkData) {
+      frames = buildNativeFrames(dcm, bulkData, numberOfFrames);
+      if (frames != null) {
+        return checkBounds(frames, fileLength)
+            ? new DicomFrameIndex(frames, false, bulkData.bigEndian(), holder.vr)
+            : null;
+      }
+    } else if (pixelData instanceof Fragments fragments) {
+      frames = buildEncapsulatedFrames(fragments, numberOfFrames);
+      if (frames != null) {
+        return checkBounds(frames, fileLength)
+            ? new DicomFrameIndex(frames, true, fragments.bigEndian(), holder.vr)
+            : null;
+      }
+    }
+    return null;
+  }
+
+  private static boolean checkBounds(Frame[] frames, long fileLength) {
+    for (Frame frame : frames) {
+      if (frame == null) {
+        return false;
+      }
+      for (int i = 0; i < frame.segmentPositions.length; i++) {
+        long end = frame.segmentPositions[i] + frame.segmentLengths[i];
+        if (frame.segmentPositions[i] < 0 || frame.segmentLengths[i] < 0 || end > fileLength) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static Frame[] buildNativeFrames(Attributes dcm, BulkData bulkData, int nbFrames) {
+    long rows = dcm.getInt(Tag.Rows, 0);
+    long columns = dcm.getInt(Tag.Columns, 0);
+    long samples = dcm.getInt(Tag.SamplesPerPixel, 1);
+    int bitsAllocated = dcm.getInt(Tag.BitsAllocated, 8);
+    long frameBits = rows * columns * samples * bitsAllocated;
+    // Frames of 1-bit images are not aligned on bytes
+    if (frameBits <= 0 || frameBits % 8 != 0 || frameBits / 8 > Integer.MAX_VALUE) {
+      return null;
+    }
+    int frameLength = (int) (frameBits / 8);
+    if ((long) frameLength * nbFrames > bulkData.length()) {
+      return null;
+    }
+    Frame[] frames = new Frame[nbFrames];
+    for (int i = 0; i < nbFrames; i++) {
+      frames[i] =
+          new Frame(
+              new long[] {bulkData.offset() + (long) i * frameLength}, new int[] {frameLength});
+    }
+    return frames;
+  }
+
+  private static Frame[] buildEncapsulatedFrames(Fragments fragments, int nbFrames) {
+    // The first item is the Basic Offset Table
+    int nbFragments = fragments.size() - 1;
+    if (nbFragments < nbFrames) {
+      return null;
+    }
+    List<BulkData> items = new ArrayList<>(nbFragments);
+    for (int i = 1; i < fragments.size(); i++) {
+      if (fragments.get(i) instanceof BulkData bulkData) {
+        items.add(bulkData);
+      } else {
+        return null;
+      }
+    }
+
+    Frame[] frames = new Frame[nbFrames];
+    if (nbFrames == 1) {
+      frames[0] = buildFrame(items, 0, items.size());
+    } else if (nbFragments == nbFrames) {
+      for (int i = 0; i < nbFrames; i++) {
+        frames[i] = buildFrame(items, i, i + 1);
+      }
+    } else {
+      int[] firstFragments = getFirstFragmentsFromOffsetTable(fragments.get(0), items, nbFrames);
+      if (firstFragments == null) {
+        return null;
+      }
+      for (int i = 0; i < nbFrames; i++) {
+        int end = i + 1 < nbFrames ? firstFragments[i + 1] : items.size();
+        frames[i] = buildFrame(items, firstFragments[i], end);
+      }
+    }
+    return frames;
+  }
+
+  /**
+   * Finds the first fragment of each frame from the Basic Offset Table. The offsets are relative to
+   * the first byte of the item tag of the first fragment, and each item has an 8-byte header.
+   */
+  private static int[] getFirstFragmentsFromOffsetTable(
+      Object table, List<BulkData> items, int nbFrames) {
+    byte[] bytes;
+    boolean bigEndian = false;
+    try {
+      if (table instanceof byte[] b) {
+        bytes = b;
+      } else if (table instanceof BulkData bulkData) {
+        bytes = bulkData.toBytes(VR.OB, false);
+        bigEndian = bulkData.bigEndian();
+      } else {
+        return null;
+      }
+    } catch (Exception e) {
+      return null;
+    }
+    if (bytes == null || bytes.length < 4 * nbFrames) {
+      return null;
+    }
+    ByteBuffer buffer =
+        ByteBuffer.wrap(bytes).order(bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+    long start = items.get(0).offset() - 8;
+    int[] firstFragments = new int[nbFrames];
+    int index = 0;
+    for (int i = 0; i < nbFrames; i++) {
+      long position = start + Integer.toUnsignedLong(buffer.getInt(i * 4)) + 8;
+      while (index < items.size() && items.get(index).offset() < position) {
+        index++;
+      }
+      if (index >= items.size() || items.get(index).offset() != position) {
+        return null;
+      }
+      firstFragments[i] = index;
+    }
+    return firstFragments;
+  }
+
+  private static Frame buildFrame(List<BulkData> items, int start, int end) {
+    if (end <= start) {
+      return null;
+    }
+    long[] positions = new long[end - start];
+    int[] lengths = new int[end - start];
+    for (int i = start; i < end; i++) {
+      positions[i - start] = items.get(i).offset();
+      lengths[i - start] = items.get(i).length();
+    }
+    return new Frame(positions, lengths);
+  }
+
+  public int size() {
+    return frames.length;
+  }
+
+  public Frame getFrame(int index) {
+    if (index < 0 || index >= frames.length) {
+      return null;
+    }
+    return frames[index];
+  }
+
+  public boolean isEncapsulated() {
+    return encapsulated;
+  }
+
+  public boolean isBigEndian() {
+    return bigEndian;
+  }
+
+  public VR getPixelDataVR() {
+    return pixelDataVR;
+  }
+}
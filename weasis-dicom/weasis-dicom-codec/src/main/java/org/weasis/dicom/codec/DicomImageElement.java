@@ -45,6 +45,7 @@
 import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.util.MathUtil;
+import org.weasis.core.util.StringUtil;
 import org.weasis.dicom.codec.display.OverlayOp;
 import org.weasis.dicom.codec.display.ShutterOp;
 import org.weasis.dicom.codec.display.WindowAndPresetsOp;
@@ -263,6 +264,16 @@ public String toString() {
     return TagD.getTagValue(this, Tag.SOPInstanceUID, String.class);
   }
 
+  /** The thumbnail is identified by the SOP Instance UID and the frame, wherever the file is. */
+  @Override
+  public String getThumbnailKey() {
+    String uid = TagD.getTagValue(this, Tag.SOPInstanceUID, String.class);
+    if (!StringUtil.hasText(uid)) {
+      return null;
+    }
+    return uid + "|" + getKey();
+  }
+
   @Override
   public DcmMediaReader getMediaReader() {
     return (DcmMediaReader) super.getMediaReader();
@@ -302,6 +313,21 @@ public PlanarImage getModalityLutImage(OpManager manager, DicomImageReadParam pa
     return ImageRendering.getModalityLutImage(image, adapter, params);
   }
 
+  /**
+   * Applies the modality LUT of this element to an image already decoded, for instance from a
+   * {@link SeriesVolume}.
+   *
+   * @param image the source image of this element
+   * @param params the read parameters
+   * @return the image with the modality LUT applied
+   */
+  public PlanarImage applyModalityLut(PlanarImage image, DicomImageReadParam params) {
+    if (image == null || !isImageInitialized()) {
+      return getModalityLutImage(null, params);
+    }
+    return ImageRendering.getModalityLutImage(image, adapter, params);
+  }
+
   public LutParameters getModalityLutParameters(
       boolean pixelPadding, LookupTableCV mLUTSeq, boolean inversePaddingMLUT, PrDicomObject pr) {
     if (isImageInitialized()) {
@@ -547,14 +573,29 @@ public Attributes saveToFile(File output, DicomExportParameters params) {
   @Override
   public SimpleOpManager buildSimpleOpManager(
       boolean img16, boolean padding, boolean shutter, boolean overlay, double ratio) {
+    return buildSimpleOpManager(getImage(null), img16, padding, shutter, overlay, ratio);
+  }
+
+  /**
+   * Same as {@link #buildSimpleOpManager(boolean, boolean, boolean, boolean, double)} with an image
+   * of this element already decoded, e.g. by {@link #readImage}.
+   *
+   * @param image the original image of this element
+   */
+  public SimpleOpManager buildSimpleOpManager(
+      PlanarImage image,
+      boolean img16,
+      boolean padding,
+      boolean shutter,
+      boolean overlay,
+      double ratio) {
     SimpleOpManager manager = new SimpleOpManager();
-    PlanarImage image = getImage(null);
     if (image != null) {
       if (img16) {
         DicomImageReadParam params = new DicomImageReadParam();
         params.setApplyPixelPadding(padding);
 
-        image = getModalityLutImage(null, params);
+        image = applyModalityLut(image, params);
         if (CvType.depth(image.type()) == CvType.CV_16S) {
           ImageCV dstImg = new ImageCV();
           image.toImageCV().convertTo(dstImg, CvType.CV_16UC(image.channels()), 1.0, 32768);
@@ -16,10 +16,15 @@
 import java.lang.ref.Reference;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -33,6 +38,8 @@
 import org.dcm4che3.data.Tag;
 import org.dcm4che3.data.UID;
 import org.dcm4che3.data.VR;
+import org.dcm4che3.img.DicomImageAdapter;
+import org.dcm4che3.img.DicomImageReadParam;
 import org.dcm4che3.img.DicomImageReader;
 import org.dcm4che3.img.DicomMetaData;
 import org.dcm4che3.img.ImageRendering;
@@ -51,6 +58,7 @@
 import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.media.data.Codec;
 import org.weasis.core.api.media.data.FileCache;
+import org.weasis.core.api.media.data.LayeredTagMap;
 import org.weasis.core.api.media.data.MediaElement;
 import org.weasis.core.api.media.data.SimpleTaggable;
 import org.weasis.core.api.media.data.TagView;
@@ -66,6 +74,7 @@
 import org.weasis.dicom.codec.geometry.ImageOrientation;
 import org.weasis.dicom.codec.utils.DicomMediaUtils;
 import org.weasis.dicom.codec.utils.PatientComparator;
+import org.weasis.opencv.data.ImageCV;
 import org.weasis.opencv.data.PlanarImage;
 
 public class DicomMediaIO implements DcmMediaReader {
@@ -290,6 +299,24 @@ public void removeElement(Reference<? extends DicomMetaData> soft) {
         }
       };
 
+  // Only multi-frame or large files are mapped, the small files are read faster with a stream
+  private static final long MAPPED_FILE_MIN_SIZE = 8L << 20;
+  private static final int MAX_MAPPED_FILES = 64;
+
+  // Memory mapping of the files for reading the frames from the frame index. The mappings are
+  // closed explicitly (see close()), the least recently used first when there are too many.
+  private static final LinkedHashMap<DicomMediaIO, MappedPixelData> PIXEL_DATA_CACHE =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Entry<DicomMediaIO, MappedPixelData> eldest) {
+          if (size() > MAX_MAPPED_FILES) {
+            eldest.getValue().close();
+            return true;
+          }
+          return false;
+        }
+      };
+
   // The above softReference HEADER_CACHE shall be used instead of the following dcmMetadata
   // variable to get access to
   // the current DicomObject unless it's virtual and then URI doesn't exit. This case appends when
@@ -300,9 +327,16 @@ public void removeElement(Reference<? extends DicomMetaData> soft) {
   private URI uri;
   private int numberOfFrame;
   private final Map<TagW, Object> tags;
+  // Snapshot of the tags shared by the frames of a multi-frame image
+  private Map<TagW, Object> frameSharedTags = null;
   private DicomImageElement[] image = null;
   private String mimeType;
   private boolean hasPixel = false;
+  // Built once when reading the header, the position of the frames does not change
+  private volatile DicomFrameIndex frameIndex = null;
+  // The frames of a multi-frame image share the frame index and the mapped pixel data, so they are
+  // decoded one at a time even by the parallel image loader
+  private final Object decodeLock = new Object();
 
   private final FileCache fileCache;
 
@@ -654,6 +688,13 @@ public PlanarImage getImageFragment(MediaElement media) throws Exception {
 
   public PlanarImage getImageFragment(MediaElement media, int frame, boolean noEmbeddedOverlay)
       throws Exception {
+    synchronized (decodeLock) {
+      return readImageFragment(media, frame, noEmbeddedOverlay);
+    }
+  }
+
+  private PlanarImage readImageFragment(MediaElement media, int frame, boolean noEmbeddedOverlay)
+      throws Exception {
     if (isReadableDicom() && frame >= 0 && frame < numberOfFrame && hasPixel) {
       FileCache cache = media.getFileCache();
       Optional<File> original = cache.getOriginalFile();
@@ -662,11 +703,35 @@ public PlanarImage getImageFragment(MediaElement media, int frame, boolean noEmb
             "Start reading dicom image frame: {} sopUID: {}",
             frame,
             TagD.getTagValue(this, Tag.SOPInstanceUID));
+        Path path = original.get().toPath();
         DicomImageReader reader = new DicomImageReader(Transcoder.dicomImageReaderSpi);
-        try (DicomFileInputStream inputStream = new DicomFileInputStream(original.get().toPath())) {
-          reader.setInput(inputStream);
-          ImageDescriptor desc = reader.getImageDescriptor();
-          PlanarImage img = reader.getPlanarImage(frame, null);
+        try {
+          PlanarImage img = null;
+          ImageDescriptor desc = null;
+          DicomFrameIndex index = frameIndex;
+          MappedPixelData pixelData = getMappedPixelData(index, path);
+          DicomMetaData md = getDicomMetaData();
+          if (pixelData != null && md != null && pixelData.startReading()) {
+            // Read the frame at its offset, without parsing the DICOM file
+            try {
+              reader.setInput(pixelData.getFrameSource(index, md));
+              desc = reader.getImageDescriptor();
+              img = readMappedFrame(reader, frame, pixelData);
+            } catch (Exception e) {
+              LOGGER.warn("Cannot read the frame {} from the frame index", frame, e);
+              frameIndex = null;
+              closePixelData();
+            } finally {
+              pixelData.endReading();
+            }
+          }
+          if (img == null) {
+            try (DicomFileInputStream inputStream = new DicomFileInputStream(path)) {
+              reader.setInput(inputStream);
+              desc = reader.getImageDescriptor();
+              img = reader.getPlanarImage(frame, null);
+            }
+          }
           if (img.width() != desc.getColumns() || img.height() != desc.getRows()) {
             LOGGER.error(
                 "The native image size ({}x{}) does not match with the DICOM attributes({}x{})",
@@ -684,6 +749,168 @@ public PlanarImage getImageFragment(MediaElement media, int frame, boolean noEmb
     return null;
   }
 
+  /**
+   * Reads a frame of a native transfer syntax at a lower resolution by taking one pixel every N rows
+   * and columns, so only the sampled rows are read from the file. The default modality and VOI LUTs
+   * are then applied to the sampled pixels. The encapsulated transfer syntaxes and the color images
+   * are not supported, they are decoded at full resolution by the caller.
+   */
+  @Override
+  public PlanarImage getReducedImageFragment(MediaElement media, int maxSize) throws Exception {
+    if (!(media instanceof DicomImageElement)
+        || !(media.getKey() instanceof Integer frame)
+        || maxSize <= 0
+        || !isReadableDicom()
+        || !hasPixel
+        || frame < 0
+        || frame >= numberOfFrame) {
+      return null;
+    }
+    DicomFrameIndex index = frameIndex;
+    DicomMetaData md = getDicomMetaData();
+    Optional<File> original = media.getFileCache().getOriginalFile();
+    if (index == null || index.isEncapsulated() || md == null || original.isEmpty()) {
+      return null;
+    }
+    Attributes dcm = md.getDicomObject();
+    int rows = dcm.getInt(Tag.Rows, 0);
+    int columns = dcm.getInt(Tag.Columns, 0);
+    int bitsAllocated = dcm.getInt(Tag.BitsAllocated, 0);
+    int bitsStored = dcm.getInt(Tag.BitsStored, bitsAllocated);
+    boolean signed = dcm.getInt(Tag.PixelRepresentation, 0) != 0;
+    int step = Math.max(rows, columns) / maxSize;
+    if (step < 2
+        || dcm.getInt(Tag.SamplesPerPixel, 1) != 1
+        || !(bitsAllocated == 16 || (bitsAllocated == 8 && !signed))
+        || bitsStored < 1
+        || bitsStored > bitsAllocated) {
+      return null;
+    }
+    DicomFrameIndex.Frame f = index.getFrame(frame);
+    int rowLength = columns * (bitsAllocated / 8);
+    if (f == null || f.segmentPositions().length != 1 || f.length() < (long) rowLength * rows) {
+      return null;
+    }
+
+    int dstRows = (rows + step - 1) / step;
+    int dstColumns = (columns + step - 1) / step;
+    ByteBuffer rowBytes = ByteBuffer.allocate(rowLength);
+    rowBytes.order(index.isBigEndian() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+    byte[] bytes = bitsAllocated == 8 ? new byte[dstRows * dstColumns] : null;
+    short[] shorts = bitsAllocated == 16 ? new short[dstRows * dstColumns] : null;
+    int mask = (1 << bitsStored) - 1;
+    int shift = 32 - bitsStored;
+
+    Path path = original.get().toPath();
+    MappedPixelData pixelData = getMappedPixelData(index, path);
+    ByteBuffer mapped = null;
+    RandomAccessFile raf = null;
+    try {
+      if (pixelData != null && pixelData.startReading()) {
+        mapped = pixelData.getFrameBytes(f);
+      } else {
+        pixelData = null;
+        // Small files are not mapped, read only the sampled rows
+        raf = new RandomAccessFile(path.toFile(), "r"); // NON-NLS
+      }
+      for (int r = 0; r < dstRows; r++) {
+        long position = (long) r * step * rowLength;
+        rowBytes.clear();
+        if (mapped != null) {
+          rowBytes.put(mapped.slice((int) position, rowLength));
+        } else {
+          raf.seek(f.offset() + position);
+          raf.readFully(rowBytes.array());
+        }
+        for (int c = 0; c < dstColumns; c++) {
+          int i = r * dstColumns + c;
+          if (bytes != null) {
+            bytes[i] = (byte) (rowBytes.get(c * step) & mask);
+          } else {
+            int val = rowBytes.getShort(c * step * 2) & mask;
+            // Sign extension of the stored bits
+            shorts[i] = (short) (signed ? (val << shift) >> shift : val);
+          }
+        }
+      }
+    } finally {
+      if (raf != null) {
+        raf.close();
+      }
+      if (pixelData != null) {
+        pixelData.endReading();
+      }
+    }
+
+    ImageCV img;
+    if (bytes != null) {
+      img = new ImageCV(dstRows, dstColumns, CvType.CV_8UC1);
+      img.put(0, 0, bytes);
+    } else {
+      img = new ImageCV(dstRows, dstColumns, signed ? CvType.CV_16SC1 : CvType.CV_16UC1);
+      img.put(0, 0, shorts);
+    }
+    // The default window is computed from the sampled pixels when the tags have no preset
+    DicomImageAdapter adapter = new DicomImageAdapter(img, md.getImageDescriptor());
+    PlanarImage rendered = ImageRendering.getVoiLutImage(img, adapter, new DicomImageReadParam());
+    if (rendered != img) {
+      img.release();
+    }
+    return rendered;
+  }
+
+  /**
+   * @return the frame index of the pixel data or null when the frames cannot be located without
+   *     parsing the file (e.g. bulk data in memory)
+   */
+  public DicomFrameIndex getFrameIndex() {
+    return frameIndex;
+  }
+
+  private static PlanarImage readMappedFrame(
+      DicomImageReader reader, int frame, MappedPixelData pixelData) throws IOException {
+    PlanarImage img;
+    try {
+      img = reader.getPlanarImage(frame, null);
+    } catch (UnsupportedOperationException | ReadOnlyBufferException e) {
+      if (!MappedPixelData.isFrameViews()) {
+        throw e;
+      }
+      // The decoder requires a heap buffer, copy the frames from now on
+      LOGGER.debug("Cannot decode a frame from a view of the mapping", e);
+      MappedPixelData.disableFrameViews();
+      img = reader.getPlanarImage(frame, null);
+    }
+    if (img != null && pixelData.contains(img.toMat())) {
+      // The image wraps the mapping, which may be unmapped while the image is in the cache
+      ImageCV copy = new ImageCV();
+      img.toMat().copyTo(copy);
+      img.release();
+      img = copy;
+    }
+    return img;
+  }
+
+  private MappedPixelData getMappedPixelData(DicomFrameIndex index, Path path) {
+    if (index == null
+        || (numberOfFrame <= 1 && path.toFile().length() < MAPPED_FILE_MIN_SIZE)) {
+      return null;
+    }
+    synchronized (PIXEL_DATA_CACHE) {
+      MappedPixelData pixelData = PIXEL_DATA_CACHE.get(this);
+      if (pixelData == null) {
+        try {
+          pixelData = MappedPixelData.open(path);
+          PIXEL_DATA_CACHE.put(this, pixelData);
+        } catch (Exception e) {
+          LOGGER.warn("Cannot map the file {}", path, e);
+          frameIndex = null;
+        }
+      }
+      return pixelData;
+    }
+  }
+
   private static Mat getMatBuffer(ExtendSegmentedInputImageStream extParams) throws IOException {
     try (RandomAccessFile raf = new RandomAccessFile(extParams.getFile(), "r")) {
 
@@ -762,6 +989,7 @@ public synchronized ResultContainer getMediaElement(
   private DicomSpecialElement buildImageElement(
       Function<DicomSpecialElementFactory, DicomSpecialElement> buildSpecialElement) {
     DicomSpecialElementFactory factory = getDicomSpecialElementFactory();
+    frameSharedTags = null;
     if (numberOfFrame > 0) {
       image = new DicomImageElement[numberOfFrame];
       for (int i = 0; i < image.length; i++) {
@@ -845,8 +1073,11 @@ public String getMediaFragmentMimeType() {
   @Override
   public Map<TagW, Object> getMediaFragmentTags(Object key) {
     if (key instanceof Integer val && val > 0) {
-      // Clone the shared tag
-      Map<TagW, Object> tagList = new HashMap<>(tags);
+      if (frameSharedTags == null) {
+        // Copy once the shared tags, each frame stores only its own values
+        frameSharedTags = new HashMap<>(tags);
+      }
+      Map<TagW, Object> tagList = new LayeredTagMap(frameSharedTags);
       SimpleTaggable taggable = new SimpleTaggable(tagList);
       if (DicomMediaUtils.writePerFrameFunctionalGroupsSequence(taggable, getDicomObject(), val)) {
         DicomMediaUtils.computeSlicePositionVector(taggable);
@@ -858,7 +1089,20 @@ public Map<TagW, Object> getMediaFragmentTags(Object key) {
 
   @Override
   public void close() {
-    HEADER_CACHE.remove(this);
+    synchronized (HEADER_CACHE) {
+      HEADER_CACHE.remove(this);
+    }
+    closePixelData();
+  }
+
+  private void closePixelData() {
+    MappedPixelData pixelData;
+    synchronized (PIXEL_DATA_CACHE) {
+      pixelData = PIXEL_DATA_CACHE.remove(this);
+    }
+    if (pixelData != null) {
+      pixelData.close();
+    }
   }
 
   @Override
@@ -921,7 +1165,10 @@ public DicomMetaData getDicomMetaData() {
 
   /** Reads the DICOM header meta-data, up to, but not including pixel data. */
   private synchronized DicomMetaData readMetaData() throws IOException {
-    DicomMetaData header = HEADER_CACHE.get(this);
+    DicomMetaData header;
+    synchronized (HEADER_CACHE) {
+      header = HEADER_CACHE.get(this);
+    }
     if (header != null) {
       return header;
     } else if (dcmMetadata != null) {
@@ -956,7 +1203,13 @@ private synchronized DicomMetaData readMetaData() throws IOException {
       if (numberOfFrame <= 0 && hasPixel) {
         this.numberOfFrame = 1;
       }
-      HEADER_CACHE.put(this, dicomMetaData);
+      if (hasPixel && frameIndex == null) {
+        frameIndex = DicomFrameIndex.build(dcm, numberOfFrame, Files.size(path));
+      }
+      // The headers are read concurrently when importing local files
+      synchronized (HEADER_CACHE) {
+        HEADER_CACHE.put(this, dicomMetaData);
+      }
       return dicomMetaData;
     } finally {
       reader.dispose();
@@ -21,9 +21,10 @@
 import org.weasis.core.api.explorer.model.DataExplorerModel;
 import org.weasis.core.api.gui.util.Filter;
 import org.weasis.core.api.gui.util.GuiUtils;
-import org.weasis.core.api.image.cv.CvUtil;
+import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.api.media.data.Series;
 import org.weasis.core.api.media.data.SeriesEvent;
+import org.weasis.core.api.media.data.SeriesPreloader;
 import org.weasis.core.api.media.data.TagView;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.ui.editor.image.DefaultView2d;
@@ -39,8 +40,6 @@ public class DicomSeries extends Series<DicomImageElement> {
   static final TagView defaultTagView =
       new TagView(TagD.getTagFromIDs(Tag.SeriesDescription, Tag.SeriesNumber, Tag.SeriesTime));
 
-  private static PreloadingTask preloadingTask;
-
   public DicomSeries(String subseriesInstanceUID) {
     this(subseriesInstanceUID, null, defaultTagView);
   }
@@ -152,6 +151,7 @@ public String getMimeType() {
   @Override
   public void dispose() {
     stopPreloading(this);
+    SeriesVolume.closeSeries(this);
     String seriesUID = (String) getTagValue(getTagID());
     String modality = TagD.getTagValue(this, Tag.Modality, String.class);
     if (DicomMediaIO.isHiddenModality(modality)) {
@@ -180,6 +180,10 @@ public DicomImageElement getNearestImage(
       int offset,
       Filter<DicomImageElement> filter,
       Comparator<DicomImageElement> sort) {
+    if (filter == null) {
+      int bestIndex = getNearestLocationIndex(location, sort);
+      return getMedia(offset > 0 ? bestIndex + offset : bestIndex, null, sort);
+    }
     Iterable<DicomImageElement> mediaList = getMedias(filter, sort);
     DicomImageElement nearest = null;
     int index = 0;
@@ -214,6 +218,10 @@ public int getNearestImageIndex(
       int offset,
       Filter<DicomImageElement> filter,
       Comparator<DicomImageElement> sort) {
+    if (filter == null) {
+      int bestIndex = getNearestLocationIndex(location, sort);
+      return (offset > 0) ? (bestIndex + offset) : bestIndex;
+    }
     Iterable<DicomImageElement> mediaList = getMedias(filter, sort);
     int index = 0;
     int bestIndex = -1;
@@ -300,132 +308,32 @@ public boolean isSuitableFor3d() {
     return size(null) >= DefaultView2d.MINIMAL_IMAGES_FOR_3D;
   }
 
-  public static synchronized void startPreloading(
-      DicomSeries series, List<DicomImageElement> imageList, int currentIndex) {
+  /**
+   * @param viewer the view displaying the series, the preloading stops when no view displays it
+   * @param series the series to preload
+   * @param imageList the images of the series in the display order
+   * @param currentIndex the index of the displayed image
+   */
+  public static void startPreloading(
+      Object viewer, DicomSeries series, List<DicomImageElement> imageList, int currentIndex) {
     if (series != null && imageList != null) {
-      if (preloadingTask != null) {
-        if (preloadingTask.getSeries() == series) {
-          return;
-        }
-        stopPreloading(preloadingTask.getSeries());
-      }
-      preloadingTask = new PreloadingTask(series, imageList, currentIndex);
-      preloadingTask.start();
+      SeriesPreloader.start(viewer, series, imageList, currentIndex, series::firePreloadingEvent);
     }
   }
 
-  public static synchronized void stopPreloading(DicomSeries series) {
-    if (preloadingTask != null && preloadingTask.getSeries() == series) {
-      PreloadingTask moribund = preloadingTask;
-      preloadingTask = null;
-      moribund.setPreloading(false);
-      moribund.interrupt();
-    }
+  public static void stopPreloading(DicomSeries series) {
+    SeriesPreloader.stop(series);
   }
 
-  static class PreloadingTask extends Thread {
-    private volatile boolean preloading = true;
-    private final int index;
-    private final List<DicomImageElement> imageList;
-    private final DicomSeries series;
-
-    public PreloadingTask(DicomSeries series, List<DicomImageElement> imageList, int currentIndex) {
-      this.series = series;
-      this.imageList = imageList;
-      this.index = currentIndex;
-    }
-
-    public synchronized boolean isPreloading() {
-      return preloading;
-    }
-
-    public DicomSeries getSeries() {
-      return series;
-    }
-
-    public List<DicomImageElement> getImageList() {
-      return imageList;
-    }
-
-    public synchronized void setPreloading(boolean preloading) {
-      this.preloading = preloading;
-    }
-
-    private static long evaluateImageSize(DicomImageElement image) {
-      Integer allocated = TagD.getTagValue(image, Tag.BitsAllocated, Integer.class);
-      Integer sample = TagD.getTagValue(image, Tag.SamplesPerPixel, Integer.class);
-      Integer rows = TagD.getTagValue(image, Tag.Rows, Integer.class);
-      Integer columns = TagD.getTagValue(image, Tag.Columns, Integer.class);
-      if (allocated != null && sample != null && rows != null && columns != null) {
-        return ((long) rows * columns * sample * allocated) / 8L;
-      }
-      return 0L;
-    }
-
-    private void loadArrays(DicomImageElement img, DataExplorerModel model) {
-      // Do not load an image if another process already loading it
-      if (preloading && !img.isLoading()) {
-        Boolean cache = (Boolean) img.getTagValue(TagW.ImageCache);
-        if (cache == null || !cache) {
-          long start = System.currentTimeMillis();
-          try {
-            img.getImage();
-          } catch (OutOfMemoryError e) {
-            LOGGER.error("Out of memory when loading image: {}", img, e);
-            CvUtil.runGarbageCollectorAndWait(50);
-            return;
-          }
-          long stop = System.currentTimeMillis();
-          LOGGER.debug("Reading time: {} ms of image: {}", stop - start, img);
-          if (model != null) {
-            model.firePropertyChange(
-                new ObservableEvent(
-                    ObservableEvent.BasicAction.ADD,
-                    model,
-                    null,
-                    new SeriesEvent(SeriesEvent.Action.PRELOADING, series, img)));
-          }
-        }
-      }
-    }
-
-    @Override
-    public void run() {
-      if (imageList != null) {
-        DataExplorerModel model = (DataExplorerModel) series.getTagValue(TagW.ExplorerModel);
-        int size = imageList.size();
-        if (model == null || index < 0 || index >= size) {
-          return;
-        }
-        long imgSize = evaluateImageSize(imageList.get(index)) * size + 5000;
-        long heapSize = Runtime.getRuntime().totalMemory();
-        long heapFreeSize = Runtime.getRuntime().freeMemory();
-        if (imgSize > heapSize / 3) {
-          if (imgSize > heapFreeSize) {
-            CvUtil.runGarbageCollectorAndWait(50);
-          }
-          double val = (double) heapFreeSize / imgSize;
-          int adjustSize = (int) (size * val) / 2;
-          int start = index - adjustSize;
-          if (start < 0) {
-            adjustSize -= start;
-            start = 0;
-          }
-          if (adjustSize > size) {
-            adjustSize = size;
-          }
-          for (int i = start; i < adjustSize; i++) {
-            loadArrays(imageList.get(i), model);
-          }
-        } else {
-          if (imgSize > heapFreeSize) {
-            CvUtil.runGarbageCollectorAndWait(50);
-          }
-          for (DicomImageElement img : imageList) {
-            loadArrays(img, model);
-          }
-        }
-      }
+  private void firePreloadingEvent(ImageElement img) {
+    DataExplorerModel model = (DataExplorerModel) getTagValue(TagW.ExplorerModel);
+    if (model != null) {
+      model.firePropertyChange(
+          new ObservableEvent(
+              ObservableEvent.BasicAction.ADD,
+              model,
+              null,
+              new SeriesEvent(SeriesEvent.Action.PRELOADING, this, img)));
     }
   }
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.img.DicomMetaData;
+import org.dcm4che3.img.stream.BytesWithImageDescriptor;
+import org.dcm4che3.img.stream.ImageDescriptor;
+import org.opencv.core.Mat;
+import org.weasis.dicom.codec.DicomFrameIndex.Frame;
+
+/**
+ * Read-only memory mapping of a DICOM file providing the frames from a {@link DicomFrameIndex}.
+ *
+ * <p>The mapping is released by {@link #close()}, or by the last reading in progress, and not by
+ * the garbage collector: a file cannot be deleted while it is mapped on Windows.
+ */
+final class MappedPixelData implements Closeable {
+
+  // Disabled when the decoder cannot read a buffer without backing array
+  private static volatile boolean frameViews = true;
+
+  private final Arena arena;
+  private final MemorySegment segment;
+
+  // Guarded by this
+  private int readings;
+  private boolean closed;
+
+  private MappedPixelData(Arena arena, MemorySegment segment) {
+    this.arena = arena;
+    this.segment = segment;
+  }
+
+  static MappedPixelData open(Path path) throws IOException {
+    Arena arena = Arena.ofShared();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new MappedPixelData(
+          arena, channel.map(MapMode.READ_ONLY, 0, channel.size(), arena));
+    } catch (IOException | RuntimeException e) {
+      arena.close();
+      throw e;
+    }
+  }
+
+  long size() {
+    return segment.byteSize();
+  }
+
+  /**
+   * Starts reading frames, the mapping is not released before {@link #endReading()}.
+   *
+   * @return false if the mapping is already closed
+   */
+  synchronized boolean startReading() {
+    if (closed) {
+      return false;
+    }
+    readings++;
+    return true;
+  }
+
+  synchronized void endReading() {
+    readings--;
+    if (closed && readings == 0) {
+      arena.close();
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      if (readings == 0) {
+        arena.close();
+      }
+    }
+  }
+
+  static boolean isFrameViews() {
+    return frameViews;
+  }
+
+  static void disableFrameViews() {
+    frameViews = false;
+  }
+
+  /**
+   * @param mat a decoded image
+   * @return true if the pixels of the image are in the mapping, so they must be copied before the
+   *     end of the reading
+   */
+  boolean contains(Mat mat) {
+    long address = mat.dataAddr();
+    return address >= segment.address() && address < segment.address() + segment.byteSize();
+  }
+
+  /**
+   * @param frame the location of the frame
+   * @return a read-only view of the mapping when the frame is made of a single fragment, otherwise
+   *     a copy of the frame bytes (all the fragments are concatenated). The view is valid until the
+   *     end of the reading.
+   */
+  ByteBuffer getFrameBytes(Frame frame) {
+    long[] positions = frame.segmentPositions();
+    int[] lengths = frame.segmentLengths();
+    if (positions.length == 1 && frameViews) {
+      return segment.asSlice(positions[0], lengths[0]).asByteBuffer();
+    }
+    long length = frame.length();
+    if (length > Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException("Frame too large: " + length);
+    }
+    byte[] bytes = new byte[(int) length];
+    int offset = 0;
+    for (int i = 0; i < positions.length; i++) {
+      MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, positions[i], bytes, offset, lengths[i]);
+      offset += lengths[i];
+    }
+    return ByteBuffer.wrap(bytes);
+  }
+
+  BytesWithImageDescriptor getFrameSource(DicomFrameIndex index, DicomMetaData metaData) {
+    Attributes dcm = metaData.getDicomObject();
+    ImageDescriptor desc = metaData.getImageDescriptor();
+    String tsuid = metaData.getTransferSyntaxUID();
+    return new BytesWithImageDescriptor() {
+      @Override
+      public ByteBuffer getBytes(int frame) throws IOException {
+        Frame f = index.getFrame(frame);
+        if (f == null) {
+          throw new IOException("No frame " + frame + " in the frame index");
+        }
+        return getFrameBytes(f);
+      }
+
+      @Override
+      public String getTransferSyntax() {
+        return tsuid;
+      }
+
+      @Override
+      public boolean bigEndian() {
+        return index.isBigEndian();
+      }
+
+      @Override
+      public VR getPixelDataVR() {
+        return index.getPixelDataVR();
+      }
+
+      @Override
+      public Attributes getPaletteColorLookupTable() {
+        Attributes lut = new Attributes(6);
+        copyValue(dcm, lut, Tag.RedPaletteColorLookupTableDescriptor);
+        copyValue(dcm, lut, Tag.GreenPaletteColorLookupTableDescriptor);
+        copyValue(dcm, lut, Tag.BluePaletteColorLookupTableDescriptor);
+        copyValue(dcm, lut, Tag.RedPaletteColorLookupTableData);
+        copyValue(dcm, lut, Tag.GreenPaletteColorLookupTableData);
+        copyValue(dcm, lut, Tag.BluePaletteColorLookupTableData);
+        return lut;
+      }
+
+      @Override
+      public ImageDescriptor getImageDescriptor() {
+        return desc;
+      }
+    };
+  }
+
+  private static void copyValue(Attributes original, Attributes copy, int tag) {
+    if (original.containsValue(tag)) {
+      copy.setValue(tag, original.getVR(tag), original.getValue(tag));
+    }
+  }
+}
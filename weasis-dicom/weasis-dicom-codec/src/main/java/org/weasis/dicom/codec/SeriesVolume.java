@@ -0,0 +1,456 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.AppProperties;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
+import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.core.api.media.data.MediaSeries;
+import org.weasis.core.util.FileUtil;
+import org.weasis.opencv.data.ImageCV;
+import org.weasis.opencv.data.PlanarImage;
+
+/**
+ * Voxels of the original images of a series, decoded once and shared by all the components
+ * building a volume from the series (MPR, MIP, 3D...). The images are sorted by slice position and
+ * stored in native memory, which is counted in the budget of the image cache, or in a file mapped
+ * in memory for large volumes.
+ *
+ * <p>The volume is reference-counted: each component calls {@link #acquire(MediaSeries)} and
+ * {@link #release()} when it does not need the voxels anymore. The memory is freed when the series
+ * is closed, or when images are added to the series, and the volume is no longer used.
+ */
+public final class SeriesVolume {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SeriesVolume.class);
+
+  /**
+   * Above this size, or above half of the memory budget of the image cache, the voxels are stored
+   * in a file mapped in memory.
+   */
+  private static final long MAPPED_FILE_THRESHOLD = 1L << 30;
+
+  public static final File VOLUME_CACHE_DIR =
+      AppProperties.buildAccessibleTempDirectory(
+          AppProperties.FILE_CACHE_DIR.getName(), "volume"); // NON-NLS
+
+  private static final Map<MediaSeries<DicomImageElement>, SeriesVolume> VOLUMES = new HashMap<>();
+
+  private final MediaSeries<DicomImageElement> series;
+  private final List<DicomImageElement> images;
+  private final Map<DicomImageElement, Integer> indexes;
+  private final int width;
+  private final int height;
+  private final int cvType;
+  private final ValueLayout layout;
+  private final long sliceLength;
+  private final Arena arena;
+  private final MemorySegment segment;
+  private final File file;
+  private final long reservedMemory;
+  private final FutureTask<Boolean>[] slices;
+  // Requests of the slices to the image loader
+  private final Future<?>[] loads;
+  // The loaders write into the segment with the read lock, the segment is closed with the write lock
+  private final ReadWriteLock segmentLock = new ReentrantReadWriteLock();
+  // Guarded by segmentLock
+  private boolean closed;
+
+  // Guarded by VOLUMES
+  private int refCount;
+  // No longer in VOLUMES: the series is closed or the volume is outdated
+  private boolean removed;
+
+  @SuppressWarnings("unchecked")
+  private SeriesVolume(
+      MediaSeries<DicomImageElement> series, List<DicomImageElement> images, PlanarImage first)
+      throws IOException {
+    this.series = series;
+    this.images = images;
+    this.indexes = new IdentityHashMap<>(images.size());
+    for (int i = 0; i < images.size(); i++) {
+      indexes.put(images.get(i), i);
+    }
+    this.width = first.width();
+    this.height = first.height();
+    this.cvType = first.type();
+    this.layout = getLayout(cvType);
+    this.sliceLength = (long) width * height * CvType.channels(cvType) * layout.byteSize();
+
+    long length = sliceLength * images.size();
+    this.arena = Arena.ofShared();
+    long maxMemory = ImageElement.getCacheStatistics().maxMemory() / 2;
+    if (length > Math.min(MAPPED_FILE_THRESHOLD, maxMemory)) {
+      this.reservedMemory = 0;
+      this.file = File.createTempFile("vol_", ".raw", VOLUME_CACHE_DIR); // NON-NLS
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) { // NON-NLS
+        raf.setLength(length);
+        this.segment = raf.getChannel().map(MapMode.READ_WRITE, 0, length, arena);
+      } catch (IOException e) {
+        arena.close();
+        FileUtil.delete(file);
+        throw e;
+      }
+    } else {
+      this.file = null;
+      this.segment = arena.allocate(length, layout.byteAlignment());
+      this.reservedMemory = length;
+      ImageElement.reserveCacheMemory(length);
+    }
+
+    this.slices = new FutureTask[images.size()];
+    this.loads = new Future[images.size()];
+    for (int i = 0; i < slices.length; i++) {
+      final int index = i;
+      slices[i] = new FutureTask<>(() -> loadSlice(index));
+    }
+  }
+
+  /**
+   * Gets the volume of a series and increments its reference count. The images are loaded in
+   * parallel in the background.
+   *
+   * @param series the series
+   * @return the volume or null if the images of the series cannot be stored in a volume
+   */
+  public static SeriesVolume acquire(MediaSeries<DicomImageElement> series) {
+    if (series == null) {
+      return null;
+    }
+    SeriesVolume outdated = null;
+    synchronized (VOLUMES) {
+      SeriesVolume volume = VOLUMES.get(series);
+      if (volume != null) {
+        if (volume.size() == series.size(null)) {
+          volume.refCount++;
+          return volume;
+        }
+        // The images of the series have changed since the volume was built
+        VOLUMES.remove(series);
+        volume.removed = true;
+        if (volume.refCount == 0) {
+          outdated = volume;
+        }
+      }
+    }
+    if (outdated != null) {
+      outdated.free();
+    }
+
+    // Build the volume outside the lock as the first image must be decoded
+    List<DicomImageElement> images = series.copyOfMedias(null, SortSeriesStack.slicePosition);
+    if (images.isEmpty()) {
+      return null;
+    }
+    PlanarImage first = images.getFirst().getImage(null, true, Priority.BACKGROUND);
+    if (first == null || !isSupportedType(first.type())) {
+      return null;
+    }
+    SeriesVolume newVolume;
+    try {
+      newVolume = new SeriesVolume(series, images, first);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.error("Cannot allocate the volume of {}", series, e);
+      return null;
+    }
+
+    synchronized (VOLUMES) {
+      SeriesVolume volume = VOLUMES.get(series);
+      if (volume != null) {
+        // Built concurrently by another thread
+        newVolume.free();
+        volume.refCount++;
+        return volume;
+      }
+      newVolume.refCount = 1;
+      VOLUMES.put(series, newVolume);
+    }
+    // Loaded with the priorities of the other images, the task is the key of the request
+    for (int i = 0; i < newVolume.slices.length; i++) {
+      FutureTask<Boolean> task = newVolume.slices[i];
+      newVolume.loads[i] =
+          ImageElement.IMAGE_LOADER.submit(
+              task,
+              () -> {
+                task.run();
+                return null;
+              },
+              Priority.BACKGROUND);
+    }
+    return newVolume;
+  }
+
+  /** Decrements the reference count. The volume must not be used after calling this method. */
+  public void release() {
+    synchronized (VOLUMES) {
+      refCount--;
+      if (refCount > 0 || !removed) {
+        return;
+      }
+    }
+    free();
+  }
+
+  /**
+   * Frees the volume of a series when it is closed. If the volume is still used, it is freed when
+   * the last user releases it.
+   *
+   * @param series the closed series
+   */
+  public static void closeSeries(MediaSeries<?> series) {
+    SeriesVolume volume;
+    synchronized (VOLUMES) {
+      volume = VOLUMES.remove(series);
+      if (volume == null) {
+        return;
+      }
+      volume.removed = true;
+      if (volume.refCount > 0) {
+        return;
+      }
+    }
+    volume.free();
+  }
+
+  private void free() {
+    for (int i = 0; i < slices.length; i++) {
+      slices[i].cancel(false);
+      if (loads[i] != null) {
+        ImageElement.IMAGE_LOADER.release(slices[i], loads[i]);
+      }
+    }
+    // Waits for the slices being copied into the segment
+    segmentLock.writeLock().lock();
+    try {
+      closed = true;
+      arena.close();
+    } catch (IllegalStateException e) {
+      LOGGER.warn("Cannot free the volume of {}", series, e);
+    } finally {
+      segmentLock.writeLock().unlock();
+      ImageElement.releaseCacheMemory(reservedMemory);
+    }
+    if (file != null) {
+      FileUtil.delete(file);
+    }
+  }
+
+  private boolean loadSlice(int index) {
+    DicomImageElement img = images.get(index);
+    // The volume holds the voxels, so the decoded image is not kept in the cache. Compute also the
+    // min and max values required by the modality LUT.
+    Boolean loaded =
+        img.readImage(
+            true,
+            image -> {
+              if (image.width() != width
+                  || image.height() != height
+                  || image.type() != cvType) {
+                return false;
+              }
+              Object buffer = createBuffer(cvType, width * height);
+              getData(image.toMat(), 0, buffer);
+              segmentLock.readLock().lock();
+              try {
+                if (closed) {
+                  return false;
+                }
+                MemorySegment.copy(
+                    buffer, 0, segment, layout, index * sliceLength, getLength(buffer));
+              } finally {
+                segmentLock.readLock().unlock();
+              }
+              return true;
+            });
+    if (!Boolean.TRUE.equals(loaded)) {
+      LOGGER.debug("Cannot add {} to the volume of {}", img, series);
+      return false;
+    }
+    return true;
+  }
+
+  public MediaSeries<DicomImageElement> getSeries() {
+    return series;
+  }
+
+  public int size() {
+    return images.size();
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  public int getType() {
+    return cvType;
+  }
+
+  /**
+   * @param image an image of the series
+   * @return the index of the image in the volume (sorted by slice position), or -1 if the image is
+   *     not in the volume
+   */
+  public int indexOf(DicomImageElement image) {
+    Integer index = indexes.get(image);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * Gets a copy of the voxels of an image. If the image is not loaded yet, it is loaded by the
+   * calling thread or the calling thread waits for the loading in progress.
+   *
+   * @param image an image of the series
+   * @return the image or null if the image is not in the volume
+   */
+  public ImageCV getSlice(DicomImageElement image) {
+    int index = indexOf(image);
+    if (index < 0) {
+      return null;
+    }
+    FutureTask<Boolean> task = slices[index];
+    // Run the loading now if not yet started by the loader
+    task.run();
+    try {
+      if (!Boolean.TRUE.equals(task.get())) {
+        return null;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (CancellationException | ExecutionException e) {
+      LOGGER.debug("Cannot load {} in the volume", image, e);
+      return null;
+    }
+
+    Object buffer = createBuffer(cvType, width * height);
+    segmentLock.readLock().lock();
+    try {
+      if (closed) {
+        return null;
+      }
+      MemorySegment.copy(segment, layout, index * sliceLength, buffer, 0, getLength(buffer));
+    } finally {
+      segmentLock.readLock().unlock();
+    }
+    ImageCV img = new ImageCV(height, width, cvType);
+    putData(img, buffer);
+    return img;
+  }
+
+  private static boolean isSupportedType(int cvType) {
+    int depth = CvType.depth(cvType);
+    return depth != CvType.CV_16F && depth <= CvType.CV_64F;
+  }
+
+  /**
+   * @param cvType the OpenCV type of an image
+   * @return the layout of a pixel value in little endian
+   */
+  public static ValueLayout getLayout(int cvType) {
+    ValueLayout layout =
+        switch (CvType.depth(cvType)) {
+          case CvType.CV_8U, CvType.CV_8S -> ValueLayout.JAVA_BYTE;
+          case CvType.CV_16U, CvType.CV_16S -> ValueLayout.JAVA_SHORT_UNALIGNED;
+          case CvType.CV_32S -> ValueLayout.JAVA_INT_UNALIGNED;
+          case CvType.CV_32F -> ValueLayout.JAVA_FLOAT_UNALIGNED;
+          case CvType.CV_64F -> ValueLayout.JAVA_DOUBLE_UNALIGNED;
+          default -> throw new IllegalArgumentException("Not supported image type: " + cvType);
+        };
+    return layout.withOrder(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @param cvType the OpenCV type of an image
+   * @param nbPixels the number of pixels
+   * @return an array of the primitive type of the image, holding all the channels of the pixels
+   */
+  public static Object createBuffer(int cvType, int nbPixels) {
+    int length = nbPixels * CvType.channels(cvType);
+    return switch (CvType.depth(cvType)) {
+      case CvType.CV_8U, CvType.CV_8S -> new byte[length];
+      case CvType.CV_16U, CvType.CV_16S -> new short[length];
+      case CvType.CV_32S -> new int[length];
+      case CvType.CV_32F -> new float[length];
+      case CvType.CV_64F -> new double[length];
+      default -> throw new IllegalArgumentException("Not supported image type: " + cvType);
+    };
+  }
+
+  private static int getLength(Object buffer) {
+    return switch (buffer) {
+      case byte[] b -> b.length;
+      case short[] s -> s.length;
+      case int[] i -> i.length;
+      case float[] f -> f.length;
+      case double[] d -> d.length;
+      default -> throw new IllegalArgumentException("Not supported buffer");
+    };
+  }
+
+  /**
+   * Copies the pixels of an image from a given row to fill the buffer.
+   *
+   * @param mat the image
+   * @param row the first row
+   * @param buffer the buffer created with {@link #createBuffer(int, int)}
+   */
+  public static void getData(Mat mat, int row, Object buffer) {
+    switch (buffer) {
+      case byte[] b -> mat.get(row, 0, b);
+      case short[] s -> mat.get(row, 0, s);
+      case int[] i -> mat.get(row, 0, i);
+      case float[] f -> mat.get(row, 0, f);
+      case double[] d -> mat.get(row, 0, d);
+      default -> throw new IllegalArgumentException("Not supported buffer");
+    }
+  }
+
+  /**
+   * Copies the buffer into the pixels of an image from the first row.
+   *
+   * @param mat the image
+   * @param buffer the buffer created with {@link #createBuffer(int, int)}
+   */
+  public static void putData(Mat mat, Object buffer) {
+    switch (buffer) {
+      case byte[] b -> mat.put(0, 0, b);
+      case short[] s -> mat.put(0, 0, s);
+      case int[] i -> mat.put(0, 0, i);
+      case float[] f -> mat.put(0, 0, f);
+      case double[] d -> mat.put(0, 0, d);
+      default -> throw new IllegalArgumentException("Not supported buffer");
+    }
+  }
+}
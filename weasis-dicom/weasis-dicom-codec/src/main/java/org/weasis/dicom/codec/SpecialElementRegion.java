@@ -87,6 +87,15 @@ default Collection<SegContour> getContours(DicomImageElement img) {
     return Collections.emptyList();
   }
 
+  /**
+   * Gets the contours of an image when reading all the images of a series in a row (e.g. building
+   * a volume). The contours built on demand are not kept, so they do not replace the contours of
+   * the displayed images.
+   */
+  default Collection<SegContour> getContoursWithoutCaching(DicomImageElement img) {
+    return getContours(img);
+  }
+
   default void updateOpacityInSegAttributes(float opacity) {
     int opacityValue = (int) (opacity * 255f);
     getSegAttributes()
@@ -25,6 +25,7 @@
 import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.dicom.codec.DicomMediaIO;
 import org.weasis.dicom.codec.PRSpecialElement;
+import org.weasis.dicom.codec.utils.DicomMediaUtils;
 import org.weasis.opencv.data.PlanarImage;
 
 public class OverlayOp extends AbstractOp {
@@ -67,6 +68,23 @@ public void handleImageOpEvent(ImageOpEvent event) {
     }
   }
 
+  @Override
+  public boolean isPointOperation() {
+    Boolean overlay = (Boolean) params.get(P_SHOW);
+    if (overlay != null && overlay) {
+      ImageElement image = (ImageElement) params.get(P_IMAGE_ELEMENT);
+      if (image != null && image.getMediaReader() instanceof DicomMediaIO reader) {
+        DicomMetaData md = reader.getDicomMetaData();
+        PrDicomObject pr = (PrDicomObject) params.get(WindowAndPresetsOp.P_PR_ELEMENT);
+        return md != null
+            && md.getImageDescriptor().getEmbeddedOverlay().isEmpty()
+            && !DicomMediaUtils.hasOverlay(md.getDicomObject())
+            && (pr == null || !DicomMediaUtils.hasOverlay(pr.getDicomObject()));
+      }
+    }
+    return true;
+  }
+
   @Override
   public void process() throws Exception {
     PlanarImage source = (PlanarImage) params.get(Param.INPUT_IMG);
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.BulkData;
+import org.dcm4che3.data.Fragments;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.VR;
+import org.junit.jupiter.api.Test;
+import org.weasis.dicom.codec.DicomFrameIndex.Frame;
+
+class DicomFrameIndexTest {
+
+  private static BulkData bulkData(long offset, int length) {
+    return new BulkData(
+        null, "file:/tmp/test.dcm?offset=" + offset + "&length=" + length, false); // NON-NLS
+  }
+
+  private static Attributes buildHeader(int rows, int columns, int bitsAllocated) {
+    Attributes dcm = new Attributes();
+    dcm.setInt(Tag.Rows, VR.US, rows);
+    dcm.setInt(Tag.Columns, VR.US, columns);
+    dcm.setInt(Tag.SamplesPerPixel, VR.US, 1);
+    dcm.setInt(Tag.BitsAllocated, VR.US, bitsAllocated);
+    return dcm;
+  }
+
+  @Test
+  void test_native_frames() {
+    Attributes dcm = buildHeader(4, 5, 16);
+    dcm.setValue(Tag.PixelData, VR.OW, bulkData(1000, 3 * 40));
+
+    DicomFrameIndex index = DicomFrameIndex.build(dcm, 3, 2000);
+    assertNotNull(index);
+    assertFalse(index.isEncapsulated());
+    assertEquals(3, index.size());
+    Frame frame = index.getFrame(2);
+    assertEquals(1080, frame.offset());
+    assertEquals(40, frame.length());
+    assertNull(index.getFrame(3));
+
+    // Pixel data beyond the end of the file
+    assertNull(DicomFrameIndex.build(dcm, 3, 1100));
+    // Not enough pixel data
+    assertNull(DicomFrameIndex.build(dcm, 4, 2000));
+    // 1-bit frames are not aligned on bytes
+    Attributes bitmap = buildHeader(3, 3, 1);
+    bitmap.setValue(Tag.PixelData, VR.OB, bulkData(1000, 4));
+    assertNull(DicomFrameIndex.build(bitmap, 2, 2000));
+  }
+
+  @Test
+  void test_one_fragment_per_frame() {
+    Attributes dcm = buildHeader(512, 512, 8);
+    Fragments fragments = dcm.newFragments(Tag.PixelData, VR.OB, 4);
+    fragments.add(new byte[0]);
+    fragments.add(bulkData(1008, 100));
+    fragments.add(bulkData(1116, 50));
+    fragments.add(bulkData(1174, 70));
+
+    DicomFrameIndex index = DicomFrameIndex.build(dcm, 3, 5000);
+    assertNotNull(index);
+    assertTrue(index.isEncapsulated());
+    assertEquals(1116, index.getFrame(1).offset());
+    assertEquals(50, index.getFrame(1).length());
+  }
+
+  @Test
+  void test_fragments_from_offset_table() {
+    Attributes dcm = buildHeader(512, 512, 8);
+    Fragments fragments = dcm.newFragments(Tag.PixelData, VR.OB, 5);
+    // Offsets relative to the first fragment item: frame 1 starts at the third fragment
+    fragments.add(new byte[] {0, 0, 0, 0, 40, 0, 0, 0});
+    fragments.add(bulkData(1008, 10));
+    fragments.add(bulkData(1026, 14));
+    fragments.add(bulkData(1048, 20));
+    fragments.add(bulkData(1076, 30));
+
+    DicomFrameIndex index = DicomFrameIndex.build(dcm, 2, 5000);
+    assertNotNull(index);
+    Frame first = index.getFrame(0);
+    assertArrayEquals(new long[] {1008, 1026}, first.segmentPositions());
+    assertEquals(24, first.length());
+    Frame second = index.getFrame(1);
+    assertArrayEquals(new long[] {1048, 1076}, second.segmentPositions());
+    assertEquals(50, second.length());
+
+    // Without offset table, the fragments cannot be assigned to the frames
+    fragments.set(0, new byte[0]);
+    assertNull(DicomFrameIndex.build(dcm, 2, 5000));
+  }
+}
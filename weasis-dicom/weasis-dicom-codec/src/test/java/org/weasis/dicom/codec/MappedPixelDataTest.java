@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.BulkData;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomInputStream;
+import org.dcm4che3.io.DicomInputStream.IncludeBulkData;
+import org.dcm4che3.io.DicomOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.dicom.codec.DicomFrameIndex.Frame;
+
+class MappedPixelDataTest {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MappedPixelDataTest.class);
+
+  @TempDir Path folder;
+
+  /** Writes a multi-frame image where all the pixels of the frame i have the value i. */
+  private static Path writeMultiframe(Path path, int nbFrames, int size) throws IOException {
+    String sopUID = "1.2.826.0.1.3680043.2.1125.2"; // NON-NLS
+    Attributes dcm = new Attributes();
+    dcm.setString(Tag.SOPClassUID, VR.UI, UID.UltrasoundMultiFrameImageStorage);
+    dcm.setString(Tag.SOPInstanceUID, VR.UI, sopUID);
+    dcm.setInt(Tag.NumberOfFrames, VR.IS, nbFrames);
+    dcm.setInt(Tag.Rows, VR.US, size);
+    dcm.setInt(Tag.Columns, VR.US, size);
+    dcm.setInt(Tag.SamplesPerPixel, VR.US, 1);
+    dcm.setInt(Tag.BitsAllocated, VR.US, 8);
+    dcm.setInt(Tag.BitsStored, VR.US, 8);
+    dcm.setInt(Tag.HighBit, VR.US, 7);
+    dcm.setInt(Tag.PixelRepresentation, VR.US, 0);
+    dcm.setString(Tag.PhotometricInterpretation, VR.CS, "MONOCHROME2"); // NON-NLS
+    byte[] pixels = new byte[nbFrames * size * size];
+    for (int i = 0; i < nbFrames; i++) {
+      Arrays.fill(pixels, i * size * size, (i + 1) * size * size, (byte) i);
+    }
+    dcm.setBytes(Tag.PixelData, VR.OW, pixels);
+    Attributes fmi =
+        dcm.createFileMetaInformation(
+            sopUID, UID.UltrasoundMultiFrameImageStorage, UID.ExplicitVRLittleEndian);
+    try (DicomOutputStream out = new DicomOutputStream(path.toFile())) {
+      out.writeDataset(fmi, dcm);
+    }
+    return path;
+  }
+
+  /** Reads the header with the location of the pixel data, as the DICOM reader does. */
+  private static Attributes readHeader(Path path) throws IOException {
+    try (DicomInputStream in = new DicomInputStream(path.toFile())) {
+      in.setIncludeBulkData(IncludeBulkData.URI);
+      return in.readDataset();
+    }
+  }
+
+  private static DicomFrameIndex buildIndex(Path path, int nbFrames) throws IOException {
+    DicomFrameIndex index = DicomFrameIndex.build(readHeader(path), nbFrames, Files.size(path));
+    assertNotNull(index);
+    return index;
+  }
+
+  @Test
+  void test_frame_views() throws IOException {
+    Path path = writeMultiframe(folder.resolve("cine.dcm"), 10, 32);
+    DicomFrameIndex index = buildIndex(path, 10);
+    MappedPixelData pixelData = MappedPixelData.open(path);
+    assertTrue(pixelData.startReading());
+    Frame frame = index.getFrame(7);
+    ByteBuffer bytes = pixelData.getFrameBytes(frame);
+    try {
+      assertEquals(32 * 32, bytes.remaining());
+      assertEquals(7, bytes.get(0));
+      assertEquals(7, bytes.get(32 * 32 - 1));
+      // A view of the mapping, which cannot be modified
+      assertTrue(bytes.isDirect());
+      assertTrue(bytes.isReadOnly());
+
+      // Several fragments are concatenated in a copy
+      Frame fragments =
+          new Frame(
+              new long[] {frame.offset(), index.getFrame(8).offset()}, new int[] {16, 16});
+      ByteBuffer copy = pixelData.getFrameBytes(fragments);
+      assertFalse(copy.isDirect());
+      assertEquals(7, copy.get(15));
+      assertEquals(8, copy.get(16));
+
+      // Still mapped while reading
+      pixelData.close();
+      assertFalse(pixelData.startReading());
+      assertEquals(7, bytes.get(1));
+    } finally {
+      pixelData.endReading();
+    }
+    // Unmapped at the end of the reading, so the file can be deleted
+    assertThrows(IllegalStateException.class, () -> bytes.get(0));
+    Files.delete(path);
+  }
+
+  /**
+   * Compares the frame rate of a cine read from the frame index with the reading that parses the
+   * file for each frame.
+   */
+  @Test
+  @org.junit.jupiter.api.Tag("benchmark")
+  void test_cine_frame_rate() throws IOException {
+    int nbFrames = 500;
+    int size = 256;
+    Path path = writeMultiframe(folder.resolve("cine.dcm"), nbFrames, size);
+
+    // Before: parse the dataset up to the pixel data and read the frame
+    long checksum = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < nbFrames; i++) {
+      BulkData bulkData = (BulkData) readHeader(path).getValue(Tag.PixelData);
+      byte[] frame = new byte[size * size];
+      try (RandomAccessFile raf = new RandomAccessFile(path.toFile(), "r")) {
+        raf.seek(bulkData.offset() + (long) i * frame.length);
+        raf.readFully(frame);
+      }
+      checksum += frame[0];
+    }
+    long parsing = Math.max(1, System.nanoTime() - start);
+
+    // After: frames located by the index in the mapping
+    long indexedChecksum = 0;
+    start = System.nanoTime();
+    DicomFrameIndex index = buildIndex(path, nbFrames);
+    try (MappedPixelData pixelData = MappedPixelData.open(path)) {
+      assertTrue(pixelData.startReading());
+      try {
+        for (int i = 0; i < nbFrames; i++) {
+          ByteBuffer frame = pixelData.getFrameBytes(index.getFrame(i));
+          indexedChecksum += frame.get(0);
+        }
+      } finally {
+        pixelData.endReading();
+      }
+    }
+    long indexed = Math.max(1, System.nanoTime() - start);
+
+    assertEquals(checksum, indexedChecksum);
+    LOGGER.info(
+        "Cine of {} frames: {} frames/s when parsing the file, {} frames/s from the frame index",
+        nbFrames,
+        nbFrames * 1_000_000_000L / parsing,
+        nbFrames * 1_000_000_000L / indexed);
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opencv.osgi.OpenCVNativeLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.opencv.data.ImageCV;
+
+class SeriesVolumeTest {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SeriesVolumeTest.class);
+
+  private static final int SIZE = 64;
+
+  @TempDir Path folder;
+
+  private static boolean loadOpenCV() {
+    try {
+      new OpenCVNativeLoader().init();
+      return true;
+    } catch (Throwable e) {
+      LOGGER.warn("Cannot load the native OpenCV library: {}", e.getMessage());
+      return false;
+    }
+  }
+
+  /** Builds a series where all the pixels of the image i have the value i. */
+  private DicomSeries buildSeries(String seriesUID, int nbImages, List<DicomMediaIO> readers)
+      throws IOException {
+    DicomSeries series = new DicomSeries(seriesUID);
+    for (int i = 0; i < nbImages; i++) {
+      byte[] pixels = new byte[SIZE * SIZE * 2];
+      for (int p = 0; p < pixels.length; p += 2) {
+        pixels[p] = (byte) i;
+      }
+      String sopUID = seriesUID + "." + (i + 1);
+      Attributes dcm = new Attributes();
+      dcm.setString(Tag.SOPClassUID, VR.UI, UID.CTImageStorage);
+      dcm.setString(Tag.SOPInstanceUID, VR.UI, sopUID);
+      dcm.setString(Tag.StudyInstanceUID, VR.UI, "1.2.826.0.1.3680043.2.1125.0"); // NON-NLS
+      dcm.setString(Tag.SeriesInstanceUID, VR.UI, seriesUID);
+      dcm.setString(Tag.Modality, VR.CS, "CT"); // NON-NLS
+      dcm.setInt(Tag.InstanceNumber, VR.IS, i + 1);
+      dcm.setDouble(Tag.ImagePositionPatient, VR.DS, 0.0, 0.0, i * 2.0);
+      dcm.setDouble(Tag.ImageOrientationPatient, VR.DS, 1.0, 0.0, 0.0, 0.0, 1.0, 0.0);
+      dcm.setDouble(Tag.PixelSpacing, VR.DS, 1.0, 1.0);
+      dcm.setInt(Tag.Rows, VR.US, SIZE);
+      dcm.setInt(Tag.Columns, VR.US, SIZE);
+      dcm.setInt(Tag.SamplesPerPixel, VR.US, 1);
+      dcm.setInt(Tag.BitsAllocated, VR.US, 16);
+      dcm.setInt(Tag.BitsStored, VR.US, 16);
+      dcm.setInt(Tag.HighBit, VR.US, 15);
+      dcm.setInt(Tag.PixelRepresentation, VR.US, 0);
+      dcm.setString(Tag.PhotometricInterpretation, VR.CS, "MONOCHROME2"); // NON-NLS
+      dcm.setBytes(Tag.PixelData, VR.OW, pixels);
+      Attributes fmi =
+          dcm.createFileMetaInformation(sopUID, UID.CTImageStorage, UID.ExplicitVRLittleEndian);
+      File file = folder.resolve(seriesUID + "-" + i).toFile();
+      try (DicomOutputStream out = new DicomOutputStream(file)) {
+        out.writeDataset(fmi, dcm);
+      }
+      DicomMediaIO reader = new DicomMediaIO(file);
+      readers.add(reader);
+      series.addMedia(reader.getMediaElement()[0]);
+    }
+    return series;
+  }
+
+  private static int getValue(SeriesVolume volume, DicomImageElement img) {
+    ImageCV slice = volume.getSlice(img);
+    assertNotNull(slice);
+    try {
+      assertEquals(SIZE, slice.width());
+      return (int) slice.get(SIZE / 2, SIZE / 2)[0];
+    } finally {
+      slice.release();
+    }
+  }
+
+  @Test
+  void test_acquire_and_release() throws IOException {
+    assumeTrue(loadOpenCV(), "Native OpenCV is not available"); // NON-NLS
+    List<DicomMediaIO> readers = new ArrayList<>();
+    try {
+      DicomSeries series = buildSeries("1.2.826.0.1.3680043.2.1125.7", 8, readers);
+      List<DicomImageElement> images = series.copyOfMedias(null, null);
+
+      SeriesVolume volume = SeriesVolume.acquire(series);
+      assertNotNull(volume);
+      assertEquals(8, volume.size());
+      // Shared by the users of the series
+      assertSame(volume, SeriesVolume.acquire(series));
+      for (int i = 0; i < images.size(); i++) {
+        assertTrue(volume.indexOf(images.get(i)) >= 0);
+        assertEquals(i, getValue(volume, images.get(i)));
+      }
+      // Not kept in the image cache, the volume holds the voxels (only the first image is decoded
+      // to allocate the volume)
+      assertFalse(images.getLast().isImageInCache());
+
+      // Still usable by the second user after closing the series
+      long used = ImageElement.getCacheStatistics().usedMemory();
+      SeriesVolume.closeSeries(series);
+      volume.release();
+      assertEquals(3, getValue(volume, images.get(3)));
+      assertEquals(used, ImageElement.getCacheStatistics().usedMemory());
+
+      // Freed by the last user, the reserved memory is given back to the cache
+      volume.release();
+      assertEquals(
+          used - 8L * SIZE * SIZE * 2, ImageElement.getCacheStatistics().usedMemory());
+
+      // A new volume after closing the series
+      SeriesVolume next = SeriesVolume.acquire(series);
+      assertNotNull(next);
+      assertNotSame(volume, next);
+      SeriesVolume.closeSeries(series);
+      next.release();
+    } finally {
+      readers.forEach(DicomMediaIO::close);
+    }
+  }
+
+  @Test
+  void test_free_while_loading() throws IOException {
+    assumeTrue(loadOpenCV(), "Native OpenCV is not available"); // NON-NLS
+    List<DicomMediaIO> readers = new ArrayList<>();
+    try {
+      DicomSeries series = buildSeries("1.2.826.0.1.3680043.2.1125.8", 40, readers);
+      for (int k = 0; k < 5; k++) {
+        SeriesVolume volume = SeriesVolume.acquire(series);
+        assertNotNull(volume);
+        long used = ImageElement.getCacheStatistics().usedMemory();
+        // Freed while the slices are loaded in the background
+        SeriesVolume.closeSeries(series);
+        volume.release();
+        assertEquals(
+            used - 40L * SIZE * SIZE * 2, ImageElement.getCacheStatistics().usedMemory());
+        assertNull(volume.getSlice(series.copyOfMedias(null, null).getLast()));
+      }
+    } finally {
+      readers.forEach(DicomMediaIO::close);
+    }
+  }
+}
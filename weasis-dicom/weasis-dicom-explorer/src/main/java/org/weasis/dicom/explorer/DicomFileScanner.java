@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.media.data.DecodeScheduler;
+import org.weasis.core.api.util.ThreadUtil;
+
+/**
+ * Walks a selection of files and folders and parses the files on a pool of workers. The parsed
+ * results are handed over in batches to the thread calling the scan, so the insertion into the
+ * model stays on a single thread.
+ *
+ * <p>A batch is delivered when it reaches the batch size or when no new result has come for a
+ * short delay, so the first series appear before the end of a large import.
+ *
+ * @param <T> the type of the parsed results
+ */
+public class DicomFileScanner<T> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DicomFileScanner.class);
+
+  public static final int DEFAULT_BATCH_SIZE = 500;
+  private static final long FLUSH_DELAY_MS = 250;
+
+  private static final ExecutorService SCANNER_EXECUTOR =
+      ThreadUtil.buildNewFixedThreadExecutor(
+          DecodeScheduler.getDefaultThreadNumber(), "Dicom Scanner"); // NON-NLS
+
+  // Posted by the tasks without result, to wake up the consumer
+  private static final Object NONE = new Object();
+
+  /**
+   * A file to parse.
+   *
+   * @param file the file
+   * @param folderNames the names of the files of the same folder, or null when they are unknown
+   */
+  public record ScannedFile(File file, Set<String> folderNames) {
+
+    /** Returns true when a file with this name exists in the folder of the scanned file. */
+    public boolean hasSibling(String name) {
+      if (folderNames == null) {
+        return new File(file.getParentFile(), name).canRead();
+      }
+      return folderNames.contains(name);
+    }
+  }
+
+  private final ExecutorService executor;
+  private final BooleanSupplier cancelled;
+  private final int batchSize;
+  private final AtomicInteger pending = new AtomicInteger();
+  private final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+
+  /** @param cancelled stops the scan when it returns true */
+  public DicomFileScanner(BooleanSupplier cancelled) {
+    this(SCANNER_EXECUTOR, cancelled, DEFAULT_BATCH_SIZE);
+  }
+
+  DicomFileScanner(ExecutorService executor, BooleanSupplier cancelled, int batchSize) {
+    this.executor = Objects.requireNonNull(executor);
+    this.cancelled = Objects.requireNonNull(cancelled);
+    this.batchSize = Math.max(1, batchSize);
+  }
+
+  /**
+   * Scans the selection and blocks until all the files have been parsed or the scan is cancelled.
+   * The selected folders are always walked, their sub-folders only when the scan is recursive.
+   *
+   * @param files the selected files and folders
+   * @param recursive true to walk the sub-folders of the selected folders
+   * @param parser parses a file, returns null when the file must be skipped. It is called
+   *     concurrently.
+   * @param batchConsumer receives the non-null results, called on the current thread
+   */
+  public void scan(
+      File[] files,
+      boolean recursive,
+      Function<ScannedFile, T> parser,
+      Consumer<List<T>> batchConsumer) {
+    if (files == null || files.length == 0) {
+      return;
+    }
+    Objects.requireNonNull(parser);
+    submitFiles(files, null, true, recursive, parser);
+    collect(batchConsumer);
+  }
+
+  /**
+   * Parses other sources than files, like the entries of an archive, with the same batching.
+   *
+   * @param sources the sources to parse
+   * @param parser parses a source, returns null when the source must be skipped. It is called
+   *     concurrently.
+   * @param batchConsumer receives the non-null results, called on the current thread
+   */
+  public <S> void scan(
+      Collection<S> sources, Function<S, T> parser, Consumer<List<T>> batchConsumer) {
+    if (sources == null || sources.isEmpty()) {
+      return;
+    }
+    Objects.requireNonNull(parser);
+    for (S source : sources) {
+      submit(source, () -> parser.apply(source));
+    }
+    collect(batchConsumer);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void collect(Consumer<List<T>> batchConsumer) {
+    List<T> batch = new ArrayList<>();
+    long lastFlush = System.nanoTime();
+    try {
+      while (!cancelled.getAsBoolean()) {
+        Object result = results.poll(FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        if (result != null && result != NONE) {
+          batch.add((T) result);
+        }
+        boolean finished = pending.get() == 0 && results.isEmpty();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastFlush);
+        if (!batch.isEmpty()
+            && (finished || batch.size() >= batchSize || elapsed >= FLUSH_DELAY_MS)) {
+          batchConsumer.accept(batch);
+          batch = new ArrayList<>();
+          lastFlush = System.nanoTime();
+        }
+        if (finished) {
+          break;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void submitFiles(
+      File[] files,
+      Set<String> folderNames,
+      boolean firstLevel,
+      boolean recursive,
+      Function<ScannedFile, T> parser) {
+    for (File file : files) {
+      if (file == null) {
+        continue;
+      }
+      submit(
+          file,
+          () -> {
+            if (file.isDirectory()) {
+              if (firstLevel || recursive) {
+                File[] children = file.listFiles();
+                if (children != null) {
+                  Set<String> names = HashSet.newHashSet(children.length);
+                  for (File child : children) {
+                    names.add(child.getName());
+                  }
+                  submitFiles(children, names, false, recursive, parser);
+                }
+              }
+              return null;
+            }
+            return parser.apply(new ScannedFile(file, folderNames));
+          });
+    }
+  }
+
+  private void submit(Object source, Supplier<T> task) {
+    pending.incrementAndGet();
+    executor.execute(
+        () -> {
+          Object result = NONE;
+          try {
+            if (!cancelled.getAsBoolean()) {
+              T parsed = task.get();
+              if (parsed != null) {
+                result = parsed;
+              }
+            }
+          } catch (Exception e) {
+            LOGGER.error("Cannot scan {}", source, e);
+          } finally {
+            // Post before decrementing, so no result is left when the counter reaches zero
+            results.add(result);
+            pending.decrementAndGet();
+          }
+        });
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.weasis.core.api.util.ThreadUtil;
+
+/**
+ * Collects the DICOM files received from a network transfer (C-GET or the C-STORE listener) and
+ * loads them in batches. A batch is loaded when it reaches a number of files or when its first file
+ * has been waiting for a delay. Each batch is a single {@link LoadLocalDicom} task, which parses
+ * the headers in parallel and updates the model once per series.
+ */
+public class DicomIngestQueue {
+
+  public static final int DEFAULT_MAX_FILES = 200;
+  public static final long DEFAULT_MAX_DELAY_MS = 300;
+
+  private static final ScheduledExecutorService FLUSH_SCHEDULER =
+      new ScheduledThreadPoolExecutor(1, ThreadUtil.getThreadFactory("Dicom Ingest")); // NON-NLS
+
+  private final Consumer<File[]> batchLoader;
+  private final int maxFiles;
+  private final long maxDelayMs;
+  private final List<File> pending = new ArrayList<>();
+  private ScheduledFuture<?> scheduledFlush;
+
+  public DicomIngestQueue(DicomModel dicomModel, PluginOpeningStrategy openingStrategy) {
+    this(
+        files ->
+            DicomModel.LOADING_EXECUTOR.execute(
+                new LoadLocalDicom(files, false, dicomModel, openingStrategy)),
+        DEFAULT_MAX_FILES,
+        DEFAULT_MAX_DELAY_MS);
+  }
+
+  DicomIngestQueue(Consumer<File[]> batchLoader, int maxFiles, long maxDelayMs) {
+    this.batchLoader = Objects.requireNonNull(batchLoader);
+    this.maxFiles = Math.max(1, maxFiles);
+    this.maxDelayMs = maxDelayMs;
+  }
+
+  /** Adds a received file, can be called from any thread. */
+  public synchronized void add(File file) {
+    if (file == null) {
+      return;
+    }
+    pending.add(file);
+    if (pending.size() >= maxFiles) {
+      flush();
+    } else if (scheduledFlush == null) {
+      scheduledFlush = FLUSH_SCHEDULER.schedule(this::flush, maxDelayMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Loads the pending files now. The batches are handed over in the order of reception, so the
+   * loading tasks run in that order on the single-threaded loading executor.
+   */
+  public synchronized void flush() {
+    if (scheduledFlush != null) {
+      scheduledFlush.cancel(false);
+      scheduledFlush = null;
+    }
+    if (!pending.isEmpty()) {
+      File[] files = pending.toArray(new File[0]);
+      pending.clear();
+      batchLoader.accept(files);
+    }
+  }
+}
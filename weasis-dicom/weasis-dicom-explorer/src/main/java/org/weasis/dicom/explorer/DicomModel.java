@@ -20,6 +20,7 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +30,7 @@
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
@@ -140,6 +142,16 @@ public class DicomModel implements TreeModel, DataExplorerModel {
   private PropertyChangeSupport propertyChange = null;
   private final SplittingRules splittingRules;
 
+  // Nodes of the tree by identifier value (PatientPseudoUID, StudyInstanceUID and
+  // SubseriesInstanceUID). As in the tree, nodes with the same identifier are equal.
+  private final Map<Object, MediaSeriesGroup> patientIndex = new ConcurrentHashMap<>();
+  private final Map<Object, MediaSeriesGroup> studyIndex = new ConcurrentHashMap<>();
+  private final Map<Object, MediaSeriesGroup> seriesIndex = new ConcurrentHashMap<>();
+  // Series nodes (original and split series) by SeriesInstanceUID
+  private final Map<String, Set<MediaSeriesGroup>> seriesByUID = new ConcurrentHashMap<>();
+  // SOPInstanceUIDs of the series nodes by SeriesInstanceUID
+  private final Map<String, Set<String>> instanceIndex = new ConcurrentHashMap<>();
+
   public DicomModel() {
     model = new Tree<>(MediaSeriesGroupNode.rootNode);
     splittingRules = new SplittingRules();
@@ -169,6 +181,18 @@ public Collection<MediaSeriesGroup> getChildren(MediaSeriesGroup node) {
 
   @Override
   public MediaSeriesGroup getHierarchyNode(MediaSeriesGroup parent, Object valueID) {
+    if (parent != null && valueID != null) {
+      Map<Object, MediaSeriesGroup> index = getChildIndex(parent);
+      if (index != null) {
+        MediaSeriesGroup node = index.get(valueID);
+        Tree<MediaSeriesGroup> tree = node == null ? null : model.getTree(node);
+        Tree<MediaSeriesGroup> parentTree = tree == null ? null : tree.getParent();
+        if (parentTree != null && parent.equals(parentTree.getHead())) {
+          return node;
+        }
+        // The same ID can be indexed under another parent (e.g. a study in two patients)
+      }
+    }
     if (parent != null || valueID != null) {
       for (MediaSeriesGroup node : getChildren(parent)) {
         if (node.matchIdValue(valueID)) {
@@ -193,6 +217,34 @@ public List<MediaSeriesGroup> getAllSeriesNodes(MediaSeriesGroup parent, Object
     return Collections.emptyList();
   }
 
+  /**
+   * Returns all the series nodes (the original series and the split series) having the same
+   * SeriesInstanceUID.
+   *
+   * @param seriesUID the SeriesInstanceUID
+   * @return the series nodes
+   */
+  public List<MediaSeriesGroup> getAllSeriesNodes(String seriesUID) {
+    Set<MediaSeriesGroup> nodes = seriesUID == null ? null : seriesByUID.get(seriesUID);
+    return nodes == null ? new ArrayList<>() : new ArrayList<>(nodes);
+  }
+
+  /**
+   * Checks whether a DICOM instance has already been loaded in one of the series (including the
+   * split series) of a SeriesInstanceUID.
+   *
+   * @param seriesUID the SeriesInstanceUID
+   * @param sopUID the SOPInstanceUID
+   * @return true if a media of the series has the SOPInstanceUID
+   */
+  public boolean hasSopInstance(String seriesUID, String sopUID) {
+    if (seriesUID == null || sopUID == null) {
+      return false;
+    }
+    Set<String> instances = instanceIndex.get(seriesUID);
+    return instances != null && instances.contains(sopUID);
+  }
+
   public void mergePatientUID(String oldPatientUID, String newPatientUID) {
     MediaSeriesGroup pt = getHierarchyNode(MediaSeriesGroupNode.rootNode, oldPatientUID);
     MediaSeriesGroup pt2 = getHierarchyNode(MediaSeriesGroupNode.rootNode, newPatientUID);
@@ -262,43 +314,131 @@ public void mergeStudyUID(String oldStudyUID, String studyUID) {
 
   public MediaSeriesGroup getStudyNode(String studyUID) {
     Objects.requireNonNull(studyUID);
-    for (MediaSeriesGroup pt : getChildren(MediaSeriesGroupNode.rootNode)) {
-      for (MediaSeriesGroup st : getChildren(pt)) {
-        if (st.matchIdValue(studyUID)) {
-          return st;
-        }
-      }
-    }
-    return null;
+    MediaSeriesGroup node = studyIndex.get(studyUID);
+    return node != null && model.getTree(node) != null ? node : null;
   }
 
   public MediaSeriesGroup getSeriesNode(String seriesUID) {
     Objects.requireNonNull(seriesUID);
-    for (MediaSeriesGroup pt : getChildren(MediaSeriesGroupNode.rootNode)) {
-      for (MediaSeriesGroup st : getChildren(pt)) {
-        for (MediaSeriesGroup item : getChildren(st)) {
-          if (item.matchIdValue(seriesUID)) {
-            return item;
-          }
-        }
-      }
-    }
-    return null;
+    MediaSeriesGroup node = seriesIndex.get(seriesUID);
+    return node != null && model.getTree(node) != null ? node : null;
   }
 
   @Override
   public void addHierarchyNode(MediaSeriesGroup root, MediaSeriesGroup leaf) {
     model.addLeaf(root, leaf);
+    addToIndex(leaf);
   }
 
   @Override
   public void removeHierarchyNode(MediaSeriesGroup root, MediaSeriesGroup leaf) {
     Tree<MediaSeriesGroup> tree = model.getTree(root);
     if (tree != null) {
+      removeFromIndex(leaf);
       tree.removeLeaf(leaf);
     }
   }
 
+  private Map<Object, MediaSeriesGroup> getIndex(TagW tagID) {
+    if (patient.tagElement().equals(tagID)) {
+      return patientIndex;
+    } else if (study.tagElement().equals(tagID)) {
+      return studyIndex;
+    } else if (series.tagElement().equals(tagID)) {
+      return seriesIndex;
+    }
+    return null;
+  }
+
+  private Map<Object, MediaSeriesGroup> getChildIndex(MediaSeriesGroup parent) {
+    if (parent == MediaSeriesGroupNode.rootNode) {
+      return patientIndex;
+    } else if (patient.tagElement().equals(parent.getTagID())) {
+      return studyIndex;
+    } else if (study.tagElement().equals(parent.getTagID())) {
+      return seriesIndex;
+    }
+    return null;
+  }
+
+  private void addToIndex(MediaSeriesGroup node) {
+    Map<Object, MediaSeriesGroup> index = getIndex(node.getTagID());
+    Object id = node.getTagValue(node.getTagID());
+    if (index == null || id == null) {
+      return;
+    }
+    index.put(id, node);
+    if (index == seriesIndex) {
+      String uid = TagD.getTagValue(node, Tag.SeriesInstanceUID, String.class);
+      if (uid != null) {
+        seriesByUID.computeIfAbsent(uid, _ -> ConcurrentHashMap.newKeySet()).add(node);
+        if (node instanceof Series<?> s) {
+          for (MediaElement media : s.getMedias(null, null)) {
+            addInstance(uid, media);
+          }
+        }
+      }
+    }
+  }
+
+  private void removeFromIndex(MediaSeriesGroup node) {
+    Map<Object, MediaSeriesGroup> index = getIndex(node.getTagID());
+    Object id = node.getTagValue(node.getTagID());
+    if (index == null || id == null) {
+      return;
+    }
+    // Can be indexed with another node of the same ID, the children are removed anyway
+    index.remove(id, node);
+    if (index == seriesIndex) {
+      String uid = TagD.getTagValue(node, Tag.SeriesInstanceUID, String.class);
+      Set<MediaSeriesGroup> nodes = uid == null ? null : seriesByUID.get(uid);
+      if (nodes != null) {
+        nodes.remove(node);
+        if (nodes.isEmpty()) {
+          seriesByUID.remove(uid);
+          instanceIndex.remove(uid);
+        } else if (node instanceof Series<?> s) {
+          removeInstances(uid, s, nodes);
+        }
+      }
+    } else {
+      for (MediaSeriesGroup child : getChildren(node)) {
+        removeFromIndex(child);
+      }
+    }
+  }
+
+  private void addInstance(String seriesUID, MediaElement media) {
+    if (media != null && !(media instanceof DicomSpecialElement)) {
+      String sopUID = TagD.getTagValue(media, Tag.SOPInstanceUID, String.class);
+      if (sopUID != null) {
+        instanceIndex.computeIfAbsent(seriesUID, _ -> ConcurrentHashMap.newKeySet()).add(sopUID);
+      }
+    }
+  }
+
+  private void removeInstances(String seriesUID, Series<?> removed, Set<MediaSeriesGroup> nodes) {
+    Set<String> instances = instanceIndex.get(seriesUID);
+    if (instances == null) {
+      return;
+    }
+    // The same instance can also be in another split series (e.g. the frames of a multi-frame)
+    Set<String> kept = new HashSet<>();
+    for (MediaSeriesGroup node : nodes) {
+      if (node instanceof Series<?> s) {
+        for (MediaElement media : s.getMedias(null, null)) {
+          kept.add(TagD.getTagValue(media, Tag.SOPInstanceUID, String.class));
+        }
+      }
+    }
+    for (MediaElement media : removed.getMedias(null, null)) {
+      String sopUID = TagD.getTagValue(media, Tag.SOPInstanceUID, String.class);
+      if (sopUID != null && !kept.contains(sopUID)) {
+        instances.remove(sopUID);
+      }
+    }
+  }
+
   @Override
   public MediaSeriesGroup getParent(MediaSeriesGroup node, TreeModelNode modelNode) {
     if (node != null && modelNode != null) {
@@ -331,6 +471,11 @@ public void dispose() {
       }
     }
     model.clear();
+    patientIndex.clear();
+    studyIndex.clear();
+    seriesIndex.clear();
+    seriesByUID.clear();
+    instanceIndex.clear();
   }
 
   @Override
@@ -811,6 +956,17 @@ public SeriesThumbnail buildThumbnail(Series<?> dicomSeries) {
 
   @Override
   public boolean applySplittingRules(Series<?> original, MediaElement media) {
+    boolean split = splitMedia(original, media);
+    if (media != null && media.getMediaReader() instanceof DicomMediaIO dicomReader) {
+      String seriesUID = TagD.getTagValue(dicomReader, Tag.SeriesInstanceUID, String.class);
+      if (seriesUID != null) {
+        addInstance(seriesUID, media);
+      }
+    }
+    return split;
+  }
+
+  private boolean splitMedia(Series<?> original, MediaElement media) {
     if (media != null && media.getMediaReader() instanceof DicomMediaIO dicomReader) {
       String seriesUID = TagD.getTagValue(original, Tag.SeriesInstanceUID, String.class);
       if (seriesUID == null) {
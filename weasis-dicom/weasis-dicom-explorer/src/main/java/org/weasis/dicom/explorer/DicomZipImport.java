@@ -104,7 +104,8 @@ public static void loadDicomZip(File file, DicomModel dicomModel, OpeningViewer
       File dir =
           FileUtil.createTempDir(
               AppProperties.buildAccessibleTempDirectory("tmp", "zip")); // NON-NLS
-      try (ZipFile zipFile = new ZipFile(file)) {
+      ZipFile zipFile = new ZipFile(file);
+      try {
         if (zipFile.isEncrypted()) {
           JPanel panel = new JPanel();
           JPasswordField pass = new JPasswordField(16);
@@ -124,10 +125,18 @@ public static void loadDicomZip(File file, DicomModel dicomModel, OpeningViewer
             zipFile.setPassword(pass.getPassword());
           }
         }
+        if (zipFile.getFileHeader("DICOMDIR") == null) {
+          // Read the entries in the loading task, without extracting the whole archive first
+          DicomModel.LOADING_EXECUTOR.execute(
+              new LoadZipDicom(zipFile, dir, dicomModel, openingViewer));
+          return;
+        }
+        // The DICOMDIR references the other files, they are all required
         zipFile.extractAll(dir.getPath());
       } catch (IOException e) {
         LOGGER.error("unzipping", e);
       }
+      FileUtil.safeClose(zipFile);
       File dicomdir = new File(dir, "DICOMDIR");
       if (dicomdir.canRead()) {
         DicomDirLoader dirImport = new DicomDirLoader(dicomdir, dicomModel, false);
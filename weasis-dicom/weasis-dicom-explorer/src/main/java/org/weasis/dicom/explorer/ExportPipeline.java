@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BooleanSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.media.data.DecodeScheduler;
+import org.weasis.core.api.util.ThreadUtil;
+
+/**
+ * Exports the items on a pool of workers (decoding, processing and encoding) and completes them in
+ * the order of submission on the calling thread, which keeps the shared writers (e.g. DICOMDIR) on
+ * a single thread and the output deterministic.
+ *
+ * <p>The number of items submitted but not completed is bounded: when the limit is reached, {@link
+ * #submit} waits for the oldest item. So only a few decoded images are in memory at the same time.
+ */
+final class ExportPipeline {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExportPipeline.class);
+
+  private static final ExecutorService EXPORT_EXECUTOR =
+      ThreadUtil.buildNewFixedThreadExecutor(
+          DecodeScheduler.getDefaultThreadNumber(), "Export"); // NON-NLS
+
+  /** Completes an exported item on the thread of the pipeline. */
+  @FunctionalInterface
+  interface Completion<R> {
+    void accept(R result) throws Exception;
+  }
+
+  private static final class Task<R> implements Runnable {
+    final Object item;
+    final Callable<R> job;
+    final Completion<R> completion;
+    final CompletableFuture<R> result = new CompletableFuture<>();
+    // Released when the worker leaves the task, even if it has been cancelled
+    final CountDownLatch finished = new CountDownLatch(1);
+
+    Task(Object item, Callable<R> job, Completion<R> completion) {
+      this.item = item;
+      this.job = job;
+      this.completion = completion;
+    }
+
+    @Override
+    public void run() {
+      try {
+        if (!result.isDone()) {
+          result.complete(job.call());
+        }
+      } catch (Throwable t) {
+        result.completeExceptionally(t);
+      } finally {
+        finished.countDown();
+      }
+    }
+  }
+
+  private final Executor executor;
+  private final BooleanSupplier cancelled;
+  private final int maxPending;
+  private final Deque<Task<?>> pending = new ArrayDeque<>();
+
+  /** @param cancelled stops the export when it returns true */
+  ExportPipeline(BooleanSupplier cancelled) {
+    this(EXPORT_EXECUTOR, cancelled, 2 * DecodeScheduler.getDefaultThreadNumber());
+  }
+
+  ExportPipeline(Executor executor, BooleanSupplier cancelled, int maxPending) {
+    this.executor = Objects.requireNonNull(executor);
+    this.cancelled = Objects.requireNonNull(cancelled);
+    this.maxPending = Math.max(1, maxPending);
+  }
+
+  boolean isCancelled() {
+    return cancelled.getAsBoolean();
+  }
+
+  /**
+   * Submits an item to export. The completion is called after the completions of the previous
+   * items, it is skipped when the job fails or when the export is cancelled.
+   *
+   * @param item the exported item, for logging
+   * @param job the work done in parallel
+   * @param completion the work done in order on the calling thread
+   * @return false when the export is cancelled
+   * @throws Exception the exception thrown by a completion
+   */
+  <R> boolean submit(Object item, Callable<R> job, Completion<R> completion) throws Exception {
+    while (pending.size() >= maxPending) {
+      if (!completeOldest()) {
+        return false;
+      }
+    }
+    if (isCancelled()) {
+      cancel();
+      return false;
+    }
+    Task<R> task = new Task<>(item, job, completion);
+    executor.execute(task);
+    pending.add(task);
+    return true;
+  }
+
+  /**
+   * Waits for all the submitted items and completes them.
+   *
+   * @return false when the export is cancelled
+   * @throws Exception the exception thrown by a completion
+   */
+  boolean finish() throws Exception {
+    while (!pending.isEmpty()) {
+      if (!completeOldest()) {
+        return false;
+      }
+    }
+    return !isCancelled();
+  }
+
+  private boolean completeOldest() throws Exception {
+    if (isCancelled()) {
+      cancel();
+      return false;
+    }
+    // Still pending while waiting, so an interruption waits for it in cancel()
+    complete(pending.peek());
+    pending.poll();
+    return true;
+  }
+
+  private <R> void complete(Task<R> task) throws Exception {
+    R result;
+    try {
+      result = task.result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      cancel();
+      throw e;
+    } catch (ExecutionException e) {
+      LOGGER.error("Cannot export {}", task.item, e.getCause());
+      return;
+    }
+    task.completion.accept(result);
+  }
+
+  /**
+   * Cancels the items not started and waits for the running ones, so no file is written after the
+   * end of the export.
+   */
+  void cancel() {
+    for (Task<?> task : pending) {
+      task.result.cancel(false);
+    }
+    boolean interrupted = false;
+    for (Task<?> task : pending) {
+      try {
+        task.finished.await();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    pending.clear();
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
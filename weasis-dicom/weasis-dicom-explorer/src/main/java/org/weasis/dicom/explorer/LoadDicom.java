@@ -9,6 +9,10 @@
  */
 package org.weasis.dicom.explorer;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
@@ -110,7 +114,49 @@ private JTextPane getErrorPanel(int nbErrors) {
     return jTextPane1;
   }
 
+  /** Adds a batch of parsed files to the model, series by series. */
+  protected void addToModel(List<DicomMediaIO> readers) {
+    Map<String, List<DicomMediaIO>> seriesReaders = new LinkedHashMap<>();
+    for (DicomMediaIO reader : readers) {
+      String key =
+          reader.getTagValue(TagD.getUID(Level.PATIENT))
+              + "|"
+              + reader.getTagValue(TagD.getUID(Level.STUDY))
+              + "|"
+              + reader.getTagValue(TagD.get(Tag.SeriesInstanceUID));
+      seriesReaders.computeIfAbsent(key, _ -> new ArrayList<>()).add(reader);
+    }
+
+    ArrayList<SeriesThumbnail> thumbs = new ArrayList<>();
+    for (List<DicomMediaIO> list : seriesReaders.values()) {
+      if (isCancelled()) {
+        break;
+      }
+      // Issue: must handle adding image to viewer and building thumbnail (middle image)
+      SeriesThumbnail t = buildDicomStructure(list);
+      if (t != null) {
+        thumbs.add(t);
+      }
+    }
+    LoadLocalDicom.updateSeriesThumbnail(thumbs, dicomModel);
+  }
+
   protected SeriesThumbnail buildDicomStructure(DicomMediaIO dicomReader) {
+    return buildDicomStructure(List.of(dicomReader));
+  }
+
+  /**
+   * Adds DICOM files of the same series to the model. The thumbnail, the split series and the
+   * viewers are updated once for all the files.
+   *
+   * @param seriesReaders the readers of the files having the same patient, study and series UIDs
+   * @return the thumbnail when a new series has been created, otherwise null
+   */
+  protected SeriesThumbnail buildDicomStructure(List<DicomMediaIO> seriesReaders) {
+    if (seriesReaders == null || seriesReaders.isEmpty()) {
+      return null;
+    }
+    DicomMediaIO dicomReader = seriesReaders.getFirst();
     SeriesThumbnail thumb = null;
     String studyUID = (String) dicomReader.getTagValue(TagD.getUID(Level.STUDY));
     String patientPseudoUID = (String) dicomReader.getTagValue(TagD.getUID(Level.PATIENT));
@@ -140,58 +186,61 @@ protected SeriesThumbnail buildDicomStructure(DicomMediaIO dicomReader) {
       dicomModel.addHierarchyNode(patient, study);
     }
 
-    boolean editableDicom = dicomReader.isEditableDicom();
     String seriesUID = (String) dicomReader.getTagValue(TagD.get(Tag.SeriesInstanceUID));
     DicomSeries dicomSeries = (DicomSeries) dicomModel.getHierarchyNode(study, seriesUID);
-    try {
-      if (dicomSeries == null) {
-        dicomSeries = dicomReader.buildSeries(seriesUID);
-        dicomSeries.setTag(TagW.ExplorerModel, dicomModel);
-        if (editableDicom) {
-          dicomSeries.setTag(TagW.ObjectToSave, Boolean.TRUE);
+    boolean newSeries = false;
+    boolean newImages = false;
+    boolean updated = false;
+    for (DicomMediaIO reader : seriesReaders) {
+      try {
+        boolean editableDicom = reader.isEditableDicom();
+        if (dicomSeries == null) {
+          dicomSeries = reader.buildSeries(seriesUID);
+          dicomSeries.setTag(TagW.ExplorerModel, dicomModel);
+          if (editableDicom) {
+            dicomSeries.setTag(TagW.ObjectToSave, Boolean.TRUE);
+          }
+          reader.writeMetaData(dicomSeries);
+          dicomModel.addHierarchyNode(study, dicomSeries);
+          getDicomImageElements(reader, dicomSeries, editableDicom);
+          newSeries = true;
+        } else if (!isSOPInstanceUIDExist(
+            study, dicomSeries, TagD.getTagValue(reader, Tag.SOPInstanceUID, String.class))) {
+          DicomImageElement[] medias = getDicomImageElements(reader, dicomSeries, editableDicom);
+          if (medias != null && medias.length > 0) {
+            newImages = true;
+          }
+          updated = true;
         }
-        dicomReader.writeMetaData(dicomSeries);
-        dicomModel.addHierarchyNode(study, dicomSeries);
-        getDicomImageElements(dicomReader, dicomSeries, editableDicom);
+      } catch (Exception e) {
+        LOGGER.error("Build DICOM hierarchy", e);
+      }
+    }
 
+    if (dicomSeries == null) {
+      return null;
+    }
+    try {
+      if (newSeries) {
         if (!DicomModel.isHiddenModality(dicomSeries)) {
           // After the thumbnail is sent to interface, it will be return to be rebuilt later
           thumb = dicomModel.buildThumbnail(dicomSeries);
         }
-
-        Integer splitNb = (Integer) dicomSeries.getTagValue(TagW.SplitSeriesNumber);
-        if (splitNb != null) {
-          dicomModel.firePropertyChange(
-              new ObservableEvent(
-                  ObservableEvent.BasicAction.UPDATE, dicomModel, null, dicomSeries));
-        }
-        openingStrategy.openViewerPlugin(patient, dicomModel, dicomSeries);
-      } else {
-        // Test if SOPInstanceUID already exists
-        if (isSOPInstanceUIDExist(
-            study, dicomSeries, TagD.getTagValue(dicomReader, Tag.SOPInstanceUID, String.class))) {
-          openingStrategy.openViewerPlugin(patient, dicomModel, dicomSeries);
-          return null;
-        }
-
-        DicomImageElement[] medias = getDicomImageElements(dicomReader, dicomSeries, editableDicom);
-        if (medias != null && medias.length > 0) {
-          // Refresh the number of images on the thumbnail
-          Thumbnail t = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
-          if (t != null) {
-            GuiExecutor.execute(t::repaint);
-          }
+      } else if (newImages) {
+        // Refresh the number of images on the thumbnail
+        Thumbnail t = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
+        if (t != null) {
+          GuiExecutor.execute(t::repaint);
         }
+      }
 
-        // If Split series or special DICOM element update the explorer view and View2DContainer
-        Integer splitNb = (Integer) dicomSeries.getTagValue(TagW.SplitSeriesNumber);
-        if (splitNb != null) {
-          dicomModel.firePropertyChange(
-              new ObservableEvent(
-                  ObservableEvent.BasicAction.UPDATE, dicomModel, null, dicomSeries));
-        }
-        openingStrategy.openViewerPlugin(patient, dicomModel, dicomSeries);
+      // If Split series or special DICOM element update the explorer view and View2DContainer
+      Integer splitNb = (Integer) dicomSeries.getTagValue(TagW.SplitSeriesNumber);
+      if (splitNb != null && (newSeries || updated)) {
+        dicomModel.firePropertyChange(
+            new ObservableEvent(ObservableEvent.BasicAction.UPDATE, dicomModel, null, dicomSeries));
       }
+      openingStrategy.openViewerPlugin(patient, dicomModel, dicomSeries);
     } catch (Exception e) {
       LOGGER.error("Build DICOM hierarchy", e);
     }
@@ -229,24 +278,7 @@ private DicomImageElement[] getDicomImageElements(
 
   protected boolean isSOPInstanceUIDExist(
       MediaSeriesGroup study, Series<?> dicomSeries, Object sopUID) {
-    TagW sopTag = TagD.getUID(Level.INSTANCE);
-    if (dicomSeries.hasMediaContains(sopTag, sopUID)) {
-      return true;
-    }
-    Object splitNb = dicomSeries.getTagValue(TagW.SplitSeriesNumber);
-    if (splitNb != null && study != null) {
-      String uid = TagD.getTagValue(dicomSeries, Tag.SeriesInstanceUID, String.class);
-      if (uid != null) {
-        for (MediaSeriesGroup group : dicomModel.getChildren(study)) {
-          if (dicomSeries != group
-              && group instanceof Series<?> s
-              && uid.equals(TagD.getTagValue(group, Tag.SeriesInstanceUID))
-              && s.hasMediaContains(sopTag, sopUID)) {
-            return true;
-          }
-        }
-      }
-    }
-    return false;
+    String seriesUID = TagD.getTagValue(dicomSeries, Tag.SeriesInstanceUID, String.class);
+    return sopUID instanceof String uid && dicomModel.hasSopInstance(seriesUID, uid);
   }
 }
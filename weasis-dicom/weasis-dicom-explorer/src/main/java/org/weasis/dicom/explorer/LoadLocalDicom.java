@@ -10,7 +10,6 @@
 package org.weasis.dicom.explorer;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import org.weasis.core.api.explorer.ObservableEvent;
@@ -29,6 +28,7 @@
 import org.weasis.dicom.codec.DicomCodec;
 import org.weasis.dicom.codec.DicomMediaIO;
 import org.weasis.dicom.codec.DicomMediaIO.Reading;
+import org.weasis.dicom.explorer.DicomFileScanner.ScannedFile;
 import org.weasis.dicom.explorer.HangingProtocols.OpeningViewer;
 
 public class LoadLocalDicom extends LoadDicom {
@@ -56,60 +56,44 @@ protected Boolean doInBackground() throws Exception {
     startLoadingEvent();
     if (files.length > 0) {
       openingStrategy.prepareImport();
-      addSelectionAndNotify(files, true);
+      addSelectionAndNotify(files);
     }
     return true;
   }
 
-  protected void addSelectionAndNotify(File[] file, boolean firstLevel) {
+  protected void addSelectionAndNotify(File[] file) {
     if (file == null || file.length < 1) {
       return;
     }
+    DicomFileScanner<DicomMediaIO> scanner = new DicomFileScanner<>(this::isCancelled);
+    scanner.scan(file, recursive, this::readHeader, this::addToModel);
+  }
 
-    ArrayList<SeriesThumbnail> thumbs = new ArrayList<>();
-    ArrayList<File> folders = new ArrayList<>();
-    for (File value : file) {
-      if (isCancelled()) {
-        return;
-      }
-      if (value == null) {
-        continue;
-      }
-
-      if (value.isDirectory()) {
-        if (firstLevel || recursive) {
-          folders.add(value);
+  /** Reads the header of a DICOM file, called concurrently by the workers of the scanner. */
+  private DicomMediaIO readHeader(ScannedFile scannedFile) {
+    File value = scannedFile.file();
+    if (value.canRead() && FileUtil.isFileExtensionMatching(value, DicomCodec.FILE_EXTENSIONS)
+        || MimeInspector.isMatchingMimeTypeFromMagicNumber(value, DicomMediaIO.DICOM_MIMETYPE)) {
+      DicomMediaIO loader = new DicomMediaIO(value);
+      Reading reading = loader.getReadingStatus();
+      if (reading == Reading.READABLE) {
+        if (value.getPath().startsWith(AppProperties.APP_TEMP_DIR.getPath())) {
+          loader.getFileCache().setOriginalTempFile(value);
         }
-      } else if (value.canRead()
-              && FileUtil.isFileExtensionMatching(value, DicomCodec.FILE_EXTENSIONS)
-          || MimeInspector.isMatchingMimeTypeFromMagicNumber(value, DicomMediaIO.DICOM_MIMETYPE)) {
-        DicomMediaIO loader = new DicomMediaIO(value);
-        Reading reading = loader.getReadingStatus();
-        if (reading == Reading.READABLE) {
-          if (value.getPath().startsWith(AppProperties.APP_TEMP_DIR.getPath())) {
-            loader.getFileCache().setOriginalTempFile(value);
-          }
-          // Issue: must handle adding image to viewer and building thumbnail (middle image)
-          SeriesThumbnail t = buildDicomStructure(loader);
-          if (t != null) {
-            thumbs.add(t);
-          }
-
-          File gpxFile = new File(value.getPath() + ".xml");
-          GraphicModel graphicModel = XmlSerializer.readPresentationModel(gpxFile);
+        String gpxName = value.getName() + ".xml";
+        if (scannedFile.hasSibling(gpxName)) {
+          GraphicModel graphicModel =
+              XmlSerializer.readPresentationModel(new File(value.getParentFile(), gpxName));
           if (graphicModel != null) {
             loader.setTag(TagW.PresentationModel, graphicModel);
           }
-        } else if (reading == Reading.ERROR) {
-          errors.incrementAndGet();
         }
+        return loader;
+      } else if (reading == Reading.ERROR) {
+        errors.incrementAndGet();
       }
     }
-    updateSeriesThumbnail(thumbs, dicomModel);
-
-    for (File folder : folders) {
-      addSelectionAndNotify(folder.listFiles(), false);
-    }
+    return null;
   }
 
   public static void updateSeriesThumbnail(List<SeriesThumbnail> thumbs, DicomModel dicomModel) {
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import net.lingala.zip4j.ZipFile;
+import net.lingala.zip4j.io.inputstream.ZipInputStream;
+import net.lingala.zip4j.model.FileHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.explorer.model.DataExplorerModel;
+import org.weasis.core.api.media.data.TagW;
+import org.weasis.core.ui.model.GraphicModel;
+import org.weasis.core.ui.serialize.XmlSerializer;
+import org.weasis.core.util.FileUtil;
+import org.weasis.dicom.codec.DicomMediaIO;
+import org.weasis.dicom.codec.DicomMediaIO.Reading;
+import org.weasis.dicom.explorer.HangingProtocols.OpeningViewer;
+
+/**
+ * Loads the DICOM files of a ZIP archive entry by entry. Each entry is inflated into the temporary
+ * folder and its header is parsed by the workers of {@link DicomFileScanner}, so the series appear
+ * while the rest of the archive is still being read.
+ */
+public class LoadZipDicom extends LoadDicom {
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadZipDicom.class);
+
+  private final ZipFile zipFile;
+  private final File dir;
+
+  /**
+   * @param zipFile the archive, closed at the end of the loading
+   * @param dir the folder receiving the entries
+   */
+  public LoadZipDicom(
+      ZipFile zipFile, File dir, DataExplorerModel explorerModel, OpeningViewer openingMode) {
+    super(explorerModel, false, openingMode);
+    this.zipFile = Objects.requireNonNull(zipFile);
+    this.dir = Objects.requireNonNull(dir);
+  }
+
+  @Override
+  protected Boolean doInBackground() throws Exception {
+    startLoadingEvent();
+    try (zipFile) {
+      List<FileHeader> entries =
+          zipFile.getFileHeaders().stream().filter(h -> !h.isDirectory()).toList();
+      if (!entries.isEmpty()) {
+        openingStrategy.prepareImport();
+        Set<String> names =
+            entries.stream().map(FileHeader::getFileName).collect(Collectors.toSet());
+        DicomFileScanner<DicomMediaIO> scanner = new DicomFileScanner<>(this::isCancelled);
+        scanner.scan(entries, h -> readEntry(h, names), this::addToModel);
+      }
+    } catch (IOException e) {
+      LOGGER.error("Cannot read the zip file {}", zipFile.getFile(), e);
+    }
+    return true;
+  }
+
+  /** Inflates an entry and reads its header, called concurrently by the workers. */
+  private DicomMediaIO readEntry(FileHeader header, Set<String> names) {
+    String name = header.getFileName();
+    if (name.endsWith(".xml")) { // NON-NLS
+      // Presentation file, read with its DICOM file
+      return null;
+    }
+    File file;
+    try {
+      file = extractEntry(zipFile, header, dir);
+    } catch (IOException e) {
+      LOGGER.error("Cannot extract {}", name, e);
+      errors.incrementAndGet();
+      return null;
+    }
+
+    DicomMediaIO loader = new DicomMediaIO(file);
+    Reading reading = loader.getReadingStatus();
+    if (reading == Reading.READABLE) {
+      loader.getFileCache().setOriginalTempFile(file);
+      String gpxName = name + ".xml";
+      if (names.contains(gpxName)) {
+        readPresentationModel(loader, gpxName);
+      }
+      return loader;
+    } else if (reading == Reading.ERROR) {
+      errors.incrementAndGet();
+    }
+    FileUtil.delete(file);
+    return null;
+  }
+
+  private void readPresentationModel(DicomMediaIO loader, String gpxName) {
+    try {
+      FileHeader gpxHeader;
+      synchronized (zipFile) {
+        gpxHeader = zipFile.getFileHeader(gpxName);
+      }
+      if (gpxHeader != null) {
+        File gpxFile = extractEntry(zipFile, gpxHeader, dir);
+        GraphicModel graphicModel = XmlSerializer.readPresentationModel(gpxFile);
+        if (graphicModel != null) {
+          loader.setTag(TagW.PresentationModel, graphicModel);
+        }
+        FileUtil.delete(gpxFile);
+      }
+    } catch (IOException e) {
+      LOGGER.error("Cannot extract {}", gpxName, e);
+    }
+  }
+
+  /**
+   * Writes an entry of the archive into a folder. Entries can be extracted concurrently.
+   *
+   * @return the extracted file
+   */
+  static File extractEntry(ZipFile zipFile, FileHeader header, File dir) throws IOException {
+    Path root = dir.toPath().normalize();
+    Path target = root.resolve(header.getFileName()).normalize();
+    if (!target.startsWith(root)) {
+      throw new IOException("Entry outside of the target folder: " + header.getFileName());
+    }
+    Files.createDirectories(target.getParent());
+    ZipInputStream in;
+    // The archive keeps a list of the opened streams, which is not thread-safe
+    synchronized (zipFile) {
+      in = zipFile.getInputStream(header);
+    }
+    try (in) {
+      Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+    return target.toFile();
+  }
+}
@@ -524,10 +524,9 @@ protected void writeOther(
         Boolean.parseBoolean(pref.getProperty(IMG_PIXEL_PADDING, Boolean.TRUE.toString()));
     boolean overlay = Boolean.parseBoolean(pref.getProperty(IMG_OVERLAY, Boolean.TRUE.toString()));
     boolean shutter = Boolean.parseBoolean(pref.getProperty(IMG_SHUTTER, Boolean.TRUE.toString()));
-    boolean img16 = Boolean.parseBoolean(pref.getProperty(IMG_16_BIT, Boolean.FALSE.toString()));
-    if (format == Format.JPEG) {
-      img16 = false;
-    }
+    boolean img16 =
+        format != Format.JPEG
+            && Boolean.parseBoolean(pref.getProperty(IMG_16_BIT, Boolean.FALSE.toString()));
 
     try {
       synchronized (exportTree) {
@@ -546,73 +545,127 @@ protected void writeOther(
           }
         }
 
-        for (TreePath treePath : paths) {
-          if (task.isCancelled()) {
-            return;
-          }
-
-          DefaultMutableTreeNode node = (DefaultMutableTreeNode) treePath.getLastPathComponent();
-          Object object = node.getUserObject();
-
-          if (object instanceof MediaElement dcm && object instanceof FileExtractor) {
-            File fileSrc = ((FileExtractor) dcm).getExtractFile();
-            if (fileSrc != null) {
+        ExportPipeline pipeline = new ExportPipeline(task::isCancelled);
+        try {
+          for (TreePath treePath : paths) {
+            DefaultMutableTreeNode node = (DefaultMutableTreeNode) treePath.getLastPathComponent();
+            Object object = node.getUserObject();
+
+            if (object instanceof MediaElement dcm && object instanceof FileExtractor) {
+              File fileSrc = ((FileExtractor) dcm).getExtractFile();
+              if (fileSrc != null) {
+                // Get instance number instead SOPInstanceUID to handle multiframe
+                String instance = instanceFileName(dcm);
+                File destinationDir = new File(exportDir, buildPath(dcm, keepNames, node));
+                File destinationFile =
+                    new File(destinationDir, instance + FileUtil.getExtension(fileSrc.getName()));
+                boolean submitted =
+                    pipeline.submit(
+                        dcm,
+                        () -> {
+                          destinationDir.mkdirs();
+                          return FileUtil.nioCopyFile(fileSrc, destinationFile);
+                        },
+                        _ -> {});
+                if (!submitted) {
+                  return;
+                }
+              }
+            } else if (object instanceof DicomImageElement img) {
               // Get instance number instead SOPInstanceUID to handle multiframe
-              String instance = instanceFileName(dcm);
-              String path = buildPath(dcm, keepNames, node);
-              File destinationDir = new File(exportDir, path);
-              destinationDir.mkdirs();
-
-              File destinationFile =
-                  new File(destinationDir, instance + FileUtil.getExtension(fileSrc.getName()));
-              FileUtil.nioCopyFile(fileSrc, destinationFile);
+              String instance = instanceFileName(img);
+              File destinationDir = new File(exportDir, buildPath(img, keepNames, node));
+              File destinationFile = new File(destinationDir, instance + "." + format.extension);
+              boolean withGraphics =
+                  seriesGph.contains(img.getTagValue(TagD.get(Tag.SeriesInstanceUID)));
+              boolean submitted =
+                  pipeline.submit(
+                      img,
+                      () ->
+                          writeImage(
+                              img,
+                              destinationFile,
+                              format,
+                              jpegQuality,
+                              img16,
+                              padding,
+                              shutter,
+                              overlay),
+                      written -> {
+                        if (written && withGraphics) {
+                          XmlSerializer.writePresentation(img, destinationFile);
+                        }
+                      });
+              if (!submitted) {
+                return;
+              }
             }
-          } else if (object instanceof DicomImageElement img) {
-            // Get instance number instead SOPInstanceUID to handle multiframe
-            String instance = instanceFileName(img);
-            String path = buildPath(img, keepNames, node);
-            File destinationDir = new File(exportDir, path);
-            destinationDir.mkdirs();
-
-            SimpleOpManager manager =
-                img.buildSimpleOpManager(img16, padding, shutter, overlay, 1.0);
-            PlanarImage image = manager.getFirstNodeInputImage();
-            if (image != null) {
+          }
+          pipeline.finish();
+        } finally {
+          pipeline.cancel();
+        }
+      }
+    } catch (Exception e) {
+      LOGGER.error("Cannot extract media from DICOM", e);
+    }
+  }
+
+  /**
+   * Decodes, processes and encodes an image, called by the workers of the export. The image is read
+   * without going through the image cache, so the export neither fills the cache nor evicts the
+   * images (or the shared reader of a multiframe file) used by the views.
+   *
+   * @return true if the image has been written
+   */
+  static boolean writeImage(
+      DicomImageElement img,
+      File destinationFile,
+      Format format,
+      int jpegQuality,
+      boolean img16,
+      boolean padding,
+      boolean shutter,
+      boolean overlay) {
+    Boolean written =
+        img.readImage(
+            true,
+            source -> {
+              SimpleOpManager manager =
+                  img.buildSimpleOpManager(source, img16, padding, shutter, overlay, 1.0);
+              PlanarImage image = manager.getFirstNodeInputImage();
+              if (image == null) {
+                return false;
+              }
               PlanarImage rimage = manager.process();
               if (rimage == null) {
                 rimage = image;
               }
               boolean mustBeReleased = !Objects.equals(rimage, image);
-              image = rimage;
-
-              File destinationFile = new File(destinationDir, instance + "." + format.extension);
-              if (format == Format.PNG) {
-                ImageProcessor.writePNG(image.toMat(), destinationFile);
-              } else {
+              try {
+                destinationFile.getParentFile().mkdirs();
+                if (format == Format.PNG) {
+                  return ImageProcessor.writePNG(rimage.toMat(), destinationFile);
+                }
                 MatOfInt map = new MatOfInt();
                 if (format == Format.JPEG) {
                   map.fromArray(Imgcodecs.IMWRITE_JPEG_QUALITY, jpegQuality);
                 }
-                ImageProcessor.writeImage(image.toMat(), destinationFile, map);
-              }
-              if (mustBeReleased) {
-                ImageConversion.releasePlanarImage(image);
-              }
-              if (seriesGph.contains(img.getTagValue(TagD.get(Tag.SeriesInstanceUID)))) {
-                XmlSerializer.writePresentation(img, destinationFile);
+                return ImageProcessor.writeImage(rimage.toMat(), destinationFile, map);
+              } finally {
+                if (mustBeReleased) {
+                  ImageConversion.releasePlanarImage(rimage);
+                }
               }
-            } else {
-              LOGGER.error(
-                  "Cannot export DICOM file to {}: {}",
-                  format,
-                  img.getFileCache().getOriginalFile().orElse(null));
-            }
-          }
-        }
-      }
-    } catch (Exception e) {
-      LOGGER.error("Cannot extract media from DICOM", e);
+            });
+    if (written == null) {
+      LOGGER.error(
+          "Cannot export DICOM file to {}: {}",
+          format,
+          img.getFileCache().getOriginalFile().orElse(null));
+      return false;
     }
+    return written;
   }
 
   private static Attributes getUIDs(DefaultAttributeEditor editor, MediaElement dcm) {
@@ -624,7 +677,9 @@ private static Attributes getUIDs(DefaultAttributeEditor editor, MediaElement dc
         Tag.SeriesInstanceUID, VR.UI, TagD.getTagValue(dcm, Tag.SeriesInstanceUID, String.class));
     uidTags.setString(
         Tag.SOPInstanceUID, VR.UI, TagD.getTagValue(dcm, Tag.SOPInstanceUID, String.class));
-    editor.apply(uidTags, null);
+    synchronized (editor) {
+      editor.apply(uidTags, null);
+    }
     return uidTags;
   }
 
@@ -661,86 +716,104 @@ protected void writeDicom(
         writer = DicomDirLoader.open(dcmdirFile);
       }
 
+      final DicomDirWriter dicomDir = writer;
       synchronized (exportTree) {
         ArrayList<String> uids = new ArrayList<>();
         TreePath[] paths = model.getCheckingPaths();
-        for (TreePath treePath : paths) {
-          if (task.isCancelled()) {
-            return;
-          }
-
-          DefaultMutableTreeNode node = (DefaultMutableTreeNode) treePath.getLastPathComponent();
-          if (node.getUserObject() instanceof DicomImageElement img) {
-            Attributes uidTags = getUIDs(editor, img);
-            String iuid = uidTags.getString(Tag.SOPInstanceUID);
-            int index = uids.indexOf(iuid);
-            if (index == -1) {
-              uids.add(iuid);
-            } else {
-              // Write only once the file for multiframe
-              continue;
-            }
-            if (!keepNames) {
-              iuid = makeFileIDs(iuid);
-            }
-
-            String path = buildPath(img, keepNames, cdCompatible, node, uidTags);
-            File destinationDir = new File(exportDir, path);
-            destinationDir.mkdirs();
-
-            List<AttributeEditor> dicomEditors = getAttributeEditors(editor);
-            File destinationFile = new File(destinationDir, iuid);
-
-            DicomExportParameters dicomExportParameters =
-                new DicomExportParameters(
-                    tsuid, onlyRaw, dicomEditors, jpegQuality, compressionRatio);
-            Attributes attributes = img.saveToFile(destinationFile, dicomExportParameters);
-            if (attributes != null) {
-              if (attributes.isEmpty()) {
-                attributes = img.getMediaReader().getDicomObject();
+        ExportPipeline pipeline = new ExportPipeline(task::isCancelled);
+        try {
+          for (TreePath treePath : paths) {
+            DefaultMutableTreeNode node = (DefaultMutableTreeNode) treePath.getLastPathComponent();
+            boolean submitted = true;
+            if (node.getUserObject() instanceof DicomImageElement img) {
+              Attributes uidTags = getUIDs(editor, img);
+              String iuid = uidTags.getString(Tag.SOPInstanceUID);
+              int index = uids.indexOf(iuid);
+              if (index == -1) {
+                uids.add(iuid);
+              } else {
+                // Write only once the file for multiframe
+                continue;
               }
-              writeInDicomDir(writer, attributes, node, iuid, destinationFile);
-            }
-          } else if (node.getUserObject() instanceof DicomElement dcm) {
-            Attributes uidTags = getUIDs(editor, (MediaElement) dcm);
-            String iuid = uidTags.getString(Tag.SOPInstanceUID);
-            if (!keepNames) {
-              iuid = makeFileIDs(iuid);
-            }
+              String fileID = keepNames ? iuid : makeFileIDs(iuid);
 
-            String path = buildPath((MediaElement) dcm, keepNames, cdCompatible, node, uidTags);
-            File destinationDir = new File(exportDir, path);
-            destinationDir.mkdirs();
-
-            File destinationFile = new File(destinationDir, iuid);
-            DicomExportParameters dicomExportParameters =
-                new DicomExportParameters(
-                    null, onlyRaw, getAttributeEditors(editor), jpegQuality, compressionRatio);
-            Attributes attributes = dcm.saveToFile(destinationFile, dicomExportParameters);
-            if (attributes != null) {
-              if (attributes.isEmpty()) {
-                attributes = dcm.getMediaReader().getDicomObject();
-              }
-              writeInDicomDir(writer, attributes, node, iuid, destinationFile);
-            }
-          } else if (node.getUserObject() instanceof Series) {
-            MediaSeries<?> s = (MediaSeries<?>) node.getUserObject();
-            if (LangUtil.getNULLtoFalse((Boolean) s.getTagValue(TagW.ObjectToSave))) {
-              Series<?> series = (Series<?>) s.getTagValue(CheckTreeModel.SourceSeriesForPR);
-              if (series != null) {
-                String seriesInstanceUID = UIDUtils.createUID();
-                for (MediaElement dcm : series.getMedias(null, null)) {
-                  GraphicModel grModel = (GraphicModel) dcm.getTagValue(TagW.PresentationModel);
-                  if (grModel != null && grModel.hasSerializableGraphics()) {
-                    String path =
-                        buildPath(dcm, keepNames, cdCompatible, node, getUIDs(editor, dcm));
-                    buildAndWritePR(
-                        dcm, keepNames, new File(exportDir, path), writer, node, seriesInstanceUID);
-                  }
+              String path = buildPath(img, keepNames, cdCompatible, node, uidTags);
+              File destinationDir = new File(exportDir, path);
+              File destinationFile = new File(destinationDir, fileID);
+
+              DicomExportParameters dicomExportParameters =
+                  new DicomExportParameters(
+                      tsuid, onlyRaw, getAttributeEditors(editor), jpegQuality, compressionRatio);
+              submitted =
+                  pipeline.submit(
+                      img,
+                      () -> {
+                        destinationDir.mkdirs();
+                        return img.saveToFile(destinationFile, dicomExportParameters);
+                      },
+                      attributes -> {
+                        if (attributes != null) {
+                          if (attributes.isEmpty()) {
+                            attributes = img.getMediaReader().getDicomObject();
+                          }
+                          writeInDicomDir(dicomDir, attributes, node, fileID, destinationFile);
+                        }
+                      });
+            } else if (node.getUserObject() instanceof DicomElement dcm) {
+              Attributes uidTags = getUIDs(editor, (MediaElement) dcm);
+              String iuid = uidTags.getString(Tag.SOPInstanceUID);
+              String fileID = keepNames ? iuid : makeFileIDs(iuid);
+
+              String path = buildPath((MediaElement) dcm, keepNames, cdCompatible, node, uidTags);
+              File destinationDir = new File(exportDir, path);
+              File destinationFile = new File(destinationDir, fileID);
+              DicomExportParameters dicomExportParameters =
+                  new DicomExportParameters(
+                      null, onlyRaw, getAttributeEditors(editor), jpegQuality, compressionRatio);
+              submitted =
+                  pipeline.submit(
+                      dcm,
+                      () -> {
+                        destinationDir.mkdirs();
+                        return dcm.saveToFile(destinationFile, dicomExportParameters);
+                      },
+                      attributes -> {
+                        if (attributes != null) {
+                          if (attributes.isEmpty()) {
+                            attributes = dcm.getMediaReader().getDicomObject();
+                          }
+                          writeInDicomDir(dicomDir, attributes, node, fileID, destinationFile);
+                        }
+                      });
+            } else if (node.getUserObject() instanceof Series) {
+              MediaSeries<?> s = (MediaSeries<?>) node.getUserObject();
+              if (LangUtil.getNULLtoFalse((Boolean) s.getTagValue(TagW.ObjectToSave))) {
+                Series<?> series = (Series<?>) s.getTagValue(CheckTreeModel.SourceSeriesForPR);
+                if (series != null) {
+                  // Written in order with the images, as the DICOMDIR records
+                  submitted =
+                      pipeline.submit(
+                          series,
+                          () -> Boolean.TRUE,
+                          _ ->
+                              writePresentations(
+                                  series,
+                                  keepNames,
+                                  cdCompatible,
+                                  exportDir,
+                                  node,
+                                  editor,
+                                  dicomDir));
                 }
               }
             }
+            if (!submitted) {
+              return;
+            }
           }
+          pipeline.finish();
+        } finally {
+          pipeline.cancel();
         }
       }
     } catch (IOException e) {
@@ -755,9 +828,33 @@ protected void writeDicom(
     }
   }
 
+  private static void writePresentations(
+      Series<?> series,
+      boolean keepNames,
+      boolean cdCompatible,
+      File exportDir,
+      DefaultMutableTreeNode node,
+      DefaultAttributeEditor editor,
+      DicomDirWriter writer) {
+    String seriesInstanceUID = UIDUtils.createUID();
+    for (MediaElement dcm : series.getMedias(null, null)) {
+      GraphicModel grModel = (GraphicModel) dcm.getTagValue(TagW.PresentationModel);
+      if (grModel != null && grModel.hasSerializableGraphics()) {
+        String path = buildPath(dcm, keepNames, cdCompatible, node, getUIDs(editor, dcm));
+        buildAndWritePR(dcm, keepNames, new File(exportDir, path), writer, node, seriesInstanceUID);
+      }
+    }
+  }
+
   private static List<AttributeEditor> getAttributeEditors(DefaultAttributeEditor editor) {
     if (editor.isGenerateUIDs() || editor.getTagToOverride() != null) {
-      return List.of(editor);
+      // The files are written by several threads and the editor keeps the generated UIDs
+      return List.of(
+          (data, context) -> {
+            synchronized (editor) {
+              editor.apply(data, context);
+            }
+          });
     }
     return Collections.emptyList();
   }
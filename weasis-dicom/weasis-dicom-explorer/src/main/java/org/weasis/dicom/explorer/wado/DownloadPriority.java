@@ -19,7 +19,7 @@ public class DownloadPriority {
   private final MediaSeriesGroup study;
   private final MediaSeriesGroup series;
   private final boolean concurrentDownload;
-  private Integer priority;
+  private volatile Integer priority;
 
   public DownloadPriority(
       MediaSeriesGroup patient,
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer.wado;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.GuiUtils;
+import org.weasis.core.api.service.WProperties;
+import org.weasis.core.api.util.ThreadUtil;
+
+/**
+ * Downloads the images of all the series with a global number of connections and a limit by
+ * server. The pending downloads are dispatched according to the current {@link DownloadPriority} of
+ * their series, so the series selected by the user takes the free connections before the series
+ * downloaded in the background, even when its priority changes after the submission.
+ *
+ * <p>A task is dispatched to a worker only when its server has a free connection, so a worker never
+ * waits for a server while a task of another server (or with a higher priority) is pending.
+ */
+public final class ImageDownloadScheduler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ImageDownloadScheduler.class);
+
+  public static final String CONCURRENT_IMAGES = "download.concurrent.images";
+  public static final String CONCURRENT_IMAGES_BY_HOST = "download.concurrent.images.host";
+
+  private static final class Holder {
+    private static final ImageDownloadScheduler INSTANCE = build();
+
+    private static ImageDownloadScheduler build() {
+      WProperties prefs = GuiUtils.getUICore().getSystemPreferences();
+      int maxConnections =
+          Math.max(
+              1,
+              prefs.getIntProperty(
+                  CONCURRENT_IMAGES,
+                  prefs.getIntProperty(DownloadManager.CONCURRENT_SERIES, 3)
+                      * prefs.getIntProperty(LoadSeries.CONCURRENT_DOWNLOADS_IN_SERIES, 4)));
+      int maxConnectionsByHost =
+          Math.max(
+              1, prefs.getIntProperty(CONCURRENT_IMAGES_BY_HOST, Math.min(6, maxConnections)));
+      return new ImageDownloadScheduler(maxConnections, maxConnectionsByHost);
+    }
+  }
+
+  // Key of the tasks without a server (local imports, invalid URLs), limited like a server
+  private static final String NO_HOST = "";
+
+  private final int maxConnections;
+  private final int maxConnectionsByHost;
+  // The tasks are given to the workers only when they can run, so the queue stays short
+  private final ThreadPoolExecutor executor;
+  private final Object lock = new Object();
+  private final AtomicLong sequence = new AtomicLong();
+
+  // Guarded by lock: the pending tasks of each series in the submission order
+  private final Map<LoadSeries, ArrayDeque<DownloadTask<?>>> pending = new LinkedHashMap<>();
+  // Guarded by lock: the number of dispatched tasks by server
+  private final Map<String, Integer> runningByHost = new HashMap<>();
+  private int running = 0;
+
+  /**
+   * @param maxConnections the maximum number of downloads
+   * @param maxConnectionsByHost the maximum number of downloads from the same server
+   */
+  ImageDownloadScheduler(int maxConnections, int maxConnectionsByHost) {
+    this.maxConnections = maxConnections;
+    this.maxConnectionsByHost = maxConnectionsByHost;
+    this.executor =
+        new ThreadPoolExecutor(
+            maxConnections,
+            maxConnections,
+            30L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            ThreadUtil.getThreadFactory("Image Downloader")); // NON-NLS
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * @return the scheduler shared by all the series, configured from the preferences
+   */
+  public static ImageDownloadScheduler getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  /**
+   * Submits a task with the priority of its series. Within a series, the tasks are executed in the
+   * submission order.
+   *
+   * @param series the series of the task
+   * @param url the URL downloaded by the task for limiting the connections by server. The tasks
+   *     without URL share the same limit.
+   * @param task the task
+   * @return the future of the task
+   */
+  public <T> Future<T> submit(LoadSeries series, String url, Callable<T> task) {
+    DownloadTask<T> downloadTask = new DownloadTask<>(task, series, getHost(url));
+    synchronized (lock) {
+      pending.computeIfAbsent(series, _ -> new ArrayDeque<>()).add(downloadTask);
+      dispatch();
+    }
+    return downloadTask;
+  }
+
+  /**
+   * Submits the tasks of a series and waits for their completion. When the calling thread is
+   * interrupted (the series is cancelled), the tasks not completed are cancelled.
+   *
+   * @param series the series of the tasks
+   * @param tasks the tasks in the download order
+   * @param urls gives the URL downloaded by a task
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public <T extends Callable<?>> void invokeAll(
+      LoadSeries series, List<T> tasks, Function<T, String> urls) throws InterruptedException {
+    List<DownloadTask<?>> futures = new ArrayList<>(tasks.size());
+    try {
+      for (T task : tasks) {
+        Callable<?> callable = task;
+        futures.add((DownloadTask<?>) submit(series, urls.apply(task), callable));
+      }
+      for (Future<?> f : futures) {
+        try {
+          f.get();
+        } catch (CancellationException | ExecutionException e) {
+          LOGGER.debug("Download task of {} not completed", series.getDicomSeries(), e);
+        }
+      }
+    } finally {
+      // The pending tasks are removed first, so they are not dispatched when the running ones stop
+      removePending(series, futures);
+      for (DownloadTask<?> f : futures) {
+        f.cancel(true);
+      }
+    }
+  }
+
+  public int getQueueSize() {
+    synchronized (lock) {
+      return pending.values().stream().mapToInt(ArrayDeque::size).sum();
+    }
+  }
+
+  public int getActiveCount() {
+    synchronized (lock) {
+      return running;
+    }
+  }
+
+  private static String getHost(String url) {
+    if (url == null) {
+      return NO_HOST;
+    }
+    try {
+      String host = URI.create(url).getHost();
+      return host == null ? NO_HOST : host;
+    } catch (IllegalArgumentException e) {
+      return NO_HOST;
+    }
+  }
+
+  private static int getPriority(LoadSeries series) {
+    DownloadPriority p = series.getPriority();
+    Integer priority = p == null ? null : p.getPriority();
+    return priority == null ? Integer.MAX_VALUE : priority;
+  }
+
+  private void removePending(LoadSeries series, List<DownloadTask<?>> futures) {
+    synchronized (lock) {
+      ArrayDeque<DownloadTask<?>> tasks = pending.get(series);
+      if (tasks != null) {
+        Set<DownloadTask<?>> removed = new HashSet<>(futures);
+        tasks.removeIf(removed::contains);
+        if (tasks.isEmpty()) {
+          pending.remove(series);
+        }
+      }
+    }
+  }
+
+  /** Gives the pending tasks to the workers while there are free connections. Holds lock. */
+  private void dispatch() {
+    while (running < maxConnections) {
+      DownloadTask<?> task = pollNext();
+      if (task == null) {
+        return;
+      }
+      running++;
+      runningByHost.merge(task.host, 1, Integer::sum);
+      executor.execute(task);
+    }
+  }
+
+  /**
+   * Returns the first task of the series with the highest current priority among the series whose
+   * server has a free connection. Only the number of series is scanned, not the number of tasks.
+   */
+  private DownloadTask<?> pollNext() {
+    ArrayDeque<DownloadTask<?>> best = null;
+    int bestPriority = 0;
+    Iterator<ArrayDeque<DownloadTask<?>>> it = pending.values().iterator();
+    while (it.hasNext()) {
+      ArrayDeque<DownloadTask<?>> tasks = it.next();
+      while (!tasks.isEmpty() && tasks.peek().isDone()) {
+        tasks.poll(); // Cancelled before running
+      }
+      DownloadTask<?> head = tasks.peek();
+      if (head == null) {
+        it.remove();
+        continue;
+      }
+      if (runningByHost.getOrDefault(head.host, 0) >= maxConnectionsByHost) {
+        continue;
+      }
+      int priority = getPriority(head.series);
+      if (best == null
+          || priority < bestPriority
+          || (priority == bestPriority && head.order < best.peek().order)) {
+        best = tasks;
+        bestPriority = priority;
+      }
+    }
+    return best == null ? null : best.poll();
+  }
+
+  private void finished(DownloadTask<?> task) {
+    synchronized (lock) {
+      running--;
+      runningByHost.computeIfPresent(task.host, (_, v) -> v > 1 ? v - 1 : null);
+      dispatch();
+    }
+  }
+
+  private final class DownloadTask<T> extends FutureTask<T> {
+    private final LoadSeries series;
+    private final String host;
+    private final long order;
+
+    DownloadTask(Callable<T> callable, LoadSeries series, String host) {
+      super(callable);
+      this.series = series;
+      this.host = host;
+      this.order = sequence.getAndIncrement();
+    }
+
+    @Override
+    public void run() {
+      try {
+        super.run();
+      } finally {
+        finished(this);
+      }
+    }
+  }
+}
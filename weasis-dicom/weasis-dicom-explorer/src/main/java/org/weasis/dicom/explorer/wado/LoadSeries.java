@@ -37,7 +37,11 @@
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -72,7 +76,6 @@
 import org.weasis.core.api.util.HttpResponse;
 import org.weasis.core.api.util.NetworkUtil;
 import org.weasis.core.api.util.ResourceUtil.ResourceIconPath;
-import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.api.util.URLParameters;
 import org.weasis.core.ui.model.GraphicModel;
 import org.weasis.core.ui.model.ReferencedImage;
@@ -82,7 +85,6 @@
 import org.weasis.core.util.StringUtil;
 import org.weasis.dicom.codec.*;
 import org.weasis.dicom.codec.DicomMediaIO.Reading;
-import org.weasis.dicom.codec.TagD.Level;
 import org.weasis.dicom.codec.utils.DicomMediaUtils;
 import org.weasis.dicom.codec.utils.SeriesInstanceList;
 import org.weasis.dicom.explorer.DicomModel;
@@ -102,6 +104,10 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
 
   public static final File DICOM_TMP_DIR =
       AppProperties.buildAccessibleTempDirectory("downloading"); // NON-NLS
+  // Instances received in a series response, kept in the file cache for the session
+  private static final File DICOM_CACHE_DIR =
+      AppProperties.buildAccessibleTempDirectory(
+          AppProperties.FILE_CACHE_DIR.getName(), "dcm-wado"); // NON-NLS
   public static final TagW DOWNLOAD_START_TIME = new TagW("DownloadStartTime", TagType.TIME);
   public static final TagW DOWNLOAD_TIME = new TagW("DownloadTime", TagType.TIME);
   public static final TagW DOWNLOAD_ERRORS = new TagW("DownloadErrors", TagType.INTEGER);
@@ -429,26 +435,8 @@ private String getDownloadRate(long time) {
 
   private boolean isSOPInstanceUIDExist(
       MediaSeriesGroup study, Series<?> dicomSeries, String sopUID) {
-    TagW sopTag = TagD.getUID(Level.INSTANCE);
-    if (dicomSeries.hasMediaContains(sopTag, sopUID)) {
-      return true;
-    }
-    // Search in split Series, cannot use "has this series a SplitNumber" because splitting can be
-    // executed later
-    // for Dicom Video and other special Dicom
-    String uid = TagD.getTagValue(dicomSeries, Tag.SeriesInstanceUID, String.class);
-    if (study != null && uid != null) {
-      for (MediaSeriesGroup group : dicomModel.getChildren(study)) {
-        if (dicomSeries != group
-            && group instanceof Series<?> s
-            && uid.equals(TagD.getTagValue(group, Tag.SeriesInstanceUID))
-            && s.hasMediaContains(sopTag, sopUID)) {
-          return true;
-        }
-      }
-    }
-
-    return false;
+    String seriesUID = TagD.getTagValue(dicomSeries, Tag.SeriesInstanceUID, String.class);
+    return dicomModel.hasSopInstance(seriesUID, sopUID);
   }
 
   private void incrementProgressBarValue() {
@@ -468,9 +456,7 @@ private Boolean startDownload() {
 
     List<SopInstance> sopList = seriesInstanceList.getSortedList();
 
-    ExecutorService imageDownloader =
-        ThreadUtil.buildNewFixedThreadExecutor(concurrentDownloads, "Image Downloader"); // NON-NLS
-    ArrayList<Callable<Boolean>> tasks = new ArrayList<>(sopList.size());
+    ArrayList<Download> tasks = new ArrayList<>(sopList.size());
     int[] dindex = generateDownloadOrder(sopList.size());
     GuiExecutor.execute(
         () -> {
@@ -530,21 +516,172 @@ private Boolean startDownload() {
       String url = request.toString();
 
       LOGGER.debug("Download DICOM instance {} index {}.", url, k);
-      Download ref = new Download(url);
+      Download ref = new Download(url, instance.getSopInstanceUID());
       tasks.add(ref);
     }
 
+    dicomSeries.setTag(DOWNLOAD_START_TIME, System.currentTimeMillis());
+    String seriesURL = getSeriesRetrieveURL(wado, tasks.size(), sopList.size());
+    if (seriesURL != null) {
+      Map<String, Download> pending = new ConcurrentHashMap<>();
+      tasks.forEach(d -> pending.put(d.sopInstanceUID, d));
+      downloadSeries(seriesURL, pending);
+      // Fall back to the instance level for the instances not received
+      tasks.removeIf(d -> !pending.containsKey(d.sopInstanceUID));
+      if (!tasks.isEmpty() && !isCancelled()) {
+        LOGGER.info("Download {} missing instances of {} one by one", tasks.size(), seriesURL);
+      }
+    }
+
     try {
-      dicomSeries.setTag(DOWNLOAD_START_TIME, System.currentTimeMillis());
-      imageDownloader.invokeAll(tasks);
+      if (!isCancelled()) {
+        // Shared with the other series according to their priority
+        ImageDownloadScheduler.getInstance().invokeAll(this, tasks, d -> d.url);
+      }
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
     }
+    return true;
+  }
+
+  /**
+   * @return the WADO-RS URL for retrieving the whole series in a single request, or null when the
+   *     instances must be downloaded one by one
+   */
+  private String getSeriesRetrieveURL(WadoParameters wado, int nbMissing, int nbInstances) {
+    if (!wado.isWadoRS()
+        || wado.getOverrideDicomTagIDList() != null
+        || nbMissing < 2
+        // Not worth it when most of the instances are already loaded
+        || nbMissing * 2 < nbInstances) {
+      return null;
+    }
+    String url = TagD.getTagValue(dicomSeries, Tag.RetrieveURL, String.class);
+    return StringUtil.hasText(url) ? url + wado.getAdditionnalParameters() : null;
+  }
+
+  /**
+   * Retrieves all the instances of the series with a single WADO-RS request. The parts of the
+   * multipart response are streamed into the file cache, and each instance is added to the model
+   * as soon as its part has been received while the next parts are still downloading.
+   *
+   * <p>The request takes one connection of the {@link ImageDownloadScheduler} for the whole
+   * response, and the received instances are imported by the {@link DicomModel#LOADING_EXECUTOR}
+   * so they do not take the connections of the other downloads.
+   *
+   * @param url the WADO-RS URL of the series
+   * @param pending the downloads of the missing instances by SOPInstanceUID. The instances
+   *     received are removed from the map.
+   */
+  private void downloadSeries(String url, Map<String, Download> pending) {
+    LOGGER.debug("Download the {} instances of the series {}", pending.size(), url);
+    List<Future<?>> imports = new CopyOnWriteArrayList<>();
+    Future<?> download =
+        ImageDownloadScheduler.getInstance()
+            .submit(
+                this,
+                url,
+                () -> {
+                  readMultipartSeries(url, pending, imports);
+                  return null;
+                });
+    try {
+      download.get();
+    } catch (InterruptedException e) {
+      download.cancel(true);
+      Thread.currentThread().interrupt();
+      return;
+    } catch (CancellationException | ExecutionException e) {
+      LOGGER.error("Downloading the series {}", url, e);
+    }
+
+    for (Future<?> f : imports) {
+      try {
+        f.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ExecutionException e) {
+        LOGGER.error("Adding an instance of {}", url, e.getCause());
+      }
+    }
+  }
+
+  private void readMultipartSeries(
+      String url, Map<String, Download> pending, List<Future<?>> imports) {
+    try (HttpResponse response = NetworkUtil.getPooledHttpResponse(url, urlParams, authMethod)) {
+      int code = response.getResponseCode();
+      if (code >= HttpURLConnection.HTTP_BAD_REQUEST) {
+        if (authMethod != null && code == HttpURLConnection.HTTP_UNAUTHORIZED) {
+          authMethod.resetToken();
+          authMethod.getToken();
+        }
+        LOGGER.warn("Cannot retrieve the series {}, response code of server: {}", url, code);
+        return;
+      }
+      GuiExecutor.execute(() -> progressBar.setIndeterminate(false));
+      Multipart.Handler handler =
+          (multipartReader, partNumber, headers) -> {
+            File tempFile = File.createTempFile("image_", ".dcm", getDicomTmpDir());
+            int bytesTransferred;
+            try (InputStream in = multipartReader.newPartInputStream()) {
+              bytesTransferred =
+                  FileUtil.writeStream(
+                      new SeriesProgressMonitor(dicomSeries, in), tempFile, false);
+            }
+            if (bytesTransferred != -1) {
+              FileUtil.delete(tempFile);
+              throw new InterruptedIOException("Stop downloading the series");
+            }
+            imports.add(DicomModel.LOADING_EXECUTOR.submit(() -> importPart(tempFile, pending)));
+          };
+      Multipart.parseMultipartRelated(getContentType(response), response.getInputStream(), handler);
+    } catch (InterruptedIOException e) {
+      LOGGER.info("Downloading of the series {} has been interrupted", url);
+    } catch (Exception e) {
+      LOGGER.error("Downloading the series {}", url, e);
+    }
+  }
 
-    imageDownloader.shutdown();
+  private boolean importPart(File tempFile, Map<String, Download> pending) {
+    File file = new File(DICOM_CACHE_DIR, tempFile.getName());
+    if (!tempFile.renameTo(file)) {
+      file = tempFile;
+    }
+    DicomMediaIO dicomReader = new DicomMediaIO(file);
+    String sopUID = TagD.getTagValue(dicomReader, Tag.SOPInstanceUID, String.class);
+    Download download = sopUID == null ? null : pending.remove(sopUID);
+    if (download == null) {
+      // Not readable (downloaded again at the instance level) or already in the series
+      FileUtil.delete(file);
+      return false;
+    }
+    download.updateSeriesMetadata(dicomReader);
+    download.complete(dicomReader, file);
+    incrementProgressBarValue();
     return true;
   }
 
+  private static String getContentType(HttpResponse response) {
+    if (response instanceof ClosableURLConnection urlConnection) {
+      return urlConnection.getUrlConnection().getContentType();
+    }
+    if (response instanceof AuthResponse authResponse) {
+      return authResponse.getResponse().getHeader("Content-Type"); // NON-NLS
+    }
+    // Response of the shared HTTP client
+    return response.getHeaderField("Content-Type"); // NON-NLS
+  }
+
+  // Solves missing tmp folder problem (on Windows).
+  private static File getDicomTmpDir() {
+    if (!DICOM_TMP_DIR.exists()) {
+      LOGGER.info("DICOM tmp dir not found. Re-creating it!");
+      AppProperties.buildAccessibleTempDirectory("downloading"); // NON-NLS
+    }
+    return DICOM_TMP_DIR;
+  }
+
   private static Map<String, String> getHttpTags(WadoParameters wadoParams) {
     boolean hasWadoTags = wadoParams != null && wadoParams.getHttpTaglist() != null;
     boolean hasWadoLogin = wadoParams != null && wadoParams.getWebLogin() != null;
@@ -801,10 +938,12 @@ private int[] generateDownloadOrder(final int size) {
   class Download implements Callable<Boolean> {
 
     private final String url; // download URL
+    private final String sopInstanceUID;
     private Status status; // current status of download
 
-    public Download(String url) {
+    public Download(String url, String sopInstanceUID) {
       this.url = url;
+      this.sopInstanceUID = sopInstanceUID;
       this.status = Status.DOWNLOADING;
     }
 
@@ -847,21 +986,12 @@ public Boolean call() {
       return Boolean.TRUE;
     }
 
-    // Solves missing tmp folder problem (on Windows).
-    private File getDicomTmpDir() {
-      if (!DICOM_TMP_DIR.exists()) {
-        LOGGER.info("DICOM tmp dir not found. Re-creating it!");
-        AppProperties.buildAccessibleTempDirectory("downloading"); // NON-NLS
-      }
-      return DICOM_TMP_DIR;
-    }
-
     /** Download file. */
     private boolean process() throws IOException, URISyntaxException {
       boolean cache = true;
       File tempFile = null;
       DicomMediaIO dicomReader = null;
-      HttpResponse urlcon = NetworkUtil.getHttpResponse(url, urlParams, authMethod);
+      HttpResponse urlcon = NetworkUtil.getPooledHttpResponse(url, urlParams, authMethod);
       int code = urlcon.getResponseCode();
       if (code >= HttpURLConnection.HTTP_BAD_REQUEST) {
         if (authMethod != null && code == HttpURLConnection.HTTP_UNAUTHORIZED) {
@@ -904,31 +1034,39 @@ private boolean process() throws IOException, URISyntaxException {
           FileUtil.safeClose(stream);
 
           dicomReader = new DicomMediaIO(tempFile);
-          if (dicomReader.isReadableDicom() && dicomSeries.size(null) == 0) {
-            // Override the group (patient, study and series) by the dicom fields except the UID of
-            // the group
-            MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
-            dicomReader.writeMetaData(patient);
-            MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
-            dicomReader.writeMetaData(study);
-            dicomReader.writeMetaData(dicomSeries);
-            GuiExecutor.invokeAndWait(
-                () -> {
-                  Thumbnail thumb = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
-                  if (thumb != null) {
-                    thumb.repaint();
-                  }
-                  dicomModel.firePropertyChange(
-                      new ObservableEvent(
-                          ObservableEvent.BasicAction.UPDATE_PARENT,
-                          dicomModel,
-                          null,
-                          dicomSeries));
-                });
-          }
+          updateSeriesMetadata(dicomReader);
         }
       }
 
+      complete(dicomReader, tempFile);
+      // Increment progress bar in EDT and repaint when downloaded
+      incrementProgressBarValue();
+      return true;
+    }
+
+    private void updateSeriesMetadata(DicomMediaIO dicomReader) {
+      if (dicomReader.isReadableDicom() && dicomSeries.size(null) == 0) {
+        // Override the group (patient, study and series) by the dicom fields except the UID of
+        // the group
+        MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
+        dicomReader.writeMetaData(patient);
+        MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
+        dicomReader.writeMetaData(study);
+        dicomReader.writeMetaData(dicomSeries);
+        GuiExecutor.invokeAndWait(
+            () -> {
+              Thumbnail thumb = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
+              if (thumb != null) {
+                thumb.repaint();
+              }
+              dicomModel.firePropertyChange(
+                  new ObservableEvent(
+                      ObservableEvent.BasicAction.UPDATE_PARENT, dicomModel, null, dicomSeries));
+            });
+      }
+    }
+
+    private void complete(DicomMediaIO dicomReader, File tempFile) {
       // Change status to complete if this point was reached because downloading has finished.
       if (status == Status.DOWNLOADING) {
         status = Status.COMPLETE;
@@ -938,18 +1076,14 @@ private boolean process() throws IOException, URISyntaxException {
             if (tempFile.getPath().startsWith(AppProperties.APP_TEMP_DIR.getPath())) {
               dicomReader.getFileCache().setOriginalTempFile(tempFile);
             }
-            final DicomMediaIO reader = dicomReader;
             // Necessary to wait the runnable because the dicomSeries must be added to the
             // dicomModel before reaching done() of SwingWorker
-            GuiExecutor.invokeAndWait(() -> updateUI(reader));
+            GuiExecutor.invokeAndWait(() -> updateUI(dicomReader));
           } else if (reading == Reading.ERROR) {
             errors.incrementAndGet();
           }
         }
       }
-      // Increment progress bar in EDT and repaint when downloaded
-      incrementProgressBarValue();
-      return true;
     }
 
     private int downloadInFileCache(HttpResponse response, File tempFile) throws IOException {
@@ -975,18 +1109,8 @@ private int downloadInFileCache(HttpResponse response, File tempFile) throws IOE
                 }
               };
 
-          if (response instanceof ClosableURLConnection urlConnection) {
-            Multipart.parseMultipartRelated(
-                urlConnection.getUrlConnection().getContentType(),
-                response.getInputStream(),
-                handler);
-          } else {
-            AuthResponse authResponse = (AuthResponse) response;
-            Multipart.parseMultipartRelated(
-                authResponse.getResponse().getHeader("Content-Type"), // NON-NLS
-                response.getInputStream(),
-                handler);
-          }
+          Multipart.parseMultipartRelated(
+              getContentType(response), response.getInputStream(), handler);
           bytesTransferred = readBytes[0];
         } else {
           bytesTransferred =
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomInputStream;
+import org.dcm4che3.io.DicomOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.media.data.DecodeScheduler;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.dicom.explorer.DicomFileScanner.ScannedFile;
+
+class DicomFileScannerTest {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DicomFileScannerTest.class);
+
+  @TempDir Path folder;
+
+  /** Writes nbSeries folders of synthetic CT images, each with a sub-folder of images. */
+  static int buildFolder(Path root, int nbSeries, int nbImages) throws IOException {
+    int count = 0;
+    for (int s = 0; s < nbSeries; s++) {
+      String seriesUID = "1.2.826.0.1.3680043.2.1125.1." + s; // NON-NLS
+      Path seriesDir = Files.createDirectories(root.resolve("series" + s).resolve("sub"));
+      for (int i = 0; i < nbImages; i++) {
+        Path dir = i % 2 == 0 ? seriesDir : seriesDir.getParent();
+        writeImage(dir.resolve("IM" + i), seriesUID, seriesUID + "." + i);
+        count++;
+      }
+      // Not DICOM files
+      Files.writeString(seriesDir.resolve("README.txt"), "not DICOM"); // NON-NLS
+    }
+    return count;
+  }
+
+  static void writeImage(Path path, String seriesUID, String sopUID) throws IOException {
+    Attributes dcm = new Attributes();
+    dcm.setString(Tag.SOPClassUID, VR.UI, UID.CTImageStorage);
+    dcm.setString(Tag.SOPInstanceUID, VR.UI, sopUID);
+    dcm.setString(Tag.StudyInstanceUID, VR.UI, "1.2.826.0.1.3680043.2.1125.0"); // NON-NLS
+    dcm.setString(Tag.SeriesInstanceUID, VR.UI, seriesUID);
+    dcm.setString(Tag.Modality, VR.CS, "CT"); // NON-NLS
+    dcm.setInt(Tag.Rows, VR.US, 64);
+    dcm.setInt(Tag.Columns, VR.US, 64);
+    dcm.setInt(Tag.SamplesPerPixel, VR.US, 1);
+    dcm.setInt(Tag.BitsAllocated, VR.US, 16);
+    dcm.setInt(Tag.BitsStored, VR.US, 12);
+    dcm.setInt(Tag.HighBit, VR.US, 11);
+    dcm.setInt(Tag.PixelRepresentation, VR.US, 0);
+    dcm.setString(Tag.PhotometricInterpretation, VR.CS, "MONOCHROME2"); // NON-NLS
+    dcm.setBytes(Tag.PixelData, VR.OW, new byte[64 * 64 * 2]);
+    Attributes fmi =
+        dcm.createFileMetaInformation(sopUID, UID.CTImageStorage, UID.ExplicitVRLittleEndian);
+    try (DicomOutputStream out = new DicomOutputStream(path.toFile())) {
+      out.writeDataset(fmi, dcm);
+    }
+  }
+
+  /** Reads the header up to the pixel data, as the DICOM reader does. */
+  private static String readSeriesUID(ScannedFile scannedFile) {
+    return readSeriesUID(scannedFile.file());
+  }
+
+  static String readSeriesUID(File file) {
+    try (DicomInputStream in = new DicomInputStream(file)) {
+      return in.readDatasetUntilPixelData().getString(Tag.SeriesInstanceUID);
+    } catch (IOException | RuntimeException e) {
+      // Not a DICOM file
+      return null;
+    }
+  }
+
+  private static List<String> scan(
+      ExecutorService executor, File[] files, boolean recursive, List<Integer> batchSizes) {
+    List<String> results = new ArrayList<>();
+    Thread caller = Thread.currentThread();
+    DicomFileScanner<String> scanner = new DicomFileScanner<>(executor, () -> false, 16);
+    scanner.scan(
+        files,
+        recursive,
+        DicomFileScannerTest::readSeriesUID,
+        batch -> {
+          assertSame(caller, Thread.currentThread());
+          batchSizes.add(batch.size());
+          results.addAll(batch);
+        });
+    return results;
+  }
+
+  @Test
+  void test_scan_folders() throws IOException {
+    int nbFiles = buildFolder(folder, 3, 20);
+    ExecutorService executor = ThreadUtil.buildNewFixedThreadExecutor(4, "Test Scanner");
+    try {
+      List<Integer> batchSizes = new ArrayList<>();
+      List<String> results = scan(executor, new File[] {folder.toFile()}, true, batchSizes);
+      assertEquals(nbFiles, results.size());
+      assertEquals(3, new HashSet<>(results).size());
+      assertTrue(batchSizes.stream().allMatch(s -> s > 0 && s <= 16));
+
+      // The selected folder is walked, not its sub-folders
+      batchSizes.clear();
+      File seriesDir = folder.resolve("series0").toFile();
+      assertEquals(10, scan(executor, new File[] {seriesDir}, false, batchSizes).size());
+      assertEquals(0, scan(executor, new File[] {folder.toFile()}, false, batchSizes).size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void test_sibling() throws IOException {
+    Path image = folder.resolve("IM0");
+    writeImage(image, "1.2.3", "1.2.3.1"); // NON-NLS
+    Files.writeString(folder.resolve("IM0.xml"), "<xml/>"); // NON-NLS
+
+    ScannedFile unknownFolder = new ScannedFile(image.toFile(), null);
+    assertTrue(unknownFolder.hasSibling("IM0.xml"));
+    assertFalse(unknownFolder.hasSibling("IM1.xml"));
+    ScannedFile knownFolder = new ScannedFile(image.toFile(), Set.of("IM0", "IM0.xml"));
+    assertTrue(knownFolder.hasSibling("IM0.xml"));
+    assertFalse(knownFolder.hasSibling("IM1.xml"));
+  }
+
+  @Test
+  void test_cancel() throws IOException {
+    buildFolder(folder, 2, 50);
+    AtomicBoolean cancelled = new AtomicBoolean();
+    AtomicInteger parsed = new AtomicInteger();
+    ExecutorService executor = ThreadUtil.buildNewFixedThreadExecutor(2, "Test Scanner");
+    try {
+      DicomFileScanner<String> scanner = new DicomFileScanner<>(executor, cancelled::get, 16);
+      scanner.scan(
+          new File[] {folder.toFile()},
+          true,
+          f -> {
+            if (parsed.incrementAndGet() == 10) {
+              cancelled.set(true);
+            }
+            return readSeriesUID(f);
+          },
+          _ -> {});
+      assertTrue(parsed.get() < 100);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /** Compares the throughput of one worker with the default pool over a generated folder. */
+  @Test
+  @org.junit.jupiter.api.Tag("benchmark")
+  void test_throughput() throws IOException {
+    int nbFiles = buildFolder(folder, 10, 200);
+    File[] selection = {folder.toFile()};
+    int[] threads = {1, DecodeScheduler.getDefaultThreadNumber()};
+    for (int nbThreads : threads) {
+      ExecutorService executor = ThreadUtil.buildNewFixedThreadExecutor(nbThreads, "Benchmark");
+      try {
+        long start = System.nanoTime();
+        List<String> results = scan(executor, selection, true, new ArrayList<>());
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        assertEquals(nbFiles, results.size());
+        LOGGER.info(
+            "{} files scanned with {} threads: {} files/s",
+            nbFiles,
+            nbThreads,
+            nbFiles * 1_000_000_000L / elapsed);
+      } finally {
+        executor.shutdown();
+      }
+    }
+  }
+}
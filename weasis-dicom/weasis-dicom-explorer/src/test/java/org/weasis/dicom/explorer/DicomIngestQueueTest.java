@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class DicomIngestQueueTest {
+
+  @Test
+  void test_count_bound() {
+    List<File[]> batches = new CopyOnWriteArrayList<>();
+    DicomIngestQueue queue = new DicomIngestQueue(batches::add, 3, 60_000);
+    for (int i = 0; i < 7; i++) {
+      queue.add(new File("IM" + i));
+    }
+    assertEquals(2, batches.size());
+    assertEquals(3, batches.get(0).length);
+    assertEquals(new File("IM3"), batches.get(1)[0]);
+
+    queue.flush();
+    assertEquals(3, batches.size());
+    assertEquals(new File("IM6"), batches.get(2)[0]);
+    // Nothing left to load
+    queue.flush();
+    assertEquals(3, batches.size());
+  }
+
+  @Test
+  void test_time_bound() throws InterruptedException {
+    CountDownLatch loaded = new CountDownLatch(1);
+    List<File[]> batches = new CopyOnWriteArrayList<>();
+    DicomIngestQueue queue =
+        new DicomIngestQueue(
+            files -> {
+              batches.add(files);
+              loaded.countDown();
+            },
+            100,
+            20);
+    queue.add(new File("IM0"));
+    queue.add(new File("IM1"));
+    assertTrue(loaded.await(5, TimeUnit.SECONDS));
+    assertEquals(1, batches.size());
+    assertEquals(2, batches.getFirst().length);
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.dcm4che3.data.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.media.data.MediaSeriesGroup;
+import org.weasis.core.api.media.data.MediaSeriesGroupNode;
+import org.weasis.core.api.media.data.Series;
+import org.weasis.core.api.media.data.TagW;
+import org.weasis.dicom.codec.DcmMediaReader;
+import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.codec.DicomSeries;
+import org.weasis.dicom.codec.TagD;
+import org.weasis.dicom.codec.TagD.Level;
+
+class DicomModelTest {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DicomModelTest.class);
+
+  private static final String STUDY_UID = "1.2.826.0.1.3680043.2.1125.1"; // NON-NLS
+
+  private static String seriesUID(int series) {
+    return STUDY_UID + "." + series;
+  }
+
+  private static String sopUID(int series, int instance) {
+    return seriesUID(series) + "." + instance;
+  }
+
+  /** Builds a split series of the images from {@code first} to {@code last} (exclusive). */
+  private static DicomSeries buildSeries(int series, int split, int first, int last) {
+    String uid = seriesUID(series);
+    DicomSeries dicomSeries = new DicomSeries(uid + "_" + split); // NON-NLS
+    dicomSeries.setTag(TagD.get(Tag.SeriesInstanceUID), uid);
+    DcmMediaReader reader = Mockito.mock(DcmMediaReader.class);
+    Mockito.when(reader.getMediaFragmentTags(Mockito.any()))
+        .thenAnswer(
+            invocation -> {
+              int instance = (Integer) invocation.getArgument(0);
+              Map<TagW, Object> tags = new HashMap<>();
+              tags.put(TagD.get(Tag.SOPInstanceUID), sopUID(series, instance));
+              tags.put(TagD.get(Tag.InstanceNumber), instance);
+              return tags;
+            });
+    for (int i = first; i < last; i++) {
+      dicomSeries.addMedia(new DicomImageElement(reader, i));
+    }
+    return dicomSeries;
+  }
+
+  private static MediaSeriesGroup buildStudy(DicomModel model) {
+    MediaSeriesGroup pt =
+        new MediaSeriesGroupNode(TagW.PatientPseudoUID, "PT1", DicomModel.patient.tagView());
+    model.addHierarchyNode(MediaSeriesGroupNode.rootNode, pt);
+    MediaSeriesGroup st =
+        new MediaSeriesGroupNode(TagD.getUID(Level.STUDY), STUDY_UID, DicomModel.study.tagView());
+    model.addHierarchyNode(pt, st);
+    return st;
+  }
+
+  @Test
+  void test_split_series_instances() {
+    DicomModel model = new DicomModel();
+    MediaSeriesGroup st = buildStudy(model);
+    DicomSeries first = buildSeries(1, 1, 0, 10);
+    DicomSeries second = buildSeries(1, 2, 10, 20);
+    model.addHierarchyNode(st, first);
+    model.addHierarchyNode(st, second);
+
+    assertEquals(2, model.getAllSeriesNodes(seriesUID(1)).size());
+    assertTrue(model.hasSopInstance(seriesUID(1), sopUID(1, 0)));
+    assertTrue(model.hasSopInstance(seriesUID(1), sopUID(1, 19)));
+    assertFalse(model.hasSopInstance(seriesUID(1), sopUID(1, 20)));
+    assertFalse(model.hasSopInstance(seriesUID(2), sopUID(1, 0)));
+    assertFalse(model.hasSopInstance(null, sopUID(1, 0)));
+
+    // The instances of a removed split series are no longer loaded
+    model.removeHierarchyNode(st, second);
+    assertTrue(model.hasSopInstance(seriesUID(1), sopUID(1, 9)));
+    assertFalse(model.hasSopInstance(seriesUID(1), sopUID(1, 10)));
+
+    model.removeHierarchyNode(st, first);
+    assertFalse(model.hasSopInstance(seriesUID(1), sopUID(1, 0)));
+    assertTrue(model.getAllSeriesNodes(seriesUID(1)).isEmpty());
+  }
+
+  /**
+   * Compares the "instance already loaded" check of 20,000 instances with the index and with a
+   * scan of the medias of the series nodes, as before the index.
+   */
+  @Test
+  @org.junit.jupiter.api.Tag("benchmark")
+  void test_instance_lookup_throughput() {
+    int nbSeries = 20;
+    int nbInstances = 1000;
+    DicomModel model = new DicomModel();
+    MediaSeriesGroup st = buildStudy(model);
+    for (int s = 0; s < nbSeries; s++) {
+      // Two split series by SeriesInstanceUID
+      model.addHierarchyNode(st, buildSeries(s, 1, 0, nbInstances / 2));
+      model.addHierarchyNode(st, buildSeries(s, 2, nbInstances / 2, nbInstances));
+    }
+
+    Random random = new Random(3);
+    int nbLookups = 20_000;
+    int[][] lookups = new int[nbLookups][];
+    for (int i = 0; i < nbLookups; i++) {
+      // A quarter of the instances are not loaded
+      lookups[i] =
+          new int[] {random.nextInt(nbSeries), random.nextInt(nbInstances + nbInstances / 3)};
+    }
+
+    TagW sopTag = TagD.getUID(Level.INSTANCE);
+    long start = System.nanoTime();
+    int scanFound = 0;
+    for (int[] l : lookups) {
+      String sopUID = sopUID(l[0], l[1]);
+      List<MediaSeriesGroup> nodes = new ArrayList<>(model.getChildren(st));
+      for (MediaSeriesGroup node : nodes) {
+        if (seriesUID(l[0]).equals(TagD.getTagValue(node, Tag.SeriesInstanceUID))
+            && node instanceof Series<?> s
+            && s.hasMediaContains(sopTag, sopUID)) {
+          scanFound++;
+          break;
+        }
+      }
+    }
+    long byScan = Math.max(1, System.nanoTime() - start);
+
+    start = System.nanoTime();
+    int indexFound = 0;
+    for (int[] l : lookups) {
+      if (model.hasSopInstance(seriesUID(l[0]), sopUID(l[0], l[1]))) {
+        indexFound++;
+      }
+    }
+    long byIndex = Math.max(1, System.nanoTime() - start);
+
+    assertEquals(scanFound, indexFound);
+    assertTrue(indexFound > 0 && indexFound < nbLookups);
+    LOGGER.info(
+        "{} instance lookups in {} instances: {} ms with a scan of the series, {} ms with the"
+            + " index",
+        nbLookups,
+        nbSeries * nbInstances,
+        byScan / 1_000_000,
+        byIndex / 1_000_000);
+  }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opencv.osgi.OpenCVNativeLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.media.data.DecodeScheduler;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.codec.DicomMediaIO;
+import org.weasis.dicom.explorer.LocalExport.Format;
+
+class ExportPipelineTest {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExportPipelineTest.class);
+
+  @TempDir Path folder;
+
+  @Test
+  void test_ordered_and_bounded() throws Exception {
+    ExecutorService executor = ThreadUtil.buildNewFixedThreadExecutor(4, "Export Test");
+    try {
+      AtomicInteger running = new AtomicInteger();
+      AtomicInteger maxRunning = new AtomicInteger();
+      List<Integer> completed = new ArrayList<>();
+      ExportPipeline pipeline = new ExportPipeline(executor, () -> false, 3);
+      for (int i = 0; i < 50; i++) {
+        int index = i;
+        assertTrue(
+            pipeline.submit(
+                index,
+                () -> {
+                  maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                  // Random durations, the items finish out of order
+                  Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+                  running.decrementAndGet();
+                  if (index == 7) {
+                    throw new IOException("Cannot write");
+                  }
+                  return index;
+                },
+                completed::add));
+      }
+      assertTrue(pipeline.finish());
+
+      // In the order of submission, without the failed item
+      assertEquals(49, completed.size());
+      assertFalse(completed.contains(7));
+      for (int i = 1; i < completed.size(); i++) {
+        assertTrue(completed.get(i - 1) < completed.get(i));
+      }
+      // Back-pressure: never more items in progress than the limit
+      assertTrue(maxRunning.get() <= 3);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void test_cancel() throws Exception {
+    ExecutorService executor = ThreadUtil.buildNewFixedThreadExecutor(2, "Export Test");
+    try {
+      AtomicBoolean cancelled = new AtomicBoolean();
+      AtomicInteger done = new AtomicInteger();
+      AtomicInteger completed = new AtomicInteger();
+      ExportPipeline pipeline = new ExportPipeline(executor, cancelled::get, 4);
+      int submitted = 0;
+      for (int i = 0; i < 100; i++) {
+        if (i == 10) {
+          cancelled.set(true);
+        }
+        if (!pipeline.submit(
+            i,
+            () -> {
+              Thread.sleep(1);
+              return done.incrementAndGet();
+            },
+            _ -> completed.incrementAndGet())) {
+          break;
+        }
+        submitted++;
+      }
+      assertEquals(10, submitted);
+      assertFalse(pipeline.finish());
+      // Nothing runs after the end of the export
+      int count = done.get();
+      Thread.sleep(20);
+      assertEquals(count, done.get());
+      assertTrue(completed.get() <= 10);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static boolean loadOpenCV() {
+    try {
+      new OpenCVNativeLoader().init();
+      return true;
+    } catch (Throwable e) {
+      LOGGER.warn("Cannot load the native OpenCV library: {}", e.getMessage());
+      return false;
+    }
+  }
+
+  /** Generates a series of 16-bit CT images with a smooth content. */
+  private static List<File> writeSeries(Path dir, int nbImages, int size) throws IOException {
+    String seriesUID = "1.2.826.0.1.3680043.2.1125.3"; // NON-NLS
+    Random random = new Random(42);
+    List<File> files = new ArrayList<>(nbImages);
+    for (int i = 0; i < nbImages; i++) {
+      byte[] pixels = new byte[size * size * 2];
+      for (int y = 0; y < size; y++) {
+        for (int x = 0; x < size; x++) {
+          int dx = x - size / 2;
+          int dy = y - size / 2;
+          int val = (dx * dx + dy * dy < size * size / 5 ? 1000 : 0) + i + random.nextInt(16);
+          int index = (y * size + x) * 2;
+          pixels[index] = (byte) val;
+          pixels[index + 1] = (byte) (val >> 8);
+        }
+      }
+      String sopUID = seriesUID + "." + (i + 1);
+      Attributes dcm = new Attributes();
+      dcm.setString(Tag.SOPClassUID, VR.UI, UID.CTImageStorage);
+      dcm.setString(Tag.SOPInstanceUID, VR.UI, sopUID);
+      dcm.setString(Tag.StudyInstanceUID, VR.UI, "1.2.826.0.1.3680043.2.1125.0"); // NON-NLS
+      dcm.setString(Tag.SeriesInstanceUID, VR.UI, seriesUID);
+      dcm.setString(Tag.Modality, VR.CS, "CT"); // NON-NLS
+      dcm.setInt(Tag.InstanceNumber, VR.IS, i + 1);
+      dcm.setInt(Tag.Rows, VR.US, size);
+      dcm.setInt(Tag.Columns, VR.US, size);
+      dcm.setInt(Tag.SamplesPerPixel, VR.US, 1);
+      dcm.setInt(Tag.BitsAllocated, VR.US, 16);
+      dcm.setInt(Tag.BitsStored, VR.US, 12);
+      dcm.setInt(Tag.HighBit, VR.US, 11);
+      dcm.setInt(Tag.PixelRepresentation, VR.US, 0);
+      dcm.setString(Tag.PhotometricInterpretation, VR.CS, "MONOCHROME2"); // NON-NLS
+      dcm.setString(Tag.WindowCenter, VR.DS, "500");
+      dcm.setString(Tag.WindowWidth, VR.DS, "1200");
+      dcm.setBytes(Tag.PixelData, VR.OW, pixels);
+      Attributes fmi =
+          dcm.createFileMetaInformation(sopUID, UID.CTImageStorage, UID.ExplicitVRLittleEndian);
+      File file = dir.resolve("IM" + i).toFile();
+      try (DicomOutputStream out = new DicomOutputStream(file)) {
+        out.writeDataset(fmi, dcm);
+      }
+      files.add(file);
+    }
+    return files;
+  }
+
+  /**
+   * Compares the throughput of the JPEG export (decoding, window/level and encoding) of a generated
+   * series with one worker and with the default pool.
+   */
+  @Test
+  @org.junit.jupiter.api.Tag("benchmark")
+  void test_throughput() throws Exception {
+    assumeTrue(loadOpenCV(), "Native OpenCV is not available"); // NON-NLS
+    List<File> series = writeSeries(Files.createDirectories(folder.resolve("dicom")), 120, 512);
+    int[] threads = {1, DecodeScheduler.getDefaultThreadNumber()};
+    for (int nbThreads : threads) {
+      ExecutorService executor = ThreadUtil.buildNewFixedThreadExecutor(nbThreads, "Benchmark");
+      List<DicomMediaIO> readers = new ArrayList<>();
+      try {
+        Path dir = Files.createDirectories(folder.resolve("export" + nbThreads));
+        List<File> written = new ArrayList<>();
+        ExportPipeline pipeline = new ExportPipeline(executor, () -> false, 2 * nbThreads);
+        long start = System.nanoTime();
+        for (int i = 0; i < series.size(); i++) {
+          DicomMediaIO reader = new DicomMediaIO(series.get(i));
+          readers.add(reader);
+          DicomImageElement img = reader.getMediaElement()[0];
+          File file = dir.resolve(String.format("IM%05d.jpg", i)).toFile(); // NON-NLS
+          pipeline.submit(
+              img,
+              () ->
+                  LocalExport.writeImage(img, file, Format.JPEG, 80, false, true, true, false)
+                      ? file
+                      : null,
+              written::add);
+        }
+        assertTrue(pipeline.finish());
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        assertEquals(series.size(), written.size());
+        assertTrue(written.getFirst().length() > 0);
+        // The export does not fill the image cache
+        for (DicomMediaIO reader : readers) {
+          assertFalse(reader.getMediaElement()[0].isImageInCache());
+        }
+        LOGGER.info(
+            "{} images exported with {} threads: {} images/s",
+            series.size(),
+            nbThreads,
+            series.size() * 1_000_000_000L / elapsed);
+      } finally {
+        executor.shutdown();
+        readers.forEach(DicomMediaIO::close);
+      }
+    }
+  }
+}
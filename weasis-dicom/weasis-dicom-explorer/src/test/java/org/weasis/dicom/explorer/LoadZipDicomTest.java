@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import net.lingala.zip4j.ZipFile;
+import net.lingala.zip4j.model.FileHeader;
+import net.lingala.zip4j.model.ZipParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.media.data.DecodeScheduler;
+import org.weasis.core.api.util.ThreadUtil;
+
+class LoadZipDicomTest {
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadZipDicomTest.class);
+
+  @TempDir Path folder;
+
+  private File buildZip(int nbSeries, int nbImages) throws IOException {
+    Path source = Files.createDirectories(folder.resolve("source"));
+    DicomFileScannerTest.buildFolder(source, nbSeries, nbImages);
+    File zip = folder.resolve("study.zip").toFile();
+    try (ZipFile zipFile = new ZipFile(zip)) {
+      zipFile.addFolder(source.toFile(), new ZipParameters());
+    }
+    return zip;
+  }
+
+  @Test
+  void test_extract_entry() throws IOException {
+    File zip = buildZip(1, 4);
+    File dir = Files.createDirectories(folder.resolve("out")).toFile();
+    try (ZipFile zipFile = new ZipFile(zip)) {
+      FileHeader header =
+          zipFile.getFileHeaders().stream()
+              .filter(h -> h.getFileName().endsWith("IM0"))
+              .findFirst()
+              .orElseThrow();
+      File file = LoadZipDicom.extractEntry(zipFile, header, dir);
+      assertTrue(file.toPath().startsWith(dir.toPath()));
+      assertEquals(
+          "1.2.826.0.1.3680043.2.1125.1.0", // NON-NLS
+          DicomFileScannerTest.readSeriesUID(file));
+
+      // An entry cannot be written outside the target folder
+      header.setFileName("../outside"); // NON-NLS
+      assertThrows(IOException.class, () -> LoadZipDicom.extractEntry(zipFile, header, dir));
+    }
+  }
+
+  /**
+   * Compares the time to the first parsed files when the entries are streamed, with the time when
+   * the whole archive is extracted before scanning the folder.
+   */
+  @Test
+  @org.junit.jupiter.api.Tag("benchmark")
+  void test_time_to_first_batch() throws IOException {
+    File zip = buildZip(10, 200);
+    ExecutorService executor =
+        ThreadUtil.buildNewFixedThreadExecutor(
+            DecodeScheduler.getDefaultThreadNumber(), "Benchmark"); // NON-NLS
+    try {
+      long streamStart = System.nanoTime();
+      AtomicLong firstBatch = new AtomicLong();
+      AtomicInteger parsed = new AtomicInteger();
+      AtomicInteger parsedAtFirstBatch = new AtomicInteger(-1);
+      // The last entries wait for the first batch, which must come before the end of the scan
+      CountDownLatch delivered = new CountDownLatch(1);
+      List<String> results = new ArrayList<>();
+      File dir = Files.createDirectories(folder.resolve("streamed")).toFile();
+      try (ZipFile zipFile = new ZipFile(zip)) {
+        List<FileHeader> entries =
+            zipFile.getFileHeaders().stream().filter(h -> !h.isDirectory()).toList();
+        new DicomFileScanner<String>(executor, () -> false, 100)
+            .scan(
+                entries,
+                h -> {
+                  try {
+                    if (parsed.incrementAndGet() > entries.size() - 100) {
+                      delivered.await(10, TimeUnit.SECONDS);
+                    }
+                    return DicomFileScannerTest.readSeriesUID(
+                        LoadZipDicom.extractEntry(zipFile, h, dir));
+                  } catch (IOException e) {
+                    return null;
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                  }
+                },
+                batch -> {
+                  if (firstBatch.compareAndSet(0, System.nanoTime() - streamStart)) {
+                    parsedAtFirstBatch.set(parsed.get());
+                    delivered.countDown();
+                  }
+                  results.addAll(batch);
+                });
+      }
+      long streamed = System.nanoTime() - streamStart;
+      assertEquals(2000, results.size());
+      // The first files are available while the next entries are still being extracted
+      assertTrue(parsedAtFirstBatch.get() > 0);
+      assertTrue(parsedAtFirstBatch.get() < 2000);
+      assertTrue(firstBatch.get() < streamed);
+
+      long start = System.nanoTime();
+      File extracted = Files.createDirectories(folder.resolve("extracted")).toFile();
+      try (ZipFile zipFile = new ZipFile(zip)) {
+        zipFile.extractAll(extracted.getPath());
+      }
+      long extractAll = System.nanoTime() - start;
+      results.clear();
+      new DicomFileScanner<String>(executor, () -> false, 100)
+          .scan(
+              new File[] {extracted},
+              true,
+              f -> DicomFileScannerTest.readSeriesUID(f.file()),
+              results::addAll);
+      assertEquals(2000, results.size());
+
+      LOGGER.info(
+          "Zip of 2000 files: first batch after {} ms and all files after {} ms when streamed,"
+              + " extraction alone takes {} ms",
+          firstBatch.get() / 1_000_000,
+          streamed / 1_000_000,
+          extractAll / 1_000_000);
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
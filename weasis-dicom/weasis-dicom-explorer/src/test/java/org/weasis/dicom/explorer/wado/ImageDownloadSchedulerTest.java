@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer.wado;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class ImageDownloadSchedulerTest {
+
+  private static LoadSeries buildSeries(int priority) {
+    DownloadPriority p = new DownloadPriority(null, null, null, true);
+    p.setPriority(priority);
+    LoadSeries series = Mockito.mock(LoadSeries.class);
+    Mockito.when(series.getPriority()).thenReturn(p);
+    return series;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void waitFor(Future<?> future) throws Exception {
+    future.get(10, TimeUnit.SECONDS);
+  }
+
+  /** The scheduler is updated by the worker after the completion of the future. */
+  private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+    long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < end, "Timeout");
+      Thread.sleep(5);
+    }
+  }
+
+  @Test
+  void test_priority_order() throws Exception {
+    ImageDownloadScheduler scheduler = new ImageDownloadScheduler(1, 1);
+    LoadSeries background = buildSeries(10);
+    LoadSeries other = buildSeries(5);
+    LoadSeries selected = buildSeries(8);
+
+    // Keeps the only connection busy while the other tasks are submitted
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<?> first =
+        scheduler.submit(
+            background,
+            "http://server/first", // NON-NLS
+            () -> {
+              started.countDown();
+              await(release);
+              return null;
+            });
+    await(started);
+
+    List<String> order = new CopyOnWriteArrayList<>();
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      String name = "background" + i; // NON-NLS
+      futures.add(scheduler.submit(background, "http://server/" + name, () -> order.add(name)));
+    }
+    for (int i = 0; i < 2; i++) {
+      String name = "other" + i; // NON-NLS
+      futures.add(scheduler.submit(other, "http://server/" + name, () -> order.add(name)));
+    }
+    for (int i = 0; i < 2; i++) {
+      String name = "selected" + i; // NON-NLS
+      futures.add(scheduler.submit(selected, "http://server/" + name, () -> order.add(name)));
+    }
+    assertEquals(7, scheduler.getQueueSize());
+    assertEquals(1, scheduler.getActiveCount());
+
+    // Selected by the user after the submission
+    selected.getPriority().setPriority(1);
+    release.countDown();
+    waitFor(first);
+    for (Future<?> f : futures) {
+      waitFor(f);
+    }
+    assertEquals(
+        List.of(
+            "selected0", // NON-NLS
+            "selected1", // NON-NLS
+            "other0", // NON-NLS
+            "other1", // NON-NLS
+            "background0", // NON-NLS
+            "background1", // NON-NLS
+            "background2"), // NON-NLS
+        order);
+    assertEquals(0, scheduler.getQueueSize());
+  }
+
+  @Test
+  void test_connections_by_host() throws Exception {
+    ImageDownloadScheduler scheduler = new ImageDownloadScheduler(4, 2);
+    LoadSeries series = buildSeries(1);
+    LoadSeries low = buildSeries(2);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger runningA = new AtomicInteger();
+    AtomicInteger maxRunningA = new AtomicInteger();
+
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      futures.add(
+          scheduler.submit(
+              series,
+              "http://server-a/image" + i, // NON-NLS
+              () -> {
+                maxRunningA.accumulateAndGet(runningA.incrementAndGet(), Math::max);
+                await(release);
+                runningA.decrementAndGet();
+                return null;
+              }));
+    }
+    // A series with a lower priority on another server is not blocked by the limit of server A
+    CountDownLatch otherServer = new CountDownLatch(2);
+    for (int i = 0; i < 2; i++) {
+      futures.add(
+          scheduler.submit(
+              low,
+              "http://server-b/image" + i, // NON-NLS
+              () -> {
+                otherServer.countDown();
+                return null;
+              }));
+    }
+    await(otherServer);
+    assertEquals(2, runningA.get());
+    assertEquals(4, scheduler.getQueueSize());
+
+    release.countDown();
+    for (Future<?> f : futures) {
+      waitFor(f);
+    }
+    assertEquals(2, maxRunningA.get());
+    waitUntil(() -> scheduler.getActiveCount() == 0);
+  }
+
+  @Test
+  void test_cancellation() throws Exception {
+    ImageDownloadScheduler scheduler = new ImageDownloadScheduler(2, 2);
+    LoadSeries series = buildSeries(1);
+    CountDownLatch started = new CountDownLatch(2);
+    AtomicInteger executed = new AtomicInteger();
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      tasks.add(
+          () -> {
+            executed.incrementAndGet();
+            started.countDown();
+            // Blocked until interrupted by the cancellation
+            Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            return null;
+          });
+    }
+
+    // The series is cancelled by interrupting its thread
+    Thread loader =
+        new Thread(
+            () -> {
+              try {
+                scheduler.invokeAll(series, tasks, _ -> "http://server/image"); // NON-NLS
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+    loader.start();
+    await(started);
+    waitUntil(() -> scheduler.getQueueSize() == 8);
+    assertEquals(2, scheduler.getActiveCount());
+    loader.interrupt();
+    loader.join(TimeUnit.SECONDS.toMillis(10));
+    assertFalse(loader.isAlive());
+
+    // The pending tasks are not executed and the connections are given back
+    assertEquals(0, scheduler.getQueueSize());
+    Future<String> next =
+        scheduler.submit(series, "http://server/next", () -> "done"); // NON-NLS
+    assertEquals("done", next.get(10, TimeUnit.SECONDS));
+    assertEquals(2, executed.get());
+
+    // A pending task cancelled before running
+    CountDownLatch release = new CountDownLatch(1);
+    List<Future<?>> running = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      running.add(
+          scheduler.submit(
+              series,
+              "http://server/busy", // NON-NLS
+              () -> {
+                await(release);
+                return null;
+              }));
+    }
+    Future<?> pending = scheduler.submit(series, "http://server/pending", executed::incrementAndGet);
+    assertTrue(pending.cancel(false));
+    release.countDown();
+    for (Future<?> f : running) {
+      waitFor(f);
+    }
+    assertThrows(CancellationException.class, pending::get);
+    waitUntil(() -> scheduler.getQueueSize() == 0);
+    assertEquals(2, executed.get());
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer.wado;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.util.HttpResponse;
+import org.weasis.core.api.util.NetworkUtil;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.core.api.util.URLParameters;
+import org.weasis.core.util.FileUtil;
+import org.weasis.dicom.web.Multipart;
+
+class SeriesRetrieveTest {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SeriesRetrieveTest.class);
+
+  private static final String BOUNDARY = "a1b2c3d4"; // NON-NLS
+  private static final String CONTENT_TYPE =
+      "multipart/related; type=\"application/dicom\"; boundary=" + BOUNDARY; // NON-NLS
+  // Simulated round trip of a request to the archive
+  private static final long LATENCY_MS = 5;
+
+  @TempDir Path folder;
+
+  /** Writes the instances in a WADO-RS multipart response. */
+  private static void sendParts(HttpExchange exchange, List<byte[]> parts) throws IOException {
+    try {
+      Thread.sleep(LATENCY_MS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE); // NON-NLS
+    exchange.sendResponseHeaders(200, 0);
+    try (OutputStream out = exchange.getResponseBody()) {
+      for (byte[] part : parts) {
+        out.write(
+            ("--" + BOUNDARY + "\r\nContent-Type: application/dicom\r\n\r\n") // NON-NLS
+                .getBytes(StandardCharsets.US_ASCII));
+        out.write(part);
+        out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+      }
+      out.write(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII)); // NON-NLS
+    }
+  }
+
+  /** Streams each part of the response into a file, as {@link LoadSeries} does. */
+  private static int receiveParts(String url, Path dir, AtomicLong bytes) throws IOException {
+    int[] count = {0};
+    try (HttpResponse response =
+        NetworkUtil.getPooledHttpResponse(url, new URLParameters(), null)) {
+      Multipart.Handler handler =
+          (multipartReader, _, _) -> {
+            File file = File.createTempFile("image_", ".dcm", dir.toFile()); // NON-NLS
+            try (InputStream in = multipartReader.newPartInputStream()) {
+              if (FileUtil.writeStream(in, file, false) != -1) {
+                throw new IOException("Cannot write " + file);
+              }
+            }
+            bytes.addAndGet(file.length());
+            count[0]++;
+          };
+      Multipart.parseMultipartRelated(
+          response.getHeaderField("Content-Type"), response.getInputStream(), handler);
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+    return count[0];
+  }
+
+  /**
+   * Compares the retrieval of a series from a local stub server with one request per instance
+   * (with the default number of concurrent downloads) and with a single series request.
+   */
+  @Test
+  @org.junit.jupiter.api.Tag("benchmark")
+  void test_series_retrieve_throughput() throws Exception {
+    int nbInstances = 500;
+    Random random = new Random(42);
+    List<byte[]> instances = new ArrayList<>(nbInstances);
+    long totalBytes = 0;
+    for (int i = 0; i < nbInstances; i++) {
+      byte[] data = new byte[128 * 1024 + random.nextInt(1024)];
+      random.nextBytes(data);
+      instances.add(data);
+      totalBytes += data.length;
+    }
+
+    HttpServer server =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    ExecutorService serverExecutor = ThreadUtil.buildNewFixedThreadExecutor(8, "Stub Server");
+    ExecutorService downloads = ThreadUtil.buildNewFixedThreadExecutor(4, "Benchmark");
+    server.setExecutor(serverExecutor);
+    server.createContext(
+        "/instances/", // NON-NLS
+        exchange -> {
+          String path = exchange.getRequestURI().getPath();
+          int index = Integer.parseInt(path.substring(path.lastIndexOf('/') + 1));
+          sendParts(exchange, List.of(instances.get(index)));
+        });
+    server.createContext("/series", exchange -> sendParts(exchange, instances)); // NON-NLS
+    server.start();
+    try {
+      String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort(); // NON-NLS
+
+      // Before: one request by instance
+      Path instanceDir = Files.createDirectories(folder.resolve("instances"));
+      AtomicLong instanceBytes = new AtomicLong();
+      long start = System.nanoTime();
+      List<Future<Integer>> futures = new ArrayList<>(nbInstances);
+      for (int i = 0; i < nbInstances; i++) {
+        String url = baseUrl + "/instances/" + i; // NON-NLS
+        futures.add(downloads.submit(() -> receiveParts(url, instanceDir, instanceBytes)));
+      }
+      int received = 0;
+      for (Future<Integer> f : futures) {
+        received += f.get();
+      }
+      long byInstance = Math.max(1, System.nanoTime() - start);
+      assertEquals(nbInstances, received);
+      assertEquals(totalBytes, instanceBytes.get());
+
+      // After: a single request for the series, the parts are written while they are received
+      Path seriesDir = Files.createDirectories(folder.resolve("series"));
+      AtomicLong seriesBytes = new AtomicLong();
+      start = System.nanoTime();
+      assertEquals(nbInstances, receiveParts(baseUrl + "/series", seriesDir, seriesBytes));
+      long bySeries = Math.max(1, System.nanoTime() - start);
+      assertEquals(totalBytes, seriesBytes.get());
+
+      LOGGER.info(
+          "Retrieve of {} instances: {} instances/s with one request by instance, {} instances/s"
+              + " with a series request",
+          nbInstances,
+          nbInstances * 1_000_000_000L / byInstance,
+          nbInstances * 1_000_000_000L / bySeries);
+    } finally {
+      server.stop(0);
+      serverExecutor.shutdown();
+      downloads.shutdown();
+    }
+  }
+}
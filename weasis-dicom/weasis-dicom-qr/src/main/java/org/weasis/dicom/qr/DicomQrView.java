@@ -89,9 +89,9 @@
 import org.weasis.dicom.codec.TagD;
 import org.weasis.dicom.codec.display.Modality;
 import org.weasis.dicom.explorer.DicomExplorer;
+import org.weasis.dicom.explorer.DicomIngestQueue;
 import org.weasis.dicom.explorer.DicomModel;
 import org.weasis.dicom.explorer.ImportDicom;
-import org.weasis.dicom.explorer.LoadLocalDicom;
 import org.weasis.dicom.explorer.PluginOpeningStrategy;
 import org.weasis.dicom.explorer.pref.node.AbstractDicomNode;
 import org.weasis.dicom.explorer.pref.node.AbstractDicomNode.RetrieveType;
@@ -320,14 +320,13 @@ public DicomQrView() {
       openingStrategy.setFullImportSession(false);
       DataExplorerView dicomView = GuiUtils.getUICore().getExplorerPlugin(DicomExplorer.NAME);
       if (dicomView != null && dicomView.getDataExplorerModel() instanceof DicomModel model) {
+        DicomIngestQueue ingestQueue = new DicomIngestQueue(model, openingStrategy);
         DicomProgress progress = new DicomProgress();
         progress.addProgressListener(
             p -> {
               File current = p.getProcessedFile();
               if (current != null && p.getAttributes() == null) {
-                LoadLocalDicom task =
-                    new LoadLocalDicom(new File[] {current}, false, model, openingStrategy);
-                DicomModel.LOADING_EXECUTOR.execute(task);
+                ingestQueue.add(current);
               }
             });
         dcmListener = new DicomListener(getSessionTempFolder(), progress);
@@ -46,6 +46,7 @@
 import org.weasis.dicom.codec.TagD;
 import org.weasis.dicom.codec.utils.DicomResource;
 import org.weasis.dicom.codec.utils.SeriesInstanceList;
+import org.weasis.dicom.explorer.DicomIngestQueue;
 import org.weasis.dicom.explorer.DicomModel;
 import org.weasis.dicom.explorer.ExplorerTask;
 import org.weasis.dicom.explorer.LoadLocalDicom;
@@ -149,14 +150,12 @@ protected ExplorerTask<Boolean, String> doInBackground() throws Exception {
           }
           tempFolder = DicomQrView.getSessionTempFolder();
           openingStrategy.setFullImportSession(false);
+          DicomIngestQueue ingestQueue = new DicomIngestQueue(explorerDcmModel, openingStrategy);
           progress.addProgressListener(
               p -> {
                 File current = p.getProcessedFile();
                 if (current != null && p.getAttributes() == null) {
-                  LoadLocalDicom task =
-                      new LoadLocalDicom(
-                          new File[] {current}, false, explorerDcmModel, openingStrategy);
-                  DicomModel.LOADING_EXECUTOR.execute(task);
+                  ingestQueue.add(current);
                 }
               });
           state =
@@ -168,6 +167,7 @@ protected ExplorerTask<Boolean, String> doInBackground() throws Exception {
                   tempFolder,
                   url,
                   dcmParams);
+          ingestQueue.flush();
         } else if (RetrieveType.CMOVE == type) {
           DicomListener dicomListener = dicomQrView.getDicomListener();
           try {
@@ -36,6 +36,7 @@
 import org.weasis.dicom.codec.*;
 import org.weasis.dicom.codec.geometry.GeometryOfSlice;
 import org.weasis.opencv.data.ImageCV;
+import org.weasis.opencv.data.PlanarImage;
 import org.weasis.opencv.op.ImageConversion;
 import org.weasis.opencv.seg.Segment;
 
@@ -45,7 +46,11 @@
  */
 public class Dose extends RtSpecialElement implements SpecialElementRegion {
   private static final Logger LOGGER = LoggerFactory.getLogger(Dose.class);
-  private final Map<String, Map<String, Set<SegContour>>> refMap = new HashMap<>();
+  private final IsoDoseContourCache isoDoseContours =
+      new IsoDoseContourCache(this::buildIsoDoseContours);
+  private volatile List<IsoDoseRegion> contourRegions = List.of();
+  private volatile RtSet rtSet;
+  private volatile String imageSeriesUID;
 
   private volatile float opacity = 1.0f;
   private volatile boolean visible = false;
@@ -213,8 +218,45 @@ public Map<Integer, Dvh> getDvhMap() {
     return dvhMap;
   }
 
+  /** The isodose contours are built per slice, see {@link #getContours(DicomImageElement)}. */
+  @Override
   public Map<String, Map<String, Set<SegContour>>> getRefMap() {
-    return refMap;
+    return Map.of();
+  }
+
+  @Override
+  public boolean containsSopInstanceUIDReference(DicomImageElement img) {
+    if (img == null || rtSet == null) {
+      return false;
+    }
+    String seriesUID = TagD.getTagValue(img, Tag.SeriesInstanceUID, String.class);
+    return Objects.equals(seriesUID, imageSeriesUID)
+        && isoDoseContours.hasSlice(getSlicePosition(img));
+  }
+
+  /**
+   * Returns the isodose contours of an image of the grid. They are built when the slice is
+   * displayed for the first time and the neighbouring slices are prepared in the background.
+   */
+  @Override
+  public Collection<SegContour> getContours(DicomImageElement img) {
+    if (!containsSopInstanceUIDReference(img)) {
+      return Collections.emptyList();
+    }
+    return isoDoseContours.getContours(getSlicePosition(img));
+  }
+
+  @Override
+  public Collection<SegContour> getContoursWithoutCaching(DicomImageElement img) {
+    if (!containsSopInstanceUIDReference(img)) {
+      return Collections.emptyList();
+    }
+    return isoDoseContours.getContoursWithoutCaching(getSlicePosition(img));
+  }
+
+  private static KeyDouble getSlicePosition(DicomImageElement img) {
+    GeometryOfSlice geometry = img.getSliceGeometry();
+    return geometry == null ? null : new KeyDouble(geometry.getTLHC().z);
   }
 
   @Override
@@ -241,6 +283,8 @@ public float getOpacity() {
   public void setOpacity(float opacity) {
     this.opacity = Math.max(0.0f, Math.min(opacity, 1.0f));
     updateOpacityInSegAttributes(this.opacity);
+    // The graphics of the contours keep the previous color
+    isoDoseContours.clear();
   }
 
   /**
@@ -332,7 +376,14 @@ public void setDosePixLUT(AbstractMap.SimpleImmutableEntry<double[], double[]> l
     this.dosePixLUT = lut;
   }
 
+  /**
+   * Initializes the isodose levels for the prescribed dose. The contours of the previous levels are
+   * discarded, the new ones are built when the slices are displayed.
+   */
   public void initDoseSet(double rxDose, RtSet rtSet) {
+    isoDoseSet.clear();
+    contourRegions = List.of();
+    isoDoseContours.clear();
     int doseMaxLevel =
         (int) Dose.calculateRelativeDose((getDoseMax() * getDoseGridScaling() * 100), rxDose);
 
@@ -362,33 +413,21 @@ public void initDoseSet(double rxDose, RtSet rtSet) {
       //           isoDoseSet.put(2, new IsoDoseLayer(new IsoDose(2, new Color(0, 0,
       // 111/255f,
       //           opacity), "", rxDose)));
-      Map<String, Set<SegContour>> map = refMap.computeIfAbsent(seriesUID, _ -> new HashMap<>());
       Set<KeyDouble> zSet = new LinkedHashSet<>();
       // Go through whole imaging grid (CT)
       for (DicomImageElement image : rtSet.getSeries().getMedias(null, null)) {
-        Set<SegContour> contours = new LinkedHashSet<>();
-        // Image slice UID and position
-        String sopUID = TagD.getTagValue(image, Tag.SOPInstanceUID, String.class);
-        KeyDouble z = new KeyDouble(image.getSliceGeometry().getTLHC().z);
-
-        List<IsoDoseRegion> reverseValues = new ArrayList<>(isoDoseSet.values());
-        Collections.reverse(reverseValues);
-        for (IsoDoseRegion doseRegion : reverseValues) {
+        KeyDouble z = getSlicePosition(image);
+        if (z != null) {
           zSet.add(z);
-          double isoDoseThreshold = doseRegion.getAbsoluteDose();
-
-          StructContour isoContour = getIsoDoseContour(z, isoDoseThreshold, doseRegion, rtSet);
-          if (isoContour == null) {
-            continue;
-          }
-          contours.add(isoContour);
-        }
-        if (contours.isEmpty()) {
-          map.remove(sopUID);
-        } else {
-          map.put(sopUID, contours);
         }
       }
+      List<IsoDoseRegion> reverseValues = new ArrayList<>(isoDoseSet.values());
+      Collections.reverse(reverseValues);
+      this.contourRegions = List.copyOf(reverseValues);
+      this.rtSet = rtSet;
+      this.imageSeriesUID = seriesUID;
+      isoDoseContours.setSlicePositions(zSet);
+      countRegionPixels(zSet, contourRegions);
 
       // When finished creation of iso contours plane data calculate the plane thickness
       for (IsoDoseRegion isoDoseLayer : isoDoseSet.values()) {
@@ -543,25 +582,101 @@ public Mat getMaskedDosePlaneHist(double slicePosition, Mat mask, int maxDose) {
 
   public StructContour getIsoDoseContour(
       KeyDouble slicePosition, double isoDoseThreshold, IsoDoseRegion region, RtSet rtSet) {
-    if (region.getMeasurableLayer() == null) {
-      //  region.setMeasurableLayer(getMeasurableLayer(img, contour));
+    DicomImageElement dosePlane =
+        (DicomImageElement) this.getDosePlaneBySlice(slicePosition.getValue());
+    Mat src = getDosePlaneMat(dosePlane);
+    if (src == null) {
+      return null;
     }
+    StructContour contour =
+        buildIsoDoseContour(slicePosition, src, isoDoseThreshold, region, rtSet, true);
+    ImageConversion.releaseMat(src);
+    return contour;
+  }
 
-    // Convert from threshold in cCy to raw pixel value threshold
-    double rawThreshold = (isoDoseThreshold / 100) / this.doseGridScaling;
+  /** Builds the contours of all the isodose levels for a slice of the image grid. */
+  private List<SegContour> buildIsoDoseContours(KeyDouble slicePosition) {
+    RtSet set = rtSet;
+    List<IsoDoseRegion> regions = contourRegions;
+    if (set == null || regions.isEmpty()) {
+      return List.of();
+    }
     DicomImageElement dosePlane =
         (DicomImageElement) this.getDosePlaneBySlice(slicePosition.getValue());
+    // The dose plane is converted once for all the levels
+    Mat src = getDosePlaneMat(dosePlane);
+    if (src == null) {
+      return List.of();
+    }
+    List<SegContour> contours = new ArrayList<>();
+    for (IsoDoseRegion region : regions) {
+      // The pixels of the regions are counted over all the slices by initDoseSet()
+      StructContour isoContour =
+          buildIsoDoseContour(slicePosition, src, region.getAbsoluteDose(), region, set, false);
+      if (isoContour != null) {
+        contours.add(isoContour);
+      }
+    }
+    ImageConversion.releaseMat(src);
+    return contours;
+  }
 
-    int rows = dosePlane.getImage().toMat().rows();
-    int cols = dosePlane.getImage().toMat().cols();
+  /**
+   * Adds the pixels of all the slices of the image grid to the isodose regions. Only the pixels
+   * above the thresholds are counted, the contours are built when the slices are displayed. The
+   * dose planes are read without filling the image cache.
+   */
+  private void countRegionPixels(Set<KeyDouble> zSet, List<IsoDoseRegion> regions) {
+    for (KeyDouble z : zSet) {
+      DicomImageElement dosePlane = (DicomImageElement) getDosePlaneBySlice(z.getValue());
+      Mat src = dosePlane == null ? null : dosePlane.readImage(false, Dose::toFloatMat);
+      if (src == null) {
+        continue;
+      }
+      Mat thr = new Mat(src.rows(), src.cols(), CvType.CV_32FC1);
+      for (IsoDoseRegion region : regions) {
+        // Convert from threshold in cCy to raw pixel value threshold
+        double rawThreshold = (region.getAbsoluteDose() / 100) / this.doseGridScaling;
+        Imgproc.threshold(src, thr, rawThreshold, 255, Imgproc.THRESH_BINARY);
+        int nbPixels = Core.countNonZero(thr);
+        if (nbPixels > 0) {
+          region.addPixels(new StructContour(String.valueOf(z.getKey()), List.of(), nbPixels));
+        }
+      }
+      ImageConversion.releaseMat(thr);
+      ImageConversion.releaseMat(src);
+    }
+  }
 
-    Mat src = new Mat(rows, cols, CvType.CV_32FC1);
-    Mat thr = new Mat(rows, cols, CvType.CV_32FC1);
+  private static Mat getDosePlaneMat(DicomImageElement dosePlane) {
+    PlanarImage image = dosePlane == null ? null : dosePlane.getImage();
+    return image == null ? null : toFloatMat(image);
+  }
 
-    dosePlane.getImage().toMat().convertTo(src, CvType.CV_32FC1);
+  private static Mat toFloatMat(PlanarImage image) {
+    Mat src = new Mat(image.height(), image.width(), CvType.CV_32FC1);
+    image.toMat().convertTo(src, CvType.CV_32FC1);
+    return src;
+  }
+
+  private StructContour buildIsoDoseContour(
+      KeyDouble slicePosition,
+      Mat src,
+      double isoDoseThreshold,
+      IsoDoseRegion region,
+      RtSet rtSet,
+      boolean addPixels) {
+    if (region.getMeasurableLayer() == null) {
+      //  region.setMeasurableLayer(getMeasurableLayer(img, contour));
+    }
+
+    // Convert from threshold in cCy to raw pixel value threshold
+    double rawThreshold = (isoDoseThreshold / 100) / this.doseGridScaling;
+    int rows = src.rows();
+    int cols = src.cols();
+    Mat thr = new Mat(rows, cols, CvType.CV_32FC1);
 
     Imgproc.threshold(src, thr, rawThreshold, 255, Imgproc.THRESH_BINARY);
-    ImageConversion.releaseMat(src);
     Mat thrSrc = new Mat(rows, cols, CvType.CV_8U);
     thr.convertTo(thrSrc, CvType.CV_8U);
     ImageConversion.releaseMat(thr);
@@ -587,7 +702,12 @@ public StructContour getIsoDoseContour(
     StructContour segContour =
         new StructContour(String.valueOf(slicePosition.getKey()), segmentList, nbPixels);
     segContour.setPositionZ(z);
-    region.addPixels(segContour);
+    if (addPixels) {
+      // The slices can be built concurrently
+      synchronized (region) {
+        region.addPixels(segContour);
+      }
+    }
     segContour.setAttributes(region);
     return segContour;
   }
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.rt;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.BiConsumer;
+import org.joml.Vector3d;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.imgproc.Imgproc;
+import org.weasis.core.api.media.data.MediaSeries.MEDIA_POSITION;
+import org.weasis.core.ui.model.graphic.imp.seg.SegContour;
+import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.opencv.op.ImageConversion;
+
+/**
+ * Computes the cumulative DVH of a structure. The contour planes are processed in parallel, each
+ * thread accumulating its own differential histogram, and the histograms are merged at the end.
+ * The results are kept by structure, dose and image grid, so reloading the RT case does not compute
+ * them again.
+ */
+final class DvhCalculator {
+
+  private static final int CACHE_SIZE = 512;
+
+  /**
+   * @param structureSetUid the SOP Instance UID of the structure set
+   * @param roiNumber the number of the ROI in the structure set
+   * @param doseUid the SOP Instance UID of the dose
+   * @param gridUid the Series Instance UID of the image grid receiving the dose
+   */
+  record DvhKey(String structureSetUid, int roiNumber, String doseUid, String gridUid) {}
+
+  private static final Map<DvhKey, double[]> CACHE =
+      new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<DvhKey, double[]> eldest) {
+          return size() > CACHE_SIZE;
+        }
+      };
+
+  private DvhCalculator() {}
+
+  /**
+   * Returns the cumulative DVH (volume in cm^3 for each bin of 1 cGy).
+   *
+   * @param key the key of the result in the cache, null to not use the cache
+   */
+  static double[] getCumulativeDvh(DvhKey key, StructRegion region, Dose dose) {
+    if (key != null) {
+      synchronized (CACHE) {
+        double[] cached = CACHE.get(key);
+        if (cached != null) {
+          return cached.clone();
+        }
+      }
+    }
+    double[] cumulative = toCumulative(computeDifferentialDvh(region, dose));
+    if (key != null) {
+      synchronized (CACHE) {
+        CACHE.put(key, cumulative.clone());
+      }
+    }
+    return cumulative;
+  }
+
+  /** Converts a differential histogram to a cumulative histogram with a suffix sum. */
+  static double[] toCumulative(double[] differential) {
+    if (differential == null) {
+      return new double[0];
+    }
+    double[] cumulative = new double[differential.length];
+    double sum = 0.0;
+    for (int i = differential.length - 1; i >= 0; i--) {
+      sum += differential[i];
+      cumulative[i] = sum;
+    }
+    return cumulative;
+  }
+
+  /**
+   * Returns the differential histogram scaled to the volume of the structure in cm^3, or null when
+   * the structure has no plane.
+   */
+  static double[] computeDifferentialDvh(StructRegion region, Dose dose) {
+    if (region.getPlanes() == null || region.getPlanes().isEmpty()) {
+      return null;
+    }
+    DicomImageElement doseImage = dose.getSeries().getMedia(MEDIA_POSITION.FIRST, null, null);
+    Vector3d spacing = doseImage.getSliceGeometry().getVoxelSpacing();
+    double voxelVolume = spacing.x * spacing.y * region.getThickness();
+    int bins = (int) (dose.getDoseMax() * dose.getDoseGridScaling() * 100);
+
+    return accumulate(
+            region.getPlanes().entrySet(),
+            bins,
+            (acc, entry) -> acc.addPlane(entry, region, dose, voxelVolume))
+        .toScaledHistogram();
+  }
+
+  /**
+   * Adds the histograms of the planes in parallel, each thread has its own accumulator.
+   *
+   * @param planes the planes of the structure
+   * @param bins the number of bins of the histogram
+   * @param adder adds the histogram of a plane to an accumulator
+   */
+  static <T> HistogramAccumulator accumulate(
+      Collection<T> planes, int bins, BiConsumer<HistogramAccumulator, T> adder) {
+    return planes.parallelStream()
+        .collect(() -> new HistogramAccumulator(bins), adder, HistogramAccumulator::merge);
+  }
+
+  /** Differential histogram of the planes processed by one thread. */
+  static final class HistogramAccumulator {
+    final double[] histogram;
+    double volume;
+
+    HistogramAccumulator(int bins) {
+      this.histogram = new double[Math.max(0, bins)];
+    }
+
+    void addPlane(
+        Entry<KeyDouble, List<StructContour>> plane,
+        StructRegion region,
+        Dose dose,
+        double voxelVolume) {
+      double z = plane.getKey().getValue();
+      List<StructContour> contours = plane.getValue();
+      // If dose plane does not exist for z, continue with next plane
+      if (contours.isEmpty() || dose.getDosePlaneBySlice(z) == null) {
+        return;
+      }
+
+      // Only the largest contour of the plane is counted, the holes and other islands are ignored
+      int maxContourIndex = region.calculateLargestContour(contours).getKey();
+      Mat contourMask = calculateContourMask(dose.getDoseMmLUT(), contours.get(maxContourIndex));
+      Mat hist = dose.getMaskedDosePlaneHist(z, contourMask, histogram.length);
+      ImageConversion.releaseMat(contourMask);
+
+      float[] values = new float[hist.rows()];
+      if (values.length > 0) {
+        hist.get(0, 0, values);
+      }
+      ImageConversion.releaseMat(hist);
+      addHistogram(values, voxelVolume);
+    }
+
+    void addHistogram(float[] values, double voxelVolume) {
+      double count = 0.0;
+      int length = Math.min(values.length, histogram.length);
+      for (int i = 0; i < length; i++) {
+        histogram[i] += values[i];
+        count += values[i];
+      }
+      volume += count * voxelVolume;
+    }
+
+    HistogramAccumulator merge(HistogramAccumulator other) {
+      for (int i = 0; i < histogram.length; i++) {
+        histogram[i] += other.histogram[i];
+      }
+      volume += other.volume;
+      return this;
+    }
+
+    /** Rescales the histogram to reflect the total volume, in cm^3. */
+    double[] toScaledHistogram() {
+      double sum = 0.0;
+      for (double v : histogram) {
+        sum += v;
+      }
+      double scale = (volume / 1000) / (sum == 0.0 ? 1.0 : sum);
+      double[] result = new double[histogram.length];
+      for (int i = 0; i < result.length; i++) {
+        result[i] = histogram[i] * scale;
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Builds the mask of the pixels strictly inside the contour. Only the pixels in the bounding box
+   * of the contour are tested, the others are outside.
+   */
+  static Mat calculateContourMask(
+      AbstractMap.SimpleImmutableEntry<double[], double[]> doseMmLUT, SegContour contour) {
+    double[] xLut = doseMmLUT.getKey();
+    double[] yLut = doseMmLUT.getValue();
+    int cols = xLut.length;
+    int rows = yLut.length;
+    float[] mask = new float[rows * cols];
+
+    List<Point> list = new ArrayList<>();
+    double minX = Double.MAX_VALUE;
+    double minY = Double.MAX_VALUE;
+    double maxX = -Double.MAX_VALUE;
+    double maxY = -Double.MAX_VALUE;
+    if (contour instanceof StructContour structContour) {
+      double[] points = structContour.getPoints();
+      if (points != null && points.length % 3 == 0 && points.length > 1) {
+        for (int i = 0; i < points.length; i = i + 3) {
+          list.add(new Point(points[i], points[i + 1]));
+          minX = Math.min(minX, points[i]);
+          maxX = Math.max(maxX, points[i]);
+          minY = Math.min(minY, points[i + 1]);
+          maxY = Math.max(maxY, points[i + 1]);
+        }
+      }
+    }
+
+    if (!list.isEmpty()) {
+      MatOfPoint2f mop = new MatOfPoint2f();
+      mop.fromList(list);
+      for (int i = 0; i < rows; i++) {
+        double y = yLut[i];
+        if (y <= minY || y >= maxY) {
+          continue;
+        }
+        for (int j = 0; j < cols; j++) {
+          double x = xLut[j];
+          // The pixels on the border line are outside
+          if (x > minX
+              && x < maxX
+              && Imgproc.pointPolygonTest(mop, new Point(x, y), false) > 0) {
+            mask[i * cols + j] = 255;
+          }
+        }
+      }
+      ImageConversion.releaseMat(mop);
+    }
+
+    Mat binaryMask = new Mat(rows, cols, CvType.CV_32FC1);
+    if (mask.length > 0) {
+      binaryMask.put(0, 0, mask);
+    }
+    return binaryMask;
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.rt;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.media.data.DecodeScheduler;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.core.ui.model.graphic.imp.seg.SegContour;
+
+/**
+ * Keeps the isodose contours of the slices of the image grid. The contours of a slice are built
+ * when the slice is displayed, and the neighbouring slices are built in the background so they are
+ * ready when scrolling. Only the most recently used slices are kept, each one holding the contours
+ * of all the isodose levels.
+ *
+ * <p>A slice requested for the display is built by the calling thread when its background build
+ * has not started yet, so the display does not wait behind the queue of the workers.
+ */
+final class IsoDoseContourCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(IsoDoseContourCache.class);
+
+  static final int DEFAULT_MAX_SLICES = 64;
+  static final int PREFETCH_SLICES = 2;
+
+  private static final ExecutorService PREFETCH_EXECUTOR =
+      ThreadUtil.buildNewFixedThreadExecutor(
+          DecodeScheduler.getDefaultThreadNumber(), "Isodose Builder"); // NON-NLS
+
+  private final Function<KeyDouble, List<SegContour>> builder;
+  private final Executor executor;
+  private final Map<KeyDouble, Slice> slices;
+  private volatile KeyDouble[] positions = new KeyDouble[0];
+
+  /**
+   * @param builder builds the contours of all the isodose levels for a slice position, it can be
+   *     called concurrently
+   */
+  IsoDoseContourCache(Function<KeyDouble, List<SegContour>> builder) {
+    this(builder, PREFETCH_EXECUTOR, DEFAULT_MAX_SLICES);
+  }
+
+  IsoDoseContourCache(
+      Function<KeyDouble, List<SegContour>> builder, Executor executor, int maxSlices) {
+    this.builder = Objects.requireNonNull(builder);
+    this.executor = Objects.requireNonNull(executor);
+    int max = Math.max(1, maxSlices);
+    this.slices =
+        new LinkedHashMap<>(max, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<KeyDouble, Slice> eldest) {
+            return size() > max;
+          }
+        };
+  }
+
+  /** Sets the positions of the slices of the image grid. */
+  void setSlicePositions(Collection<KeyDouble> zSet) {
+    KeyDouble[] sorted = zSet.toArray(new KeyDouble[0]);
+    Arrays.sort(sorted);
+    this.positions = sorted;
+  }
+
+  boolean hasSlice(KeyDouble z) {
+    return z != null && indexOf(positions, z) >= 0;
+  }
+
+  /**
+   * Returns the contours of a slice, built in the calling thread when they are not in the cache
+   * yet or when their background build has not started. The neighbouring slices are submitted to
+   * the background workers.
+   */
+  List<SegContour> getContours(KeyDouble position) {
+    KeyDouble[] zs = positions;
+    int index = indexOf(zs, position);
+    if (index < 0) {
+      return List.of();
+    }
+    KeyDouble z = zs[index];
+    Slice slice;
+    synchronized (slices) {
+      slice = slices.computeIfAbsent(z, Slice::new);
+    }
+    prefetch(zs, index);
+    // Does nothing when a worker is already building the slice
+    slice.build();
+    return slice.contours.join();
+  }
+
+  /**
+   * Returns the contours of a slice without keeping them in the cache and without prefetching, for
+   * reading all the slices in a row (e.g. building a volume) without evicting the displayed slices.
+   */
+  List<SegContour> getContoursWithoutCaching(KeyDouble position) {
+    KeyDouble[] zs = positions;
+    int index = indexOf(zs, position);
+    if (index < 0) {
+      return List.of();
+    }
+    Slice slice;
+    synchronized (slices) {
+      slice = slices.get(zs[index]);
+    }
+    if (slice == null) {
+      slice = new Slice(zs[index]);
+    }
+    slice.build();
+    return slice.contours.join();
+  }
+
+  private void prefetch(KeyDouble[] zs, int index) {
+    for (int i = 1; i <= PREFETCH_SLICES; i++) {
+      if (index + i < zs.length) {
+        submit(zs[index + i]);
+      }
+      if (index - i >= 0) {
+        submit(zs[index - i]);
+      }
+    }
+  }
+
+  private void submit(KeyDouble z) {
+    Slice slice = new Slice(z);
+    synchronized (slices) {
+      if (slices.containsKey(z)) {
+        return;
+      }
+      slices.put(z, slice);
+    }
+    executor.execute(slice::build);
+  }
+
+  private final class Slice {
+    final KeyDouble z;
+    final CompletableFuture<List<SegContour>> contours = new CompletableFuture<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    Slice(KeyDouble z) {
+      this.z = z;
+    }
+
+    /** Builds the contours, only by the first caller. */
+    void build() {
+      if (!started.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        contours.complete(List.copyOf(builder.apply(z)));
+      } catch (RuntimeException e) {
+        LOGGER.error("Cannot build the isodose contours at z={}", z.getValue(), e);
+        contours.complete(List.of());
+      }
+    }
+  }
+
+  /** Removes all the contours, the slices are built again when they are displayed. */
+  void clear() {
+    synchronized (slices) {
+      slices.clear();
+    }
+  }
+
+  int size() {
+    synchronized (slices) {
+      return slices.size();
+    }
+  }
+
+  private static int indexOf(KeyDouble[] zs, KeyDouble z) {
+    int index = Arrays.binarySearch(zs, z);
+    if (index >= 0) {
+      return index;
+    }
+    // The sort order uses the exact position, the slices are identified by the rounded position
+    int insertion = -index - 1;
+    for (int i = Math.max(0, insertion - 1); i <= Math.min(zs.length - 1, insertion); i++) {
+      if (zs[i].equals(z)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -61,7 +61,6 @@
 import org.weasis.dicom.codec.*;
 import org.weasis.dicom.viewer2d.EventManager;
 import org.weasis.dicom.viewer2d.View2d;
-import org.weasis.opencv.data.PlanarImage;
 import org.weasis.opencv.seg.RegionAttributes;
 
 /**
@@ -249,12 +248,19 @@ private DicomSeries getSeries(ViewCanvas<DicomImageElement> view) {
     return null;
   }
 
-  private SegContour getContour(DicomImageElement imageElement, RegionAttributes attributes) {
-    PlanarImage img = imageElement.getImage();
-    if (img != null) {
+  /**
+   * @param cached false when reading the contours of all the images, so the contours of the
+   *     displayed images are kept in the cache and the images are not decoded
+   */
+  private SegContour getContour(
+      DicomImageElement imageElement, RegionAttributes attributes, boolean cached) {
+    if (cached ? imageElement.getImage() != null : imageElement.isReadable()) {
       SpecialElementRegion region = getSelectedRegion();
       if (region != null) {
-        Collection<SegContour> segments = region.getContours(imageElement);
+        Collection<SegContour> segments =
+            cached
+                ? region.getContours(imageElement)
+                : region.getContoursWithoutCaching(imageElement);
         for (SegContour c : segments) {
           if (c.getAttributes().equals(attributes)) {
             return c;
@@ -272,7 +278,7 @@ public void show(SegRegion<?> region) {
       long max = Long.MIN_VALUE;
       DicomImageElement bestImage = null;
       for (DicomImageElement dcm : series.getMedias(null, null)) {
-        SegContour c = getContour(dcm, region);
+        SegContour c = getContour(dcm, region, false);
         if (c != null) {
           if (c.getNumberOfPixels() > max) {
             max = c.getNumberOfPixels();
@@ -297,7 +303,7 @@ public void computeStatistics(SegRegion<?> region) {
     ViewCanvas<DicomImageElement> view = EventManager.getInstance().getSelectedViewPane();
     DicomImageElement imageElement = getImageElement(view);
     if (imageElement != null) {
-      SegContour c = getContour(imageElement, region);
+      SegContour c = getContour(imageElement, region, true);
       if (c != null) {
         MeasurableLayer layer = view.getMeasurableLayer();
         if (region instanceof IsoDoseRegion) {
@@ -9,15 +9,12 @@
  */
 package org.weasis.dicom.rt;
 
-import static org.opencv.core.Core.add;
-import static org.opencv.core.Core.multiply;
-
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -26,21 +23,16 @@
 import org.dcm4che3.data.Tag;
 import org.dcm4che3.img.util.DicomUtils;
 import org.joml.Vector3d;
-import org.opencv.core.CvType;
-import org.opencv.core.Mat;
-import org.opencv.core.MatOfPoint2f;
-import org.opencv.core.Point;
-import org.opencv.core.Scalar;
-import org.opencv.imgproc.Imgproc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.media.data.MediaElement;
 import org.weasis.core.api.media.data.MediaSeries.MEDIA_POSITION;
-import org.weasis.core.ui.model.graphic.imp.seg.SegContour;
 import org.weasis.core.util.MathUtil;
 import org.weasis.core.util.StringUtil;
 import org.weasis.dicom.codec.DicomImageElement;
 import org.weasis.dicom.codec.DicomSeries;
+import org.weasis.dicom.codec.TagD;
+import org.weasis.dicom.rt.DvhCalculator.DvhKey;
 
 /**
  * RtSet is a collection of linked DICOM-RT entities that form the whole treatment case (Plans,
@@ -133,14 +125,25 @@ public void reloadRtCase(boolean forceRecalculateDvh) {
 
   private void computeDvh(Plan plan, Dose dose, StructRegion region) {
     // If DVH exists for the structure and setting always recalculate is false
-    Dvh structureDvh = dose.getDvhMap().get(region.getId());
+    Map<Integer, Dvh> dvhMap = dose.getDvhMap();
+    Dvh structureDvh;
+    synchronized (dvhMap) {
+      structureDvh = dvhMap.get(region.getId());
+    }
 
     // Re-calculate DVH if it does not exist or if it is provided and force recalculation
     // is set up
     if (structureDvh == null
         || (structureDvh.getDvhSource().equals(DataSource.PROVIDED) && this.forceRecalculateDvh)) {
+      Dvh providedDvh = structureDvh;
       structureDvh = this.initCalculatedDvh(region, dose);
-      dose.getDvhMap().put(region.getId(), structureDvh);
+      if (providedDvh != null) {
+        logDvhDifference(region, providedDvh, structureDvh);
+      }
+      // The regions are computed in parallel
+      synchronized (dvhMap) {
+        dvhMap.put(region.getId(), structureDvh);
+      }
     }
     // Otherwise, read provided DVH
     else {
@@ -191,6 +194,29 @@ private void computeDvh(Plan plan, Dose dose, StructRegion region) {
     }
   }
 
+  /** Compares a calculated DVH with the DVH provided in the RTDOSE. */
+  private static void logDvhDifference(StructRegion region, Dvh provided, Dvh calculated) {
+    double[] expected = provided.getDvhData();
+    double[] actual = calculated.getDvhData();
+    if (LOGGER.isDebugEnabled()
+        && "CM3".equals(provided.getDvhVolumeUnit())
+        && expected != null
+        && expected.length > 0
+        && actual.length > 0) {
+      int length = Math.min(expected.length, actual.length);
+      double maxDiff = 0.0;
+      for (int i = 0; i < length; i++) {
+        maxDiff = Math.max(maxDiff, Math.abs(expected[i] - actual[i]));
+      }
+      LOGGER.debug(
+          "Structure: {}, calculated DVH volume: {} cm³, provided: {} cm³, max difference: {} cm³",
+          region.getLabel(),
+          String.format("%.4f", actual[0]),
+          String.format("%.4f", expected[0]),
+          String.format("%.4f", maxDiff));
+    }
+  }
+
   @Override
   public int hashCode() {
     return series.hashCode();
@@ -386,6 +412,20 @@ static double calculatePlaneThickness(Set<KeyDouble> planesSet) {
     return thickness;
   }
 
+  private DvhKey getDvhKey(StructRegion region, Dose dose) {
+    StructureSet structureSet = getFirstStructure();
+    if (structureSet == null) {
+      return null;
+    }
+    String structureSetUid = TagD.getTagValue(structureSet, Tag.SOPInstanceUID, String.class);
+    String doseUid = dose.getSopInstanceUid();
+    String gridUid = TagD.getTagValue(series, Tag.SeriesInstanceUID, String.class);
+    if (structureSetUid == null || doseUid == null || gridUid == null) {
+      return null;
+    }
+    return new DvhKey(structureSetUid, region.getId(), doseUid, gridUid);
+  }
+
   public Dvh initCalculatedDvh(StructRegion region, Dose dose) {
     Dvh dvh = new Dvh();
     dvh.setReferencedRoiNumber(region.getId());
@@ -395,104 +435,13 @@ public Dvh initCalculatedDvh(StructRegion region, Dose dose) {
     dvh.setDvhVolumeUnit("CM3");
     dvh.setDvhDoseScaling(1.0);
 
-    // Calculate differential DVH
-    Mat difHistogram = calculateDifferentialDvh(region, dose);
-
-    // Convert differential DVH to cumulative DVH
-    double[] cumHistogram = convertDifferentialToCumulativeDvh(difHistogram);
+    double[] cumHistogram = DvhCalculator.getCumulativeDvh(getDvhKey(region, dose), region, dose);
     dvh.setDvhData(cumHistogram);
     dvh.setDvhNumberOfBins(cumHistogram.length);
 
     return dvh;
   }
 
-  private Mat calculateDifferentialDvh(StructRegion region, Dose dose) {
-    if (region.getPlanes() == null || region.getPlanes().isEmpty()) {
-      return null;
-    }
-    DicomImageElement doseImage = dose.getSeries().getMedia(MEDIA_POSITION.FIRST, null, null);
-    Vector3d doseImageSpacing = doseImage.getSliceGeometry().getVoxelSpacing();
-    double maxDose = dose.getDoseMax() * dose.getDoseGridScaling() * 100;
-
-    double volume = 0.0;
-
-    // Prepare empty histogram (vector of bins in cGy) for structure
-    Mat histogram = new Mat((int) maxDose, 1, CvType.CV_32FC1, new Scalar(0.0));
-
-    // Go through all structure plane slices
-    for (Entry<KeyDouble, List<StructContour>> entry : region.getPlanes().entrySet()) {
-      KeyDouble z = entry.getKey();
-
-      // Calculate the area for each contour in the current plane
-      AbstractMap.SimpleImmutableEntry<Integer, Double> maxContour =
-          region.calculateLargestContour(entry.getValue());
-      int maxContourIndex = maxContour.getKey();
-
-      // If dose plane does not exist for z, continue with next plane
-      MediaElement dosePlane = dose.getDosePlaneBySlice(z.getValue());
-      if (dosePlane == null) {
-        continue;
-      }
-
-      // Calculate histogram for each contour on the plane
-      for (int c = 0; c < entry.getValue().size(); c++) {
-
-        SegContour contour = entry.getValue().get(c);
-
-        Mat contourMask = calculateContourMask(dose.getDoseMmLUT(), contour);
-        Mat hist = dose.getMaskedDosePlaneHist(z.getValue(), contourMask, (int) maxDose);
-
-        double vol = 0;
-        for (int i = 0; i < hist.rows(); i++) {
-          vol +=
-              hist.get(i, 0)[0] * (doseImageSpacing.x * doseImageSpacing.y * region.getThickness());
-        }
-
-        // If this is the largest contour
-        if (c == maxContourIndex) {
-          volume += vol;
-          add(histogram, hist, histogram);
-        }
-        // TODO: Otherwise add or subtract depending on contour location
-        else {
-
-        }
-      }
-    }
-
-    // Volume units are given in cm^3
-    volume /= 1000;
-
-    // Rescale the histogram to reflect the total volume
-    double sumHistogram = 0.0;
-    for (int i = 0; i < histogram.rows(); i++) {
-      sumHistogram += histogram.get(i, 0)[0];
-    }
-    Scalar scalar = new Scalar(volume / (sumHistogram == 0.0 ? 1.0 : sumHistogram));
-    multiply(histogram, scalar, histogram);
-
-    // TODO: Remove the zero bins from the end of histogram
-
-    return histogram;
-  }
-
-  private double[] convertDifferentialToCumulativeDvh(Mat difHistogram) {
-    if (difHistogram == null) {
-      return new double[0];
-    }
-    int size = difHistogram.rows();
-    double[] cumDvh = new double[size];
-
-    for (int i = 0; i < size; i++) {
-      cumDvh[i] = 0;
-      for (int j = i; j < size; j++) {
-        cumDvh[i] += difHistogram.get(j, 0)[0];
-      }
-    }
-
-    return cumDvh;
-  }
-
   private AbstractMap.SimpleImmutableEntry<double[], double[]> calculatePixelLookupTable(
       DicomImageElement dicomImage) {
 
@@ -578,41 +527,4 @@ private double[][] multiplyMatrix(double[][] rotation, double[][] data) {
   // }
   // }
   // }
-
-  private Mat calculateContourMask(
-      AbstractMap.SimpleImmutableEntry<double[], double[]> doseMmLUT, SegContour contour) {
-
-    int cols = doseMmLUT.getKey().length;
-    int rows = doseMmLUT.getValue().length;
-
-    List<Point> list = new ArrayList<>();
-    if (contour instanceof StructContour structContour) {
-      double[] points = structContour.getPoints();
-      if (points != null && points.length % 3 == 0 && points.length > 1) {
-        for (int i = 0; i < points.length; i = i + 3) {
-          list.add(new Point(points[i], points[i + 1]));
-        }
-      }
-    }
-    MatOfPoint2f mop = new MatOfPoint2f();
-    mop.fromList(list);
-
-    Mat binaryMask = new Mat(rows, cols, CvType.CV_32FC1);
-
-    for (int i = 0; i < rows; i++) {
-      for (int j = 0; j < cols; j++) {
-        double distance =
-            Imgproc.pointPolygonTest(
-                mop, new Point(doseMmLUT.getKey()[j], doseMmLUT.getValue()[i]), false);
-        // TODO: Include the border line as well?
-        if (distance > 0) {
-          binaryMask.put(i, j, 255);
-        } else {
-          binaryMask.put(i, j, 0);
-        }
-      }
-    }
-
-    return binaryMask;
-  }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.rt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.weasis.dicom.rt.DvhCalculator.HistogramAccumulator;
+
+class DvhCalculatorTest {
+
+  @Test
+  void test_cumulative_dvh() {
+    assertEquals(0, DvhCalculator.toCumulative(null).length);
+    assertArrayEquals(
+        new double[] {10, 9, 7, 4}, DvhCalculator.toCumulative(new double[] {1, 2, 3, 4}));
+
+    // Same result as summing all the following bins for each bin
+    double[] differential = new Random(7).doubles(5000, 0, 2).toArray();
+    double[] cumulative = DvhCalculator.toCumulative(differential);
+    for (int i = 0; i < differential.length; i += 499) {
+      double expected = 0;
+      for (int j = i; j < differential.length; j++) {
+        expected += differential[j];
+      }
+      assertEquals(expected, cumulative[i], 1e-6);
+    }
+  }
+
+  @Test
+  void test_merge_histograms() {
+    Random random = new Random(3);
+    float[][] planes = new float[12][];
+    for (int p = 0; p < planes.length; p++) {
+      planes[p] = new float[100];
+      for (int i = 0; i < 100; i++) {
+        planes[p][i] = random.nextInt(50);
+      }
+    }
+
+    HistogramAccumulator sequential = new HistogramAccumulator(100);
+    for (float[] plane : planes) {
+      sequential.addHistogram(plane, 2.5);
+    }
+    // Planes split between two threads
+    HistogramAccumulator first = new HistogramAccumulator(100);
+    HistogramAccumulator second = new HistogramAccumulator(100);
+    for (int p = 0; p < planes.length; p++) {
+      (p % 2 == 0 ? first : second).addHistogram(planes[p], 2.5);
+    }
+    HistogramAccumulator merged = first.merge(second);
+
+    assertEquals(sequential.volume, merged.volume, 1e-9);
+    assertArrayEquals(sequential.histogram, merged.histogram, 1e-9);
+
+    // The scaled histogram sums to the volume in cm^3
+    double sum = 0;
+    for (double v : merged.toScaledHistogram()) {
+      sum += v;
+    }
+    assertEquals(merged.volume / 1000, sum, 1e-9);
+  }
+
+  @Test
+  void test_parallel_accumulation() {
+    Random random = new Random(11);
+    List<float[]> planes = new ArrayList<>();
+    for (int p = 0; p < 300; p++) {
+      float[] plane = new float[random.nextInt(80, 120)];
+      for (int i = 0; i < plane.length; i++) {
+        plane[i] = random.nextInt(50);
+      }
+      planes.add(plane);
+    }
+
+    HistogramAccumulator sequential = new HistogramAccumulator(100);
+    for (float[] plane : planes) {
+      sequential.addHistogram(plane, 1.5);
+    }
+    HistogramAccumulator parallel =
+        DvhCalculator.accumulate(planes, 100, (acc, plane) -> acc.addHistogram(plane, 1.5));
+
+    assertEquals(sequential.volume, parallel.volume, 1e-6);
+    assertArrayEquals(sequential.histogram, parallel.histogram, 1e-6);
+    double[] expected = DvhCalculator.toCumulative(sequential.toScaledHistogram());
+    double[] cumulative = DvhCalculator.toCumulative(parallel.toScaledHistogram());
+    assertArrayEquals(expected, cumulative, 1e-9);
+    // The first bin of the cumulative DVH is the volume of the structure in cm^3
+    assertEquals(sequential.volume / 1000, cumulative[0], 1e-9);
+
+    // No plane
+    HistogramAccumulator empty =
+        DvhCalculator.accumulate(List.<float[]>of(), 10, (acc, p) -> acc.addHistogram(p, 1.0));
+    assertEquals(0.0, empty.volume);
+    assertArrayEquals(new double[10], DvhCalculator.toCumulative(empty.toScaledHistogram()));
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.rt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class IsoDoseContourCacheTest {
+
+  private static List<KeyDouble> positions(int nbSlices) {
+    List<KeyDouble> list = new ArrayList<>();
+    // Unsorted like the images of a series
+    for (int i = nbSlices - 1; i >= 0; i--) {
+      list.add(new KeyDouble(-100.0 + i * 2.5));
+    }
+    return list;
+  }
+
+  @Test
+  void test_build_on_demand() {
+    Map<KeyDouble, AtomicInteger> builds = new ConcurrentHashMap<>();
+    IsoDoseContourCache cache =
+        new IsoDoseContourCache(
+            z -> {
+              builds.computeIfAbsent(z, _ -> new AtomicInteger()).incrementAndGet();
+              return List.of();
+            },
+            Runnable::run,
+            16);
+    assertFalse(cache.hasSlice(new KeyDouble(0.0)));
+    assertTrue(cache.getContours(new KeyDouble(0.0)).isEmpty());
+    assertTrue(builds.isEmpty());
+
+    cache.setSlicePositions(positions(40));
+    assertTrue(cache.hasSlice(new KeyDouble(-50.0)));
+    assertFalse(cache.hasSlice(new KeyDouble(-51.0)));
+    assertTrue(builds.isEmpty());
+
+    // The displayed slice and its neighbours
+    cache.getContours(new KeyDouble(-50.0));
+    assertEquals(1 + 2 * IsoDoseContourCache.PREFETCH_SLICES, builds.size());
+    assertTrue(builds.containsKey(new KeyDouble(-50.0 + 2.5)));
+    assertTrue(builds.containsKey(new KeyDouble(-50.0 - 2.5)));
+
+    // Already in the cache
+    cache.getContours(new KeyDouble(-47.5));
+    assertEquals(1, builds.get(new KeyDouble(-47.5)).get());
+
+    // First slice, only the following slices are prefetched
+    builds.clear();
+    cache.getContours(new KeyDouble(-100.0));
+    assertEquals(1 + IsoDoseContourCache.PREFETCH_SLICES, builds.size());
+  }
+
+  @Test
+  void test_display_does_not_wait_for_the_queue() {
+    Map<KeyDouble, AtomicInteger> builds = new ConcurrentHashMap<>();
+    // The background workers are busy, the submitted slices stay in the queue
+    List<Runnable> queue = new ArrayList<>();
+    IsoDoseContourCache cache =
+        new IsoDoseContourCache(
+            z -> {
+              builds.computeIfAbsent(z, _ -> new AtomicInteger()).incrementAndGet();
+              return List.of();
+            },
+            queue::add,
+            16);
+    cache.setSlicePositions(positions(40));
+
+    cache.getContours(new KeyDouble(-50.0));
+    assertEquals(1, builds.size());
+    assertEquals(2 * IsoDoseContourCache.PREFETCH_SLICES, queue.size());
+
+    // A queued slice is built by the display when it is requested
+    cache.getContours(new KeyDouble(-47.5));
+    assertEquals(1, builds.get(new KeyDouble(-47.5)).get());
+    // Then the worker does not build it again
+    queue.forEach(Runnable::run);
+    assertEquals(1, builds.get(new KeyDouble(-47.5)).get());
+  }
+
+  @Test
+  void test_without_caching() {
+    AtomicInteger builds = new AtomicInteger();
+    IsoDoseContourCache cache =
+        new IsoDoseContourCache(
+            _ -> {
+              builds.incrementAndGet();
+              return List.of();
+            },
+            Runnable::run,
+            8);
+    List<KeyDouble> zs = positions(100);
+    cache.setSlicePositions(zs);
+    cache.getContours(zs.get(50));
+    int size = cache.size();
+
+    // Reading all the slices does not replace the displayed slices
+    builds.set(0);
+    for (KeyDouble z : zs) {
+      cache.getContoursWithoutCaching(z);
+    }
+    assertEquals(size, cache.size());
+    // The slices already in the cache are not built again
+    assertEquals(100 - size, builds.get());
+  }
+
+  @Test
+  void test_bounded_and_clear() {
+    AtomicInteger builds = new AtomicInteger();
+    IsoDoseContourCache cache =
+        new IsoDoseContourCache(
+            _ -> {
+              builds.incrementAndGet();
+              return List.of();
+            },
+            Runnable::run,
+            8);
+    List<KeyDouble> zs = positions(100);
+    cache.setSlicePositions(zs);
+    for (KeyDouble z : zs) {
+      cache.getContours(z);
+    }
+    assertEquals(100, builds.get());
+    assertEquals(8, cache.size());
+
+    // Built again after invalidation
+    builds.set(0);
+    cache.clear();
+    assertEquals(0, cache.size());
+    cache.getContours(zs.getFirst());
+    assertTrue(builds.get() > 0);
+  }
+}
@@ -24,6 +24,7 @@
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 import javax.swing.BoundedRangeModel;
 import javax.swing.ButtonGroup;
@@ -57,6 +58,7 @@
 import org.weasis.core.api.gui.util.RadioMenuItem;
 import org.weasis.core.api.gui.util.SliderChangeListener;
 import org.weasis.core.api.gui.util.SliderCineListener;
+import org.weasis.core.api.gui.util.SliderCineListener.FrameRequest;
 import org.weasis.core.api.gui.util.SliderCineListener.TIME;
 import org.weasis.core.api.gui.util.ToggleButtonListener;
 import org.weasis.core.api.image.FilterOp;
@@ -457,6 +459,11 @@ private double getImageCineRate(
         return 0.0;
       }
 
+      @Override
+      protected IntFunction<FrameRequest> getFrameRequester() {
+        return getCineFrameRequester();
+      }
+
       @Override
       public void mouseWheelMoved(MouseWheelEvent e) {
         if (isActionEnabled()) {
@@ -23,6 +23,7 @@
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
@@ -53,10 +54,12 @@
 import org.weasis.core.api.image.OpManager;
 import org.weasis.core.api.image.PseudoColorOp;
 import org.weasis.core.api.image.SimpleOpManager;
+import org.weasis.core.api.image.ViewportOp;
 import org.weasis.core.api.image.WindowOp;
 import org.weasis.core.api.image.util.ImageLayer;
 import org.weasis.core.api.media.data.MediaSeries;
-import org.weasis.core.api.media.data.TagW;
+import org.weasis.core.api.media.data.MediaSeries.SliceExtent;
+import org.weasis.core.api.media.data.SeriesPreloader;
 import org.weasis.core.api.service.AuditLog;
 import org.weasis.core.ui.dialog.MeasureDialog;
 import org.weasis.core.ui.editor.image.CalibrationView;
@@ -91,6 +94,7 @@
 import org.weasis.core.util.LangUtil;
 import org.weasis.core.util.MathUtil;
 import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.codec.DicomSeries;
 import org.weasis.dicom.codec.HiddenSeriesManager;
 import org.weasis.dicom.codec.KOSpecialElement;
 import org.weasis.dicom.codec.PRSpecialElement;
@@ -127,11 +131,15 @@ public class View2d extends DefaultView2d<DicomImageElement> {
   private final ContextMenuHandler contextMenuHandler;
 
   protected final KOViewButton koStarButton;
+  // Crosslines of the first, the last and the current image of the selected series
+  private final Graphic[] crosslines = new Graphic[3];
 
   public View2d(ImageViewerEventManager<DicomImageElement> eventManager) {
     super(eventManager);
 
     SimpleOpManager manager = imageLayer.getDisplayOpManager();
+    // Crop and downsample large images before applying the next operations
+    manager.addImageOperationAction(new ViewportOp());
     manager.addImageOperationAction(new WindowAndPresetsOp());
     manager.addImageOperationAction(new FilterOp());
     manager.addImageOperationAction(new PseudoColorOp());
@@ -623,6 +631,7 @@ protected void setImage(DicomImageElement img) {
     if (newImg) {
       deletePrLayers();
       PrGraphicUtil.applyPresentationModel(img);
+      updatePreloading(img);
     }
     super.setImage(img);
 
@@ -633,6 +642,24 @@ protected void setImage(DicomImageElement img) {
     }
   }
 
+  /**
+   * Gives the new image to the preloading of the series, before loading it to count the cache
+   * misses. Also called for the views following the selected view (synchronized scrolling).
+   */
+  private void updatePreloading(DicomImageElement img) {
+    if (series instanceof DicomSeries dicomSeries
+        && !SeriesPreloader.updatePosition(dicomSeries, img)) {
+      List<DicomImageElement> images =
+          dicomSeries.copyOfMedias(
+              (Filter<DicomImageElement>) actionsInView.get(ActionW.FILTERED_SERIES.cmd()),
+              getCurrentSortComparator());
+      int index = images.indexOf(img);
+      if (index >= 0) {
+        DicomSeries.startPreloading(this, dicomSeries, images, index);
+      }
+    }
+  }
+
   @Override
   public void reset() {
     super.reset();
@@ -719,67 +746,95 @@ protected void sortStack(Comparator<DicomImageElement> sortComparator) {
   @Override
   protected void computeCrosslines(double location) {
     DicomImageElement image = this.getImage();
-    if (image != null) {
-      GeometryOfSlice sliceGeometry = image.getDispSliceGeometry();
-      if (sliceGeometry != null) {
-        ViewCanvas<DicomImageElement> view2DPane = eventManager.getSelectedViewPane();
-        MediaSeries<DicomImageElement> selSeries =
-            view2DPane == null ? null : view2DPane.getSeries();
-        if (selSeries != null) {
-          // Get the current image of the selected Series
-          DicomImageElement selImage = view2DPane.getImage();
-          // Get the first and the last image of the selected Series according to Slice Location
-
-          DicomImageElement firstImage = null;
-          DicomImageElement lastImage = null;
-          double min = Double.MAX_VALUE;
-          double max = -Double.MAX_VALUE;
-          final Iterable<DicomImageElement> list =
-              selSeries.getMedias(
-                  (Filter<DicomImageElement>)
-                      view2DPane.getActionValue(ActionW.FILTERED_SERIES.cmd()),
-                  getCurrentSortComparator());
-          synchronized (selSeries) {
-            for (DicomImageElement dcm : list) {
-              double[] loc = (double[]) dcm.getTagValue(TagW.SlicePosition);
-              if (loc != null) {
-                double position = loc[0] + loc[1] + loc[2];
-                if (min > position) {
-                  min = position;
-                  firstImage = dcm;
-                }
-                if (max < position) {
-                  max = position;
-                  lastImage = dcm;
-                }
-              }
-            }
-          }
+    GeometryOfSlice sliceGeometry = image == null ? null : image.getDispSliceGeometry();
+    ViewCanvas<DicomImageElement> view2DPane = eventManager.getSelectedViewPane();
+    MediaSeries<DicomImageElement> selSeries = view2DPane == null ? null : view2DPane.getSeries();
+    if (sliceGeometry == null || selSeries == null) {
+      Arrays.fill(crosslines, null);
+      graphicManager.deleteByLayerType(LayerType.CROSSLINES);
+      return;
+    }
 
-          GraphicLayer layer = AbstractGraphicModel.getOrBuildLayer(this, LayerType.CROSSLINES);
-          // IntersectSlice: display a line representing the center of the slice
-          IntersectSlice slice = new IntersectSlice(sliceGeometry);
-          if (firstImage != null && firstImage != lastImage) {
-            addCrossline(firstImage, layer, slice, false);
-          }
-          if (lastImage != null && firstImage != lastImage) {
-            addCrossline(lastImage, layer, slice, false);
-          }
-          if (selImage != null) {
-            // IntersectVolume: display a rectangle to show the slice thickness
-            if (!addCrossline(selImage, layer, new IntersectVolume(sliceGeometry), true)) {
-              // When the volume limits are outside the image, get only the intersection
-              addCrossline(selImage, layer, slice, true);
-            }
-          }
-          repaint();
+    // Get the current image of the selected Series
+    DicomImageElement selImage = view2DPane.getImage();
+    // Get the first and the last image of the selected Series according to Slice Location
+    SliceExtent<DicomImageElement> extent =
+        selSeries.getSliceExtent(
+            (Filter<DicomImageElement>) view2DPane.getActionValue(ActionW.FILTERED_SERIES.cmd()),
+            getCurrentSortComparator());
+    DicomImageElement firstImage = extent.first();
+    DicomImageElement lastImage = extent.last();
+
+    GraphicLayer layer = AbstractGraphicModel.getOrBuildLayer(this, LayerType.CROSSLINES);
+    // IntersectSlice: display a line representing the center of the slice
+    IntersectSlice slice = new IntersectSlice(sliceGeometry);
+    boolean bounds = firstImage != null && firstImage != lastImage;
+    updateCrossline(0, bounds ? firstImage : null, layer, slice, false);
+    updateCrossline(1, bounds ? lastImage : null, layer, slice, false);
+    // IntersectVolume: display a rectangle to show the slice thickness
+    if (!updateCrossline(2, selImage, layer, new IntersectVolume(sliceGeometry), true)) {
+      // When the volume limits are outside the image, get only the intersection
+      updateCrossline(2, selImage, layer, slice, true);
+    }
+
+    // Remove the other graphics of the layer (e.g. the crosshair)
+    List<Graphic> others =
+        graphicManager.getModels().stream()
+            .filter(
+                g ->
+                    g.getLayer().getType() == LayerType.CROSSLINES
+                        && Arrays.stream(crosslines).noneMatch(c -> c == g))
+            .toList();
+    others.forEach(graphicManager::removeGraphic);
+    repaint();
+  }
+
+  /**
+   * Updates the crossline of an image of the selected series. The graphic is reused when it is
+   * still in the layer and has the same type, otherwise it is replaced.
+   *
+   * @param slot the index of the crossline in the crosslines of the view
+   * @param selImage the image, null to remove the crossline
+   * @return true if the crossline is displayed
+   */
+  protected boolean updateCrossline(
+      int slot,
+      DicomImageElement selImage,
+      GraphicLayer layer,
+      LocalizerPoster localizer,
+      boolean center) {
+    Graphic graphic = crosslines[slot];
+    List<Point2D> pts = selImage == null ? null : getCrosslinePoints(selImage, localizer);
+    if (pts != null) {
+      boolean line = pts.size() == 2;
+      try {
+        if (graphic != null
+            && (graphic instanceof LineGraphic) == line
+            && layer.equals(graphic.getLayer())
+            && graphicManager.getModels().contains(graphic)) {
+          graphic.buildGraphic(pts);
+        } else {
+          graphicManager.removeGraphic(graphic);
+          graphic =
+              line ? new LineGraphic().buildGraphic(pts) : new PolygonGraphic().buildGraphic(pts);
+          graphic.setLabelVisible(Boolean.FALSE);
+          graphic.setLayer(layer);
+          graphicManager.addGraphic(graphic);
         }
+        graphic.setPaint(center ? Color.blue : Color.cyan);
+        crosslines[slot] = graphic;
+        return true;
+      } catch (InvalidShapeException e) {
+        LOGGER.error("Building crossline", e);
       }
     }
+    graphicManager.removeGraphic(graphic);
+    crosslines[slot] = null;
+    return false;
   }
 
-  protected boolean addCrossline(
-      DicomImageElement selImage, GraphicLayer layer, LocalizerPoster localizer, boolean center) {
+  private static List<Point2D> getCrosslinePoints(
+      DicomImageElement selImage, LocalizerPoster localizer) {
     GeometryOfSlice sliceGeometry = selImage.getDispSliceGeometry();
     if (sliceGeometry != null) {
       List<Point2D> pts = localizer.getOutlineOnLocalizerForThisGeometry(sliceGeometry);
@@ -791,26 +846,10 @@ protected boolean addCrossline(
             pts.remove(lastPointIndex);
           }
         }
-        Color color = center ? Color.blue : Color.cyan;
-        try {
-          Graphic graphic;
-          if (pts.size() == 2) {
-            graphic = new LineGraphic().buildGraphic(pts);
-          } else {
-            graphic = new PolygonGraphic().buildGraphic(pts);
-          }
-          graphic.setPaint(color);
-          graphic.setLabelVisible(Boolean.FALSE);
-          graphic.setLayer(layer);
-
-          graphicManager.addGraphic(graphic);
-          return true;
-        } catch (InvalidShapeException e) {
-          LOGGER.error("Building crossline", e);
-        }
+        return pts;
       }
     }
-    return false;
+    return null;
   }
 
   @Override
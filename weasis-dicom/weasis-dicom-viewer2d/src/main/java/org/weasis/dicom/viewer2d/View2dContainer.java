@@ -384,6 +384,7 @@ public void setSelectedImagePaneFromFocus(ViewCanvas<DicomImageElement> viewCanv
     setSelectedImagePane(viewCanvas);
     if (viewCanvas != null && viewCanvas.getSeries() instanceof DicomSeries series) {
       DicomSeries.startPreloading(
+          viewCanvas,
           series,
           series.copyOfMedias(
               (Filter<DicomImageElement>) viewCanvas.getActionValue(ActionW.FILTERED_SERIES.cmd()),
@@ -13,9 +13,13 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Tag;
 import org.dcm4che3.data.VR;
@@ -23,29 +27,28 @@
 import org.dcm4che3.util.UIDUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.task.TaskInterruptionException;
 import org.weasis.core.api.gui.util.ActionW;
 import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.gui.util.ComboItemListener;
 import org.weasis.core.api.gui.util.Filter;
 import org.weasis.core.api.gui.util.SliderChangeListener;
 import org.weasis.core.api.gui.util.SliderCineListener;
-import org.weasis.core.api.image.op.MaxCollectionZprojection;
-import org.weasis.core.api.image.op.MeanCollectionZprojection;
-import org.weasis.core.api.image.op.MinCollectionZprojection;
-import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.api.media.data.MediaSeries;
 import org.weasis.core.api.media.data.SeriesComparator;
 import org.weasis.core.api.media.data.TagW;
+import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.ui.editor.image.ImageViewerEventManager;
 import org.weasis.core.util.FileUtil;
 import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.codec.SeriesVolume;
 import org.weasis.dicom.codec.TagD;
 import org.weasis.dicom.codec.utils.DicomMediaUtils;
 import org.weasis.dicom.viewer2d.View2d;
 import org.weasis.dicom.viewer2d.mip.MipView.Type;
 import org.weasis.dicom.viewer2d.mpr.RawImageIO;
 import org.weasis.opencv.data.FileRawImage;
-import org.weasis.opencv.data.PlanarImage;
+import org.weasis.opencv.data.ImageCV;
 
 public class SeriesBuilder {
   private static final Logger LOGGER = LoggerFactory.getLogger(SeriesBuilder.class);
@@ -63,13 +66,12 @@ public static void applyMipParameters(
       Integer extend,
       boolean fullSeries) {
 
-    PlanarImage curImage;
     if (series != null) {
       SeriesComparator sort = (SeriesComparator) view.getActionValue(ActionW.SORT_STACK.cmd());
       Boolean reverse = (Boolean) view.getActionValue(ActionW.INVERSE_STACK.cmd());
       Comparator sortFilter = (reverse != null && reverse) ? sort.getReversOrderComparator() : sort;
       Filter filter = (Filter) view.getActionValue(ActionW.FILTERED_SERIES.cmd());
-      Iterable<DicomImageElement> medias = series.copyOfMedias(filter, sortFilter);
+      List<DicomImageElement> medias = series.copyOfMedias(filter, sortFilter);
 
       int curImg = extend - 1;
       Optional<SliderCineListener> sequence =
@@ -79,7 +81,10 @@ public static void applyMipParameters(
       }
 
       int minImg = fullSeries ? extend : curImg;
-      int maxImg = fullSeries ? series.size(filter) - extend : curImg;
+      int maxImg = fullSeries ? medias.size() - extend : curImg;
+      if (maxImg < minImg) {
+        return;
+      }
 
       DicomImageElement img =
           series.getMedia(MediaSeries.MEDIA_POSITION.MIDDLE, filter, sortFilter);
@@ -87,106 +92,185 @@ public static void applyMipParameters(
       final Attributes cpTags = getBaseAttributes(attributes);
       adaptWindowLevel(view, cpTags);
       String seriesUID = UIDUtils.createUID();
+      File dir = MIP_CACHE_DIR;
+      if (fullSeries) {
+        dir = new File(MIP_CACHE_DIR, seriesUID);
+        dir.mkdirs();
+      }
 
-      for (int index = minImg; index <= maxImg; index++) {
-        Iterator<DicomImageElement> iter = medias.iterator();
-        final List<ImageElement> sources = new ArrayList<>();
-        int startIndex = index - extend;
-        if (startIndex < 0) {
-          startIndex = 0;
+      // Read the full series from the volume shared with the other builders (MPR, 3D...)
+      SeriesVolume volume = fullSeries ? SeriesVolume.acquire(series) : null;
+      SlabProjection projection = new SlabProjection(mipType, medias, extend, volume);
+      DicomImageElement[] results = new DicomImageElement[maxImg - minImg + 1];
+      AtomicInteger failedIndex = new AtomicInteger(Integer.MAX_VALUE);
+      File outputDir = dir;
+      SlabProjection.SlabConsumer consumer =
+          (index, start, end, slab) -> {
+            DicomImageElement dcm =
+                buildMipImage(
+                    slab, medias.subList(start, end + 1), index, img, cpTags, seriesUID, outputDir);
+            if (dcm == null) {
+              failedIndex.accumulateAndGet(index, Math::min);
+              return false;
+            }
+            results[index - minImg] = dcm;
+            return index < failedIndex.get();
+          };
+
+      // Split the series into chunks of consecutive slabs computed in parallel. Each chunk reads
+      // again the images overlapping the previous chunk, so a chunk must be larger than a slab.
+      int nbOutputs = results.length;
+      int nbChunks =
+          Math.max(
+              1,
+              Math.min(
+                  Runtime.getRuntime().availableProcessors(),
+                  nbOutputs / (4 * (2 * extend + 1))));
+      try {
+        if (nbChunks == 1) {
+          projection.compute(minImg, maxImg, consumer);
+        } else {
+          computeInParallel(projection, minImg, maxImg, nbChunks, consumer);
         }
-        int stopIndex = index + extend;
-        int k = 0;
-        while (iter.hasNext()) {
-          DicomImageElement dcm = iter.next();
-          if (k >= startIndex) {
-            sources.add(dcm);
+      } catch (RuntimeException e) {
+        for (DicomImageElement dcm : results) {
+          if (dcm != null) {
+            dcm.dispose();
           }
+        }
+        throw e;
+      } finally {
+        if (volume != null) {
+          volume.release();
+        }
+      }
 
-          if (k >= stopIndex) {
-            break;
+      int lastIndex = Math.min(maxImg, failedIndex.get() - 1);
+      for (int index = minImg; index <= maxImg; index++) {
+        DicomImageElement dcm = results[index - minImg];
+        if (dcm != null) {
+          if (index <= lastIndex) {
+            dicoms.add(dcm);
+          } else {
+            // Computed by another chunk after the failure, delete its file
+            dcm.dispose();
           }
-          k++;
         }
+      }
+    }
+  }
 
-        if (sources.size() > 1) {
-          curImage = addCollectionOperation(mipType, sources);
-        } else {
-          curImage = null;
-        }
+  private static void computeInParallel(
+      SlabProjection projection,
+      int minImg,
+      int maxImg,
+      int nbChunks,
+      SlabProjection.SlabConsumer consumer) {
+    int nbOutputs = maxImg - minImg + 1;
+    List<Callable<Void>> tasks = new ArrayList<>(nbChunks);
+    for (int i = 0; i < nbChunks; i++) {
+      int first = minImg + (int) ((long) nbOutputs * i / nbChunks);
+      int last = minImg + (int) ((long) nbOutputs * (i + 1) / nbChunks) - 1;
+      tasks.add(
+          () -> {
+            projection.compute(first, last, consumer);
+            return null;
+          });
+    }
 
-        if (curImage != null) {
-          DicomImageElement imgRef = (DicomImageElement) sources.get(sources.size() / 2);
-          FileRawImage raw = null;
-          try {
-            File dir = MIP_CACHE_DIR;
-            if (fullSeries) {
-              dir = new File(MIP_CACHE_DIR, seriesUID);
-              dir.mkdirs();
-            }
-            raw = new FileRawImage(File.createTempFile("mip_", ".wcv", dir)); // NON-NLS
-            if (!raw.write(curImage)) {
-              raw = null;
-            }
-          } catch (Exception e) {
-            if (raw != null) {
-              FileUtil.delete(raw.file());
-              raw = null;
-            }
-            LOGGER.error("Writing MIP", e);
-          }
-          if (raw == null) {
-            return;
-          }
-          RawImageIO rawIO = new RawImageIO(raw, null);
-          rawIO.getFileCache().setOriginalTempFile(raw.file());
-          rawIO.setBaseAttributes(cpTags);
+    ExecutorService executor =
+        ThreadUtil.buildNewFixedThreadExecutor(nbChunks, "MIP Builder"); // NON-NLS
+    try {
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TaskInterruptionException("MIP building has been interrupted"); // NON-NLS
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 
-          // Tags with same values for all the Series
-          rawIO.setTag(TagD.get(Tag.Columns), curImage.width());
-          rawIO.setTag(TagD.get(Tag.Rows), curImage.height());
-          rawIO.setTag(TagD.get(Tag.BitsAllocated), imgRef.getBitsAllocated());
-          rawIO.setTag(TagD.get(Tag.BitsStored), imgRef.getBitsStored());
+  private static DicomImageElement buildMipImage(
+      ImageCV curImage,
+      List<DicomImageElement> sources,
+      int index,
+      DicomImageElement img,
+      Attributes cpTags,
+      String seriesUID,
+      File dir) {
+    DicomImageElement imgRef = sources.get(sources.size() / 2);
+    FileRawImage raw = null;
+    try {
+      raw = new FileRawImage(File.createTempFile("mip_", ".wcv", dir)); // NON-NLS
+      if (!raw.write(curImage)) {
+        raw = null;
+      }
+    } catch (Exception e) {
+      if (raw != null) {
+        FileUtil.delete(raw.file());
+        raw = null;
+      }
+      LOGGER.error("Writing MIP", e);
+    }
+    int width = curImage.width();
+    int height = curImage.height();
+    // The image is now in the file
+    curImage.release();
+    if (raw == null) {
+      return null;
+    }
+    RawImageIO rawIO = new RawImageIO(raw, null);
+    rawIO.getFileCache().setOriginalTempFile(raw.file());
+    rawIO.setBaseAttributes(cpTags);
 
-          int lastIndex = sources.size() - 1;
-          double thickness =
-              DicomMediaUtils.getThickness(sources.getFirst(), sources.get(lastIndex));
-          if (thickness <= 0.0) {
-            thickness = sources.size();
-          }
-          rawIO.setTag(TagD.get(Tag.SliceThickness), thickness);
-          double[] loc = (double[]) imgRef.getTagValue(TagW.SlicePosition);
-          if (loc != null) {
-            rawIO.setTag(TagW.SlicePosition, loc);
-            rawIO.setTag(TagD.get(Tag.SliceLocation), loc[0] + loc[1] + loc[2]);
-          }
+    // Tags with same values for all the Series
+    rawIO.setTag(TagD.get(Tag.Columns), width);
+    rawIO.setTag(TagD.get(Tag.Rows), height);
+    rawIO.setTag(TagD.get(Tag.BitsAllocated), imgRef.getBitsAllocated());
+    rawIO.setTag(TagD.get(Tag.BitsStored), imgRef.getBitsStored());
 
-          rawIO.setTag(TagD.get(Tag.SeriesInstanceUID), seriesUID);
+    int lastIndex = sources.size() - 1;
+    double thickness = DicomMediaUtils.getThickness(sources.getFirst(), sources.get(lastIndex));
+    if (thickness <= 0.0) {
+      thickness = sources.size();
+    }
+    rawIO.setTag(TagD.get(Tag.SliceThickness), thickness);
+    double[] loc = (double[]) imgRef.getTagValue(TagW.SlicePosition);
+    if (loc != null) {
+      rawIO.setTag(TagW.SlicePosition, loc);
+      rawIO.setTag(TagD.get(Tag.SliceLocation), loc[0] + loc[1] + loc[2]);
+    }
 
-          // Mandatory tags
-          org.weasis.dicom.viewer2d.mpr.SeriesBuilder.copyMandatoryTags(img, rawIO);
-          TagW[] tagList2;
+    rawIO.setTag(TagD.get(Tag.SeriesInstanceUID), seriesUID);
 
-          tagList2 =
-              TagD.getTagFromIDs(
-                  Tag.ImageOrientationPatient,
-                  Tag.ImagePositionPatient,
-                  Tag.PixelPaddingValue,
-                  Tag.PixelPaddingRangeLimit,
-                  Tag.PixelSpacing,
-                  Tag.ImagerPixelSpacing,
-                  Tag.NominalScannedPixelSpacing,
-                  Tag.PixelSpacingCalibrationDescription,
-                  Tag.PixelAspectRatio);
-          rawIO.copyTags(tagList2, imgRef, false);
+    // Mandatory tags
+    org.weasis.dicom.viewer2d.mpr.SeriesBuilder.copyMandatoryTags(img, rawIO);
+    TagW[] tagList2;
 
-          // Image specific tags
-          rawIO.setTag(TagD.get(Tag.SOPInstanceUID), UIDUtils.createUID());
-          rawIO.setTag(TagD.get(Tag.InstanceNumber), index + 1);
-          dicoms.add(org.weasis.dicom.viewer2d.mpr.SeriesBuilder.buildDicomImageElement(rawIO));
-        }
-      }
-    }
+    tagList2 =
+        TagD.getTagFromIDs(
+            Tag.ImageOrientationPatient,
+            Tag.ImagePositionPatient,
+            Tag.PixelPaddingValue,
+            Tag.PixelPaddingRangeLimit,
+            Tag.PixelSpacing,
+            Tag.ImagerPixelSpacing,
+            Tag.NominalScannedPixelSpacing,
+            Tag.PixelSpacingCalibrationDescription,
+            Tag.PixelAspectRatio);
+    rawIO.copyTags(tagList2, imgRef, false);
+
+    // Image specific tags
+    rawIO.setTag(TagD.get(Tag.SOPInstanceUID), UIDUtils.createUID());
+    rawIO.setTag(TagD.get(Tag.InstanceNumber), index + 1);
+    return org.weasis.dicom.viewer2d.mpr.SeriesBuilder.buildDicomImageElement(rawIO);
   }
 
   private static Attributes getBaseAttributes(Attributes attributes) {
@@ -283,17 +367,4 @@ public static double[] insertAtFirst(double[] originalArray, double newItem) {
     System.arraycopy(originalArray, 0, newArray, 1, originalArray.length);
     return newArray;
   }
-
-  public static PlanarImage addCollectionOperation(Type mipType, List<ImageElement> sources) {
-    if (Type.MIN.equals(mipType)) {
-      MinCollectionZprojection op = new MinCollectionZprojection(sources);
-      return op.computeMinCollectionOpImage();
-    }
-    if (Type.MEAN.equals(mipType)) {
-      MeanCollectionZprojection op = new MeanCollectionZprojection(sources);
-      return op.computeMeanCollectionOpImage();
-    }
-    MaxCollectionZprojection op = new MaxCollectionZprojection(sources);
-    return op.computeMaxCollectionOpImage();
-  }
 }
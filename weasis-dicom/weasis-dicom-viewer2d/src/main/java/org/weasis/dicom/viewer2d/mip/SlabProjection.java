@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.viewer2d.mip;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.weasis.core.api.gui.task.TaskInterruptionException;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
+import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.codec.SeriesVolume;
+import org.weasis.dicom.viewer2d.mip.MipView.Type;
+import org.weasis.opencv.data.ImageCV;
+import org.weasis.opencv.data.PlanarImage;
+
+/**
+ * Sliding-window projection (minimum, maximum or mean) of a stack of images. The slab of the
+ * output index {@code i} contains the source images from {@code i - extend} to {@code i + extend}.
+ *
+ * <p>When computing consecutive slabs, each source image is read only once and the cost does not
+ * depend on the slab thickness: the minimum and the maximum are computed with a queue of partial
+ * results made of two stacks (each image is combined three times at most) and the mean with a
+ * running sum.
+ */
+final class SlabProjection {
+
+  @FunctionalInterface
+  interface SlabConsumer {
+    /**
+     * @param index the index of the output image
+     * @param start the index of the first source image of the slab
+     * @param end the index of the last source image of the slab (inclusive)
+     * @param slab the projection image, owned by the consumer
+     * @return false to stop the computation
+     */
+    boolean accept(int index, int start, int end, ImageCV slab);
+  }
+
+  private final Type type;
+  private final List<? extends ImageElement> sources;
+  private final int extend;
+  private final SeriesVolume volume;
+  private volatile int[] referenceSize;
+
+  /**
+   * @param volume the volume of the series from which the source images are read, or null to read
+   *     them from the image elements
+   */
+  SlabProjection(
+      Type type, List<? extends ImageElement> sources, int extend, SeriesVolume volume) {
+    this.type = Objects.requireNonNull(type);
+    this.sources = Objects.requireNonNull(sources);
+    this.extend = Math.max(0, extend);
+    this.volume = volume;
+  }
+
+  int getStart(int index) {
+    return Math.max(0, index - extend);
+  }
+
+  int getEnd(int index) {
+    return Math.min(index + extend, sources.size() - 1);
+  }
+
+  /**
+   * Computes the slabs from {@code minIndex} to {@code maxIndex} in ascending order. A slab is
+   * provided to the consumer only when it contains at least two source images.
+   *
+   * @throws TaskInterruptionException if the current thread is interrupted
+   */
+  void compute(int minIndex, int maxIndex, SlabConsumer consumer) {
+    SlidingWindow window = Type.MEAN.equals(type) ? new MeanWindow() : new ExtremumWindow();
+    // Copies of the images of the window, to release (null for the ignored images)
+    LinkedList<Mat> copies = new LinkedList<>();
+    try {
+      int first = getStart(minIndex);
+      int next = first;
+      for (int index = minIndex; index <= maxIndex; index++) {
+        if (Thread.currentThread().isInterrupted()) {
+          throw new TaskInterruptionException("MIP building has been interrupted"); // NON-NLS
+        }
+        int start = getStart(index);
+        int end = getEnd(index);
+        while (first < start) {
+          window.remove();
+          release(copies.pollFirst());
+          first++;
+        }
+        while (next <= end) {
+          window.add(readImage(next, copies));
+          next++;
+        }
+        if (end > start) {
+          ImageCV slab = window.getResult();
+          if (slab != null && !consumer.accept(index, start, end, slab)) {
+            return;
+          }
+        }
+      }
+    } finally {
+      window.release();
+      copies.forEach(SlabProjection::release);
+    }
+  }
+
+  private Mat readImage(int index, LinkedList<Mat> copies) {
+    int[] size = referenceSize;
+    if (size == null) {
+      PlanarImage ref = sources.getFirst().getImage(null, false, Priority.BACKGROUND);
+      size = ref == null ? new int[] {-1, -1} : new int[] {ref.width(), ref.height()};
+      referenceSize = size;
+    }
+    ImageElement source = sources.get(index);
+    if (volume != null && source instanceof DicomImageElement dcm) {
+      ImageCV slice = volume.getSlice(dcm);
+      if (slice != null) {
+        if (slice.width() == size[0] && slice.height() == size[1]) {
+          copies.addLast(slice);
+          return slice;
+        }
+        slice.release();
+      }
+    }
+    PlanarImage image = source.getImage(null, false, Priority.BACKGROUND);
+    // Images with a different size are ignored
+    if (image instanceof Mat mat && image.width() == size[0] && image.height() == size[1]) {
+      // The image of the cache can be released by an eviction while it is still in the window
+      ImageCV copy = new ImageCV();
+      mat.copyTo(copy);
+      copies.addLast(copy);
+      return copy;
+    }
+    copies.addLast(null);
+    return null;
+  }
+
+  private static void release(Mat mat) {
+    if (mat != null) {
+      mat.release();
+    }
+  }
+
+  private interface SlidingWindow {
+    /**
+     * @param image the source image entering the window, or null when the image is ignored
+     */
+    void add(Mat image);
+
+    /** Removes the oldest image of the window. */
+    void remove();
+
+    /**
+     * @return the projection of the images of the window, or null when all the images are ignored
+     */
+    ImageCV getResult();
+
+    void release();
+  }
+
+  /**
+   * Minimum or maximum of the window. The images entering the window are pushed on the back stack
+   * (with the running extremum of the back stack), and the front stack holds the extremum of the
+   * images from each position to the end of the stack. When the front stack is empty, the back
+   * stack is transferred to it.
+   */
+  private final class ExtremumWindow implements SlidingWindow {
+    private final boolean min = Type.MIN.equals(type);
+    private final List<Mat> back = new ArrayList<>();
+    private final List<Mat> front = new ArrayList<>();
+    private Mat backExtremum;
+
+    private ImageCV combine(Mat a, Mat b) {
+      if (a == null && b == null) {
+        return null;
+      }
+      ImageCV dst = new ImageCV();
+      if (a == null) {
+        b.copyTo(dst);
+      } else if (b == null) {
+        a.copyTo(dst);
+      } else if (min) {
+        Core.min(a, b, dst);
+      } else {
+        Core.max(a, b, dst);
+      }
+      return dst;
+    }
+
+    @Override
+    public void add(Mat image) {
+      back.add(image);
+      if (image != null) {
+        Mat val = combine(backExtremum, image);
+        SlabProjection.release(backExtremum);
+        backExtremum = val;
+      }
+    }
+
+    @Override
+    public void remove() {
+      if (front.isEmpty()) {
+        Mat val = null;
+        for (int i = back.size() - 1; i >= 0; i--) {
+          Mat image = back.get(i);
+          if (image != null) {
+            val = combine(image, val);
+          }
+          front.add(val);
+        }
+        back.clear();
+        SlabProjection.release(backExtremum);
+        backExtremum = null;
+      }
+      if (!front.isEmpty()) {
+        Mat val = front.removeLast();
+        // The same partial result can be referenced by the next position when images are ignored
+        if (front.isEmpty() || front.getLast() != val) {
+          SlabProjection.release(val);
+        }
+      }
+    }
+
+    @Override
+    public ImageCV getResult() {
+      return combine(front.isEmpty() ? null : front.getLast(), backExtremum);
+    }
+
+    @Override
+    public void release() {
+      Mat last = null;
+      for (Mat val : front) {
+        if (val != last) {
+          SlabProjection.release(val);
+        }
+        last = val;
+      }
+      front.clear();
+      back.clear();
+      SlabProjection.release(backExtremum);
+      backExtremum = null;
+    }
+  }
+
+  /**
+   * Mean of the window from a running sum in double precision, which is exact for integer pixel
+   * values. The ignored images are not counted.
+   */
+  private static final class MeanWindow implements SlidingWindow {
+    private final LinkedList<Mat> images = new LinkedList<>();
+    private Mat sum;
+    private int count;
+    private int imageType = -1;
+
+    private void accumulate(Mat image, boolean add) {
+      Mat val = new Mat();
+      image.convertTo(val, CvType.CV_64F);
+      if (sum == null) {
+        sum = val;
+        return;
+      }
+      if (add) {
+        Core.add(sum, val, sum);
+      } else {
+        Core.subtract(sum, val, sum);
+      }
+      val.release();
+    }
+
+    @Override
+    public void add(Mat image) {
+      images.addLast(image);
+      if (image != null) {
+        imageType = image.type();
+        accumulate(image, true);
+        count++;
+      }
+    }
+
+    @Override
+    public void remove() {
+      Mat image = images.pollFirst();
+      if (image != null) {
+        accumulate(image, false);
+        count--;
+      }
+    }
+
+    @Override
+    public ImageCV getResult() {
+      if (sum == null || count == 0) {
+        return null;
+      }
+      ImageCV dst = new ImageCV();
+      sum.convertTo(dst, imageType, 1.0 / count);
+      return dst;
+    }
+
+    @Override
+    public void release() {
+      images.clear();
+      SlabProjection.release(sum);
+      sum = null;
+      count = 0;
+    }
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.viewer2d.mpr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel.MapMode;
+import org.opencv.core.CvType;
+import org.weasis.core.util.FileUtil;
+import org.weasis.dicom.codec.SeriesVolume;
+import org.weasis.opencv.data.ImageCV;
+
+/**
+ * Images of a reconstructed series stored in a single preallocated file, which is mapped in
+ * memory. The pixels are in little endian without header and each image is contiguous in the file,
+ * so an image of the series is a view at a given offset of the file.
+ *
+ * <p>The images can be written concurrently by several threads as long as they write different
+ * pixels. The volume is reference-counted: the creator and each image reading the volume call
+ * {@link #release()} when they do not need it anymore. The last release closes the mapping and
+ * deletes the file, a file cannot be deleted while it is mapped on Windows.
+ */
+public final class MprVolume {
+
+  private final File file;
+  private final int depth;
+  private final int width;
+  private final int height;
+  private final int cvType;
+  private final int channels;
+  private final ValueLayout layout;
+  private final long sliceLength;
+  private final Arena arena;
+  private final MemorySegment segment;
+
+  // Guarded by this
+  private int refCount = 1;
+
+  private MprVolume(
+      File file,
+      int depth,
+      int width,
+      int height,
+      int cvType,
+      ValueLayout layout,
+      Arena arena,
+      MemorySegment segment) {
+    this.file = file;
+    this.depth = depth;
+    this.width = width;
+    this.height = height;
+    this.cvType = cvType;
+    this.channels = CvType.channels(cvType);
+    this.layout = layout;
+    this.sliceLength = (long) width * height * channels * layout.byteSize();
+    this.arena = arena;
+    this.segment = segment;
+  }
+
+  /**
+   * Creates the file with the size of all the images and maps it in memory. The caller holds a
+   * reference on the volume.
+   *
+   * @param file the file to create
+   * @param depth the number of images
+   * @param width the width of each image
+   * @param height the height of each image
+   * @param cvType the OpenCV type of the images
+   */
+  public static MprVolume create(File file, int depth, int width, int height, int cvType)
+      throws IOException {
+    ValueLayout layout = SeriesVolume.getLayout(cvType);
+    long length = (long) depth * width * height * CvType.channels(cvType) * layout.byteSize();
+    Arena arena = Arena.ofShared();
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) { // NON-NLS
+      raf.setLength(length);
+      MemorySegment segment = raf.getChannel().map(MapMode.READ_WRITE, 0, length, arena);
+      return new MprVolume(file, depth, width, height, cvType, layout, arena, segment);
+    } catch (IOException | RuntimeException e) {
+      arena.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Increments the reference count.
+   *
+   * @return false if the volume is already released
+   */
+  public synchronized boolean acquire() {
+    if (refCount <= 0) {
+      return false;
+    }
+    refCount++;
+    return true;
+  }
+
+  /** Decrements the reference count, the last release unmaps and deletes the file. */
+  public void release() {
+    synchronized (this) {
+      refCount--;
+      if (refCount != 0) {
+        return;
+      }
+      arena.close();
+    }
+    FileUtil.delete(file);
+  }
+
+  public synchronized boolean isReleased() {
+    return refCount <= 0;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  public int getType() {
+    return cvType;
+  }
+
+  public long getSliceOffset(int index) {
+    return index * sliceLength;
+  }
+
+  public long getSliceLength() {
+    return sliceLength;
+  }
+
+  /**
+   * @param nbPixels the number of pixels
+   * @return an array of the primitive type of the image, holding all the channels of the pixels
+   */
+  Object createBuffer(int nbPixels) {
+    return SeriesVolume.createBuffer(cvType, nbPixels);
+  }
+
+  private long getPixelOffset(int index, int row, int column) {
+    return getSliceOffset(index) + ((long) row * width + column) * channels * layout.byteSize();
+  }
+
+  /**
+   * Writes the pixels of a buffer into a row of an image.
+   *
+   * @param buffer the pixels created with {@link #createBuffer(int)} for the width of the images
+   * @param index the index of the image
+   * @param row the row in the image
+   */
+  void writeRow(Object buffer, int index, int row) {
+    MemorySegment.copy(
+        buffer, 0, segment, layout, getPixelOffset(index, row, 0), width * channels);
+  }
+
+  /**
+   * Writes the pixels of a buffer into a column of an image.
+   *
+   * @param buffer the pixels created with {@link #createBuffer(int)} for the height of the images
+   * @param index the index of the image
+   * @param column the column in the image
+   */
+  void writeColumn(Object buffer, int index, int column) {
+    for (int row = 0; row < height; row++) {
+      MemorySegment.copy(
+          buffer, row * channels, segment, layout, getPixelOffset(index, row, column), channels);
+    }
+  }
+
+  /**
+   * @param index the index of the image
+   * @return a copy of the image or null if the volume is released
+   */
+  public ImageCV readSlice(int index) {
+    if (index < 0 || index >= depth) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    Object buffer = createBuffer(width * height);
+    // Not unmapped during the copy
+    if (!acquire()) {
+      return null;
+    }
+    try {
+      MemorySegment.copy(
+          segment, layout, getSliceOffset(index), buffer, 0, width * height * channels);
+    } finally {
+      release();
+    }
+    ImageCV img = new ImageCV(height, width, cvType);
+    SeriesVolume.putData(img, buffer);
+    return img;
+  }
+}
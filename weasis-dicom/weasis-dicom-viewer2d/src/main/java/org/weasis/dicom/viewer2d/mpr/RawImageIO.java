@@ -18,6 +18,7 @@
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.BulkData;
 import org.dcm4che3.data.SpecificCharacterSet;
@@ -60,6 +61,8 @@ public void removeElement(Reference<? extends DicomMetaData> soft) {
       };
 
   protected FileRawImage imageCV;
+  private final MprVolume volume;
+  private final int sliceIndex;
   private final FileCache fileCache;
 
   private final HashMap<TagW, Object> tags;
@@ -68,11 +71,41 @@ public void removeElement(Reference<? extends DicomMetaData> soft) {
 
   public RawImageIO(FileRawImage imageCV, Codec codec) {
     this.imageCV = Objects.requireNonNull(imageCV);
+    this.volume = null;
+    this.sliceIndex = -1;
     this.fileCache = new FileCache(this);
     this.tags = new HashMap<>();
     this.codec = codec;
   }
 
+  /**
+   * @param volume the volume containing the image, which is released when the image is disposed
+   * @param sliceIndex the index of the image in the volume
+   * @param codec the codec, can be null
+   */
+  public RawImageIO(MprVolume volume, int sliceIndex, Codec codec) {
+    this.imageCV = null;
+    this.volume = Objects.requireNonNull(volume);
+    if (!volume.acquire()) {
+      throw new IllegalStateException("The volume is released");
+    }
+    this.sliceIndex = sliceIndex;
+    AtomicBoolean disposed = new AtomicBoolean();
+    this.fileCache =
+        new FileCache(this) {
+          @Override
+          public void dispose() {
+            super.dispose();
+            // The volume is shared by the images of the series
+            if (disposed.compareAndSet(false, true)) {
+              volume.release();
+            }
+          }
+        };
+    this.tags = new HashMap<>();
+    this.codec = codec;
+  }
+
   public void setBaseAttributes(Attributes attributes) {
     this.attributes = attributes;
   }
@@ -80,14 +113,7 @@ public void setBaseAttributes(Attributes attributes) {
   public File getDicomFile() {
     Attributes dcm = getDicomObject();
 
-    File file = imageCV.file();
-    BulkData bdl =
-        new BulkData(
-            file.toURI().toString(),
-            FileRawImage.HEADER_LENGTH,
-            file.length() - FileRawImage.HEADER_LENGTH,
-            false);
-    dcm.setValue(Tag.PixelData, VR.OW, bdl);
+    dcm.setValue(Tag.PixelData, VR.OW, getPixelData());
     File tmpFile = new File(DicomMediaIO.DICOM_EXPORT_DIR, dcm.getString(Tag.SOPInstanceUID));
     try (DicomOutputStream out = new DicomOutputStream(tmpFile)) {
       out.writeDataset(dcm.createFileMetaInformation(UID.ImplicitVRLittleEndian), dcm);
@@ -98,17 +124,33 @@ public File getDicomFile() {
     return tmpFile;
   }
 
+  private BulkData getPixelData() {
+    if (volume != null) {
+      return new BulkData(
+          volume.getFile().toURI().toString(),
+          volume.getSliceOffset(sliceIndex),
+          volume.getSliceLength(),
+          false);
+    }
+    File file = imageCV.file();
+    return new BulkData(
+        file.toURI().toString(),
+        FileRawImage.HEADER_LENGTH,
+        file.length() - FileRawImage.HEADER_LENGTH,
+        false);
+  }
+
   @Override
   public PlanarImage getImageFragment(MediaElement media) throws Exception {
     if (media != null && media.getFile() != null) {
-      return imageCV.read();
+      return volume == null ? imageCV.read() : volume.readSlice(sliceIndex);
     }
     return null;
   }
 
   @Override
   public URI getUri() {
-    return imageCV.file().toURI();
+    return volume == null ? imageCV.file().toURI() : volume.getFile().toURI();
   }
 
   @Override
@@ -240,14 +282,7 @@ private synchronized DicomMetaData readMetaData() {
     dcm.setSpecificCharacterSet(cs.toCodes());
     DicomMediaUtils.fillAttributes(tags, dcm);
     dcm.addAll(attributes);
-    File file = imageCV.file();
-    BulkData bdl =
-        new BulkData(
-            file.toURI().toString(),
-            FileRawImage.HEADER_LENGTH,
-            file.length() - FileRawImage.HEADER_LENGTH,
-            false);
-    dcm.setValue(Tag.PixelData, VR.OW, bdl);
+    dcm.setValue(Tag.PixelData, VR.OW, getPixelData());
     header = new DicomMetaData(dcm, UID.ImplicitVRLittleEndian);
     HEADER_CACHE.put(this, header);
     return header;
@@ -18,6 +18,10 @@
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import javax.imageio.IIOException;
 import javax.swing.JOptionPane;
 import javax.swing.JProgressBar;
@@ -37,15 +41,19 @@
 import org.weasis.core.api.gui.util.GuiExecutor;
 import org.weasis.core.api.gui.util.GuiUtils;
 import org.weasis.core.api.gui.util.WinUtil;
+import org.weasis.core.api.media.data.DecodeScheduler;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
 import org.weasis.core.api.media.data.MediaSeries;
 import org.weasis.core.api.media.data.MediaSeriesGroup;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.media.data.TagW.TagType;
+import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.util.FileUtil;
 import org.weasis.core.util.MathUtil;
 import org.weasis.dicom.codec.DcmMediaReader;
 import org.weasis.dicom.codec.DicomImageElement;
 import org.weasis.dicom.codec.DicomSeries;
+import org.weasis.dicom.codec.SeriesVolume;
 import org.weasis.dicom.codec.SortSeriesStack;
 import org.weasis.dicom.codec.TagD;
 import org.weasis.dicom.codec.geometry.GeometryOfSlice;
@@ -53,7 +61,6 @@
 import org.weasis.dicom.explorer.DicomModel;
 import org.weasis.dicom.viewer2d.Messages;
 import org.weasis.dicom.viewer2d.mpr.MprView.SliceOrientation;
-import org.weasis.opencv.data.FileRawImage;
 import org.weasis.opencv.data.ImageCV;
 import org.weasis.opencv.data.PlanarImage;
 import org.weasis.opencv.op.ImageProcessor;
@@ -283,7 +290,7 @@ public static void createMissingSeries(
                   final MprView mprView = recView[i];
                   final ViewParameter viewParams = recParams[i];
 
-                  Iterable<DicomImageElement> medias =
+                  List<DicomImageElement> medias =
                       series.copyOfMedias(
                           filter,
                           viewParams.reverseSeriesOrder
@@ -291,32 +298,37 @@ public static void createMissingSeries(
                               : SortSeriesStack.slicePosition);
                   double origPixSize = img.getPixelSize();
 
-                  FileRawImage[] secSeries = new FileRawImage[i == 0 ? height : width];
-                  /*
-                   * Write the new image by tacking the lines (from first to last) of all the images
-                   * of the original series stack
-                   */
-                  double sPixSize =
-                      writeBlock(secSeries, medias, viewParams, mprView, thread, abort, size);
-
+                  double sPixSize = getSliceSpace(medias, mprView, thread, abort);
                   if (thread.isInterrupted()) {
                     return;
                   }
                   /*
-                   * Reconstruct dicom files, adapt position, orientation, pixel spacing, instance
-                   * number and UIDs.
+                   * Write the new images by stacking the lines (from first to last) of all the
+                   * images of the original series stack
                    */
-                  final DicomSeries dicomSeries =
-                      buildDicomSeriesFromRaw(
-                          secSeries,
-                          new Dimension(i == 0 ? width : height, size),
-                          img,
-                          viewParams,
-                          origPixSize,
-                          sPixSize,
-                          geometry,
-                          mprView,
-                          attributes);
+                  int nbImages = i == 0 ? height : width;
+                  MprVolume volume =
+                      writeBlock(series, medias, nbImages, viewParams, mprView, thread, abort);
+
+                  if (volume == null) {
+                    return;
+                  }
+                  final DicomSeries dicomSeries;
+                  try {
+                    if (thread.isInterrupted()) {
+                      return;
+                    }
+                    /*
+                     * Reconstruct dicom files, adapt position, orientation, pixel spacing,
+                     * instance number and UIDs.
+                     */
+                    dicomSeries =
+                        buildDicomSeriesFromRaw(
+                            volume, img, viewParams, origPixSize, sPixSize, geometry, attributes);
+                  } finally {
+                    // The images hold their own reference
+                    volume.release();
+                  }
 
                   if (dicomSeries.size(null) > 0) {
                     dicomSeries.getMedia(0, null, null).getMediaReader().writeMetaData(dicomSeries);
@@ -354,41 +366,21 @@ public static void createMissingSeries(
   }
 
   private static DicomSeries buildDicomSeriesFromRaw(
-      final FileRawImage[] newSeries,
-      Dimension dim,
+      final MprVolume volume,
       DicomImageElement img,
       ViewParameter params,
       double origPixSize,
       double sPixSize,
       GeometryOfSlice geometry,
-      final MprView view,
-      final Attributes attributes)
-      throws Exception {
+      final Attributes attributes) {
 
     int bitsAllocated = img.getBitsAllocated();
     int bitsStored = img.getBitsStored();
-    double[] pixSpacing = new double[] {sPixSize, origPixSize};
-
-    final JProgressBar bar = view.getProgressBar();
-
-    if (params.rotateOutputImg) {
-      if (bar != null) {
-        GuiExecutor.execute(
-            () -> {
-              bar.setMaximum(newSeries.length);
-              bar.setValue(0);
-              // Force to reset the progress bar
-              bar.updateUI();
-              view.repaint();
-            });
-      }
-
-      pixSpacing = new double[] {origPixSize, sPixSize};
-
-      int tmp = dim.width;
-      dim.width = dim.height;
-      dim.height = tmp;
-    }
+    // The images of the volume are already rotated
+    double[] pixSpacing =
+        params.rotateOutputImg
+            ? new double[] {origPixSize, sPixSize}
+            : new double[] {sPixSize, origPixSize};
 
     final int[] COPIED_ATTRS = {
       Tag.SpecificCharacterSet,
@@ -447,34 +439,17 @@ private static DicomSeries buildDicomSeriesFromRaw(
     cpTags.setString(Tag.ImageType, VR.CS, "DERIVED", "SECONDARY", "MPR"); // NON-NLS
     cpTags.setString(Tag.FrameOfReferenceUID, VR.UI, params.frameOfReferenceUID);
 
-    int last = newSeries.length;
-    List<DicomImageElement> dcms = new ArrayList<>();
-
-    for (int i = 0; i < newSeries.length; i++) {
-      if (params.rotateOutputImg) {
-        try {
-          newSeries[i].write(
-              ImageProcessor.getRotatedImage(newSeries[i].read(), Core.ROTATE_90_CLOCKWISE));
-        } catch (Exception e) {
-          FileUtil.delete(newSeries[i].file());
-          throw e;
-        }
+    int last = volume.getDepth();
+    List<DicomImageElement> dcms = new ArrayList<>(last);
 
-        if (bar != null) {
-          GuiExecutor.execute(
-              () -> {
-                bar.setValue(bar.getValue() + 1);
-                view.repaint();
-              });
-        }
-      }
-      RawImageIO rawIO = new RawImageIO(newSeries[i], null);
-      rawIO.getFileCache().setOriginalTempFile(newSeries[i].file());
+    for (int i = 0; i < last; i++) {
+      // Each image holds a reference on the volume, the file is deleted with the last image
+      RawImageIO rawIO = new RawImageIO(volume, i, null);
       rawIO.setBaseAttributes(cpTags);
 
       // Tags with same values for all the Series
-      rawIO.setTag(TagD.get(Tag.Columns), dim.width);
-      rawIO.setTag(TagD.get(Tag.Rows), dim.height);
+      rawIO.setTag(TagD.get(Tag.Columns), volume.getWidth());
+      rawIO.setTag(TagD.get(Tag.Rows), volume.getHeight());
       rawIO.setTag(TagD.get(Tag.SliceThickness), origPixSize);
       rawIO.setTag(TagD.get(Tag.PixelSpacing), pixSpacing);
       rawIO.setTag(TagD.get(Tag.SeriesInstanceUID), params.seriesUID);
@@ -564,114 +539,222 @@ public static void copyMandatoryTags(DicomImageElement img, RawImageIO rawIO) {
     rawIO.setTag(TagW.MonoChrome, img.getTagValue(TagW.MonoChrome));
   }
 
-  private static double writeBlock(
-      FileRawImage[] newSeries,
-      Iterable<DicomImageElement> medias,
+  private static double getSliceSpace(
+      List<DicomImageElement> medias, final MprView view, Thread thread, final boolean[] abort) {
+    // TODO should return the more frequent space!
+    double epsilon = 1e-3;
+    double lastPos = 0.0;
+    double lastSpace = 0.0;
+    int index = 0;
+    for (DicomImageElement dcm : medias) {
+      if (thread.isInterrupted()) {
+        return lastSpace;
+      }
+      double[] sp = (double[]) dcm.getTagValue(TagW.SlicePosition);
+      boolean validSp = sp != null && sp.length == 3;
+      if (!validSp && !abort[1]) {
+        confirmMessage(view, Messages.getString("SeriesBuilder.space_missing"), abort);
+      } else if (validSp) {
+        double pos = sp[0] + sp[1] + sp[2];
+        if (index > 0) {
+          double space = Math.abs(pos - lastPos);
+          if (!abort[1]
+              && (MathUtil.isEqualToZero(space)
+                  || (index > 1 && Math.abs(lastSpace - space) > epsilon))) {
+            confirmMessage(view, Messages.getString("SeriesBuilder.space"), abort);
+          }
+          lastSpace = space;
+        }
+        lastPos = pos;
+        index++;
+      }
+    }
+    return lastSpace;
+  }
+
+  /**
+   * Decodes the images of the original stack in parallel and writes directly their lines in the
+   * mapped file of the new series. The position of an image in the stack gives the row (or the
+   * column when the new images are rotated) where its lines are written.
+   *
+   * <p>The original images are read from the volume shared by the builders of the series, so the
+   * second orientation and the other viewers (MIP, 3D...) do not decode them again.
+   *
+   * @return the volume of the new series or null if the task has been interrupted
+   */
+  private static MprVolume writeBlock(
+      MediaSeries<DicomImageElement> series,
+      List<DicomImageElement> medias,
+      int nbImages,
       ViewParameter params,
       final MprView view,
       Thread thread,
-      final boolean[] abort,
-      int dstHeight)
+      final boolean[] abort)
       throws IOException {
-    ImageCV[] builImgs = new ImageCV[newSeries.length];
+    int dstHeight = medias.size();
+    if (dstHeight == 0) {
+      return null;
+    }
 
-    // TODO should return the more frequent space!
-    final JProgressBar bar = view.getProgressBar();
+    SeriesVolume source = SeriesVolume.acquire(series);
     try {
+      return writeBlock(source, medias, nbImages, params, view, thread, abort);
+    } finally {
+      if (source != null) {
+        source.release();
+      }
+    }
+  }
 
-      double epsilon = 1e-3;
-      double lastPos = 0.0;
-      double lastSpace = 0.0;
-      int index = 0;
-      for (DicomImageElement media : medias) {
-        if (thread.isInterrupted()) {
-          return lastSpace;
-        }
-        DicomImageElement dcm = media;
-        double[] sp = (double[]) dcm.getTagValue(TagW.SlicePosition);
-        boolean validSp = sp != null && sp.length == 3;
-        if (!validSp && !abort[1]) {
-          confirmMessage(view, Messages.getString("SeriesBuilder.space_missing"), abort);
-        } else if (validSp) {
-          double pos = sp[0] + sp[1] + sp[2];
-          if (index > 0) {
-            double space = Math.abs(pos - lastPos);
-            if (!abort[1]
-                && (MathUtil.isEqualToZero(space)
-                    || (index > 1 && Math.abs(lastSpace - space) > epsilon))) {
-              confirmMessage(view, Messages.getString("SeriesBuilder.space"), abort);
-            }
-            lastSpace = space;
-          }
-          lastPos = pos;
-          index++;
-          if (bar != null) {
-            GuiExecutor.execute(
-                () -> {
-                  bar.setValue(bar.getValue() + 1);
-                  view.repaint();
-                });
-          }
-        }
+  private static MprVolume writeBlock(
+      SeriesVolume source,
+      List<DicomImageElement> medias,
+      int nbImages,
+      ViewParameter params,
+      final MprView view,
+      Thread thread,
+      final boolean[] abort)
+      throws IOException {
+    int dstHeight = medias.size();
+    // The first image gives the size and the type of the new images
+    int width;
+    int type;
+    try (ImageCV first = readRotatedImage(source, medias.getFirst(), params)) {
+      if (first.height() != nbImages) {
+        abort[0] = true;
+        throw new IIOException("The image size does not match the geometry of the series");
+      }
+      width = first.width();
+      type = first.type();
+    }
 
-        // TODO do not open more than 512 files (Limitation to open 1024 in the same time on Ubuntu)
-        PlanarImage image = dcm.getImage(null, false);
-        if (image == null) {
-          abort[0] = true;
-          throw new IIOException("Cannot read an image!");
-        }
-        if (MathUtil.isDifferent(dcm.getRescaleX(), dcm.getRescaleY())) {
-          Dimension dim =
-              new Dimension(
-                  (int) (Math.abs(dcm.getRescaleX()) * image.width()),
-                  (int) (Math.abs(dcm.getRescaleY()) * image.height()));
-          try (ImageCV rimg = ImageProcessor.scale(image.toImageCV(), dim, Imgproc.INTER_LINEAR)) {
-            writeRasterInRaw(rimg, newSeries, builImgs, params, dstHeight, index);
-          }
-        } else {
-          writeRasterInRaw(image, newSeries, builImgs, params, dstHeight, index);
-        }
+    File dir = new File(MPR_CACHE_DIR, params.seriesUID);
+    dir.mkdirs();
+    File file = File.createTempFile("mpr_", ".raw", dir); // NON-NLS
+    MprVolume volume = null;
+    boolean built = false;
+    ExecutorService executor =
+        ThreadUtil.buildNewFixedThreadExecutor(
+            DecodeScheduler.getDefaultThreadNumber(), "MPR Builder"); // NON-NLS
+    try {
+      volume =
+          params.rotateOutputImg
+              ? MprVolume.create(file, nbImages, dstHeight, width, type)
+              : MprVolume.create(file, nbImages, width, dstHeight, type);
+      final MprVolume vol = volume;
+      final JProgressBar bar = view.getProgressBar();
+      List<Callable<Void>> tasks = new ArrayList<>(dstHeight);
+      for (int k = 0; k < dstHeight; k++) {
+        final int index = k;
+        tasks.add(
+            () -> {
+              if (thread.isInterrupted() || abort[0]) {
+                return null;
+              }
+              ImageCV img = readRotatedImage(source, medias.get(index), params);
+              try {
+                writeRasterInVolume(img, vol, params, index);
+              } finally {
+                img.release();
+              }
+              if (bar != null) {
+                GuiExecutor.execute(
+                    () -> {
+                      bar.setValue(bar.getValue() + 1);
+                      view.repaint();
+                    });
+              }
+              return null;
+            });
       }
 
-      return lastSpace;
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+      if (thread.isInterrupted()) {
+        return null;
+      }
+      built = true;
+      return volume;
+    } catch (InterruptedException e) {
+      thread.interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      abort[0] = true;
+      if (e.getCause() instanceof IOException ioe) {
+        throw ioe;
+      }
+      throw new IOException(e.getCause());
     } finally {
-      for (int i = 0; i < newSeries.length; i++) {
-        if (newSeries[i] != null) {
-          if (abort[0]) {
-            FileUtil.delete(newSeries[i].file());
-          } else {
-            newSeries[i].write(builImgs[i]);
-          }
-          builImgs[i].release();
+      executor.shutdownNow();
+      if (!built) {
+        if (volume == null) {
+          FileUtil.delete(file);
+        } else {
+          // Unmaps and deletes the file
+          volume.release();
         }
       }
     }
   }
 
-  private static void writeRasterInRaw(
-      PlanarImage image,
-      FileRawImage[] newSeries,
-      ImageCV[] buildImg,
-      ViewParameter params,
-      int dstHeight,
-      int imgIndex)
-      throws IOException {
+  private static ImageCV readRotatedImage(
+      SeriesVolume source, DicomImageElement dcm, ViewParameter params) throws IIOException {
+    ImageCV slice = source == null ? null : source.getSlice(dcm);
+    PlanarImage image = slice == null ? dcm.getImage(null, false, Priority.BACKGROUND) : slice;
+    if (image == null) {
+      throw new IIOException("Cannot read an image!");
+    }
+    if (MathUtil.isDifferent(dcm.getRescaleX(), dcm.getRescaleY())) {
+      Dimension dim =
+          new Dimension(
+              (int) (Math.abs(dcm.getRescaleX()) * image.width()),
+              (int) (Math.abs(dcm.getRescaleY()) * image.height()));
+      ImageCV rimg = ImageProcessor.scale(image.toImageCV(), dim, Imgproc.INTER_LINEAR);
+      ImageCV img = ImageProcessor.getRotatedImage(rimg, params.rotateCvType);
+      if (!img.equals(rimg)) {
+        rimg.release();
+      }
+      if (slice != null) {
+        slice.release();
+      }
+      return img;
+    }
     ImageCV img = ImageProcessor.getRotatedImage(image.toMat(), params.rotateCvType);
-    if (newSeries != null && img != null && img.height() == newSeries.length) {
-      if (newSeries[0] == null) {
-        File dir = new File(MPR_CACHE_DIR, params.seriesUID);
-        dir.mkdirs();
-        for (int i = 0; i < newSeries.length; i++) {
-          newSeries[i] = new FileRawImage(new File(dir, "mpr_" + (i + 1) + ".wcv")); // NON-NLS
-          buildImg[i] = new ImageCV(dstHeight, img.width(), img.type());
-        }
+    if (slice != null) {
+      // The slice of the volume is already a copy
+      if (!img.equals(slice)) {
+        slice.release();
       }
+      return img;
+    }
+    if (img.equals(image)) {
+      // Never release the image of the cache
+      ImageCV copy = new ImageCV();
+      img.copyTo(copy);
+      return copy;
+    }
+    return img;
+  }
 
-      for (int j = 0; j < newSeries.length; j++) {
-        img.row(j).copyTo(buildImg[j].row(imgIndex - 1));
-      }
-      if (!img.equals(image)) {
-        img.release();
+  private static void writeRasterInVolume(
+      ImageCV img, MprVolume volume, ViewParameter params, int imgIndex) {
+    int width = params.rotateOutputImg ? volume.getHeight() : volume.getWidth();
+    if (img.height() != volume.getDepth()
+        || img.width() != width
+        || img.type() != volume.getType()) {
+      // Ignore an image which has not the same size as the first one
+      return;
+    }
+    Object buffer = volume.createBuffer(width);
+    int column = volume.getWidth() - 1 - imgIndex;
+    for (int j = 0; j < volume.getDepth(); j++) {
+      SeriesVolume.getData(img, j, buffer);
+      if (params.rotateOutputImg) {
+        // Equivalent to write the row and rotate the new image by 90 degrees clockwise
+        volume.writeColumn(buffer, j, column);
+      } else {
+        volume.writeRow(buffer, j, imgIndex);
       }
     }
   }
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.viewer2d.mip;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.opencv.core.CvType;
+import org.opencv.osgi.OpenCVNativeLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
+import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.dicom.viewer2d.mip.MipView.Type;
+import org.weasis.opencv.data.ImageCV;
+
+class SlabProjectionTest {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SlabProjectionTest.class);
+
+  private static final int WIDTH = 7;
+  private static final int HEIGHT = 5;
+
+  private static boolean loadOpenCV() {
+    try {
+      new OpenCVNativeLoader().init();
+      return true;
+    } catch (Throwable e) {
+      LOGGER.warn("Cannot load the native OpenCV library: {}", e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Builds the source images, the pixels are null for the ignored images (not readable or with a
+   * different size).
+   */
+  private static List<ImageElement> buildSources(int[][] pixels, Random random) {
+    List<ImageElement> sources = new ArrayList<>(pixels.length);
+    for (int[] values : pixels) {
+      ImageCV image = null;
+      if (values != null) {
+        image = new ImageCV(HEIGHT, WIDTH, CvType.CV_16UC1);
+        short[] data = new short[values.length];
+        for (int p = 0; p < values.length; p++) {
+          data[p] = (short) values[p];
+        }
+        image.put(0, 0, data);
+      } else if (random.nextBoolean()) {
+        image = new ImageCV(HEIGHT + 1, WIDTH, CvType.CV_16UC1);
+      }
+      ImageElement img = Mockito.mock(ImageElement.class);
+      Mockito.when(img.getImage(null, false, Priority.BACKGROUND)).thenReturn(image);
+      sources.add(img);
+    }
+    return sources;
+  }
+
+  private static int[] bruteForce(Type type, int[][] pixels, int start, int end) {
+    int[] result = null;
+    double[] sum = new double[WIDTH * HEIGHT];
+    int count = 0;
+    for (int i = start; i <= end; i++) {
+      int[] values = pixels[i];
+      if (values == null) {
+        continue;
+      }
+      count++;
+      if (result == null) {
+        result = values.clone();
+      }
+      for (int p = 0; p < values.length; p++) {
+        sum[p] += values[p];
+        if (Type.MIN.equals(type)) {
+          result[p] = Math.min(result[p], values[p]);
+        } else if (Type.MAX.equals(type)) {
+          result[p] = Math.max(result[p], values[p]);
+        }
+      }
+    }
+    if (result != null && Type.MEAN.equals(type)) {
+      for (int p = 0; p < sum.length; p++) {
+        result[p] = (int) Math.rint(sum[p] * (1.0 / count));
+      }
+    }
+    return result;
+  }
+
+  private static void assertSameSlabs(Type type, int[][] pixels, int extend, Random random) {
+    SlabProjection projection =
+        new SlabProjection(type, buildSources(pixels, random), extend, null);
+    int maxIndex = pixels.length - 1;
+    boolean[] computed = new boolean[pixels.length];
+    projection.compute(
+        0,
+        maxIndex,
+        (index, start, end, slab) -> {
+          try {
+            assertEquals(projection.getStart(index), start);
+            assertEquals(projection.getEnd(index), end);
+            int[] expected = bruteForce(type, pixels, start, end);
+            assertNotNull(expected, "Slab without image at " + index);
+            short[] data = new short[WIDTH * HEIGHT];
+            slab.get(0, 0, data);
+            for (int p = 0; p < data.length; p++) {
+              assertEquals(expected[p], data[p] & 0xFFFF, type + " at " + index + ", pixel " + p);
+            }
+            computed[index] = true;
+            return true;
+          } finally {
+            slab.release();
+          }
+        });
+
+    for (int index = 0; index <= maxIndex; index++) {
+      int start = projection.getStart(index);
+      int end = projection.getEnd(index);
+      boolean expected = end > start && bruteForce(type, pixels, start, end) != null;
+      assertEquals(expected, computed[index], type + " slab " + index);
+    }
+  }
+
+  @Test
+  void test_random_stacks() {
+    assumeTrue(loadOpenCV(), "Native OpenCV is not available"); // NON-NLS
+    Random random = new Random(13);
+    for (int nbImages : new int[] {1, 2, 5, 30}) {
+      for (int extend : new int[] {0, 1, 3, 8}) {
+        int[][] pixels = new int[nbImages][];
+        for (int i = 0; i < nbImages; i++) {
+          // The first image gives the reference size
+          if (i == 0 || random.nextInt(5) > 0) {
+            pixels[i] = random.ints(WIDTH * HEIGHT, 0, 4096).toArray();
+          }
+        }
+        for (Type type : List.of(Type.MIN, Type.MAX, Type.MEAN)) {
+          assertSameSlabs(type, pixels, extend, random);
+        }
+      }
+    }
+  }
+
+  @Test
+  void test_ignored_images() {
+    assumeTrue(loadOpenCV(), "Native OpenCV is not available"); // NON-NLS
+    Random random = new Random(21);
+    int[][] pixels = new int[9][];
+    pixels[0] = random.ints(WIDTH * HEIGHT, 0, 4096).toArray();
+    pixels[2] = random.ints(WIDTH * HEIGHT, 0, 4096).toArray();
+    // A window made only of ignored images
+    pixels[8] = random.ints(WIDTH * HEIGHT, 0, 4096).toArray();
+    for (Type type : List.of(Type.MIN, Type.MAX, Type.MEAN)) {
+      for (int extend : new int[] {1, 2}) {
+        assertSameSlabs(type, pixels, extend, random);
+      }
+    }
+
+    // The mean of the readable images only
+    int[][] constant = {new int[WIDTH * HEIGHT], null, new int[WIDTH * HEIGHT]};
+    Arrays.fill(constant[0], 100);
+    Arrays.fill(constant[2], 300);
+    SlabProjection projection =
+        new SlabProjection(Type.MEAN, buildSources(constant, random), 1, null);
+    int[] value = {-1};
+    projection.compute(
+        1,
+        1,
+        (_, _, _, slab) -> {
+          value[0] = (int) slab.get(2, 3)[0];
+          slab.release();
+          return true;
+        });
+    assertEquals(200, value[0]);
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.viewer2d.mpr;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opencv.core.CvType;
+import org.opencv.osgi.OpenCVNativeLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.opencv.data.ImageCV;
+
+class MprVolumeTest {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MprVolumeTest.class);
+
+  private static final int DEPTH = 3;
+  private static final int WIDTH = 4;
+  private static final int HEIGHT = 5;
+
+  @TempDir Path folder;
+
+  private static boolean loadOpenCV() {
+    try {
+      new OpenCVNativeLoader().init();
+      return true;
+    } catch (Throwable e) {
+      LOGGER.warn("Cannot load the native OpenCV library: {}", e.getMessage());
+      return false;
+    }
+  }
+
+  private static short value(int index, int row, int column) {
+    return (short) (index * 1000 + row * 10 + column);
+  }
+
+  @Test
+  void test_slice_layout() throws IOException {
+    File file = folder.resolve("mpr_layout.raw").toFile();
+    MprVolume volume = MprVolume.create(file, DEPTH, WIDTH, HEIGHT, CvType.CV_16UC1);
+    try {
+      assertEquals((long) DEPTH * WIDTH * HEIGHT * 2, file.length());
+      assertEquals(WIDTH * HEIGHT * 2, volume.getSliceLength());
+      assertEquals(2L * WIDTH * HEIGHT * 2, volume.getSliceOffset(2));
+
+      // Rows of the first images, columns of the last one
+      for (int index = 0; index < DEPTH - 1; index++) {
+        for (int row = 0; row < HEIGHT; row++) {
+          short[] buffer = (short[]) volume.createBuffer(WIDTH);
+          for (int c = 0; c < WIDTH; c++) {
+            buffer[c] = value(index, row, c);
+          }
+          volume.writeRow(buffer, index, row);
+        }
+      }
+      for (int column = 0; column < WIDTH; column++) {
+        short[] buffer = (short[]) volume.createBuffer(HEIGHT);
+        for (int r = 0; r < HEIGHT; r++) {
+          buffer[r] = value(DEPTH - 1, r, column);
+        }
+        volume.writeColumn(buffer, DEPTH - 1, column);
+      }
+
+      // Each image is contiguous in the file, row by row, in little endian
+      try (RandomAccessFile raf = new RandomAccessFile(file, "r")) { // NON-NLS
+        for (int index = 0; index < DEPTH; index++) {
+          for (int r = 0; r < HEIGHT; r++) {
+            for (int c = 0; c < WIDTH; c++) {
+              int low = raf.read();
+              int high = raf.read();
+              assertEquals(value(index, r, c), (short) (low | high << 8));
+            }
+          }
+        }
+      }
+    } finally {
+      volume.release();
+    }
+  }
+
+  @Test
+  void test_read_slices() throws IOException {
+    assumeTrue(loadOpenCV(), "Native OpenCV is not available"); // NON-NLS
+    File file = folder.resolve("mpr_read.raw").toFile();
+    MprVolume volume = MprVolume.create(file, DEPTH, WIDTH, HEIGHT, CvType.CV_16UC1);
+    try {
+      for (int index = 0; index < DEPTH; index++) {
+        for (int column = 0; column < WIDTH; column++) {
+          short[] buffer = (short[]) volume.createBuffer(HEIGHT);
+          for (int r = 0; r < HEIGHT; r++) {
+            buffer[r] = value(index, r, column);
+          }
+          volume.writeColumn(buffer, index, column);
+        }
+      }
+      for (int index = 0; index < DEPTH; index++) {
+        ImageCV img = volume.readSlice(index);
+        try {
+          assertEquals(WIDTH, img.width());
+          assertEquals(HEIGHT, img.height());
+          for (int r = 0; r < HEIGHT; r++) {
+            for (int c = 0; c < WIDTH; c++) {
+              assertEquals(value(index, r, c), (int) img.get(r, c)[0]);
+            }
+          }
+        } finally {
+          img.release();
+        }
+      }
+      assertThrows(IndexOutOfBoundsException.class, () -> volume.readSlice(DEPTH));
+    } finally {
+      volume.release();
+    }
+  }
+
+  @Test
+  void test_little_endian_file() throws IOException {
+    File file = folder.resolve("mpr_endian.raw").toFile();
+    MprVolume volume = MprVolume.create(file, DEPTH, WIDTH, HEIGHT, CvType.CV_16UC1);
+    // Held by an image
+    assertTrue(volume.acquire());
+    short[] buffer = (short[]) volume.createBuffer(WIDTH);
+    buffer[1] = 0x0102;
+    volume.writeRow(buffer, 1, 2);
+    volume.release();
+
+    // The file is still there for the images, as the source of the DICOM export
+    long offset = volume.getSliceOffset(1) + (2L * WIDTH + 1) * 2;
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) { // NON-NLS
+      raf.seek(offset);
+      assertEquals(0x02, raf.read());
+      assertEquals(0x01, raf.read());
+    }
+    volume.release();
+    assertFalse(file.exists());
+  }
+
+  @Test
+  void test_file_lifetime() throws IOException {
+    File file = folder.resolve("mpr_life.raw").toFile();
+    MprVolume volume = MprVolume.create(file, DEPTH, WIDTH, HEIGHT, CvType.CV_8UC1);
+    RawImageIO[] images = new RawImageIO[DEPTH];
+    for (int i = 0; i < DEPTH; i++) {
+      images[i] = new RawImageIO(volume, i, null);
+    }
+    // Released by the builder, the images still use the volume
+    volume.release();
+    assertTrue(file.exists());
+    assertFalse(volume.isReleased());
+
+    images[0].getFileCache().dispose();
+    // Disposing the same image again does not release the volume of the others
+    images[0].getFileCache().dispose();
+    images[1].getFileCache().dispose();
+    assertTrue(file.exists());
+
+    // Unmapped and deleted with the last image
+    images[2].getFileCache().dispose();
+    assertTrue(volume.isReleased());
+    assertFalse(file.exists());
+    assertFalse(volume.acquire());
+    assertNull(volume.readSlice(0));
+    assertThrows(IllegalStateException.class, () -> new RawImageIO(volume, 0, null));
+  }
+}
@@ -16,11 +16,15 @@ public class AbstractWaveData implements WaveDataReadable {
   protected final DataBuffer data;
   protected final int nbOfChannels;
   protected final int nbSamplesPerChannel;
+  private final SamplePyramid[] pyramids;
+  // Raw minimum and maximum of getSampleRange(), called for each pixel column of the leads
+  private final int[] range = new int[2];
 
   public AbstractWaveData(DataBuffer data, int nbOfChannels, int nbSamplesPerChannel) {
     this.data = data;
     this.nbOfChannels = nbOfChannels;
     this.nbSamplesPerChannel = nbSamplesPerChannel;
+    this.pyramids = new SamplePyramid[Math.max(0, nbOfChannels)];
   }
 
   @Override
@@ -40,13 +44,44 @@ public int getNbSamplesPerChannel() {
 
   @Override
   public double getSample(int index, ChannelDefinition channel) {
-    return data.getElem(index * nbOfChannels + channel.getPosition())
-            * channel.getAmplitudeUnitScalingFactor()
+    return getRawSample(index, channel) * channel.getAmplitudeUnitScalingFactor()
         + channel.getBaseline();
   }
 
   @Override
   public int getRawSample(int index, ChannelDefinition channel) {
-    return data.getElem(index * nbOfChannels + channel.getPosition());
+    return getElem(index * nbOfChannels + channel.getPosition());
+  }
+
+  /** Returns the raw value at an index of the interleaved samples of all the channels. */
+  protected int getElem(int i) {
+    return data.getElem(i);
+  }
+
+  @Override
+  public synchronized void getSampleRange(
+      int start, int end, ChannelDefinition channel, double[] minMax) {
+    getPyramid(channel).getRange(start, end, range);
+    if (range[0] > range[1]) {
+      minMax[0] = Double.NaN;
+      minMax[1] = Double.NaN;
+      return;
+    }
+    double v1 = range[0] * channel.getAmplitudeUnitScalingFactor() + channel.getBaseline();
+    double v2 = range[1] * channel.getAmplitudeUnitScalingFactor() + channel.getBaseline();
+    minMax[0] = Math.min(v1, v2);
+    minMax[1] = Math.max(v1, v2);
+  }
+
+  /** Returns the min/max pyramid of a channel, built at the first call. */
+  private synchronized SamplePyramid getPyramid(ChannelDefinition channel) {
+    int position = channel.getPosition();
+    SamplePyramid pyramid = pyramids[position];
+    if (pyramid == null) {
+      pyramid =
+          new SamplePyramid(i -> getElem(i * nbOfChannels + position), nbSamplesPerChannel);
+      pyramids[position] = pyramid;
+    }
+    return pyramid;
   }
 }
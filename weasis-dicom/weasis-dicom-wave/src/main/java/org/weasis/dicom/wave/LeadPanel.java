@@ -33,6 +33,8 @@
 import org.weasis.dicom.wave.SignalMarker.Measure;
 
 public class LeadPanel extends JPanel {
+  // Below, several samples fall in a pixel and only their extremes are drawn
+  private static final double MIN_PIXELS_PER_SAMPLE = 0.5;
 
   private final WaveView view;
   private final ChannelDefinition channels;
@@ -363,6 +365,11 @@ private void drawWaveData(Graphics2D g2, Dimension dim) {
     Stroke stroke = new BasicStroke(1.2f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
     g2.setStroke(stroke);
 
+    if (ratioX < MIN_PIXELS_PER_SAMPLE) {
+      g2.draw(buildDecimatedPath(halfHeight, cellHeight));
+      return;
+    }
+
     Path2D path = new Path2D.Double(Path2D.WIND_NON_ZERO, sampleNumber);
     double x = 0.0;
     double y = halfHeight - (data.getSample(sampleOffset, channels) / 1000 * cellHeight);
@@ -375,6 +382,45 @@ private void drawWaveData(Graphics2D g2, Dimension dim) {
     g2.draw(path);
   }
 
+  /**
+   * Builds the path with two vertices per pixel column, the minimum and the maximum of the samples
+   * of the column. The range of a column includes the first sample of the next one, so the vertical
+   * lines overlap like the segments joining the samples at full resolution.
+   */
+  private Path2D buildDecimatedPath(double halfHeight, double cellHeight) {
+    int end = Math.min(sampleOffset + sampleNumber, data.getNbSamplesPerChannel());
+    int columns = (int) Math.ceil(ratioX * sampleNumber);
+    Path2D path = new Path2D.Double(Path2D.WIND_NON_ZERO, columns * 2);
+    double[] minMax = new double[2];
+    double lastY = Double.NaN;
+    int start = sampleOffset;
+    for (int px = 0; px < columns && start < end; px++) {
+      int next = Math.min(end, sampleOffset + (int) Math.ceil((px + 1) / ratioX));
+      data.getSampleRange(start, Math.min(end, next + 1), channels, minMax);
+      start = next;
+      if (Double.isNaN(minMax[0])) {
+        continue;
+      }
+      double top = halfHeight - (minMax[1] / 1000 * cellHeight);
+      double bottom = halfHeight - (minMax[0] / 1000 * cellHeight);
+      if (Double.isNaN(lastY)) {
+        path.moveTo(px, top);
+        path.lineTo(px, bottom);
+        lastY = bottom;
+      } else if (Math.abs(lastY - top) <= Math.abs(lastY - bottom)) {
+        // Start with the closest extreme to join the previous column with the shortest line
+        path.lineTo(px, top);
+        path.lineTo(px, bottom);
+        lastY = bottom;
+      } else {
+        path.lineTo(px, bottom);
+        path.lineTo(px, top);
+        lastY = top;
+      }
+    }
+    return path;
+  }
+
   private void drawSelectedBackground(Graphics2D g2) {
     SignalMarker start = getSignalMarker(Measure.VERTICAL, SignalMarker.Type.START);
     SignalMarker stop = getSignalMarker(Measure.VERTICAL, SignalMarker.Type.STOP);
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.wave;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Minimum and maximum of the raw samples of a channel by blocks. The first level has blocks of
+ * {@value #BASE_BLOCK} samples and each next level merges {@value #FACTOR} blocks, so the extremes
+ * of any range are found by reading a few values per level.
+ */
+final class SamplePyramid {
+  static final int BASE_BLOCK = 16;
+  static final int FACTOR = 4;
+
+  private final IntUnaryOperator rawSamples;
+  private final int length;
+  // Size of the blocks of each level, the level 0 being the samples
+  private final int[] blockSizes;
+  private final int[][] mins;
+  private final int[][] maxs;
+
+  /**
+   * @param rawSamples returns the raw sample at an index of the channel
+   * @param length the number of samples of the channel
+   */
+  SamplePyramid(IntUnaryOperator rawSamples, int length) {
+    this.rawSamples = rawSamples;
+    this.length = Math.max(0, length);
+
+    List<int[]> minLevels = new ArrayList<>();
+    List<int[]> maxLevels = new ArrayList<>();
+    int nbBlocks = (this.length + BASE_BLOCK - 1) / BASE_BLOCK;
+    if (nbBlocks > 1) {
+      int[] min = new int[nbBlocks];
+      int[] max = new int[nbBlocks];
+      for (int b = 0; b < nbBlocks; b++) {
+        int vmin = Integer.MAX_VALUE;
+        int vmax = Integer.MIN_VALUE;
+        int end = Math.min(this.length, (b + 1) * BASE_BLOCK);
+        for (int i = b * BASE_BLOCK; i < end; i++) {
+          int val = rawSamples.applyAsInt(i);
+          vmin = Math.min(vmin, val);
+          vmax = Math.max(vmax, val);
+        }
+        min[b] = vmin;
+        max[b] = vmax;
+      }
+      minLevels.add(min);
+      maxLevels.add(max);
+
+      while (min.length > FACTOR) {
+        int[] prevMin = min;
+        int[] prevMax = max;
+        nbBlocks = (prevMin.length + FACTOR - 1) / FACTOR;
+        min = new int[nbBlocks];
+        max = new int[nbBlocks];
+        for (int b = 0; b < nbBlocks; b++) {
+          int vmin = Integer.MAX_VALUE;
+          int vmax = Integer.MIN_VALUE;
+          int end = Math.min(prevMin.length, (b + 1) * FACTOR);
+          for (int i = b * FACTOR; i < end; i++) {
+            vmin = Math.min(vmin, prevMin[i]);
+            vmax = Math.max(vmax, prevMax[i]);
+          }
+          min[b] = vmin;
+          max[b] = vmax;
+        }
+        minLevels.add(min);
+        maxLevels.add(max);
+      }
+    }
+
+    this.mins = minLevels.toArray(new int[0][]);
+    this.maxs = maxLevels.toArray(new int[0][]);
+    this.blockSizes = new int[mins.length + 1];
+    blockSizes[0] = 1;
+    for (int l = 1; l < blockSizes.length; l++) {
+      blockSizes[l] = l == 1 ? BASE_BLOCK : blockSizes[l - 1] * FACTOR;
+    }
+  }
+
+  /**
+   * Gets the minimum and the maximum of the raw samples in [start, end). The values are
+   * Integer.MAX_VALUE and Integer.MIN_VALUE when the range is empty.
+   *
+   * @param minMax the array receiving the minimum and the maximum
+   */
+  void getRange(int start, int end, int[] minMax) {
+    minMax[0] = Integer.MAX_VALUE;
+    minMax[1] = Integer.MIN_VALUE;
+    int lo = Math.max(0, start);
+    int hi = Math.min(length, end);
+    int level = 0;
+    // Go up while the range contains whole blocks of the next level, the unaligned ends are read
+    // at the current level. Only complete blocks are read, so the last partial block is never used.
+    while (level + 1 < blockSizes.length) {
+      int next = blockSizes[level + 1];
+      int alignedStart = Math.ceilDiv(lo, next) * next;
+      int alignedEnd = (hi / next) * next;
+      if (alignedStart >= alignedEnd) {
+        break;
+      }
+      read(level, lo, alignedStart, minMax);
+      read(level, alignedEnd, hi, minMax);
+      lo = alignedStart;
+      hi = alignedEnd;
+      level++;
+    }
+    read(level, lo, hi, minMax);
+  }
+
+  private void read(int level, int start, int end, int[] minMax) {
+    if (level == 0) {
+      for (int i = start; i < end; i++) {
+        int val = rawSamples.applyAsInt(i);
+        minMax[0] = Math.min(minMax[0], val);
+        minMax[1] = Math.max(minMax[1], val);
+      }
+    } else {
+      int size = blockSizes[level];
+      int[] min = mins[level - 1];
+      int[] max = maxs[level - 1];
+      for (int b = start / size; b < end / size; b++) {
+        minMax[0] = Math.min(minMax[0], min[b]);
+        minMax[1] = Math.max(minMax[1], max[b]);
+      }
+    }
+  }
+}
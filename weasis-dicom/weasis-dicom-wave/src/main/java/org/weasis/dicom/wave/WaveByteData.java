@@ -12,8 +12,17 @@
 import java.awt.image.DataBufferByte;
 
 public class WaveByteData extends AbstractWaveData {
+  private final byte[] bytes;
+  private final int offset;
 
   public WaveByteData(DataBufferByte data, int nbOfChannels, int nbSamplesPerChannel) {
     super(data, nbOfChannels, nbSamplesPerChannel);
+    this.bytes = data.getData();
+    this.offset = data.getOffset();
+  }
+
+  @Override
+  protected int getElem(int i) {
+    return bytes[i + offset] & 0xff;
   }
 }
@@ -19,6 +19,14 @@ public interface WaveDataReadable {
 
   int getRawSample(int index, ChannelDefinition channel);
 
+  /**
+   * Gets the minimum and the maximum of the samples in [start, end), with the same unit as {@link
+   * #getSample(int, ChannelDefinition)}. The values are NaN when the range is empty.
+   *
+   * @param minMax the array receiving the minimum and the maximum
+   */
+  void getSampleRange(int start, int end, ChannelDefinition channel, double[] minMax);
+
   int getNbOfChannels();
 
   int getNbSamplesPerChannel();
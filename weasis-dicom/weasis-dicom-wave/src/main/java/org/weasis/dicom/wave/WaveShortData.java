@@ -12,7 +12,17 @@
 import java.awt.image.DataBufferShort;
 
 public class WaveShortData extends AbstractWaveData {
+  private final short[] shorts;
+  private final int offset;
+
   public WaveShortData(DataBufferShort data, int nbOfChannels, int nbSamplesPerChannel) {
     super(data, nbOfChannels, nbSamplesPerChannel);
+    this.shorts = data.getData();
+    this.offset = data.getOffset();
+  }
+
+  @Override
+  protected int getElem(int i) {
+    return shorts[i + offset];
   }
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.wave;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SamplePyramidTest {
+
+  private static int[] linearRange(int[] samples, int start, int end) {
+    int[] minMax = {Integer.MAX_VALUE, Integer.MIN_VALUE};
+    for (int i = Math.max(0, start); i < Math.min(samples.length, end); i++) {
+      minMax[0] = Math.min(minMax[0], samples[i]);
+      minMax[1] = Math.max(minMax[1], samples[i]);
+    }
+    return minMax;
+  }
+
+  private static void assertSameRanges(int[] samples, Random random, int nbRanges) {
+    SamplePyramid pyramid = new SamplePyramid(i -> samples[i], samples.length);
+    int[] minMax = new int[2];
+    for (int k = 0; k < nbRanges; k++) {
+      int start = random.nextInt(-8, samples.length + 8);
+      int end = start + random.nextInt(0, samples.length + 16);
+      pyramid.getRange(start, end, minMax);
+      assertArrayEquals(linearRange(samples, start, end), minMax, start + " to " + end);
+    }
+    // The whole channel and the last partial block
+    for (int start : new int[] {0, samples.length - 1, samples.length - 5}) {
+      pyramid.getRange(start, samples.length, minMax);
+      assertArrayEquals(linearRange(samples, start, samples.length), minMax);
+    }
+  }
+
+  @Test
+  void test_random_ranges() {
+    Random random = new Random(5);
+    // Lengths with and without a last partial block, over several levels
+    for (int length : new int[] {64, 1000, 1024 + 7, 5000, 65_536 + 3}) {
+      int[] samples = random.ints(length, -32768, 32768).toArray();
+      assertSameRanges(samples, random, 2000);
+    }
+    // The extremes in the last partial block
+    int[] samples = random.ints(4100, -100, 100).toArray();
+    samples[4099] = 5000;
+    samples[4097] = -5000;
+    assertSameRanges(samples, random, 500);
+  }
+
+  @Test
+  void test_short_channel() {
+    Random random = new Random(9);
+    // Shorter than two blocks, no level is built
+    for (int length = 0; length < 2 * SamplePyramid.BASE_BLOCK + 2; length++) {
+      int[] samples = random.ints(length, -500, 500).toArray();
+      assertSameRanges(samples, random, 50);
+    }
+
+    int[] minMax = new int[2];
+    new SamplePyramid(i -> 0, 0).getRange(0, 10, minMax);
+    assertEquals(Integer.MAX_VALUE, minMax[0]);
+    assertEquals(Integer.MIN_VALUE, minMax[1]);
+  }
+}